@@ -0,0 +1,55 @@
+package org.cabbage.codedemo.faultdatasync.benchmark;
+
+import org.apache.ibatis.binding.MapperMethod;
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.cabbage.codedemo.faultdatasync.entity.FaultRecordEntity;
+import org.cabbage.codedemo.faultdatasync.mapper.FaultRecordMapper;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * 用纯 MyBatis Configuration 解析应用自身的 mapper/FaultRecordMapper.xml，
+ * 复现 batchInsert 在 JDBC 执行前的客户端开销：动态 SQL 生成 + 参数取值（与 DefaultParameterHandler 一致）
+ */
+final class BatchInsertSqlBinder {
+
+    private static final String MAPPER_RESOURCE = "mapper/FaultRecordMapper.xml";
+
+    private final Configuration configuration = new Configuration();
+    private final MappedStatement batchInsert;
+
+    BatchInsertSqlBinder() {
+        try (InputStream in = Resources.getResourceAsStream(MAPPER_RESOURCE)) {
+            new XMLMapperBuilder(in, configuration, MAPPER_RESOURCE, configuration.getSqlFragments()).parse();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        batchInsert = configuration.getMappedStatement(FaultRecordMapper.class.getName() + ".batchInsert");
+    }
+
+    void bind(List<FaultRecordEntity> batch, Blackhole bh) {
+        MapperMethod.ParamMap<Object> param = new MapperMethod.ParamMap<>();
+        param.put("list", batch);
+        param.put("param1", batch);
+
+        BoundSql boundSql = batchInsert.getBoundSql(param);
+        MetaObject metaObject = configuration.newMetaObject(param);
+        for (ParameterMapping mapping : boundSql.getParameterMappings()) {
+            String property = mapping.getProperty();
+            bh.consume(boundSql.hasAdditionalParameter(property)
+                    ? boundSql.getAdditionalParameter(property)
+                    : metaObject.getValue(property));
+        }
+        bh.consume(boundSql.getSql());
+    }
+}
@@ -0,0 +1,39 @@
+package org.cabbage.codedemo.faultdatasync.benchmark;
+
+import org.cabbage.codedemo.faultdatasync.client.MockFaultDataSourceClient;
+import org.cabbage.codedemo.faultdatasync.config.MockSourceProperties;
+import org.cabbage.codedemo.faultdatasync.model.FaultDataBatchMessage;
+import org.cabbage.codedemo.faultdatasync.model.FaultRecordDTO;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 基准测试共用数据：统一由 Mock 数据源（默认 seed / payload 分布）生成，保证各基准输入一致
+ */
+final class BenchmarkFixtures {
+
+    static final String DOMAIN = "domain_a";
+    static final LocalDate DATE = LocalDate.of(2026, 3, 1);
+
+    private BenchmarkFixtures() {
+    }
+
+    static MockFaultDataSourceClient mockClient(int totalPerDomain) {
+        return new MockFaultDataSourceClient(new MockSourceProperties(), totalPerDomain);
+    }
+
+    /**
+     * 一条 rank 从 startRank+1 开始、共 records 条记录的批次消息
+     */
+    static FaultDataBatchMessage sampleMessage(long startRank, int records) {
+        List<FaultRecordDTO> page = mockClient((int) startRank + records).pull(DOMAIN, DATE, startRank, records);
+        return FaultDataBatchMessage.builder()
+                .domain(DOMAIN)
+                .dataDate(DATE)
+                .batchIndex((int) (startRank / records) + 1)
+                .startRank(startRank)
+                .records(page)
+                .build();
+    }
+}
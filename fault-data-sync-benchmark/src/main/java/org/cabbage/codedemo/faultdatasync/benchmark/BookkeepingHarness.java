@@ -0,0 +1,209 @@
+package org.cabbage.codedemo.faultdatasync.benchmark;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * sync_batch_record 记账写入对比（需真实 MySQL，非 JMH）
+ * <p>
+ * {@code threads} 个线程各自为 {@code batches} 个批次写入 pull SUCCESS，对比两种 fault-sync.bookkeeping.mode：
+ * <ul>
+ *   <li>direct：每个批次一条单行 INSERT ... ON DUPLICATE KEY UPDATE（autocommit）</li>
+ *   <li>buffered：线程把变更交给单个 flusher 并等待其落库，flusher 在 {@code flushIntervalMs} 或
+ *       {@code maxBatchSize} 条时写一条多行 upsert（与 SyncBatchBookkeeper 的组提交一致）</li>
+ * </ul>
+ * 输出耗时、吞吐、执行的语句数与调用方平均等待时间。SQL 与 mapper XML 保持一致。
+ * <p>
+ * 运行：{@code java -cp target/benchmarks.jar org.cabbage.codedemo.faultdatasync.benchmark.BookkeepingHarness
+ * [jdbcUrl] [user] [password] [threads] [batches] [flushIntervalMs] [maxBatchSize]}
+ */
+public class BookkeepingHarness {
+
+    private static final LocalDate DATE = LocalDate.of(2000, 1, 1);
+
+    private static final String UPSERT_HEAD =
+            "INSERT INTO sync_batch_record (domain, data_date, batch_index, start_rank, end_rank, record_count, "
+                    + "range_end_rank, page_size, pull_status, insert_status, create_time, update_time) VALUES ";
+
+    private static final String UPSERT_ROW = "(?, ?, ?, ?, ?, ?, NULL, 5000, 'SUCCESS', 'PENDING', NOW(), NOW())";
+
+    private static final String UPSERT_TAIL =
+            " ON DUPLICATE KEY UPDATE start_rank = VALUES(start_rank), end_rank = VALUES(end_rank), "
+                    + "record_count = VALUES(record_count), range_end_rank = VALUES(range_end_rank), "
+                    + "page_size = VALUES(page_size), pull_status = VALUES(pull_status), insert_status = 'PENDING', "
+                    + "error_message = NULL, update_time = NOW()";
+
+    public static void main(String[] args) throws Exception {
+        String url = arg(args, 0, "jdbc:mysql://127.0.0.1:3306/code_demo?serverTimezone=Asia/Shanghai");
+        String user = arg(args, 1, "root");
+        String password = arg(args, 2, System.getenv().getOrDefault("DB_PASSWORD", "1234567a"));
+        int threads = Integer.parseInt(arg(args, 3, "20"));
+        int batches = Integer.parseInt(arg(args, 4, "5000"));
+        long flushIntervalMs = Long.parseLong(arg(args, 5, "5"));
+        int maxBatchSize = Integer.parseInt(arg(args, 6, "200"));
+
+        run(url, user, password, "direct", threads, batches, flushIntervalMs, maxBatchSize);
+        run(url, user, password, "buffered", threads, batches, flushIntervalMs, maxBatchSize);
+    }
+
+    private static void run(String url, String user, String password, String mode, int threads, int batches,
+                            long flushIntervalMs, int maxBatchSize) throws Exception {
+        String domain = "harness_bk_" + mode;
+        try (Connection conn = DriverManager.getConnection(url, user, password)) {
+            clear(conn, domain);
+        }
+
+        AtomicInteger next = new AtomicInteger();
+        AtomicLong statements = new AtomicLong();
+        AtomicLong waitNanos = new AtomicLong();
+        Flusher flusher = "buffered".equals(mode)
+                ? new Flusher(DriverManager.getConnection(url, user, password), flushIntervalMs, maxBatchSize, statements)
+                : null;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                try (Connection c = flusher == null ? DriverManager.getConnection(url, user, password) : null) {
+                    int batchIndex;
+                    while ((batchIndex = next.getAndIncrement()) < batches) {
+                        long begin = System.nanoTime();
+                        if (flusher == null) {
+                            upsert(c, domain, List.of(batchIndex));
+                            statements.incrementAndGet();
+                        } else {
+                            flusher.submit(domain, batchIndex).get();
+                        }
+                        waitNanos.addAndGet(System.nanoTime() - begin);
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> f : futures) {
+            f.get();
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        pool.shutdown();
+        if (flusher != null) {
+            flusher.close();
+        }
+
+        System.out.printf("[%s] threads=%d batches=%d elapsed=%dms (%.0f batches/s) statements=%d avgWait=%.2fms%n",
+                mode, threads, batches, elapsedMs, batches * 1000.0 / Math.max(1, elapsedMs),
+                statements.get(), waitNanos.get() / 1_000_000.0 / batches);
+    }
+
+    private static void upsert(Connection c, String domain, List<Integer> batchIndexes) throws SQLException {
+        StringBuilder sql = new StringBuilder(UPSERT_HEAD);
+        for (int i = 0; i < batchIndexes.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append(UPSERT_ROW);
+        }
+        sql.append(UPSERT_TAIL);
+        try (PreparedStatement ps = c.prepareStatement(sql.toString())) {
+            int p = 1;
+            for (int batchIndex : batchIndexes) {
+                ps.setString(p++, domain);
+                ps.setObject(p++, DATE);
+                ps.setInt(p++, batchIndex);
+                ps.setLong(p++, batchIndex * 5000L);
+                ps.setLong(p++, (batchIndex + 1) * 5000L);
+                ps.setInt(p++, 5000);
+            }
+            ps.executeUpdate();
+        }
+    }
+
+    private static void clear(Connection conn, String domain) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "DELETE FROM sync_batch_record WHERE domain = ? AND data_date = ?")) {
+            ps.setString(1, domain);
+            ps.setObject(2, DATE);
+            ps.executeUpdate();
+        }
+    }
+
+    private static String arg(String[] args, int index, String defaultValue) {
+        return args.length > index ? args[index] : defaultValue;
+    }
+
+    /**
+     * 单连接组提交：取到首条变更后再等 flushIntervalMs 或凑满 maxBatchSize，一条多行 upsert 写入后通知全部调用方
+     */
+    private static final class Flusher implements AutoCloseable {
+
+        private record Pending(String domain, int batchIndex, CompletableFuture<Void> done) {
+        }
+
+        private final Connection conn;
+        private final long flushIntervalMs;
+        private final int maxBatchSize;
+        private final AtomicLong statements;
+        private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        private Flusher(Connection conn, long flushIntervalMs, int maxBatchSize, AtomicLong statements) {
+            this.conn = conn;
+            this.flushIntervalMs = flushIntervalMs;
+            this.maxBatchSize = maxBatchSize;
+            this.statements = statements;
+            this.thread = new Thread(this::loop, "harness-bookkeeper");
+            this.thread.start();
+        }
+
+        private CompletableFuture<Void> submit(String domain, int batchIndex) {
+            Pending p = new Pending(domain, batchIndex, new CompletableFuture<>());
+            queue.add(p);
+            return p.done;
+        }
+
+        private void loop() {
+            List<Pending> batch = new ArrayList<>();
+            while (running || !queue.isEmpty()) {
+                try {
+                    Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                    while (batch.size() < maxBatchSize) {
+                        Pending p = queue.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                        if (p == null) {
+                            break;
+                        }
+                        batch.add(p);
+                    }
+                    upsert(conn, batch.get(0).domain, batch.stream().map(Pending::batchIndex).toList());
+                    statements.incrementAndGet();
+                    batch.forEach(p -> p.done.complete(null));
+                } catch (Exception e) {
+                    batch.forEach(p -> p.done.completeExceptionally(e));
+                }
+                batch.clear();
+            }
+        }
+
+        @Override
+        public void close() throws Exception {
+            running = false;
+            thread.join();
+            conn.close();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package org.cabbage.codedemo.faultdatasync.benchmark;
+
+import cn.hutool.core.collection.CollUtil;
+import org.cabbage.codedemo.faultdatasync.entity.FaultRecordEntity;
+import org.cabbage.codedemo.faultdatasync.model.FaultDataBatchMessage;
+import org.cabbage.codedemo.faultdatasync.mq.consumer.FaultRecordConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 消费端 CPU 路径基准：一条 {@value #RECORDS} 条记录的消息从 DTO 到 batchInsert SQL
+ * <p>
+ * <ul>
+ *   <li>{@code convert}：FaultRecordConverter.toEntities</li>
+ *   <li>{@code split}：CollUtil.split 按 batchSize 分片</li>
+ *   <li>{@code batchInsertSql}：分片后对每片生成 FaultRecordMapper.batchInsert 的 BoundSql 并解析全部参数值
+ *   （与 DefaultParameterHandler 取值方式一致，不含 JDBC 往返）</li>
+ * </ul>
+ * batchSize 对应 {@code fault-sync.batch-size}；每次调用处理整条消息，结果单位为 records/s。
+ * Mapper XML 由 {@link BatchInsertSqlBinder} 以纯 MyBatis Configuration 解析（与应用共用同一文件）。
+ * 运行：{@code java -jar target/benchmarks.jar ConsumerPathBenchmark -prof gc}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConsumerPathBenchmark {
+
+    private static final int RECORDS = 5000;
+
+    @Param({"500", "1000", "2000", "5000"})
+    private int batchSize;
+
+    private FaultDataBatchMessage message;
+    private List<FaultRecordEntity> entities;
+    private BatchInsertSqlBinder binder;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        message = BenchmarkFixtures.sampleMessage(0, RECORDS);
+        entities = FaultRecordConverter.toEntities(message);
+        binder = new BatchInsertSqlBinder();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public List<FaultRecordEntity> convert() {
+        return FaultRecordConverter.toEntities(message);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public List<List<FaultRecordEntity>> split() {
+        return CollUtil.split(entities, batchSize);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void batchInsertSql(Blackhole bh) {
+        for (List<FaultRecordEntity> batch : CollUtil.split(entities, batchSize)) {
+            binder.bind(batch, bh);
+        }
+    }
+}
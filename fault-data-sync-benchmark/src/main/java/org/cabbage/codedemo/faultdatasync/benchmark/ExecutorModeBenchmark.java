@@ -0,0 +1,160 @@
+package org.cabbage.codedemo.faultdatasync.benchmark;
+
+import org.cabbage.codedemo.faultdatasync.client.FaultRecordCursor;
+import org.cabbage.codedemo.faultdatasync.client.MockFaultDataSourceClient;
+import org.cabbage.codedemo.faultdatasync.config.MockSourceProperties;
+import org.cabbage.codedemo.faultdatasync.limit.SyncResourceLimiter;
+import org.cabbage.codedemo.faultdatasync.model.FaultRecordPage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 同步执行模式基准：20 领域 × 5 天的完整窗口，平台线程池 vs 每任务虚拟线程的端到端耗时
+ * <p>
+ * 每个 domain+date 按生产路径顺序执行：上游 pull（Mock 数据源，注入 {@code upstreamLatencyMs} 延迟）
+ * → markPullSuccess（模拟 JDBC）→ syncSend（模拟 broker RTT），直到拉完 {@value #RECORDS_PER_TASK} 条。
+ * 两种模式共用同一组资源许可（上游 / MQ / DB），只有执行器不同：
+ * <ul>
+ *   <li>platform：与 syncExecutor 相同的 {@code ThreadPoolExecutor(20, 20, ArrayBlockingQueue(100), CallerRunsPolicy)}</li>
+ *   <li>virtual：{@code Executors.newThreadPerTaskExecutor}，并发只受资源许可约束</li>
+ * </ul>
+ * 结果为一次完整窗口的耗时（ms）。
+ * 运行：{@code java -jar target/benchmarks.jar ExecutorModeBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExecutorModeBenchmark {
+
+    private static final int DOMAINS = 20;
+    private static final int DAYS = 5;
+    private static final int RECORDS_PER_TASK = 20000;
+    private static final int PAGE_SIZE = 5000;
+    private static final int PLATFORM_THREADS = 20;
+
+    @Param({"platform", "virtual"})
+    private String mode;
+
+    @Param({"20"})
+    private int upstreamLatencyMs;
+
+    /** 模拟 syncSend 的 broker 往返 */
+    @Param({"5"})
+    private int sendLatencyMs;
+
+    /** 模拟单条 sync_batch_record 写入 */
+    @Param({"2"})
+    private int jdbcLatencyMs;
+
+    @Param({"64"})
+    private int upstreamConcurrency;
+
+    @Param({"64"})
+    private int mqInFlight;
+
+    @Param({"10"})
+    private int dbConnections;
+
+    private MockFaultDataSourceClient client;
+    private SyncResourceLimiter limiter;
+    private Semaphore dbPermits;
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        MockSourceProperties properties = new MockSourceProperties();
+        properties.setLatencyMs(upstreamLatencyMs);
+        client = new MockFaultDataSourceClient(properties, RECORDS_PER_TASK);
+        limiter = new SyncResourceLimiter(upstreamConcurrency, mqInFlight);
+        dbPermits = new Semaphore(dbConnections, true);
+        executor = "virtual".equals(mode)
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("bench-vt-", 0).factory())
+                : new ThreadPoolExecutor(PLATFORM_THREADS, PLATFORM_THREADS, 60L, TimeUnit.SECONDS,
+                        new ArrayBlockingQueue<>(100), new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public long syncWindow() throws Exception {
+        List<Future<Long>> futures = new ArrayList<>(DOMAINS * DAYS);
+        LocalDate today = LocalDate.of(2026, 3, 6);
+        for (int d = 0; d < DOMAINS; d++) {
+            String domain = "domain_" + d;
+            for (int day = 1; day <= DAYS; day++) {
+                LocalDate date = today.minusDays(day);
+                futures.add(executor.submit(() -> syncDomainDate(domain, date)));
+            }
+        }
+        long records = 0;
+        for (Future<Long> future : futures) {
+            records += future.get();
+        }
+        return records;
+    }
+
+    private long syncDomainDate(String domain, LocalDate date) {
+        long lastRank = 0;
+        long records = 0;
+        while (true) {
+            long from = lastRank;
+            FaultRecordPage page = limiter.call(SyncResourceLimiter.Resource.UPSTREAM, () -> {
+                try (FaultRecordCursor cursor = client.openCursor(domain, date, from, PAGE_SIZE)) {
+                    return cursor.toPage(PAGE_SIZE);
+                }
+            });
+            if (page.isEmpty()) {
+                return records;
+            }
+            jdbc();
+            limiter.run(SyncResourceLimiter.Resource.MQ, () -> pause(sendLatencyMs));
+            records += page.size();
+            lastRank = page.getSummary().maxRankOr(lastRank);
+            if (page.size() < PAGE_SIZE) {
+                return records;
+            }
+        }
+    }
+
+    private void jdbc() {
+        dbPermits.acquireUninterruptibly();
+        try {
+            pause(jdbcLatencyMs);
+        } finally {
+            dbPermits.release();
+        }
+    }
+
+    private static void pause(int millis) {
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+}
@@ -0,0 +1,73 @@
+package org.cabbage.codedemo.faultdatasync.benchmark;
+
+import org.cabbage.codedemo.faultdatasync.model.FaultDataBatchMessage;
+import org.cabbage.codedemo.faultdatasync.mq.codec.BinaryFaultBatchCodec;
+import org.cabbage.codedemo.faultdatasync.mq.codec.FaultBatchCodec;
+import org.cabbage.codedemo.faultdatasync.mq.codec.JsonFaultBatchCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FaultDataBatchMessage 编解码基准：JSON 基线 vs 紧凑二进制（可选 deflate）
+ * <p>
+ * 每次调用编/解码一条 5000 条记录的消息，{@code @OperationsPerInvocation} 使结果单位为 records/s。
+ * 运行：{@code java -jar target/benchmarks.jar FaultBatchCodecBenchmark -prof gc}
+ * （-prof gc 输出 gc.alloc.rate.norm，即每条记录分配字节数）。
+ * 编码后消息大小在 Setup 阶段打印，用于对照 broker 4MB 消息上限。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FaultBatchCodecBenchmark {
+
+    private static final int RECORDS = 5000;
+
+    @Param({"json", "binary", "binary-deflate"})
+    private String codecName;
+
+    private FaultBatchCodec codec;
+    private FaultDataBatchMessage message;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        codec = switch (codecName) {
+            case "json" -> new JsonFaultBatchCodec();
+            case "binary" -> new BinaryFaultBatchCodec("none");
+            case "binary-deflate" -> new BinaryFaultBatchCodec("deflate");
+            default -> throw new IllegalArgumentException(codecName);
+        };
+        message = BenchmarkFixtures.sampleMessage(5000, RECORDS);
+        encoded = codec.encode(message);
+        System.out.printf("%n[codec=%s] encoded size=%d bytes (%.1f bytes/record)%n",
+                codecName, encoded.length, encoded.length / (double) RECORDS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public byte[] encode() {
+        return codec.encode(message);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public FaultDataBatchMessage decode() {
+        return codec.decode(encoded);
+    }
+}
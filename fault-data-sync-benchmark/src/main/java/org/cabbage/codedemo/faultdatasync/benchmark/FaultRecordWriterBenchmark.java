@@ -0,0 +1,70 @@
+package org.cabbage.codedemo.faultdatasync.benchmark;
+
+import cn.hutool.core.collection.CollUtil;
+import org.cabbage.codedemo.faultdatasync.entity.FaultRecordEntity;
+import org.cabbage.codedemo.faultdatasync.mq.consumer.FaultRecordConverter;
+import org.cabbage.codedemo.faultdatasync.writer.FaultRecordTsvEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * fault_record 写入器客户端开销对比：一条 {@value #RECORDS} 条记录的消息在发往 MySQL 前的 CPU / 分配
+ * <p>
+ * <ul>
+ *   <li>insert：按 fault-sync.batch-size=1000 分片，生成 batchInsert 动态 SQL 并解析全部参数</li>
+ *   <li>load-data：编码为 LOAD DATA 使用的 TSV 字节流</li>
+ * </ul>
+ * 服务端解析与执行开销不在此列，需在真实库上切换 {@code fault-sync.consumer.writer}，
+ * 对比 Consumer "写入完成 ... 耗时" 日志。
+ * 运行：{@code java -jar target/benchmarks.jar FaultRecordWriterBenchmark -prof gc}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FaultRecordWriterBenchmark {
+
+    private static final int RECORDS = 5000;
+    private static final int DB_BATCH_SIZE = 1000;
+
+    @Param({"insert", "load-data"})
+    private String writer;
+
+    private List<FaultRecordEntity> entities;
+    private BatchInsertSqlBinder binder;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        entities = FaultRecordConverter.toEntities(BenchmarkFixtures.sampleMessage(0, RECORDS));
+        binder = new BatchInsertSqlBinder();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void prepare(Blackhole bh) {
+        if ("load-data".equals(writer)) {
+            bh.consume(FaultRecordTsvEncoder.encode(entities));
+            return;
+        }
+        for (List<FaultRecordEntity> batch : CollUtil.split(entities, DB_BATCH_SIZE)) {
+            binder.bind(batch, bh);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.cabbage.codedemo.faultdatasync.benchmark;
+
+import org.cabbage.codedemo.faultdatasync.client.FaultRecordCursor;
+import org.cabbage.codedemo.faultdatasync.client.MockFaultDataSourceClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mock 数据源拉取基准：按不同 page-size 拉完一个 domain+date 的 {@value #TOTAL} 条记录
+ * <p>
+ * 每次调用固定处理 {@value #TOTAL} 条，结果单位为 records/s，不同 pageSize 之间可直接比较。
+ * {@code pull} 物化整页 List，{@code cursor} 走流式游标逐条消费。
+ * 运行：{@code java -jar target/benchmarks.jar MockSourcePullBenchmark -prof gc}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MockSourcePullBenchmark {
+
+    private static final int TOTAL = 20000;
+
+    @Param({"1000", "5000", "10000"})
+    private int pageSize;
+
+    private MockFaultDataSourceClient client;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        client = BenchmarkFixtures.mockClient(TOTAL);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TOTAL)
+    public void pull(Blackhole bh) {
+        for (long lastRank = 0; lastRank < TOTAL; lastRank += pageSize) {
+            bh.consume(client.pull(BenchmarkFixtures.DOMAIN, BenchmarkFixtures.DATE, lastRank, pageSize));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TOTAL)
+    public void cursor(Blackhole bh) {
+        for (long lastRank = 0; lastRank < TOTAL; lastRank += pageSize) {
+            try (FaultRecordCursor cursor = client.openCursor(
+                    BenchmarkFixtures.DOMAIN, BenchmarkFixtures.DATE, lastRank, pageSize)) {
+                while (cursor.hasNext()) {
+                    bh.consume(cursor.next());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package org.cabbage.codedemo.faultdatasync.benchmark;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 进度跟踪行锁竞争对比（需真实 MySQL，非 JMH）
+ * <p>
+ * 为同一 domain+date 预置 1 条 MESSAGES_SENT 任务行和 {@code batches} 条批次行，
+ * {@code threads} 个连接并发模拟消费端状态更新，对比两种 fault-sync.progress.mode：
+ * <ul>
+ *   <li>counter：markInsertSuccess + incrementCompletedBatch（每批次更新同一任务行）</li>
+ *   <li>derived：markInsertSuccess + countUnfinished 预检，仅最后一批执行 markSuccessIfAllBatchesInserted</li>
+ * </ul>
+ * 输出 Innodb_row_lock_waits / Innodb_row_lock_time 的增量与耗时。SQL 与 mapper XML 保持一致。
+ * <p>
+ * 运行：{@code java -cp target/benchmarks.jar org.cabbage.codedemo.faultdatasync.benchmark.ProgressContentionHarness
+ * [jdbcUrl] [user] [password] [threads] [batches]}
+ */
+public class ProgressContentionHarness {
+
+    private static final LocalDate DATE = LocalDate.of(2000, 1, 1);
+
+    private static final String MARK_INSERT_SUCCESS =
+            "UPDATE sync_batch_record SET insert_status = 'SUCCESS', update_time = NOW() "
+                    + "WHERE domain = ? AND data_date = ? AND batch_index = ? AND insert_status != 'SUCCESS'";
+
+    private static final String INCREMENT_COMPLETED =
+            "UPDATE sync_task_record SET "
+                    + "status = CASE WHEN completed_batch_count + 1 >= batch_count AND batch_count > 0 THEN 'SUCCESS' ELSE status END, "
+                    + "end_time = CASE WHEN completed_batch_count + 1 >= batch_count AND batch_count > 0 THEN NOW() ELSE end_time END, "
+                    + "completed_batch_count = completed_batch_count + 1 "
+                    + "WHERE domain = ? AND data_date = ? AND status IN ('RUNNING', 'MESSAGES_SENT')";
+
+    private static final String COUNT_UNFINISHED =
+            "SELECT COUNT(*) FROM sync_batch_record WHERE domain = ? AND data_date = ? AND insert_status != 'SUCCESS'";
+
+    private static final String MARK_SUCCESS_IF_ALL_INSERTED =
+            "UPDATE sync_task_record SET status = 'SUCCESS', end_time = NOW(), completed_batch_count = batch_count "
+                    + "WHERE domain = ? AND data_date = ? AND status = 'MESSAGES_SENT' "
+                    + "AND EXISTS (SELECT 1 FROM sync_batch_record b WHERE b.domain = ? AND b.data_date = ?) "
+                    + "AND NOT EXISTS (SELECT 1 FROM sync_batch_record b WHERE b.domain = ? AND b.data_date = ? "
+                    + "AND b.insert_status != 'SUCCESS')";
+
+    public static void main(String[] args) throws Exception {
+        String url = arg(args, 0, "jdbc:mysql://127.0.0.1:3306/code_demo?serverTimezone=Asia/Shanghai");
+        String user = arg(args, 1, "root");
+        String password = arg(args, 2, System.getenv().getOrDefault("DB_PASSWORD", "1234567a"));
+        int threads = Integer.parseInt(arg(args, 3, "32"));
+        int batches = Integer.parseInt(arg(args, 4, "2000"));
+
+        for (String mode : List.of("counter", "derived")) {
+            run(url, user, password, mode, threads, batches);
+        }
+    }
+
+    private static void run(String url, String user, String password, String mode,
+                            int threads, int batches) throws Exception {
+        String domain = "harness_" + mode;
+        try (Connection conn = DriverManager.getConnection(url, user, password)) {
+            prepare(conn, domain, batches);
+            long[] before = rowLockStatus(conn);
+
+            AtomicInteger next = new AtomicInteger();
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    try (Connection c = DriverManager.getConnection(url, user, password)) {
+                        int batchIndex;
+                        while ((batchIndex = next.getAndIncrement()) < batches) {
+                            consume(c, mode, domain, batchIndex);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            pool.shutdown();
+
+            long[] after = rowLockStatus(conn);
+            if ("derived".equals(mode)) {
+                // 模拟 SyncProgressFinalizer 巡检，兜底最后几批并发提交时的漏判
+                finalizeSweep(conn, domain);
+            }
+            System.out.printf("[%s] threads=%d batches=%d elapsed=%dms (%.0f batches/s) row_lock_waits=+%d row_lock_time=+%dms status=%s%n",
+                    mode, threads, batches, elapsedMs, batches * 1000.0 / Math.max(1, elapsedMs),
+                    after[0] - before[0], after[1] - before[1], taskStatus(conn, domain));
+        }
+    }
+
+    /**
+     * 单批次消费端状态更新（autocommit，与默认非合并消费一致）
+     */
+    private static void consume(Connection c, String mode, String domain, int batchIndex) throws SQLException {
+        int affected;
+        try (PreparedStatement ps = c.prepareStatement(MARK_INSERT_SUCCESS)) {
+            ps.setString(1, domain);
+            ps.setObject(2, DATE);
+            ps.setInt(3, batchIndex);
+            affected = ps.executeUpdate();
+        }
+        if (affected == 0) {
+            return;
+        }
+        if ("counter".equals(mode)) {
+            try (PreparedStatement ps = c.prepareStatement(INCREMENT_COMPLETED)) {
+                ps.setString(1, domain);
+                ps.setObject(2, DATE);
+                ps.executeUpdate();
+            }
+            return;
+        }
+        try (PreparedStatement ps = c.prepareStatement(COUNT_UNFINISHED)) {
+            ps.setString(1, domain);
+            ps.setObject(2, DATE);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                if (rs.getLong(1) > 0) {
+                    return;
+                }
+            }
+        }
+        finalizeSweep(c, domain);
+    }
+
+    private static void finalizeSweep(Connection conn, String domain) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(MARK_SUCCESS_IF_ALL_INSERTED)) {
+            for (int i = 0; i < 3; i++) {
+                ps.setString(i * 2 + 1, domain);
+                ps.setObject(i * 2 + 2, DATE);
+            }
+            ps.executeUpdate();
+        }
+    }
+
+    private static void prepare(Connection conn, String domain, int batches) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "DELETE FROM sync_batch_record WHERE domain = ? AND data_date = ?")) {
+            ps.setString(1, domain);
+            ps.setObject(2, DATE);
+            ps.executeUpdate();
+        }
+        try (PreparedStatement ps = conn.prepareStatement(
+                "DELETE FROM sync_task_record WHERE domain = ? AND data_date = ?")) {
+            ps.setString(1, domain);
+            ps.setObject(2, DATE);
+            ps.executeUpdate();
+        }
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO sync_task_record (domain, data_date, status, batch_count, completed_batch_count, retry_count, start_time) "
+                        + "VALUES (?, ?, 'MESSAGES_SENT', ?, 0, 0, NOW())")) {
+            ps.setString(1, domain);
+            ps.setObject(2, DATE);
+            ps.setInt(3, batches);
+            ps.executeUpdate();
+        }
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO sync_batch_record (domain, data_date, batch_index, start_rank, end_rank, record_count, "
+                        + "pull_status, insert_status, create_time, update_time) "
+                        + "VALUES (?, ?, ?, ?, ?, 5000, 'SUCCESS', 'PENDING', NOW(), NOW())")) {
+            for (int i = 0; i < batches; i++) {
+                ps.setString(1, domain);
+                ps.setObject(2, DATE);
+                ps.setInt(3, i);
+                ps.setLong(4, i * 5000L);
+                ps.setLong(5, (i + 1) * 5000L);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    private static long[] rowLockStatus(Connection conn) throws SQLException {
+        long waits = 0;
+        long time = 0;
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SHOW GLOBAL STATUS LIKE 'Innodb_row_lock_%'")) {
+            while (rs.next()) {
+                switch (rs.getString(1)) {
+                    case "Innodb_row_lock_waits" -> waits = rs.getLong(2);
+                    case "Innodb_row_lock_time" -> time = rs.getLong(2);
+                    default -> {
+                    }
+                }
+            }
+        }
+        return new long[]{waits, time};
+    }
+
+    private static String taskStatus(Connection conn, String domain) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT status FROM sync_task_record WHERE domain = ? AND data_date = ?")) {
+            ps.setString(1, domain);
+            ps.setObject(2, DATE);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getString(1) : "MISSING";
+            }
+        }
+    }
+
+    private static String arg(String[] args, int index, String defaultValue) {
+        return args.length > index ? args[index] : defaultValue;
+    }
+}
@@ -0,0 +1,150 @@
+package org.cabbage.codedemo.faultdatasync.benchmark;
+
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 同步运行关键路径分解（离线工具，非 JMH）
+ * <p>
+ * 读取 JsonLinesSpanExporter 输出的 span 文件（fault-sync.tracing.file.enabled=true），按 traceId 聚合每次
+ * fault.sync.run，输出：
+ * <ul>
+ *   <li>run：producer 侧耗时（至 MESSAGES_SENT）；complete：run 开始到 trace 内最后一个 span 结束（最后一批状态更新）</li>
+ *   <li>各阶段（pull / send / mq.queue / insert / status ...）的 span 数、累计耗时与墙钟覆盖时间（区间并集）；
+ *       墙钟覆盖占 complete 的比例即该阶段在关键路径上的份额上限，并行阶段的累计耗时会大于墙钟覆盖</li>
+ * </ul>
+ * 运行：{@code java -cp target/benchmarks.jar org.cabbage.codedemo.faultdatasync.benchmark.TraceBreakdown
+ * [spanFile] [topN]}
+ */
+public class TraceBreakdown {
+
+    private static final String ROOT = "fault.sync.run";
+
+    public static void main(String[] args) throws IOException {
+        Path file = Path.of(args.length > 0 ? args[0] : "logs/fault-sync-spans.jsonl");
+        int topN = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        Map<String, List<SpanLine>> traces = new HashMap<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (line.isBlank()) {
+                continue;
+            }
+            JSONObject json = JSONUtil.parseObj(line);
+            SpanLine span = new SpanLine(json.getStr("name"), json.getLong("startNanos"), json.getLong("endNanos"),
+                    json.getJSONObject("attributes"));
+            traces.computeIfAbsent(json.getStr("traceId"), k -> new ArrayList<>()).add(span);
+        }
+
+        List<Run> runs = new ArrayList<>();
+        for (Map.Entry<String, List<SpanLine>> trace : traces.entrySet()) {
+            trace.getValue().stream()
+                    .filter(s -> ROOT.equals(s.name))
+                    .findFirst()
+                    .ifPresent(root -> runs.add(new Run(trace.getKey(), root, trace.getValue())));
+        }
+        runs.sort(Comparator.comparingLong(Run::completeNanos).reversed());
+
+        System.out.printf("%d 次运行（%d 条 trace），按完成耗时降序前 %d：%n", runs.size(), traces.size(), topN);
+        for (Run run : runs.subList(0, Math.min(topN, runs.size()))) {
+            print(run);
+        }
+    }
+
+    private static void print(Run run) {
+        JSONObject tags = run.root.attributes;
+        System.out.printf("%n[%s] domain=%s date=%s path=%s run=%dms complete=%dms%n", run.traceId,
+                tags == null ? "-" : tags.getStr("domain"), tags == null ? "-" : tags.getStr("date"),
+                tags == null ? "-" : tags.getStr("path"), millis(run.root.duration()), millis(run.completeNanos()));
+        System.out.printf("  %-22s %8s %12s %12s %8s%n", "stage", "spans", "sum(ms)", "wall(ms)", "wall%");
+        for (Map.Entry<String, List<SpanLine>> stage : run.byStage().entrySet()) {
+            long sum = stage.getValue().stream().mapToLong(SpanLine::duration).sum();
+            long wall = union(stage.getValue());
+            System.out.printf("  %-22s %8d %12d %12d %7.1f%%%n", stage.getKey(), stage.getValue().size(),
+                    millis(sum), millis(wall), run.completeNanos() == 0 ? 0.0 : 100.0 * wall / run.completeNanos());
+        }
+    }
+
+    /**
+     * 区间并集长度：同一阶段并行 span 重叠部分只计一次
+     */
+    private static long union(List<SpanLine> spans) {
+        List<SpanLine> sorted = new ArrayList<>(spans);
+        sorted.sort(Comparator.comparingLong(s -> s.start));
+        long total = 0;
+        long curStart = -1;
+        long curEnd = -1;
+        for (SpanLine span : sorted) {
+            if (span.start > curEnd) {
+                total += curEnd - curStart;
+                curStart = span.start;
+                curEnd = span.end;
+            } else {
+                curEnd = Math.max(curEnd, span.end);
+            }
+        }
+        return total + (curEnd - curStart);
+    }
+
+    private static long millis(long nanos) {
+        return nanos / 1_000_000;
+    }
+
+    private static final class SpanLine {
+        private final String name;
+        private final long start;
+        private final long end;
+        private final JSONObject attributes;
+
+        private SpanLine(String name, long start, long end, JSONObject attributes) {
+            this.name = name;
+            this.start = start;
+            this.end = end;
+            this.attributes = attributes;
+        }
+
+        private long duration() {
+            return end - start;
+        }
+    }
+
+    private static final class Run {
+        private final String traceId;
+        private final SpanLine root;
+        private final List<SpanLine> spans;
+
+        private Run(String traceId, SpanLine root, List<SpanLine> spans) {
+            this.traceId = traceId;
+            this.root = root;
+            this.spans = spans;
+        }
+
+        private long completeNanos() {
+            long last = spans.stream().mapToLong(s -> s.end).max().orElse(root.end);
+            return last - root.start;
+        }
+
+        /**
+         * 按 span 名称分组，去掉公共前缀 fault.sync.，按名称排序
+         */
+        private Map<String, List<SpanLine>> byStage() {
+            Map<String, List<SpanLine>> stages = new TreeMap<>();
+            for (SpanLine span : spans) {
+                if (span != root) {
+                    stages.computeIfAbsent(span.name.replace("fault.sync.", ""), k -> new ArrayList<>()).add(span);
+                }
+            }
+            return stages;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package org.cabbage.codedemo.faultdatasync.benchmark;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.cabbage.codedemo.faultdatasync.client.FaultDataSourceClient;
+import org.cabbage.codedemo.faultdatasync.client.FaultRecordCursor;
+import org.cabbage.codedemo.faultdatasync.client.MockFaultDataSourceClient;
+import org.cabbage.codedemo.faultdatasync.client.ResilientFaultDataSourceClient;
+import org.cabbage.codedemo.faultdatasync.config.MockSourceProperties;
+import org.cabbage.codedemo.faultdatasync.config.UpstreamResilienceProperties;
+import org.cabbage.codedemo.faultdatasync.metrics.SyncMetrics;
+import org.cabbage.codedemo.faultdatasync.model.FaultRecordDTO;
+import org.cabbage.codedemo.faultdatasync.model.FaultRecordPage;
+import org.cabbage.codedemo.faultdatasync.model.PageSummary;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 上游防护对比（无需外部依赖，非 JMH）
+ * <p>
+ * 20 领域 × 5 天在与 syncExecutor 相同的 {@code ThreadPoolExecutor(20, 20, ArrayBlockingQueue(100), CallerRunsPolicy)}
+ * 上按 pageSize 5000 顺序拉取 Mock 数据源，运行中途注入一段上游劣化：
+ * 延迟升到 {@code slowLatencyMs}、open 报错率 20%，持续 {@code degradeMs} 后恢复；
+ * 另外每页以 {@code midStreamErrorRate} 的概率在读到一半时断流。对比两种客户端：
+ * <ul>
+ *   <li>raw：直接调用 Mock 数据源，任一页失败即视为该 domain+date 失败</li>
+ *   <li>resilient：{@link ResilientFaultDataSourceClient}（限速、舱壁、熔断、抖动重试与续拉）</li>
+ * </ul>
+ * 输出耗时、成功 / 失败的 domain+date 数、worker 阻塞在上游的累计时间、上游请求数、峰值并发与峰值每秒请求数，
+ * 以及 resilient 模式下的重试、拒绝与熔断状态变更次数。每页都校验 rank 从 lastRank + 1 起连续，续拉不得重复或丢失。
+ * <p>
+ * 运行：{@code java -cp target/benchmarks.jar org.cabbage.codedemo.faultdatasync.benchmark.UpstreamResilienceHarness
+ * [recordsPerTask] [baseLatencyMs] [slowLatencyMs] [degradeMs] [midStreamErrorRate]}
+ */
+public class UpstreamResilienceHarness {
+
+    private static final int DOMAINS = 20;
+    private static final int DAYS = 5;
+    private static final int PAGE_SIZE = 5000;
+    private static final int THREADS = 20;
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 1);
+
+    public static void main(String[] args) throws Exception {
+        int recordsPerTask = Integer.parseInt(arg(args, 0, "50000"));
+        long baseLatencyMs = Long.parseLong(arg(args, 1, "20"));
+        long slowLatencyMs = Long.parseLong(arg(args, 2, "3000"));
+        long degradeMs = Long.parseLong(arg(args, 3, "10000"));
+        double midStreamErrorRate = Double.parseDouble(arg(args, 4, "0.05"));
+
+        run("raw", recordsPerTask, baseLatencyMs, slowLatencyMs, degradeMs, midStreamErrorRate);
+        run("resilient", recordsPerTask, baseLatencyMs, slowLatencyMs, degradeMs, midStreamErrorRate);
+    }
+
+    private static void run(String mode, int recordsPerTask, long baseLatencyMs, long slowLatencyMs, long degradeMs,
+                            double midStreamErrorRate) throws Exception {
+        MockSourceProperties mock = new MockSourceProperties();
+        mock.setLatencyMs(baseLatencyMs);
+        mock.setLatencyJitterMs(baseLatencyMs / 2);
+        Upstream upstream = new Upstream(new MockFaultDataSourceClient(mock, recordsPerTask), midStreamErrorRate);
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        FaultDataSourceClient client = "resilient".equals(mode)
+                ? new ResilientFaultDataSourceClient(upstream, resilienceProperties(), new SyncMetrics(registry), registry)
+                : upstream;
+
+        ScheduledExecutorService chaos = Executors.newSingleThreadScheduledExecutor();
+        chaos.schedule(() -> {
+            mock.setLatencyMs(slowLatencyMs);
+            mock.setErrorRate(0.2);
+        }, 1, TimeUnit.SECONDS);
+        chaos.schedule(() -> {
+            mock.setLatencyMs(baseLatencyMs);
+            mock.setErrorRate(0);
+        }, 1000 + degradeMs, TimeUnit.MILLISECONDS);
+
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(THREADS, THREADS, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(100), new ThreadPoolExecutor.CallerRunsPolicy());
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicLong gaps = new AtomicLong();
+        AtomicLong pullNanos = new AtomicLong();
+        long start = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int d = 0; d < DOMAINS; d++) {
+            for (int day = 1; day <= DAYS; day++) {
+                String domain = "domain_" + d;
+                LocalDate date = TODAY.minusDays(day);
+                futures.add(pool.submit(() -> {
+                    if (syncTask(client, domain, date, gaps, pullNanos)) {
+                        succeeded.incrementAndGet();
+                    } else {
+                        failed.incrementAndGet();
+                    }
+                }));
+            }
+        }
+        for (Future<?> f : futures) {
+            f.get();
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        pool.shutdown();
+        chaos.shutdownNow();
+
+        System.out.printf("[%s] elapsed=%dms tasks ok=%d failed=%d rankGaps=%d upstreamBlocked=%.1fs "
+                        + "requests=%d peakInFlight=%d peakRps=%d%n",
+                mode, elapsedMs, succeeded.get(), failed.get(), gaps.get(), pullNanos.get() / 1e9,
+                upstream.requests.get(), upstream.peakInFlight.get(), upstream.peakRps());
+        if (client != upstream) {
+            System.out.printf("[%s] retries=%.0f rejected(circuit_open)=%.0f rejected(bulkhead)=%.0f "
+                            + "circuitTransitions=%s rateLimitWait(global)=%.1fs%n",
+                    mode, count(registry, "fault.sync.upstream.retry", null, null),
+                    count(registry, "fault.sync.upstream.rejected", "reason", "circuit_open"),
+                    count(registry, "fault.sync.upstream.rejected", "reason", "bulkhead"),
+                    transitions(registry),
+                    totalSeconds(registry, "fault.sync.upstream.ratelimit.wait", "scope", "global"));
+        }
+    }
+
+    /**
+     * 与 pullPage 相同：按游标逐页拉取直到不足一页；任一页失败即中止（生产路径下记为 pull FAILED，由重试续拉）
+     */
+    private static boolean syncTask(FaultDataSourceClient client, String domain, LocalDate date,
+                                    AtomicLong gaps, AtomicLong pullNanos) {
+        long lastRank = 0;
+        while (true) {
+            long begin = System.nanoTime();
+            FaultRecordPage page;
+            try (FaultRecordCursor cursor = client.openCursor(domain, date, lastRank, PAGE_SIZE)) {
+                page = cursor.toPage(PAGE_SIZE);
+            } catch (RuntimeException e) {
+                return false;
+            } finally {
+                pullNanos.addAndGet(System.nanoTime() - begin);
+            }
+            long expected = lastRank + 1;
+            for (FaultRecordDTO record : page.getRecords()) {
+                if (record.getRank() != expected++) {
+                    gaps.incrementAndGet();
+                }
+            }
+            lastRank = page.getSummary().maxRankOr(lastRank);
+            if (page.size() < PAGE_SIZE) {
+                return true;
+            }
+        }
+    }
+
+    private static UpstreamResilienceProperties resilienceProperties() {
+        UpstreamResilienceProperties p = new UpstreamResilienceProperties();
+        p.setEnabled(true);
+        p.setGlobalRps(200);
+        p.setDomainRps(20);
+        p.setMaxConcurrent(16);
+        p.setBulkheadMaxWaitMs(2000);
+        p.setSlowCallMs(1000);
+        p.setWindowSize(20);
+        p.setMinCalls(10);
+        p.setOpenMs(3000);
+        p.setHalfOpenCalls(3);
+        p.setMaxAttempts(3);
+        p.setRetryBaseMs(100);
+        p.setRetryMaxMs(2000);
+        return p;
+    }
+
+    private static double count(SimpleMeterRegistry registry, String name, String tagKey, String tagValue) {
+        double sum = 0;
+        for (Meter meter : registry.find(name).meters()) {
+            if (tagKey == null || tagValue.equals(meter.getId().getTag(tagKey))) {
+                for (var m : meter.measure()) {
+                    sum += m.getValue();
+                }
+            }
+        }
+        return sum;
+    }
+
+    private static double totalSeconds(SimpleMeterRegistry registry, String name, String tagKey, String tagValue) {
+        return registry.find(name).tag(tagKey, tagValue).timers().stream()
+                .mapToDouble(t -> t.totalTime(TimeUnit.SECONDS))
+                .sum();
+    }
+
+    private static Map<String, Long> transitions(SimpleMeterRegistry registry) {
+        Map<String, Long> result = new TreeMap<>();
+        registry.find("fault.sync.upstream.circuit.transition").counters()
+                .forEach(c -> result.put(c.getId().getTag("to"), (long) c.count()));
+        return result;
+    }
+
+    private static String arg(String[] args, int index, String defaultValue) {
+        return args.length > index ? args[index] : defaultValue;
+    }
+
+    /**
+     * 包装 Mock 数据源：统计请求数、在途数、每秒请求数，并按概率在游标读到一半时抛出异常（模拟断流）
+     */
+    private static final class Upstream implements FaultDataSourceClient {
+
+        private final MockFaultDataSourceClient delegate;
+        private final double midStreamErrorRate;
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger peakInFlight = new AtomicInteger();
+        private final Map<Long, AtomicInteger> perSecond = new ConcurrentHashMap<>();
+
+        private Upstream(MockFaultDataSourceClient delegate, double midStreamErrorRate) {
+            this.delegate = delegate;
+            this.midStreamErrorRate = midStreamErrorRate;
+        }
+
+        @Override
+        public List<FaultRecordDTO> pull(String domain, LocalDate date, long lastRank, int pageSize) {
+            try (FaultRecordCursor cursor = openCursor(domain, date, lastRank, pageSize)) {
+                return cursor.toPage(pageSize).getRecords();
+            }
+        }
+
+        @Override
+        public FaultRecordCursor openCursor(String domain, LocalDate date, long lastRank, int pageSize) {
+            requests.incrementAndGet();
+            perSecond.computeIfAbsent(System.currentTimeMillis() / 1000, s -> new AtomicInteger()).incrementAndGet();
+            peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            FaultRecordCursor cursor;
+            try {
+                cursor = delegate.openCursor(domain, date, lastRank, pageSize);
+            } catch (RuntimeException e) {
+                inFlight.decrementAndGet();
+                throw e;
+            }
+            int failAt = ThreadLocalRandom.current().nextDouble() < midStreamErrorRate
+                    ? ThreadLocalRandom.current().nextInt(Math.max(1, pageSize)) : -1;
+            return new FaultRecordCursor() {
+                private int emitted;
+                private boolean closed;
+
+                @Override
+                public boolean hasNext() {
+                    return cursor.hasNext();
+                }
+
+                @Override
+                public FaultRecordDTO next() {
+                    if (emitted == failAt) {
+                        throw new IllegalStateException("Injected stream reset after " + emitted + " records");
+                    }
+                    emitted++;
+                    return cursor.next();
+                }
+
+                @Override
+                public PageSummary summary() {
+                    return cursor.summary();
+                }
+
+                @Override
+                public void close() {
+                    if (!closed) {
+                        closed = true;
+                        inFlight.decrementAndGet();
+                        cursor.close();
+                    }
+                }
+            };
+        }
+
+        private int peakRps() {
+            return perSecond.values().stream().mapToInt(AtomicInteger::get).max().orElse(0);
+        }
+    }
+}
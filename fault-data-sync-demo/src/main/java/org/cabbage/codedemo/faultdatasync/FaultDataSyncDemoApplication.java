@@ -3,9 +3,11 @@ package org.cabbage.codedemo.faultdatasync;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @MapperScan("org.cabbage.codedemo.faultdatasync.mapper")
+@EnableScheduling
 public class FaultDataSyncDemoApplication {
 
     public static void main(String[] args) {
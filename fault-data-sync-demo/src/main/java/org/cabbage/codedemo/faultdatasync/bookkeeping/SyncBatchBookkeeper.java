@@ -0,0 +1,364 @@
+package org.cabbage.codedemo.faultdatasync.bookkeeping;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.cabbage.codedemo.faultdatasync.entity.SyncBatchRecordEntity;
+import org.cabbage.codedemo.faultdatasync.mapper.SyncBatchRecordMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * sync_batch_record 状态合并记账（fault-sync.bookkeeping.mode=buffered）
+ * <p>
+ * 各线程提交的批次状态变更进入同一队列，由单个 flusher 线程在 {@code flush-interval-ms} 到期
+ * 或积累 {@code max-batch-size} 条时，按类型合并为一条多行语句写入：
+ * <ul>
+ *   <li>pull SUCCESS / PENDING：多行 INSERT ... ON DUPLICATE KEY UPDATE</li>
+ *   <li>pull FAILED：多行 INSERT ... ON DUPLICATE KEY UPDATE（替代先 SELECT 再 INSERT / UPDATE）</li>
+ *   <li>broker 确认：一条 UPDATE ... WHERE (domain, data_date, batch_index) IN (...)</li>
+ *   <li>insert SUCCESS：同一事务内 SELECT ... FOR UPDATE 找出首次成功的批次，再一条 UPDATE</li>
+ * </ul>
+ * 持久性约定：
+ * <ul>
+ *   <li>pull SUCCESS / PENDING / FAILED 与 insert SUCCESS 为组提交，调用方阻塞到所在语句提交后才返回，
+ *       因此"先记账、后发送"和"先记账、后 ack 消息"的顺序与逐条写入完全相同，崩溃时未返回的调用
+ *       对应的消息既未发送也未 ack，恢复逻辑无需改变</li>
+ *   <li>broker 确认（PENDING → SUCCESS）为纯写后：调用方不等待。崩溃或写入失败时该批保持 PENDING，
+ *       重试路径本就将 PENDING 视为待重发，最多多发一次，由消费端幂等吸收</li>
+ * </ul>
+ * 同一批次在一轮 flush 内只允许出现一种类型的变更，遇到冲突即截断本轮，保证同一批次的变更按提交顺序落库。
+ * {@link #awaitFlushed()} 等待此前提交的变更（含未等待的确认）全部落库，供重试前读取批次状态使用。
+ * <p>
+ * 调用方最多等待 {@code await-timeout-ms}，超时抛出异常而不是无限阻塞。flusher 线程因 Error 等意外退出时，
+ * 队列中剩余的变更全部以异常完成，此后的变更与停止后一样在调用线程直接写入。
+ * mode=direct（默认）时不启动 flusher，由 SyncBatchRecordServiceImpl 逐条写入。
+ */
+@Slf4j
+@Component
+public class SyncBatchBookkeeper {
+
+    private enum Kind { PULL, PULL_FAILED, PULL_CONFIRMED, INSERT_SUCCESS, BARRIER }
+
+    private final SyncBatchRecordMapper syncBatchRecordMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final long flushIntervalMs;
+    private final int maxBatchSize;
+    private final long awaitTimeoutMs;
+
+    /** 以下字段由 this 锁保护 */
+    private final Deque<Transition> queue = new ArrayDeque<>();
+    private boolean running;
+
+    private Thread flusher;
+
+    public SyncBatchBookkeeper(SyncBatchRecordMapper syncBatchRecordMapper,
+                               TransactionTemplate transactionTemplate,
+                               @Value("${fault-sync.bookkeeping.mode:direct}") String mode,
+                               @Value("${fault-sync.bookkeeping.flush-interval-ms:5}") long flushIntervalMs,
+                               @Value("${fault-sync.bookkeeping.max-batch-size:200}") int maxBatchSize,
+                               @Value("${fault-sync.bookkeeping.await-timeout-ms:30000}") long awaitTimeoutMs) {
+        this.syncBatchRecordMapper = syncBatchRecordMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = "buffered".equalsIgnoreCase(mode);
+        this.flushIntervalMs = Math.max(0, flushIntervalMs);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.awaitTimeoutMs = Math.max(1, awaitTimeoutMs);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            running = true;
+        }
+        flusher = new Thread(this::runFlusher, "fault-sync-bookkeeper");
+        flusher.setDaemon(true);
+        flusher.start();
+        log.info("[Bookkeeping] 合并记账已开启 flushIntervalMs={} maxBatchSize={}", flushIntervalMs, maxBatchSize);
+    }
+
+    /**
+     * 停止接收新变更并写完队列中剩余的变更；此后提交的变更在调用线程直接写入
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (flusher == null) {
+            return;
+        }
+        synchronized (this) {
+            running = false;
+            notifyAll();
+        }
+        flusher.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * pull SUCCESS / PENDING（状态取自 row.pullStatus），返回时已落库
+     */
+    public void upsertPull(SyncBatchRecordEntity row) {
+        await(submit(Kind.PULL, row));
+    }
+
+    /**
+     * pull FAILED，返回时已落库
+     */
+    public void upsertPullFailed(SyncBatchRecordEntity row) {
+        await(submit(Kind.PULL_FAILED, row));
+    }
+
+    /**
+     * broker 确认：只入队不等待，写入失败时该批保持 PENDING
+     */
+    public void confirmPull(SyncBatchRecordEntity key) {
+        submit(Kind.PULL_CONFIRMED, key);
+    }
+
+    /**
+     * insert SUCCESS，返回时已落库
+     *
+     * @return true 表示首次成功；false 表示已是 SUCCESS（重复消费）
+     */
+    public boolean markInsertSuccess(SyncBatchRecordEntity key) {
+        return Boolean.TRUE.equals(await(submit(Kind.INSERT_SUCCESS, key)));
+    }
+
+    /**
+     * 等待此前提交的所有变更落库
+     */
+    public void awaitFlushed() {
+        if (enabled) {
+            await(submit(Kind.BARRIER, null));
+        }
+    }
+
+    private CompletableFuture<Object> submit(Kind kind, SyncBatchRecordEntity row) {
+        Transition t = new Transition(kind, row);
+        synchronized (this) {
+            if (running) {
+                queue.addLast(t);
+                if (queue.size() == 1 || queue.size() >= maxBatchSize) {
+                    notifyAll();
+                }
+                return t.future;
+            }
+        }
+        // 未开启或已停止：在调用线程直接写入
+        flush(List.of(t));
+        return t.future;
+    }
+
+    /**
+     * flusher 线程入口：无论正常停止还是意外退出，都关闭队列并以异常完成剩余变更，避免调用方永久等待
+     */
+    private void runFlusher() {
+        try {
+            flushLoop();
+        } catch (Throwable e) {
+            log.error("[Bookkeeping] 记账线程意外退出，后续变更改为调用线程直接写入", e);
+        } finally {
+            List<Transition> abandoned;
+            synchronized (this) {
+                running = false;
+                abandoned = new ArrayList<>(queue);
+                queue.clear();
+            }
+            if (!abandoned.isEmpty()) {
+                IllegalStateException e = new IllegalStateException("记账线程已退出，变更未写入");
+                abandoned.forEach(t -> t.future.completeExceptionally(e));
+                log.error("[Bookkeeping] {} 条未写入的变更以异常完成", abandoned.size());
+            }
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            List<Transition> batch;
+            synchronized (this) {
+                try {
+                    while (queue.isEmpty() && running) {
+                        wait();
+                    }
+                    if (queue.isEmpty()) {
+                        return;
+                    }
+                    long deadline = System.currentTimeMillis() + flushIntervalMs;
+                    long remaining;
+                    while (running && queue.size() < maxBatchSize
+                            && (remaining = deadline - System.currentTimeMillis()) > 0) {
+                        wait(remaining);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    running = false;
+                }
+                batch = drain();
+            }
+            flush(batch);
+        }
+    }
+
+    /**
+     * 从队首取出一轮待写变更：遇到同一批次的不同类型变更或屏障时截断；位于队首的屏障说明之前的变更已落库，直接完成
+     */
+    private List<Transition> drain() {
+        List<Transition> batch = new ArrayList<>();
+        Map<String, Kind> kinds = new HashMap<>();
+        while (!queue.isEmpty() && batch.size() < maxBatchSize) {
+            Transition t = queue.peekFirst();
+            if (t.kind == Kind.BARRIER) {
+                if (!batch.isEmpty()) {
+                    break;
+                }
+                queue.removeFirst().future.complete(null);
+                continue;
+            }
+            Kind seen = kinds.putIfAbsent(t.key(), t.kind);
+            if (seen != null && seen != t.kind) {
+                break;
+            }
+            batch.add(queue.removeFirst());
+        }
+        return batch;
+    }
+
+    private void flush(List<Transition> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Map<Kind, List<Transition>> byKind = new EnumMap<>(Kind.class);
+        for (Transition t : batch) {
+            byKind.computeIfAbsent(t.kind, k -> new ArrayList<>()).add(t);
+        }
+        for (Map.Entry<Kind, List<Transition>> entry : byKind.entrySet()) {
+            List<Transition> group = entry.getValue();
+            long start = System.currentTimeMillis();
+            try {
+                switch (entry.getKey()) {
+                    case PULL -> {
+                        syncBatchRecordMapper.batchUpsertPull(rows(group));
+                        group.forEach(t -> t.future.complete(null));
+                    }
+                    case PULL_FAILED -> {
+                        syncBatchRecordMapper.batchUpsertPullFailed(rows(group));
+                        group.forEach(t -> t.future.complete(null));
+                    }
+                    case PULL_CONFIRMED -> {
+                        syncBatchRecordMapper.batchMarkPullConfirmed(rows(group));
+                        group.forEach(t -> t.future.complete(null));
+                    }
+                    case INSERT_SUCCESS -> {
+                        // 事务提交后才通知调用方
+                        List<Boolean> first = transactionTemplate.execute(status -> markInserted(group));
+                        for (int i = 0; i < group.size(); i++) {
+                            group.get(i).future.complete(first.get(i));
+                        }
+                    }
+                    case BARRIER -> group.forEach(t -> t.future.complete(null));
+                }
+                log.debug("[Bookkeeping] {} 合并写入 {} 条，耗时 {}ms",
+                        entry.getKey(), group.size(), System.currentTimeMillis() - start);
+            } catch (Throwable e) {
+                if (entry.getKey() == Kind.PULL_CONFIRMED) {
+                    log.error("[Bookkeeping] 确认状态合并写入失败，{} 个批次保持 PENDING，重试运行会单批重发",
+                            group.size(), e);
+                } else {
+                    log.error("[Bookkeeping] {} 合并写入失败，{} 个调用方将收到异常", entry.getKey(), group.size(), e);
+                }
+                group.forEach(t -> t.future.completeExceptionally(e));
+                if (e instanceof Error error) {
+                    // 本轮其余分组同样不再写入，交给 runFlusher 关闭队列
+                    batch.forEach(t -> t.future.completeExceptionally(error));
+                    throw error;
+                }
+            }
+        }
+    }
+
+    /**
+     * 锁定未完成的批次后统一置为 SUCCESS；同一批次在组内出现多次时只有第一次算首次成功
+     */
+    private List<Boolean> markInserted(List<Transition> group) {
+        List<SyncBatchRecordEntity> keys = rows(group);
+        Set<String> unfinished = new HashSet<>();
+        for (SyncBatchRecordEntity row : syncBatchRecordMapper.lockInsertUnfinished(keys)) {
+            unfinished.add(key(row));
+        }
+        if (!unfinished.isEmpty()) {
+            syncBatchRecordMapper.batchMarkInsertSuccess(keys);
+        }
+        List<Boolean> first = new ArrayList<>(group.size());
+        for (Transition t : group) {
+            first.add(unfinished.remove(t.key()));
+        }
+        return first;
+    }
+
+    private static List<SyncBatchRecordEntity> rows(List<Transition> group) {
+        List<SyncBatchRecordEntity> rows = new ArrayList<>(group.size());
+        for (Transition t : group) {
+            rows.add(t.row);
+        }
+        return rows;
+    }
+
+    private Object await(CompletableFuture<Object> future) {
+        try {
+            return future.get(awaitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException("批次状态写入失败", e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("批次状态写入等待超时 " + awaitTimeoutMs + "ms", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("批次状态写入等待被中断", e);
+        }
+    }
+
+    private static String key(SyncBatchRecordEntity row) {
+        return row.getDomain() + "|" + row.getDataDate() + "|" + row.getBatchIndex();
+    }
+
+    /**
+     * 一条待写入的批次状态变更
+     */
+    private static final class Transition {
+        private final Kind kind;
+        private final SyncBatchRecordEntity row;
+        private final CompletableFuture<Object> future = new CompletableFuture<>();
+
+        private Transition(Kind kind, SyncBatchRecordEntity row) {
+            this.kind = kind;
+            this.row = row;
+        }
+
+        private String key() {
+            return SyncBatchBookkeeper.key(row);
+        }
+    }
+}
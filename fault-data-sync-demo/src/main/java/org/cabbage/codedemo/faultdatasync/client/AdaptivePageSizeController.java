@@ -0,0 +1,158 @@
+package org.cabbage.codedemo.faultdatasync.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按 domain 自适应调整 pull 页大小（AIMD）
+ * <p>
+ * 反馈信号：
+ * <ul>
+ *   <li>pull 延迟：整页拉取耗时低于 {@code target-latency-ms} 时加性增长 {@code increase-step}，超过时乘性缩减</li>
+ *   <li>消息字节数：按编码后每条记录的平均字节数计算不超过 {@code max-message-bytes} 的页大小上限，立即收敛到该上限</li>
+ *   <li>broker 拒绝：发送失败（消息过大、超时等）时乘性缩减</li>
+ * </ul>
+ * 结果始终限制在 [min-size, max-size]。未开启时固定返回 {@code fault-sync.page-size}。
+ * <p>
+ * 实际使用的页大小随批次记录到 sync_batch_record.page_size，重试按记录值重放同一 rank 范围，
+ * 因此页大小调整不影响重试精度。
+ */
+@Slf4j
+@Component
+public class AdaptivePageSizeController {
+
+    private final Map<String, DomainState> states = new ConcurrentHashMap<>();
+
+    @Value("${fault-sync.page-size:5000}")
+    private int fixedPageSize;
+
+    @Value("${fault-sync.adaptive-page.enabled:false}")
+    private boolean enabled;
+
+    @Value("${fault-sync.adaptive-page.min-size:500}")
+    private int minSize;
+
+    @Value("${fault-sync.adaptive-page.max-size:20000}")
+    private int maxSize;
+
+    @Value("${fault-sync.adaptive-page.target-latency-ms:1000}")
+    private long targetLatencyMs;
+
+    /** 单条消息体的目标上限，需低于 broker maxMessageSize（默认 4MB） */
+    @Value("${fault-sync.adaptive-page.max-message-bytes:3145728}")
+    private long maxMessageBytes;
+
+    @Value("${fault-sync.adaptive-page.increase-step:500}")
+    private int increaseStep;
+
+    @Value("${fault-sync.adaptive-page.decrease-factor:0.5}")
+    private double decreaseFactor;
+
+    /**
+     * 当前 domain 下一次 pull 应使用的页大小
+     */
+    public int pageSize(String domain) {
+        if (!enabled) {
+            return fixedPageSize;
+        }
+        return state(domain).size;
+    }
+
+    /**
+     * pull 完成反馈；末页（records < pageSize）不代表上游承载能力，只参与缩减判断
+     */
+    public void onPull(String domain, int pageSize, int records, long elapsedMs) {
+        if (!enabled) {
+            return;
+        }
+        if (elapsedMs > targetLatencyMs) {
+            decrease(domain, pageSize, "pull 耗时 " + elapsedMs + "ms");
+        } else if (records >= pageSize) {
+            increase(domain, pageSize);
+        }
+    }
+
+    /**
+     * 消息编码完成反馈：按本批平均每条字节数更新该 domain 的页大小上限
+     */
+    public void onEncoded(String domain, int records, int bytes) {
+        if (!enabled || records == 0 || bytes == 0) {
+            return;
+        }
+        int byteCap = clamp(maxMessageBytes * records / bytes);
+        DomainState state = state(domain);
+        synchronized (state) {
+            state.byteCap = byteCap;
+            if (state.size > byteCap) {
+                log.info("[PageSize] domain={} 消息 {} 字节 / {} 条，页大小 {} → {}",
+                        domain, bytes, records, state.size, byteCap);
+                state.size = byteCap;
+            }
+        }
+    }
+
+    /**
+     * broker 拒绝或发送失败反馈
+     */
+    public void onSendRejected(String domain, int records) {
+        if (!enabled) {
+            return;
+        }
+        decrease(domain, records, "broker 拒绝");
+    }
+
+    private void increase(String domain, int observedSize) {
+        DomainState state = state(domain);
+        synchronized (state) {
+            // 只对以当前页大小拉取的结果做增长，避免并发日期重复累加
+            if (observedSize != state.size) {
+                return;
+            }
+            int next = Math.min(clamp((long) state.size + increaseStep), state.byteCap);
+            if (next != state.size) {
+                log.debug("[PageSize] domain={} 页大小 {} → {}", domain, state.size, next);
+                state.size = next;
+            }
+        }
+    }
+
+    private void decrease(String domain, int observedSize, String reason) {
+        DomainState state = state(domain);
+        synchronized (state) {
+            // 同一轮反馈只缩减一次：已低于本次观测页大小时不再叠加
+            if (state.size < observedSize) {
+                return;
+            }
+            int next = clamp((long) (state.size * decreaseFactor));
+            if (next != state.size) {
+                log.info("[PageSize] domain={} {}，页大小 {} → {}", domain, reason, state.size, next);
+                state.size = next;
+            }
+        }
+    }
+
+    private DomainState state(String domain) {
+        return states.computeIfAbsent(domain, d -> new DomainState(clamp(fixedPageSize), maxSize));
+    }
+
+    private int clamp(long size) {
+        return (int) Math.max(minSize, Math.min(maxSize, size));
+    }
+
+    /**
+     * 单个 domain 的页大小状态；读取无锁（volatile），更新在对象锁内完成
+     */
+    private static final class DomainState {
+        private volatile int size;
+        private volatile int byteCap;
+
+        private DomainState(int size, int byteCap) {
+            this.size = size;
+            this.byteCap = byteCap;
+        }
+    }
+}
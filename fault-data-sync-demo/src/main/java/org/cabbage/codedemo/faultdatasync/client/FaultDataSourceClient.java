@@ -1,15 +1,26 @@
 package org.cabbage.codedemo.faultdatasync.client;
 
 import org.cabbage.codedemo.faultdatasync.model.FaultRecordDTO;
+import org.cabbage.codedemo.faultdatasync.model.RankBucketDigest;
+import org.cabbage.codedemo.faultdatasync.model.RangeFingerprint;
+import org.cabbage.codedemo.faultdatasync.reconcile.RecordDigest;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.OptionalLong;
 
 /**
  * 原数据源接口定义
  * <p>
  * 接口语义：按 rank 游标翻页拉取指定领域、指定日期的故障记录。
  * 终止条件：返回列表 size < pageSize。
+ * <p>
+ * 流式变体 {@link #openCursor}：逐条产出记录并累计页摘要（count、min/max rank），
+ * 默认基于 {@link #pull} 适配；数据源支持流式读取时应直接实现以避免整页物化。
+ * <p>
+ * {@link #estimateMaxRank}：可选能力，返回当天 rank 跨度的估计值，用于区间并行拉取切分。
+ * {@link #fingerprints}：可选能力，返回按 rank 分桶的内容指纹，用于增量同步。
+ * {@link #digestBuckets}：对账摘要，默认逐页拉取后本地计算，数据源支持服务端聚合时应直接实现。
  */
 public interface FaultDataSourceClient {
 
@@ -23,4 +34,68 @@ public interface FaultDataSourceClient {
      * @return 故障记录列表，按 rank 升序排列；空列表表示无数据或已到末尾
      */
     List<FaultRecordDTO> pull(String domain, LocalDate date, long lastRank, int pageSize);
+
+    /**
+     * 以游标方式拉取一批故障数据，参数语义与 {@link #pull} 相同
+     *
+     * @return 按 rank 升序逐条产出的游标，调用方负责 close
+     */
+    default FaultRecordCursor openCursor(String domain, LocalDate date, long lastRank, int pageSize) {
+        return FaultRecordCursor.of(pull(domain, date, lastRank, pageSize));
+    }
+
+    /**
+     * 估计指定领域、日期的最大 rank，用于将 rank 空间切分为多个不相交区间并行拉取。
+     * <p>
+     * 允许偏差：最后一个区间不设上界，估计偏小时由其兜底；估计偏大只会使部分区间为空。
+     *
+     * @return 最大 rank 估计值；数据源无法提供时返回 empty，调用方回退顺序拉取
+     */
+    default OptionalLong estimateMaxRank(String domain, LocalDate date) {
+        return OptionalLong.empty();
+    }
+
+    /**
+     * 按 rank 分桶返回内容指纹：桶 k 覆盖 (k * bucketSize, (k + 1) * bucketSize]，直到当天最大 rank 所在的桶。
+     * <p>
+     * 指纹须由数据源廉价计算（如按桶维护的计数与滚动哈希），不能依赖逐条拉取；
+     * 任一记录新增、删除或内容变化都应改变其所在桶的 recordCount 或 checksum。
+     *
+     * @return 按 fromRank 升序的指纹列表；数据源不支持时返回空列表，调用方回退全量重同步
+     */
+    default List<RangeFingerprint> fingerprints(String domain, LocalDate date, long bucketSize) {
+        return List.of();
+    }
+
+    /**
+     * 计算 (fromRank, toRank] 内各桶的对账摘要，口径见 {@link RecordDigest}：
+     * 桶 k 覆盖 (fromRank + k * bucketSpan, fromRank + (k + 1) * bucketSpan]，超出最后一个桶的记录计入最后一个桶。
+     * <p>
+     * 默认实现按 rank 游标拉取整个区间在本地计算，代价与区间大小成正比；
+     * 数据源能在服务端按桶聚合时应覆盖本方法，使对账代价只与不一致的桶数相关。
+     *
+     * @param toRank 区间上界（含），null 表示不设上界
+     * @return 非空桶的摘要（bucket / recordCount / checksum）
+     */
+    default List<RankBucketDigest> digestBuckets(String domain, LocalDate date, long fromRank, Long toRank,
+                                                 long bucketSpan, int bucketCount, int pageSize) {
+        RecordDigest.Accumulator accumulator = RecordDigest.accumulator(fromRank, toRank, bucketSpan, bucketCount);
+        long lastRank = fromRank;
+        while (true) {
+            int pulled = 0;
+            try (FaultRecordCursor cursor = openCursor(domain, date, lastRank, pageSize)) {
+                while (cursor.hasNext()) {
+                    FaultRecordDTO record = cursor.next();
+                    pulled++;
+                    if (!accumulator.accept(record)) {
+                        return accumulator.digests();
+                    }
+                    lastRank = record.getRank();
+                }
+            }
+            if (pulled < pageSize) {
+                return accumulator.digests();
+            }
+        }
+    }
 }
@@ -0,0 +1,75 @@
+package org.cabbage.codedemo.faultdatasync.client;
+
+import org.cabbage.codedemo.faultdatasync.model.FaultRecordDTO;
+import org.cabbage.codedemo.faultdatasync.model.FaultRecordPage;
+import org.cabbage.codedemo.faultdatasync.model.PageSummary;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 单页拉取游标：按 rank 升序逐条产出记录，同时累计 {@link PageSummary}
+ * <p>
+ * 实现方可边读边产出（如流式 HTTP 响应、按需生成），调用方用完必须 close 释放底层资源。
+ */
+public interface FaultRecordCursor extends Iterator<FaultRecordDTO>, AutoCloseable {
+
+    /**
+     * 已产出记录的摘要；游标耗尽后即为整页摘要
+     */
+    PageSummary summary();
+
+    @Override
+    default void close() {
+    }
+
+    /**
+     * 将剩余记录读入列表（单次遍历，摘要同步累计），用于组装 MQ 消息
+     *
+     * @param capacityHint 预估记录数（通常为 pageSize）
+     */
+    default FaultRecordPage toPage(int capacityHint) {
+        List<FaultRecordDTO> records = new ArrayList<>(capacityHint);
+        while (hasNext()) {
+            records.add(next());
+        }
+        return new FaultRecordPage(records, summary());
+    }
+
+    /**
+     * 适配已物化的列表（供只实现了 pull 的数据源使用）
+     */
+    static FaultRecordCursor of(List<FaultRecordDTO> records) {
+        return new FaultRecordCursor() {
+            private final PageSummary summary = new PageSummary();
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < records.size();
+            }
+
+            @Override
+            public FaultRecordDTO next() {
+                FaultRecordDTO record = records.get(index++);
+                summary.accept(record.getRank());
+                return record;
+            }
+
+            @Override
+            public PageSummary summary() {
+                return summary;
+            }
+
+            @Override
+            public FaultRecordPage toPage(int capacityHint) {
+                // 列表已物化，直接复用，仅补齐摘要
+                while (hasNext()) {
+                    next();
+                }
+                return new FaultRecordPage(records, summary);
+            }
+        };
+    }
+}
@@ -1,14 +1,20 @@
 package org.cabbage.codedemo.faultdatasync.client;
 
 import lombok.extern.slf4j.Slf4j;
+import org.cabbage.codedemo.faultdatasync.config.MockSourceProperties;
 import org.cabbage.codedemo.faultdatasync.model.FaultRecordDTO;
+import org.cabbage.codedemo.faultdatasync.model.PageSummary;
+import org.cabbage.codedemo.faultdatasync.model.RangeFingerprint;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
+import java.util.NoSuchElementException;
+import java.util.OptionalLong;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Mock 数据源客户端（Demo 专用）
@@ -16,6 +22,12 @@ import java.util.UUID;
  * 模拟按 rank 游标分页返回故障数据。
  * 每个 domain+date 组合预设 {@code mockTotalPerDomain} 条记录，
  * 当 lastRank >= mockTotalPerDomain 时返回空列表，触发拉取终止。
+ * <p>
+ * {@link #openCursor} 按需逐条生成记录，不物化整页；{@link #pull} 基于游标读满一页。
+ * <p>
+ * 高吞吐合成模式：faultType、deviceId、faultDetail 均在构造时按 {@link MockSourceProperties} 预生成字符串池，
+ * 每条记录只做一次 64 位哈希 + 数组下标选取，除 DTO 本身外无额外分配；
+ * 同一 seed + domain + date + rank 永远生成相同记录，保证压测与对账结果可复现。
  */
 @Slf4j
 @Component
@@ -25,34 +37,179 @@ public class MockFaultDataSourceClient implements FaultDataSourceClient {
      * 每个 domain+date 的 Mock 数据总量，可通过配置调整。
      * 默认 20000 条（约 4 批次），设为 1000000 可模拟百万顶峰场景。
      */
-    @Value("${fault-sync.mock-total-per-domain:20000}")
-    private int mockTotalPerDomain;
+    private final int mockTotalPerDomain;
+
+    private final MockSourceProperties properties;
+    private final String[] faultTypes;
+    private final String[] deviceIds;
+    private final String[] payloads;
+
+    public MockFaultDataSourceClient(MockSourceProperties properties,
+                                     @Value("${fault-sync.mock-total-per-domain:20000}") int mockTotalPerDomain) {
+        this.properties = properties;
+        this.mockTotalPerDomain = mockTotalPerDomain;
+
+        this.faultTypes = new String[Math.max(1, properties.getFaultTypeCount())];
+        for (int i = 0; i < faultTypes.length; i++) {
+            faultTypes[i] = "FAULT_TYPE_" + i;
+        }
+
+        this.deviceIds = new String[Math.max(1, properties.getDevicePoolSize())];
+        for (int i = 0; i < deviceIds.length; i++) {
+            deviceIds[i] = String.format("DEVICE_%08X", (int) mix(properties.getSeed() + i));
+        }
+
+        this.payloads = buildPayloadPool(properties);
+    }
 
     @Override
     public List<FaultRecordDTO> pull(String domain, LocalDate date, long lastRank, int pageSize) {
+        try (FaultRecordCursor cursor = openCursor(domain, date, lastRank, pageSize)) {
+            return cursor.toPage(pageSize).getRecords();
+        }
+    }
+
+    @Override
+    public FaultRecordCursor openCursor(String domain, LocalDate date, long lastRank, int pageSize) {
+        injectLatencyAndErrors(domain, date, lastRank);
+
         if (lastRank >= mockTotalPerDomain) {
             log.debug("[MockClient] domain={} date={} lastRank={} 已到末尾，返回空", domain, date, lastRank);
-            return List.of();
+            return FaultRecordCursor.of(List.of());
         }
 
         long startRank = lastRank + 1;
         long endRank = Math.min(lastRank + pageSize, mockTotalPerDomain);
-        int count = (int) (endRank - startRank + 1);
+        log.debug("[MockClient] domain={} date={} lastRank={} 返回 {} 条 (rank {}-{})",
+                domain, date, lastRank, endRank - startRank + 1, startRank, endRank);
+        return new MockCursor(domain, date, startRank, endRank, baseSeed(domain, date));
+    }
+
+    /** Mock 数据 rank 连续分布于 1..mockTotalPerDomain，估计值即为精确值 */
+    @Override
+    public OptionalLong estimateMaxRank(String domain, LocalDate date) {
+        return OptionalLong.of(mockTotalPerDomain);
+    }
+
+    /**
+     * Mock 记录由 seed + domain + date + rank 确定性生成，桶指纹直接由这些输入哈希得到，无需生成记录
+     */
+    @Override
+    public List<RangeFingerprint> fingerprints(String domain, LocalDate date, long bucketSize) {
+        long seed = baseSeed(domain, date);
+        List<RangeFingerprint> buckets = new ArrayList<>();
+        for (long from = 0; from < mockTotalPerDomain; from += bucketSize) {
+            long to = from + bucketSize;
+            long count = Math.min(to, mockTotalPerDomain) - from;
+            buckets.add(new RangeFingerprint(from, to, count, mix(seed ^ mix(from) ^ count)));
+        }
+        return buckets;
+    }
 
-        List<FaultRecordDTO> result = new ArrayList<>(count);
-        for (long rank = startRank; rank <= endRank; rank++) {
-            result.add(FaultRecordDTO.builder()
+    private void injectLatencyAndErrors(String domain, LocalDate date, long lastRank) {
+        long latency = properties.getLatencyMs();
+        if (properties.getLatencyJitterMs() > 0) {
+            latency += ThreadLocalRandom.current().nextLong(properties.getLatencyJitterMs() + 1);
+        }
+        if (latency > 0) {
+            try {
+                Thread.sleep(latency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Mock upstream interrupted", e);
+            }
+        }
+        if (properties.getErrorRate() > 0 && ThreadLocalRandom.current().nextDouble() < properties.getErrorRate()) {
+            throw new IllegalStateException(String.format(
+                    "Injected mock upstream failure domain=%s date=%s lastRank=%d", domain, date, lastRank));
+        }
+    }
+
+    private long baseSeed(String domain, LocalDate date) {
+        return mix(properties.getSeed() ^ (domain.hashCode() * 0x9E3779B97F4A7C15L) ^ (date.toEpochDay() * 0xC2B2AE3D27D4EB4FL));
+    }
+
+    /**
+     * 预生成 faultDetail 池：长度按配置分布抽样（固定 seed），内容为可读的重复文本
+     */
+    private static String[] buildPayloadPool(MockSourceProperties properties) {
+        int min = Math.max(0, properties.getPayloadMinBytes());
+        int max = Math.max(min, properties.getPayloadMaxBytes());
+        boolean longTail = "long-tail".equalsIgnoreCase(properties.getPayloadDistribution());
+
+        String unit = "Mock fault detail: sensor timeout, retry exhausted, module reset. ";
+        StringBuilder text = new StringBuilder(max + unit.length());
+        while (text.length() < max) {
+            text.append(unit);
+        }
+
+        SplittableRandom random = new SplittableRandom(properties.getSeed());
+        String[] pool = new String[Math.max(1, properties.getPayloadPoolSize())];
+        for (int i = 0; i < pool.length; i++) {
+            double u = random.nextDouble();
+            // long-tail：u^3 使大部分长度贴近下限，少量接近上限
+            double fraction = longTail ? u * u * u : u;
+            int length = min + (int) Math.round((max - min) * fraction);
+            pool[i] = text.substring(0, length);
+        }
+        return pool;
+    }
+
+    /**
+     * SplitMix64 finalizer：将相邻输入打散为均匀分布的 64 位哈希
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * 按 rank 区间逐条生成记录的游标
+     */
+    private final class MockCursor implements FaultRecordCursor {
+
+        private final String domain;
+        private final LocalDate date;
+        private final long endRank;
+        private final long seed;
+        private final PageSummary summary = new PageSummary();
+        private long nextRank;
+
+        private MockCursor(String domain, LocalDate date, long startRank, long endRank, long seed) {
+            this.domain = domain;
+            this.date = date;
+            this.nextRank = startRank;
+            this.endRank = endRank;
+            this.seed = seed;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextRank <= endRank;
+        }
+
+        @Override
+        public FaultRecordDTO next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            long rank = nextRank++;
+            summary.accept(rank);
+            long h = mix(seed + rank * 0x9E3779B97F4A7C15L);
+            return FaultRecordDTO.builder()
                     .domain(domain)
                     .dataDate(date)
                     .rank(rank)
-                    .faultType("FAULT_TYPE_" + (rank % 10))
-                    .deviceId("DEVICE_" + UUID.randomUUID().toString().substring(0, 8))
-                    .faultDetail("Mock fault detail for rank=" + rank)
-                    .build());
+                    .faultType(faultTypes[(int) Long.remainderUnsigned(h, faultTypes.length)])
+                    .deviceId(deviceIds[(int) Long.remainderUnsigned(h >>> 16, deviceIds.length)])
+                    .faultDetail(payloads[(int) Long.remainderUnsigned(h >>> 40, payloads.length)])
+                    .build();
         }
 
-        log.debug("[MockClient] domain={} date={} lastRank={} 返回 {} 条 (rank {}-{})",
-                domain, date, lastRank, result.size(), startRank, endRank);
-        return result;
+        @Override
+        public PageSummary summary() {
+            return summary;
+        }
     }
 }
@@ -0,0 +1,361 @@
+package org.cabbage.codedemo.faultdatasync.client;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.cabbage.codedemo.faultdatasync.config.UpstreamResilienceProperties;
+import org.cabbage.codedemo.faultdatasync.limit.TokenBucket;
+import org.cabbage.codedemo.faultdatasync.metrics.SyncMetrics;
+import org.cabbage.codedemo.faultdatasync.model.FaultRecordDTO;
+import org.cabbage.codedemo.faultdatasync.model.PageSummary;
+import org.cabbage.codedemo.faultdatasync.model.RangeFingerprint;
+import org.cabbage.codedemo.faultdatasync.model.RankBucketDigest;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 上游数据源防护装饰器（fault-sync.upstream.enabled=true 时由 UpstreamResilienceConfig 包装实际数据源）
+ * <p>
+ * 每次逻辑调用依次经过：
+ * <ol>
+ *   <li>舱壁：同时在途的逻辑调用不超过 max-concurrent，等待超过 bulkhead-max-wait-ms 直接拒绝，
+ *       上游变慢时 worker 快速失败而不是全部阻塞、再由 CallerRunsPolicy 压到 PowerJob 线程上。
+ *       游标在 close 时才归还许可</li>
+ *   <li>熔断：{@link UpstreamCircuitBreaker}，失败或耗时 &gt;= slow-call-ms 的调用占比过高时 OPEN，期间直接拒绝</li>
+ *   <li>限速：domain 与全局两级令牌桶（domain-rps / global-rps），每次上游请求（含重试、续拉）各消耗一个令牌</li>
+ *   <li>重试：失败后按指数退避 + 全抖动（[0, min(retry-max-ms, retry-base-ms * 2^(n-1))]）重试，最多 max-attempts 次。
+ *       游标读到一半失败时从最后产出的 rank 续拉剩余条数，已产出的记录不重复、不丢失；熔断与舱壁拒绝不重试</li>
+ * </ol>
+ * 拒绝与重试耗尽均向调用方抛出异常，按 pull 失败记录批次、任务 FAILED 后由重试续拉，与上游本身报错的处理一致。
+ * <p>
+ * 数据源未覆盖 {@link #digestBuckets} 时沿用接口默认实现逐页拉取，每页都经过上述防护；
+ * 覆盖了（服务端聚合）则与 estimateMaxRank / fingerprints 一样作为一次调用防护。
+ */
+@Slf4j
+public class ResilientFaultDataSourceClient implements FaultDataSourceClient {
+
+    private final FaultDataSourceClient delegate;
+    private final UpstreamResilienceProperties properties;
+    private final SyncMetrics syncMetrics;
+    private final TokenBucket globalBucket;
+    private final Map<String, TokenBucket> domainBuckets = new ConcurrentHashMap<>();
+    private final Semaphore bulkhead;
+    private final UpstreamCircuitBreaker circuitBreaker;
+    private final boolean delegateDigests;
+
+    public ResilientFaultDataSourceClient(FaultDataSourceClient delegate, UpstreamResilienceProperties properties,
+                                          SyncMetrics syncMetrics, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.properties = properties;
+        this.syncMetrics = syncMetrics;
+        this.globalBucket = properties.getGlobalRps() > 0 ? new TokenBucket(properties.getGlobalRps()) : null;
+        this.bulkhead = properties.getMaxConcurrent() > 0 ? new Semaphore(properties.getMaxConcurrent(), true) : null;
+        this.circuitBreaker = new UpstreamCircuitBreaker(properties, state -> {
+            log.warn("[Upstream] 熔断状态变更为 {}", state);
+            syncMetrics.recordUpstreamCircuitTransition(state.name().toLowerCase());
+        });
+        this.delegateDigests = overridesDigestBuckets(delegate);
+
+        Gauge.builder("fault.sync.upstream.circuit.state", circuitBreaker, b -> b.state().ordinal())
+                .description("0=closed 1=open 2=half_open")
+                .register(registry);
+        if (bulkhead != null) {
+            Gauge.builder("fault.sync.upstream.bulkhead.in.flight", bulkhead,
+                            s -> properties.getMaxConcurrent() - s.availablePermits())
+                    .register(registry);
+        }
+        log.info("[Upstream] 上游防护已开启 globalRps={} domainRps={} maxConcurrent={} slowCallMs={} maxAttempts={}",
+                properties.getGlobalRps(), properties.getDomainRps(), properties.getMaxConcurrent(),
+                properties.getSlowCallMs(), properties.getMaxAttempts());
+    }
+
+    @Override
+    public List<FaultRecordDTO> pull(String domain, LocalDate date, long lastRank, int pageSize) {
+        return guarded(domain, lastRank, () -> delegate.pull(domain, date, lastRank, pageSize));
+    }
+
+    @Override
+    public FaultRecordCursor openCursor(String domain, LocalDate date, long lastRank, int pageSize) {
+        enterBulkhead(domain);
+        try {
+            return new ResumingCursor(domain, date, lastRank, pageSize);
+        } catch (RuntimeException e) {
+            exitBulkhead();
+            throw e;
+        }
+    }
+
+    @Override
+    public OptionalLong estimateMaxRank(String domain, LocalDate date) {
+        return guarded(domain, 0, () -> delegate.estimateMaxRank(domain, date));
+    }
+
+    @Override
+    public List<RangeFingerprint> fingerprints(String domain, LocalDate date, long bucketSize) {
+        return guarded(domain, 0, () -> delegate.fingerprints(domain, date, bucketSize));
+    }
+
+    @Override
+    public List<RankBucketDigest> digestBuckets(String domain, LocalDate date, long fromRank, Long toRank,
+                                                long bucketSpan, int bucketCount, int pageSize) {
+        if (!delegateDigests) {
+            return FaultDataSourceClient.super.digestBuckets(domain, date, fromRank, toRank,
+                    bucketSpan, bucketCount, pageSize);
+        }
+        return guarded(domain, fromRank, () -> delegate.digestBuckets(domain, date, fromRank, toRank,
+                bucketSpan, bucketCount, pageSize));
+    }
+
+    /**
+     * 当前熔断状态：closed / open / half_open
+     */
+    public String circuitState() {
+        return circuitBreaker.state().name().toLowerCase();
+    }
+
+    /**
+     * 舱壁内执行一次带重试的调用
+     */
+    private <T> T guarded(String domain, long lastRank, Supplier<T> action) {
+        enterBulkhead(domain);
+        try {
+            for (int failures = 1; ; failures++) {
+                long token = admit(domain);
+                long start = System.nanoTime();
+                try {
+                    T result = action.get();
+                    circuitBreaker.onResult(token, elapsedMs(start), true);
+                    return result;
+                } catch (RuntimeException e) {
+                    circuitBreaker.onResult(token, elapsedMs(start), false);
+                    backoffOrThrow(domain, lastRank, failures, e);
+                }
+            }
+        } finally {
+            exitBulkhead();
+        }
+    }
+
+    /**
+     * 单次上游请求的准入：熔断放行判断，再按 domain、全局令牌桶限速
+     *
+     * @return 熔断器放行 token
+     */
+    private long admit(String domain) {
+        long token = circuitBreaker.tryAcquire();
+        if (token == UpstreamCircuitBreaker.REJECTED) {
+            syncMetrics.recordUpstreamRejected(domain, "circuit_open");
+            throw new RejectedException("上游熔断中，拒绝请求 domain=" + domain);
+        }
+        try {
+            if (properties.getDomainRps() > 0) {
+                TokenBucket bucket = domainBuckets.computeIfAbsent(domain, d -> new TokenBucket(properties.getDomainRps()));
+                syncMetrics.recordUpstreamRateLimitWait(domain, "domain", bucket.acquire());
+            }
+            if (globalBucket != null) {
+                syncMetrics.recordUpstreamRateLimitWait(domain, "global", globalBucket.acquire());
+            }
+        } catch (RuntimeException e) {
+            // 已占用的 HALF_OPEN 试探名额必须有结果，否则熔断器停留在 HALF_OPEN
+            circuitBreaker.onResult(token, 0, false);
+            throw e;
+        }
+        return token;
+    }
+
+    /**
+     * 不可重试（拒绝、已中断）或次数耗尽时抛出 e，否则记录并按抖动退避等待
+     */
+    private void backoffOrThrow(String domain, long lastRank, int failures, RuntimeException e) {
+        if (e instanceof RejectedException || failures >= properties.getMaxAttempts()
+                || Thread.currentThread().isInterrupted()) {
+            throw e;
+        }
+        long ceiling = Math.min(properties.getRetryMaxMs(), properties.getRetryBaseMs() << Math.min(failures - 1, 20));
+        long delay = ThreadLocalRandom.current().nextLong(Math.max(0, ceiling) + 1);
+        log.warn("[Upstream] domain={} lastRank={} 第 {} 次请求失败，{}ms 后重试: {}",
+                domain, lastRank, failures, delay, e.getMessage());
+        syncMetrics.recordUpstreamRetry(domain);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            e.addSuppressed(ie);
+            throw e;
+        }
+    }
+
+    private void enterBulkhead(String domain) {
+        if (bulkhead == null) {
+            return;
+        }
+        try {
+            if (!bulkhead.tryAcquire(properties.getBulkheadMaxWaitMs(), TimeUnit.MILLISECONDS)) {
+                syncMetrics.recordUpstreamRejected(domain, "bulkhead");
+                throw new RejectedException("上游并发已满 " + properties.getMaxConcurrent()
+                        + "，等待 " + properties.getBulkheadMaxWaitMs() + "ms 未获得许可 domain=" + domain);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for upstream bulkhead", e);
+        }
+    }
+
+    private void exitBulkhead() {
+        if (bulkhead != null) {
+            bulkhead.release();
+        }
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    private static boolean overridesDigestBuckets(FaultDataSourceClient client) {
+        try {
+            return client.getClass().getMethod("digestBuckets", String.class, LocalDate.class, long.class,
+                    Long.class, long.class, int.class, int.class).getDeclaringClass() != FaultDataSourceClient.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 熔断或舱壁拒绝：不重试，直接交给调用方按 pull 失败处理
+     */
+    private static final class RejectedException extends IllegalStateException {
+        private RejectedException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * 可续拉游标：底层游标中途失败时，从最后产出的 rank 重新打开剩余 pageSize - 已产出 条；
+     * 每段底层游标视为一次上游请求，耗尽、失败或 close 时向熔断器上报耗时与结果。
+     * 失败次数在整个游标生命周期内累计，与 max-attempts 比较。
+     */
+    private final class ResumingCursor implements FaultRecordCursor {
+
+        private final String domain;
+        private final LocalDate date;
+        private final int pageSize;
+        private final PageSummary summary = new PageSummary();
+        private long resumeRank;
+        private int failures;
+        private FaultRecordCursor segment;
+        private long segmentToken;
+        private long segmentStart;
+        private boolean closed;
+
+        private ResumingCursor(String domain, LocalDate date, long lastRank, int pageSize) {
+            this.domain = domain;
+            this.date = date;
+            this.pageSize = pageSize;
+            this.resumeRank = lastRank;
+            openSegment(null);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (segment != null) {
+                if (summary.getCount() >= pageSize) {
+                    finishSegment(true);
+                    return false;
+                }
+                try {
+                    if (segment.hasNext()) {
+                        return true;
+                    }
+                    finishSegment(true);
+                    return false;
+                } catch (RuntimeException e) {
+                    finishSegment(false);
+                    openSegment(e);
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public FaultRecordDTO next() {
+            while (true) {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                try {
+                    FaultRecordDTO record = segment.next();
+                    resumeRank = record.getRank();
+                    summary.accept(resumeRank);
+                    return record;
+                } catch (RuntimeException e) {
+                    finishSegment(false);
+                    openSegment(e);
+                }
+            }
+        }
+
+        @Override
+        public PageSummary summary() {
+            return summary;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                finishSegment(true);
+            } finally {
+                exitBulkhead();
+            }
+        }
+
+        /**
+         * 从 resumeRank 打开剩余部分；cause 非空表示上一段已失败，先按重试策略退避
+         */
+        private void openSegment(RuntimeException cause) {
+            RuntimeException last = cause;
+            while (true) {
+                if (last != null) {
+                    backoffOrThrow(domain, resumeRank, ++failures, last);
+                }
+                long token = admit(domain);
+                long start = System.nanoTime();
+                try {
+                    segment = delegate.openCursor(domain, date, resumeRank, pageSize - summary.getCount());
+                    segmentToken = token;
+                    segmentStart = start;
+                    return;
+                } catch (RuntimeException e) {
+                    circuitBreaker.onResult(token, elapsedMs(start), false);
+                    last = e;
+                }
+            }
+        }
+
+        private void finishSegment(boolean success) {
+            if (segment == null) {
+                return;
+            }
+            FaultRecordCursor finished = segment;
+            segment = null;
+            circuitBreaker.onResult(segmentToken, elapsedMs(segmentStart), success);
+            try {
+                finished.close();
+            } catch (RuntimeException e) {
+                log.debug("[Upstream] 关闭上游游标失败 domain={}: {}", domain, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package org.cabbage.codedemo.faultdatasync.client;
+
+import org.cabbage.codedemo.faultdatasync.config.UpstreamResilienceProperties;
+
+import java.util.function.Consumer;
+
+/**
+ * 按调用次数滑动窗口统计失败率与慢调用率的熔断器
+ * <ul>
+ *   <li>CLOSED：窗口内调用数达到 min-calls 后，失败率或慢调用率达到阈值即转 OPEN</li>
+ *   <li>OPEN：open-ms 内拒绝全部调用，到期后首个调用将状态转为 HALF_OPEN</li>
+ *   <li>HALF_OPEN：只放行 half-open-calls 个试探调用，全部返回后按同样阈值转 OPEN 或 CLOSED</li>
+ * </ul>
+ * 每次状态变更递增 generation 并清空窗口；调用结果携带放行时的 generation，
+ * 旧状态下放行、在新状态下才返回的调用不计入新窗口。
+ */
+final class UpstreamCircuitBreaker {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /** 拒绝放行时 {@link #tryAcquire} 的返回值 */
+    static final long REJECTED = -1;
+
+    private static final int FAILED = 1;
+    private static final int SLOW = 2;
+
+    private final long slowCallMs;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final int minCalls;
+    private final long openMs;
+    private final int halfOpenCalls;
+    private final Consumer<State> onTransition;
+
+    /** 以下字段由 this 锁保护 */
+    private final byte[] window;
+    private int cursor;
+    private int recorded;
+    private int failed;
+    private int slow;
+    private volatile State state = State.CLOSED;
+    private long generation;
+    private long openedAt;
+    private int halfOpenIssued;
+
+    UpstreamCircuitBreaker(UpstreamResilienceProperties properties, Consumer<State> onTransition) {
+        this.window = new byte[Math.max(1, properties.getWindowSize())];
+        this.slowCallMs = properties.getSlowCallMs();
+        this.failureRateThreshold = properties.getFailureRateThreshold();
+        this.slowCallRateThreshold = properties.getSlowCallRateThreshold();
+        this.minCalls = Math.min(window.length, Math.max(1, properties.getMinCalls()));
+        this.openMs = properties.getOpenMs();
+        this.halfOpenCalls = Math.min(window.length, Math.max(1, properties.getHalfOpenCalls()));
+        this.onTransition = onTransition;
+    }
+
+    State state() {
+        return state;
+    }
+
+    /**
+     * 申请放行一次调用
+     *
+     * @return 放行时的 generation，交给 {@link #onResult}；{@link #REJECTED} 表示熔断中
+     */
+    synchronized long tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < openMs) {
+                return REJECTED;
+            }
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenIssued >= halfOpenCalls) {
+                return REJECTED;
+            }
+            halfOpenIssued++;
+        }
+        return generation;
+    }
+
+    synchronized void onResult(long token, long elapsedMs, boolean success) {
+        if (token != generation || state == State.OPEN) {
+            return;
+        }
+        record((success ? 0 : FAILED) | (elapsedMs >= slowCallMs ? SLOW : 0));
+        if (state == State.HALF_OPEN) {
+            if (recorded >= halfOpenCalls) {
+                transition(overThreshold() ? State.OPEN : State.CLOSED);
+            }
+        } else if (recorded >= minCalls && overThreshold()) {
+            transition(State.OPEN);
+        }
+    }
+
+    private void record(int outcome) {
+        if (recorded == window.length) {
+            int evicted = window[cursor];
+            failed -= evicted & FAILED;
+            slow -= (evicted & SLOW) >> 1;
+        } else {
+            recorded++;
+        }
+        window[cursor] = (byte) outcome;
+        failed += outcome & FAILED;
+        slow += (outcome & SLOW) >> 1;
+        cursor = (cursor + 1) % window.length;
+    }
+
+    private boolean overThreshold() {
+        return (double) failed / recorded >= failureRateThreshold
+                || (double) slow / recorded >= slowCallRateThreshold;
+    }
+
+    private void transition(State next) {
+        state = next;
+        generation++;
+        cursor = 0;
+        recorded = 0;
+        failed = 0;
+        slow = 0;
+        halfOpenIssued = 0;
+        if (next == State.OPEN) {
+            openedAt = System.currentTimeMillis();
+        }
+        onTransition.accept(next);
+    }
+}
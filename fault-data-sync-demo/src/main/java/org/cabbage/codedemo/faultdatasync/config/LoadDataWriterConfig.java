@@ -0,0 +1,35 @@
+package org.cabbage.codedemo.faultdatasync.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * LOAD DATA 写入器的连接配置（仅 fault-sync.consumer.writer=load-data 时生效）
+ * <p>
+ * allowLoadLocalInfile 允许服务端要求客户端上传本地文件，默认 URL 不带该参数；
+ * 只有选择 load-data 写入器的部署才给连接池追加该驱动属性，insert 写入器的部署不暴露此能力。
+ * 在 before-initialization 阶段设置，早于连接池启动与 {@link SyncResourceLimitConfig} 的包装。
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "fault-sync.consumer.writer", havingValue = "load-data")
+public class LoadDataWriterConfig {
+
+    @Bean
+    public static BeanPostProcessor loadLocalInfilePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource dataSource) {
+                    dataSource.addDataSourceProperty("allowLoadLocalInfile", "true");
+                    log.info("[Writer] load-data 写入器：数据源 {} 开启 allowLoadLocalInfile", beanName);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,47 @@
+package org.cabbage.codedemo.faultdatasync.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Mock 数据源压测配置（fault-sync.mock 节点）
+ * <p>
+ * 记录内容由 seed + domain + date + rank 确定性生成，同一配置下多次运行数据完全一致；
+ * 延迟与错误注入为随机行为，用于模拟上游抖动。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "fault-sync.mock")
+public class MockSourceProperties {
+
+    /** 数据生成种子 */
+    private long seed = 20260226L;
+
+    /** 故障类型种类数（预生成并复用字符串） */
+    private int faultTypeCount = 10;
+
+    /** 设备 ID 池大小（预生成并复用字符串） */
+    private int devicePoolSize = 4096;
+
+    /** faultDetail 最小字节数 */
+    private int payloadMinBytes = 32;
+
+    /** faultDetail 最大字节数 */
+    private int payloadMaxBytes = 256;
+
+    /** faultDetail 长度分布：uniform（均匀）/ long-tail（多数偏短，少量接近上限） */
+    private String payloadDistribution = "uniform";
+
+    /** 预生成的 faultDetail 池大小 */
+    private int payloadPoolSize = 256;
+
+    /** 每次 pull 注入的固定延迟（毫秒） */
+    private long latencyMs = 0;
+
+    /** 每次 pull 额外注入的随机延迟上限（毫秒） */
+    private long latencyJitterMs = 0;
+
+    /** 每次 pull 抛出异常的概率（0 ~ 1） */
+    private double errorRate = 0.0;
+}
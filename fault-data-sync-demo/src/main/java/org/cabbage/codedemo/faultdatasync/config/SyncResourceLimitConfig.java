@@ -0,0 +1,44 @@
+package org.cabbage.codedemo.faultdatasync.config;
+
+import org.cabbage.codedemo.faultdatasync.limit.PermitDataSource;
+import org.cabbage.codedemo.faultdatasync.limit.SyncResourceLimiter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * 按资源的并发许可配置（fault-sync.limits.*，&lt;= 0 表示不限制）
+ * <p>
+ * 平台线程模式下并发已由线程池大小约束，许可可保持默认；
+ * 虚拟线程模式（fault-sync.executor.mode=virtual）下应显式配置，避免上游、broker、连接池被打满。
+ */
+@Configuration
+public class SyncResourceLimitConfig {
+
+    @Bean
+    public SyncResourceLimiter syncResourceLimiter(
+            @Value("${fault-sync.limits.upstream-concurrency:0}") int upstreamConcurrency,
+            @Value("${fault-sync.limits.mq-in-flight:0}") int mqInFlight) {
+        return new SyncResourceLimiter(upstreamConcurrency, mqInFlight);
+    }
+
+    /**
+     * db-connections &gt; 0 时将 DataSource 包装为 {@link PermitDataSource}；static 保证早于其他 Bean 注册
+     */
+    @Bean
+    public static BeanPostProcessor dataSourcePermitPostProcessor(
+            @Value("${fault-sync.limits.db-connections:0}") int dbConnections) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (dbConnections > 0 && bean instanceof DataSource dataSource && !(bean instanceof PermitDataSource)) {
+                    return new PermitDataSource(dataSource, dbConnections);
+                }
+                return bean;
+            }
+        };
+    }
+}
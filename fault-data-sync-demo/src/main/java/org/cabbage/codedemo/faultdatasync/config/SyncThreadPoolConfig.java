@@ -6,6 +6,9 @@ import org.springframework.context.annotation.Configuration;
 
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
@@ -13,6 +16,10 @@ import java.util.concurrent.TimeUnit;
  * 故障数据同步有界线程池配置
  * <p>
  * 用于 FaultDataSyncJob 中 20 个领域并行同步，防止无限制扩张导致 OOM。
+ * <p>
+ * fault-sync.executor.mode=virtual 时 syncExecutor / syncPullExecutor 改为每任务一个虚拟线程：
+ * 同步任务几乎全是阻塞 I/O（上游 pull、syncSend、JDBC），并发上限改由
+ * {@link org.cabbage.codedemo.faultdatasync.limit.SyncResourceLimiter} 与 PermitDataSource 按资源控制。
  */
 @Configuration
 public class SyncThreadPoolConfig {
@@ -20,8 +27,18 @@ public class SyncThreadPoolConfig {
     @Value("${fault-sync.thread-pool-size:20}")
     private int threadPoolSize;
 
+    @Value("${fault-sync.pipeline.pull-threads:20}")
+    private int pullThreads;
+
+    /** platform（默认）| virtual */
+    @Value("${fault-sync.executor.mode:platform}")
+    private String executorMode;
+
     @Bean(name = "syncExecutor")
     public Executor syncExecutor() {
+        if (isVirtual()) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("fault-sync-vt-", 0).factory());
+        }
         return new ThreadPoolExecutor(
                 threadPoolSize,
                 threadPoolSize,
@@ -37,4 +54,35 @@ public class SyncThreadPoolConfig {
                 new ThreadPoolExecutor.CallerRunsPolicy()
         );
     }
+
+    /**
+     * 流水线模式下的预拉取线程池：每个 domain+date 最多占用 1 个线程，提前拉取下一批。
+     * <p>
+     * 必须与 syncExecutor 隔离：若复用同一池，CallerRunsPolicy 会让预拉取在发送线程上同步执行，
+     * 预拉取阻塞在满窗口上即形成死锁。不排队（SynchronousQueue）+ AbortPolicy，
+     * 池满时由调用方捕获 RejectedExecutionException 回退为串行拉取。
+     * 虚拟线程模式下不再拒绝，预拉取 / 区间拉取总是并发执行，上游并发由 UPSTREAM 许可限制。
+     */
+    @Bean(name = "syncPullExecutor")
+    public ExecutorService syncPullExecutor() {
+        if (isVirtual()) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("fault-sync-vt-pull-", 0).factory());
+        }
+        return new ThreadPoolExecutor(
+                0,
+                pullThreads,
+                60L, TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                r -> {
+                    Thread t = new Thread(r, "fault-sync-prefetch-" + System.nanoTime());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+
+    private boolean isVirtual() {
+        return "virtual".equalsIgnoreCase(executorMode);
+    }
 }
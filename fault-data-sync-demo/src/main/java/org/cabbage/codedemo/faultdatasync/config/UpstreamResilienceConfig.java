@@ -0,0 +1,30 @@
+package org.cabbage.codedemo.faultdatasync.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.cabbage.codedemo.faultdatasync.client.FaultDataSourceClient;
+import org.cabbage.codedemo.faultdatasync.client.ResilientFaultDataSourceClient;
+import org.cabbage.codedemo.faultdatasync.metrics.SyncMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * fault-sync.upstream.enabled=true 时以 {@link ResilientFaultDataSourceClient} 包装实际数据源
+ * <p>
+ * 包装后的 Bean 为 @Primary，拉取、增量指纹与对账均经过限速、舱壁与熔断；
+ * 工厂方法参数按类型注入时 Spring 会排除正在创建的 Bean 自身，因此 delegate 即为实际数据源。
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "fault-sync.upstream", name = "enabled", havingValue = "true")
+public class UpstreamResilienceConfig {
+
+    @Bean
+    @Primary
+    public FaultDataSourceClient resilientFaultDataSourceClient(FaultDataSourceClient delegate,
+                                                                UpstreamResilienceProperties properties,
+                                                                SyncMetrics syncMetrics,
+                                                                MeterRegistry registry) {
+        return new ResilientFaultDataSourceClient(delegate, properties, syncMetrics, registry);
+    }
+}
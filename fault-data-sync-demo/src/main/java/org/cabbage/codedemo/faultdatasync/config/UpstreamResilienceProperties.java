@@ -0,0 +1,61 @@
+package org.cabbage.codedemo.faultdatasync.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 上游调用防护配置（fault-sync.upstream 节点），enabled=true 时生效，见 ResilientFaultDataSourceClient
+ * <p>
+ * 限速与舱壁的数值 &lt;= 0 表示不限制。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "fault-sync.upstream")
+public class UpstreamResilienceProperties {
+
+    /** 是否包装上游数据源 */
+    private boolean enabled = false;
+
+    /** 全局每秒请求数 */
+    private double globalRps = 0;
+
+    /** 单个 domain 每秒请求数 */
+    private double domainRps = 0;
+
+    /** 同时在途的上游调用数（舱壁） */
+    private int maxConcurrent = 0;
+
+    /** 舱壁已满时的最长等待（毫秒），超时直接拒绝 */
+    private long bulkheadMaxWaitMs = 1000;
+
+    /** 慢调用阈值（毫秒） */
+    private long slowCallMs = 3000;
+
+    /** 慢调用率阈值（0 ~ 1） */
+    private double slowCallRateThreshold = 0.5;
+
+    /** 失败率阈值（0 ~ 1） */
+    private double failureRateThreshold = 0.5;
+
+    /** 熔断统计窗口：最近多少次调用 */
+    private int windowSize = 50;
+
+    /** 窗口内至少多少次调用后才评估熔断 */
+    private int minCalls = 20;
+
+    /** OPEN 持续时间（毫秒），之后进入 HALF_OPEN */
+    private long openMs = 30000;
+
+    /** HALF_OPEN 放行的试探调用数 */
+    private int halfOpenCalls = 5;
+
+    /** 单次调用最多尝试次数（含首次） */
+    private int maxAttempts = 3;
+
+    /** 重试退避基数（毫秒），第 n 次重试的退避上限为 base * 2^(n-1) */
+    private long retryBaseMs = 200;
+
+    /** 重试退避上限（毫秒） */
+    private long retryMaxMs = 5000;
+}
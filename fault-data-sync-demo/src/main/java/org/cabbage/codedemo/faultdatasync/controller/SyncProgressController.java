@@ -0,0 +1,54 @@
+package org.cabbage.codedemo.faultdatasync.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.cabbage.codedemo.faultdatasync.common.Result;
+import org.cabbage.codedemo.faultdatasync.model.SyncDashboardView;
+import org.cabbage.codedemo.faultdatasync.model.SyncProgressView;
+import org.cabbage.codedemo.faultdatasync.progress.SyncProgressProjection;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 同步进度查询（只读），数据来自 {@link SyncProgressProjection}：默认为内存投影，不查询进度表；
+ * derived 进度模式或多实例部署时读按固定间隔由数据库刷新的快照，查询本身仍不访问数据库
+ */
+@RestController
+@RequestMapping("/api/sync/progress")
+@RequiredArgsConstructor
+public class SyncProgressController {
+
+    private final SyncProgressProjection syncProgressProjection;
+
+    /**
+     * 全部 domain+date 的进度，可按 domain 过滤
+     */
+    @GetMapping
+    public Result<List<SyncProgressView>> list(@RequestParam(required = false) String domain) {
+        return Result.success(syncProgressProjection.list(domain));
+    }
+
+    /**
+     * 看板汇总：状态分布、总入库速率、失败批次数、进行中与失败的 domain+date
+     */
+    @GetMapping("/dashboard")
+    public Result<SyncDashboardView> dashboard() {
+        return Result.success(syncProgressProjection.dashboard());
+    }
+
+    @GetMapping("/{domain}/{dataDate}")
+    public Result<SyncProgressView> get(@PathVariable String domain,
+                                        @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataDate) {
+        SyncProgressView view = syncProgressProjection.get(domain, dataDate);
+        if (view == null) {
+            return Result.fail("无进度记录: domain=" + domain + " date=" + dataDate);
+        }
+        return Result.success(view);
+    }
+}
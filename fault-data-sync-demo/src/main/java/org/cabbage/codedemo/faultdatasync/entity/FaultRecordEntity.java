@@ -33,6 +33,9 @@ public class FaultRecordEntity {
     /** 当天唯一排序值 */
     private Integer rank;
 
+    /** 数据代次（影子重同步） */
+    private Integer generation;
+
     /** 故障类型 */
     private String faultType;
 
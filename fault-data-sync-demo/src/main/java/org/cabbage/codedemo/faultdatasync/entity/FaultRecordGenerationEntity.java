@@ -0,0 +1,46 @@
+package org.cabbage.codedemo.faultdatasync.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 故障记录代次指针（对应 fault_record_generation 表）
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@TableName("fault_record_generation")
+public class FaultRecordGenerationEntity {
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    private String domain;
+
+    private LocalDate dataDate;
+
+    /** 当前对外可见代次 */
+    private Integer activeGeneration;
+
+    /** 正在写入的影子代次，null 表示无进行中的影子重同步 */
+    private Integer pendingGeneration;
+
+    /** 1 = 存在待清理的旧代次 */
+    private Integer purgeNeeded;
+
+    /** 最近一次切换时间 */
+    private LocalDateTime swapTime;
+
+    private LocalDateTime createTime;
+
+    private LocalDateTime updateTime;
+}
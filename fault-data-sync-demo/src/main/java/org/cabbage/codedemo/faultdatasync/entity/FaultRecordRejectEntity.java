@@ -0,0 +1,53 @@
+package org.cabbage.codedemo.faultdatasync.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 隔离记录实体（对应 fault_record_reject 表）：写入 fault_record 失败的毒记录，字段按上游原样保留
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@TableName("fault_record_reject")
+public class FaultRecordRejectEntity {
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    private String domain;
+
+    private LocalDate dataDate;
+
+    private Integer generation;
+
+    private Long rank;
+
+    /** 所属批次 */
+    private Integer batchIndex;
+
+    private String faultType;
+
+    private String deviceId;
+
+    private String faultDetail;
+
+    /** 隔离来源：replay */
+    private String source;
+
+    /** 写入失败原因 */
+    private String errorMessage;
+
+    private LocalDateTime createTime;
+
+    private LocalDateTime updateTime;
+}
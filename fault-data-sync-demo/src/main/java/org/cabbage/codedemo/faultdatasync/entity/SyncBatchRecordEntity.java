@@ -40,12 +40,21 @@ public class SyncBatchRecordEntity {
     /** 本批记录数 */
     private Integer recordCount;
 
+    /** 区间并行拉取时所属区间的最大 rank（含）；NULL 表示不设上界（顺序拉取或最后一个区间） */
+    private Long rangeEndRank;
+
+    /** 本批 pull 使用的页大小，重试时按此值重放同一 rank 范围；0 表示历史数据，按当前配置 */
+    private Integer pageSize;
+
     /** PENDING/SUCCESS/FAILED */
     private String pullStatus;
 
     /** PENDING/SUCCESS/FAILED */
     private String insertStatus;
 
+    /** 隔离到 fault_record_reject 的记录数；insert_status=SUCCESS 时其余记录均已入库 */
+    private Integer rejectCount;
+
     private String errorMessage;
 
     private LocalDateTime createTime;
@@ -0,0 +1,42 @@
+package org.cabbage.codedemo.faultdatasync.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 区间内容指纹实体（对应 sync_range_fingerprint 表）
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@TableName("sync_range_fingerprint")
+public class SyncRangeFingerprintEntity {
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    private String domain;
+
+    private LocalDate dataDate;
+
+    /** 区间起点（不含） */
+    private Long fromRank;
+
+    /** 区间终点（含） */
+    private Long toRank;
+
+    private Long recordCount;
+
+    private Long checksum;
+
+    private LocalDateTime createTime;
+}
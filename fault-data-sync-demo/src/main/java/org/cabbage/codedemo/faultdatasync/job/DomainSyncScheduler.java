@@ -0,0 +1,176 @@
+package org.cabbage.codedemo.faultdatasync.job;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.cabbage.codedemo.faultdatasync.service.SyncTaskRecordService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * domain+date 同步任务优先级调度器（fault-sync.scheduler.mode=priority）
+ * <p>
+ * 替代 syncExecutor 的固定线程池 + CallerRunsPolicy：
+ * <ul>
+ *   <li>执行池为 {@code parallelism} 个固定线程的 ThreadPoolExecutor，任务队列是无界的 PriorityBlockingQueue，
+ *       按预计批次数降序（最长任务优先）出队，预计值取自 sync_task_record 上次运行的 batch_count；
+ *       从未运行过的领域视为最大，最先调度。入队、出队均为 O(log n)</li>
+ *   <li>单个领域同时运行的日期数不超过 {@code per-domain-max-concurrency}：worker 取到已达上限领域的任务时
+ *       将其暂存到该领域的等待队列并立即取下一个；该领域任一任务结束后，把等待队列中优先级最高的一个放回执行队列</li>
+ *   <li>同步任务几乎全是阻塞 I/O（拉取上游、发送 MQ），每个 worker 同一时间只执行一个任务；
+ *       单个慢 domain+date 只占一个 worker，不会阻塞后续任务，也不会回落到 PowerJob 线程执行</li>
+ * </ul>
+ * mode=pool（默认）时不创建线程池，FaultDataSyncJob 沿用 syncExecutor。
+ */
+@Slf4j
+@Component
+public class DomainSyncScheduler {
+
+    /** 预计批次数降序，相同时按提交顺序 */
+    private static final Comparator<ScheduledSync> LARGEST_FIRST =
+            Comparator.comparingLong((ScheduledSync s) -> s.expectedBatches).reversed()
+                    .thenComparingLong(s -> s.sequence);
+
+    private final SyncTaskRecordService syncTaskRecordService;
+    private final boolean enabled;
+    private final int perDomainMaxConcurrency;
+    private final ThreadPoolExecutor pool;
+    private final AtomicLong sequence = new AtomicLong();
+
+    /** 以下字段由 this 锁保护 */
+    private final Map<String, Integer> runningByDomain = new HashMap<>();
+    private final Map<String, PriorityQueue<ScheduledSync>> deferredByDomain = new HashMap<>();
+
+    public DomainSyncScheduler(SyncTaskRecordService syncTaskRecordService,
+                               @Value("${fault-sync.scheduler.mode:pool}") String mode,
+                               @Value("${fault-sync.scheduler.parallelism:${fault-sync.thread-pool-size:20}}") int parallelism,
+                               @Value("${fault-sync.scheduler.per-domain-max-concurrency:3}") int perDomainMaxConcurrency) {
+        this.syncTaskRecordService = syncTaskRecordService;
+        this.enabled = "priority".equalsIgnoreCase(mode);
+        this.perDomainMaxConcurrency = Math.max(1, perDomainMaxConcurrency);
+        if (!enabled) {
+            this.pool = null;
+            return;
+        }
+        int threads = Math.max(1, parallelism);
+        // 队列中只会有 ScheduledSync（只经 execute 提交，不经 submit 包装为 FutureTask）
+        this.pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(64, Comparator.comparing(r -> (ScheduledSync) r, LARGEST_FIRST)),
+                Thread.ofPlatform().name("fault-sync-sched-", 0).daemon(true).factory());
+        this.pool.prestartAllCoreThreads();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 提交一个 domain+date 同步任务，返回值在任务执行结束后完成
+     */
+    public CompletableFuture<String> submit(String domain, LocalDate date, Supplier<String> task) {
+        long expected = syncTaskRecordService.estimateBatchCount(domain, date);
+        ScheduledSync sync = new ScheduledSync(domain, date, expected < 0 ? Long.MAX_VALUE : expected,
+                sequence.getAndIncrement(), task);
+        log.debug("[Scheduler] 提交 domain={} date={} 预计批次={}", domain, date, expected);
+        enqueue(sync);
+        return sync.future;
+    }
+
+    private void enqueue(ScheduledSync sync) {
+        try {
+            pool.execute(sync);
+        } catch (RejectedExecutionException e) {
+            sync.future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * worker 取到任务时占用领域名额；已达上限则暂存，由该领域下一个结束的任务放回执行队列
+     */
+    private synchronized boolean tryStart(ScheduledSync sync) {
+        int running = runningByDomain.getOrDefault(sync.domain, 0);
+        if (running >= perDomainMaxConcurrency) {
+            deferredByDomain.computeIfAbsent(sync.domain, d -> new PriorityQueue<>(LARGEST_FIRST)).add(sync);
+            return false;
+        }
+        runningByDomain.put(sync.domain, running + 1);
+        return true;
+    }
+
+    /**
+     * 释放领域名额，返回该领域等待中优先级最高的任务（没有则为 null）
+     */
+    private synchronized ScheduledSync finish(ScheduledSync sync) {
+        runningByDomain.computeIfPresent(sync.domain, (d, n) -> n > 1 ? n - 1 : null);
+        PriorityQueue<ScheduledSync> deferred = deferredByDomain.get(sync.domain);
+        if (deferred == null) {
+            return null;
+        }
+        ScheduledSync next = deferred.poll();
+        if (deferred.isEmpty()) {
+            deferredByDomain.remove(sync.domain);
+        }
+        return next;
+    }
+
+    private void run(ScheduledSync sync) {
+        if (!tryStart(sync)) {
+            log.debug("[Scheduler] 领域并发已满，暂缓 domain={} date={}", sync.domain, sync.date);
+            return;
+        }
+        log.debug("[Scheduler] 开始 domain={} date={} 预计批次={}", sync.domain, sync.date, sync.expectedBatches);
+        try {
+            sync.future.complete(sync.task.get());
+        } catch (Throwable e) {
+            sync.future.completeExceptionally(e);
+        } finally {
+            ScheduledSync next = finish(sync);
+            if (next != null) {
+                enqueue(next);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (pool != null) {
+            pool.shutdown();
+            pool.awaitTermination(30, TimeUnit.SECONDS);
+        }
+    }
+
+    private final class ScheduledSync implements Runnable {
+        private final String domain;
+        private final LocalDate date;
+        private final long expectedBatches;
+        private final long sequence;
+        private final Supplier<String> task;
+        private final CompletableFuture<String> future = new CompletableFuture<>();
+
+        private ScheduledSync(String domain, LocalDate date, long expectedBatches, long sequence,
+                              Supplier<String> task) {
+            this.domain = domain;
+            this.date = date;
+            this.expectedBatches = expectedBatches;
+            this.sequence = sequence;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            DomainSyncScheduler.this.run(this);
+        }
+    }
+}
@@ -16,6 +16,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -29,7 +30,8 @@ import java.util.stream.Collectors;
  * {"domain": "domain_a", "syncDays": 5}
  * </pre>
  * 领域级并行由 PowerJob 并发调度多个任务实例实现；
- * 日期级并行（5 个日期）通过 CompletableFuture + 共享有界线程池实现。
+ * 日期级并行（5 个日期）通过 CompletableFuture + 共享有界线程池实现；
+ * fault-sync.scheduler.mode=priority 时改由 {@link DomainSyncScheduler} 按预计规模最长优先调度。
  */
 @Slf4j
 @Component
@@ -37,6 +39,7 @@ import java.util.stream.Collectors;
 public class FaultDataSyncJob implements BasicProcessor {
 
     private final FaultSyncService faultSyncService;
+    private final DomainSyncScheduler domainSyncScheduler;
 
     @Qualifier("syncExecutor")
     private final Executor syncExecutor;
@@ -55,22 +58,22 @@ public class FaultDataSyncJob implements BasicProcessor {
 
         log.info("[SyncJob] 领域={} 同步天数={} 总任务数={}", domain, syncDays, dates.size());
 
-        // 对单个领域的所有日期并发提交到共享有界线程池
+        // 对单个领域的所有日期并发提交到共享有界线程池（或优先级调度器）
         List<CompletableFuture<String>> futures = new ArrayList<>();
         for (LocalDate date : dates) {
             final LocalDate dt = date;
-            futures.add(CompletableFuture.supplyAsync(
-                    () -> {
-                        try {
-                            faultSyncService.syncDomainDate(domain, dt);
-                            return "OK:" + domain + "_" + dt;
-                        } catch (Exception e) {
-                            log.error("[SyncJob] 任务失败 domain={} date={}", domain, dt, e);
-                            return "FAIL:" + domain + "_" + dt + ":" + e.getMessage();
-                        }
-                    },
-                    syncExecutor
-            ));
+            Supplier<String> task = () -> {
+                try {
+                    faultSyncService.syncDomainDate(domain, dt);
+                    return "OK:" + domain + "_" + dt;
+                } catch (Exception e) {
+                    log.error("[SyncJob] 任务失败 domain={} date={}", domain, dt, e);
+                    return "FAIL:" + domain + "_" + dt + ":" + e.getMessage();
+                }
+            };
+            futures.add(domainSyncScheduler.isEnabled()
+                    ? domainSyncScheduler.submit(domain, dt, task)
+                    : CompletableFuture.supplyAsync(task, syncExecutor));
         }
 
         // 等待所有日期任务完成，统计结果
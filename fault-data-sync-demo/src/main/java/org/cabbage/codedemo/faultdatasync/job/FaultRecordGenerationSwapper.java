@@ -0,0 +1,36 @@
+package org.cabbage.codedemo.faultdatasync.job;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.cabbage.codedemo.faultdatasync.service.FaultRecordGenerationService;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 影子重同步代次切换与旧代次清理
+ * <p>
+ * 任务 SUCCESS 的时刻分散在消费者、Producer 补偿检查与进度巡检中，这里统一以定时扫描的方式切换，
+ * 不侵入各处完成判定逻辑。切换后旧代次分块删除，单块大小由 fault-sync.resync.purge-chunk-size 控制。
+ * <p>
+ * 不区分 resync.mode 始终运行：从 shadow 切回 delete 时，遗留的 pending 代次仍需完成切换与清理。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FaultRecordGenerationSwapper {
+
+    private final FaultRecordGenerationService generationService;
+
+    @Scheduled(fixedDelayString = "${fault-sync.resync.swap-interval-ms:5000}")
+    public void swapAndPurge() {
+        try {
+            int swapped = generationService.swapCompleted();
+            long purged = generationService.purgeStaleGenerations();
+            if (swapped > 0 || purged > 0) {
+                log.info("[Generation] 本轮切换 {} 个 domain+date，清理旧代次记录 {} 条", swapped, purged);
+            }
+        } catch (Exception e) {
+            log.error("[Generation] 代次切换/清理失败，下轮重试", e);
+        }
+    }
+}
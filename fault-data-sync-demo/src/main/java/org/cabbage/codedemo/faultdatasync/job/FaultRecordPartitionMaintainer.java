@@ -0,0 +1,117 @@
+package org.cabbage.codedemo.faultdatasync.job;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.cabbage.codedemo.faultdatasync.mapper.FaultRecordMapper;
+import org.cabbage.codedemo.faultdatasync.model.PartitionInfo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * fault_record 按 data_date 分区维护（需先执行 db/fault_record_partition.sql）
+ * <p>
+ * 分区命名 pYYYYMMDD，表示该分区包含的最后一天（VALUES LESS THAN 次日）：
+ * <ul>
+ *   <li>预建：从 p_max 拆出分区，直至覆盖 今天 + futureDays</li>
+ *   <li>过期（仅 retention-days &gt; 0 时）：最后一天早于 今天 - retentionDays 的分区直接 DROP PARTITION
+ *       （O(1)，无逐行删除与大事务）；默认 0 表示从不删除，分区只为删除提供 O(1) 的手段，不附带保留策略</li>
+ * </ul>
+ * 首次开启时 p_max 中今天之前的历史数据整体拆到一个以昨天命名的分区，不会在同一轮被删除；
+ * 配置了保留期时，它要等到昨天也超出保留期才会被删除，此时其中的数据都已过期。
+ * 非 pYYYYMMDD 命名的分区（如 p_history）由运维手工管理。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "fault-sync.partition.enabled", havingValue = "true")
+public class FaultRecordPartitionMaintainer {
+
+    private static final String MAX_PARTITION = "p_max";
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("'p'yyyyMMdd");
+
+    private final FaultRecordMapper faultRecordMapper;
+
+    @Value("${fault-sync.partition.future-days:7}")
+    private int futureDays;
+
+    /** 保留天数；0（默认）表示从不删除分区 */
+    @Value("${fault-sync.partition.retention-days:0}")
+    private int retentionDays;
+
+    /**
+     * 启动时先执行一次，保证当天及未来分区已存在
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${fault-sync.partition.cron:0 10 0 * * *}")
+    public void maintain() {
+        try {
+            LocalDate today = LocalDate.now();
+            List<PartitionInfo> partitions = faultRecordMapper.listPartitions();
+            if (partitions.stream().noneMatch(p -> MAX_PARTITION.equals(p.getName()))) {
+                log.warn("[Partition] fault_record 未按 data_date 分区（缺少 {}），跳过维护", MAX_PARTITION);
+                return;
+            }
+            createFuturePartitions(partitions, today);
+            if (retentionDays > 0) {
+                dropExpiredPartitions(partitions, today.minusDays(retentionDays));
+            }
+        } catch (Exception e) {
+            log.error("[Partition] 分区维护失败", e);
+        }
+    }
+
+    private void createFuturePartitions(List<PartitionInfo> partitions, LocalDate today) {
+        // 当前最大有界分区的上界（不含）
+        LocalDate bound = partitions.stream()
+                .filter(p -> !MAX_PARTITION.equals(p.getName()))
+                .map(p -> LocalDate.parse(p.getDescription().replace("'", "")))
+                .max(LocalDate::compareTo)
+                .orElse(today);
+        if (bound.isBefore(today)) {
+            // 上界早于今天：先用一个分区承接 [bound, today)，避免逐日拆分 p_max 中的历史数据
+            split(today.minusDays(1));
+            bound = today;
+        }
+        LocalDate target = today.plusDays(futureDays);
+        while (!bound.isAfter(target)) {
+            split(bound);
+            bound = bound.plusDays(1);
+        }
+    }
+
+    private void split(LocalDate lastDay) {
+        String name = lastDay.format(NAME_FORMAT);
+        faultRecordMapper.splitMaxPartition(name, lastDay.plusDays(1).toString());
+        log.info("[Partition] 新建分区 {} (data_date < {})", name, lastDay.plusDays(1));
+    }
+
+    private void dropExpiredPartitions(List<PartitionInfo> partitions, LocalDate oldestKept) {
+        for (PartitionInfo partition : partitions) {
+            LocalDate lastDay = parseLastDay(partition.getName());
+            if (lastDay != null && lastDay.isBefore(oldestKept)) {
+                faultRecordMapper.dropPartition(partition.getName());
+                log.info("[Partition] 删除过期分区 {}（保留期 {} 天）", partition.getName(), retentionDays);
+            }
+        }
+    }
+
+    private static LocalDate parseLastDay(String name) {
+        try {
+            return LocalDate.parse(name, NAME_FORMAT);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.cabbage.codedemo.faultdatasync.job;
+
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.cabbage.codedemo.faultdatasync.model.ReconcileReport;
+import org.cabbage.codedemo.faultdatasync.reconcile.FaultRecordReconciler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tech.powerjob.worker.core.processor.ProcessResult;
+import tech.powerjob.worker.core.processor.TaskContext;
+import tech.powerjob.worker.core.processor.sdk.BasicProcessor;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * PowerJob 对账任务处理器：逐日对账单个领域的 D-1 至 D-syncDays，不一致区间由对账器定向修复
+ * <p>
+ * instanceParams 示例（JSON 字符串）：
+ * <pre>
+ * {"domain": "domain_a", "syncDays": 5}
+ * </pre>
+ * 建议与同步任务错开调度；对账只处理已 SUCCESS 的日期，日期间串行执行，避免与同步争抢上游与数据库。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FaultRecordReconcileJob implements BasicProcessor {
+
+    private final FaultRecordReconciler reconciler;
+
+    @Value("${fault-sync.sync-days:5}")
+    private int defaultSyncDays;
+
+    @Override
+    public ProcessResult process(TaskContext context) {
+        log.info("[ReconcileJob] 任务触发，instanceId={} params={}",
+                context.getInstanceId(), context.getJobParams());
+        JSONObject params = JSONUtil.parseObj(context.getJobParams() == null ? "{}" : context.getJobParams());
+        String domain = params.getStr("domain");
+        if (domain == null || domain.isBlank()) {
+            return new ProcessResult(false, "jobParams 中未找到有效的 domain");
+        }
+        int syncDays = params.getInt("syncDays", defaultSyncDays);
+
+        List<String> issues = new ArrayList<>();
+        LocalDate today = LocalDate.now();
+        for (int i = 1; i <= syncDays; i++) {
+            LocalDate date = today.minusDays(i);
+            try {
+                ReconcileReport report = reconciler.reconcile(domain, date);
+                if (report.getRepairError() != null) {
+                    issues.add(date + ":修复失败:" + report.getRepairError());
+                } else if (!report.getRepairRanges().isEmpty()) {
+                    issues.add(date + ":已修复 " + report.getRepairRanges().size() + " 个区间");
+                }
+            } catch (Exception e) {
+                log.error("[ReconcileJob] 对账失败 domain={} date={}", domain, date, e);
+                issues.add(date + ":对账异常:" + e.getMessage());
+            }
+        }
+
+        String summary = String.format("领域=%s 天数=%d 不一致=%d", domain, syncDays, issues.size());
+        log.info("[ReconcileJob] 完成，{} {}", summary, issues);
+        boolean failed = issues.stream().anyMatch(s -> s.contains("失败") || s.contains("异常"));
+        return new ProcessResult(!failed, issues.isEmpty() ? summary : summary + " | " + issues);
+    }
+}
@@ -0,0 +1,44 @@
+package org.cabbage.codedemo.faultdatasync.job;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.cabbage.codedemo.faultdatasync.entity.SyncTaskRecordEntity;
+import org.cabbage.codedemo.faultdatasync.service.SyncTaskRecordService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * derived 进度模式的定时终结器
+ * <p>
+ * 最后几批并发提交时，各消费者的一致性读可能都看到对方未提交的批次而均不触发终结；
+ * 本任务定期扫描 MESSAGES_SENT 任务并按 sync_batch_record 推导完成状态，兜底这一窗口。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "fault-sync.progress.mode", havingValue = "derived")
+public class SyncProgressFinalizer {
+
+    private final SyncTaskRecordService syncTaskRecordService;
+
+    @Scheduled(fixedDelayString = "${fault-sync.progress.sweep-interval-ms:5000}")
+    public void sweep() {
+        List<SyncTaskRecordEntity> tasks = syncTaskRecordService.findMessagesSent();
+        int finalized = 0;
+        for (SyncTaskRecordEntity task : tasks) {
+            try {
+                if (syncTaskRecordService.finalizeIfAllBatchesInserted(task.getDomain(), task.getDataDate())) {
+                    finalized++;
+                }
+            } catch (Exception e) {
+                log.error("[Progress] 巡检终结失败 domain={} date={}", task.getDomain(), task.getDataDate(), e);
+            }
+        }
+        if (finalized > 0) {
+            log.info("[Progress] 巡检 {} 个 MESSAGES_SENT 任务，置为 SUCCESS {} 个", tasks.size(), finalized);
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package org.cabbage.codedemo.faultdatasync.limit;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.cabbage.codedemo.faultdatasync.mapper.SyncBatchRecordMapper;
+import org.cabbage.codedemo.faultdatasync.metrics.SyncMetrics;
+import org.cabbage.codedemo.faultdatasync.model.StatusCount;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 按 domain 的下游背压（fault-sync.backpressure.enabled=true）
+ * <p>
+ * 两个信号，每 {@code sample-interval-ms} 评估一次：
+ * <ul>
+ *   <li>消费积压（代理指标）：sync_batch_record 中已发送到 broker（pull_status=SUCCESS）、尚未入库（insert_status=PENDING）的批次数，
+ *       每个采样周期查询一次 countUnconsumed。每批一条消息，近似 fault-data-sync-consumer 在该 domain 上的积压消息数，
+ *       所有实例共享同一口径；并非 RocketMQ 消费位点计算的真实 lag，记账延迟或批次状态写失败都会使其偏离</li>
+ *   <li>写库延迟：消费端上报的单批写库耗时（EWMA）；超过 3 个采样周期无上报视为 0，避免暂停后旧值一直生效</li>
+ * </ul>
+ * 任一信号越过阈值即升级，全部低于恢复阈值才回到 NORMAL（滞回）：
+ * <ul>
+ *   <li>THROTTLED：越过 throttle 阈值；每次 pull 前等待 {@code throttle-delay-ms}</li>
+ *   <li>PAUSED：越过 pause 阈值；pull 阻塞到降级为止，降到 THROTTLED 需低于 throttle 阈值。
+ *       超过 {@code max-pause-ms} 仍未恢复则本次 pull 抛出异常，调用方按 pull 失败记录批次，任务 FAILED 后由重试续拉</li>
+ * </ul>
+ * 等待发生在获取上游许可之前，暂停的 domain 不占用 {@link SyncResourceLimiter} 许可。
+ * PAUSED 等待使用 {@link ReentrantLock} + {@link Condition}（虚拟线程执行器下不固定载体线程），不在 synchronized 内阻塞。
+ * 状态与积压以 {@code fault.sync.backpressure.level}（0/1/2）、{@code fault.sync.backpressure.lag} gauge 暴露。
+ */
+@Slf4j
+@Component
+public class SyncBackpressureController {
+
+    public enum Level { NORMAL, THROTTLED, PAUSED }
+
+    private static final double WRITE_EWMA_ALPHA = 0.3;
+
+    private final SyncBatchRecordMapper syncBatchRecordMapper;
+    private final SyncMetrics syncMetrics;
+    private final MeterRegistry registry;
+    private final Map<String, DomainState> states = new ConcurrentHashMap<>();
+
+    @Value("${fault-sync.backpressure.enabled:false}")
+    private boolean enabled;
+
+    @Value("${fault-sync.sync-days:5}")
+    private int syncDays;
+
+    @Value("${fault-sync.backpressure.sample-interval-ms:5000}")
+    private long sampleIntervalMs;
+
+    @Value("${fault-sync.backpressure.throttle-lag-batches:200}")
+    private long throttleLagBatches;
+
+    @Value("${fault-sync.backpressure.pause-lag-batches:1000}")
+    private long pauseLagBatches;
+
+    @Value("${fault-sync.backpressure.resume-lag-batches:100}")
+    private long resumeLagBatches;
+
+    @Value("${fault-sync.backpressure.throttle-write-ms:2000}")
+    private long throttleWriteMs;
+
+    @Value("${fault-sync.backpressure.pause-write-ms:5000}")
+    private long pauseWriteMs;
+
+    @Value("${fault-sync.backpressure.resume-write-ms:1000}")
+    private long resumeWriteMs;
+
+    @Value("${fault-sync.backpressure.throttle-delay-ms:500}")
+    private long throttleDelayMs;
+
+    @Value("${fault-sync.backpressure.max-pause-ms:600000}")
+    private long maxPauseMs;
+
+    public SyncBackpressureController(SyncBatchRecordMapper syncBatchRecordMapper, SyncMetrics syncMetrics,
+                                      MeterRegistry registry) {
+        this.syncBatchRecordMapper = syncBatchRecordMapper;
+        this.syncMetrics = syncMetrics;
+        this.registry = registry;
+    }
+
+    /**
+     * pull 前调用：NORMAL 直接返回，THROTTLED 等待固定间隔，PAUSED 阻塞到降级或超时
+     */
+    public void awaitPermit(String domain) {
+        if (!enabled) {
+            return;
+        }
+        DomainState state = state(domain);
+        Level entered = state.level;
+        if (entered == Level.NORMAL) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            if (entered == Level.PAUSED) {
+                awaitResume(domain, state);
+            }
+            if (state.level == Level.THROTTLED) {
+                Thread.sleep(throttleDelayMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("背压等待被中断 domain=" + domain, e);
+        } finally {
+            syncMetrics.recordBackpressureWait(domain, entered.name().toLowerCase(), start);
+        }
+    }
+
+    /**
+     * 消费端上报单批写库耗时
+     */
+    public void onWrite(String domain, long elapsedMs) {
+        if (!enabled) {
+            return;
+        }
+        state(domain).recordWrite(elapsedMs);
+    }
+
+    public Level level(String domain) {
+        DomainState state = states.get(domain);
+        return state == null ? Level.NORMAL : state.level;
+    }
+
+    @Scheduled(fixedDelayString = "${fault-sync.backpressure.sample-interval-ms:5000}")
+    public void sample() {
+        if (!enabled) {
+            return;
+        }
+        Map<String, Long> lag = new HashMap<>();
+        try {
+            for (StatusCount count : syncBatchRecordMapper.countUnconsumed(LocalDate.now().minusDays(syncDays))) {
+                lag.merge(count.getDomain(), count.getCount(), Long::sum);
+            }
+        } catch (Exception e) {
+            log.warn("[Backpressure] 读取消费积压失败，保持当前状态: {}", e.getMessage());
+            return;
+        }
+        // 积压已清零的 domain 不在查询结果中，也需要评估以便恢复
+        Set<String> domains = new HashSet<>(states.keySet());
+        domains.addAll(lag.keySet());
+        long now = System.currentTimeMillis();
+        for (String domain : domains) {
+            evaluate(domain, state(domain), lag.getOrDefault(domain, 0L), now);
+        }
+    }
+
+    private void evaluate(String domain, DomainState state, long lagBatches, long now) {
+        long writeMs = state.writeLatencyMs(now, 3 * sampleIntervalMs);
+        boolean overPause = lagBatches >= pauseLagBatches || writeMs >= pauseWriteMs;
+        boolean overThrottle = lagBatches >= throttleLagBatches || writeMs >= throttleWriteMs;
+        boolean underResume = lagBatches < resumeLagBatches && writeMs < resumeWriteMs;
+
+        Level current = state.level;
+        Level next;
+        if (overPause || (current == Level.PAUSED && overThrottle)) {
+            next = Level.PAUSED;
+        } else if (overThrottle) {
+            next = Level.THROTTLED;
+        } else if (underResume) {
+            next = Level.NORMAL;
+        } else {
+            // 恢复阈值与 throttle 阈值之间：保持当前状态，PAUSED 降为 THROTTLED
+            next = current == Level.PAUSED ? Level.THROTTLED : current;
+        }
+
+        state.lag = lagBatches;
+        if (next != current) {
+            log.info("[Backpressure] domain={} {} → {}，积压 {} 批，写库 {}ms", domain, current, next, lagBatches, writeMs);
+            state.lock.lock();
+            try {
+                state.level = next;
+                state.levelChanged.signalAll();
+            } finally {
+                state.lock.unlock();
+            }
+        }
+    }
+
+    private void awaitResume(String domain, DomainState state) throws InterruptedException {
+        long remaining = TimeUnit.MILLISECONDS.toNanos(maxPauseMs);
+        state.lock.lock();
+        try {
+            while (state.level == Level.PAUSED) {
+                if (remaining <= 0) {
+                    throw new IllegalStateException("domain=" + domain + " 下游背压暂停超过 " + maxPauseMs
+                            + "ms，中止本次拉取，由重试续拉");
+                }
+                remaining = state.levelChanged.awaitNanos(remaining);
+            }
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    private DomainState state(String domain) {
+        return states.computeIfAbsent(domain, d -> {
+            DomainState state = new DomainState();
+            Gauge.builder("fault.sync.backpressure.level", state, s -> s.level.ordinal())
+                    .tag("domain", d)
+                    .description("0=normal 1=throttled 2=paused")
+                    .register(registry);
+            Gauge.builder("fault.sync.backpressure.lag", state, s -> s.lag)
+                    .tag("domain", d)
+                    .description("proxy: sent but not yet inserted batches in sync_batch_record")
+                    .baseUnit("batches")
+                    .register(registry);
+            return state;
+        });
+    }
+
+    /**
+     * 单个 domain 的背压状态；level 读取无锁，变更与等待在 lock 内完成
+     */
+    private static final class DomainState {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition levelChanged = lock.newCondition();
+        private volatile Level level = Level.NORMAL;
+        private volatile long lag;
+        private double writeEwmaMs;
+        private long lastWriteMs;
+
+        private void recordWrite(long elapsedMs) {
+            lock.lock();
+            try {
+                writeEwmaMs = lastWriteMs == 0 ? elapsedMs
+                        : WRITE_EWMA_ALPHA * elapsedMs + (1 - WRITE_EWMA_ALPHA) * writeEwmaMs;
+                lastWriteMs = System.currentTimeMillis();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private long writeLatencyMs(long now, long staleMs) {
+            lock.lock();
+            try {
+                if (lastWriteMs == 0 || now - lastWriteMs > staleMs) {
+                    return 0;
+                }
+                return Math.round(writeEwmaMs);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
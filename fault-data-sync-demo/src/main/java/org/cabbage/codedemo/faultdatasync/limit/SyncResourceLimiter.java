@@ -0,0 +1,81 @@
+package org.cabbage.codedemo.faultdatasync.limit;
+
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * 按资源限流的并发许可（虚拟线程模式下替代线程数作为并发上限）
+ * <p>
+ * 虚拟线程不再以线程池大小约束并发，必须按下游资源各自限流：
+ * <ul>
+ *   <li>{@link Resource#UPSTREAM}：同时在途的上游 pull 请求数</li>
+ *   <li>{@link Resource#MQ}：同时在途的 MQ 发送数（sync 与 async 共享，async 在 broker 回调时归还）</li>
+ * </ul>
+ * DB 连接由 {@link PermitDataSource} 在 getConnection 处限流，覆盖所有 JDBC 访问。
+ * 许可数 &lt;= 0 表示不限制。
+ */
+public class SyncResourceLimiter {
+
+    public enum Resource {
+        UPSTREAM,
+        MQ
+    }
+
+    private final Semaphore upstream;
+    private final Semaphore mq;
+
+    public SyncResourceLimiter(int upstreamPermits, int mqPermits) {
+        this.upstream = upstreamPermits > 0 ? new Semaphore(upstreamPermits, true) : null;
+        this.mq = mqPermits > 0 ? new Semaphore(mqPermits, true) : null;
+    }
+
+    public static SyncResourceLimiter unlimited() {
+        return new SyncResourceLimiter(0, 0);
+    }
+
+    /**
+     * 持有一个许可执行 action，结束后归还
+     */
+    public <T> T call(Resource resource, Supplier<T> action) {
+        acquire(resource);
+        try {
+            return action.get();
+        } finally {
+            release(resource);
+        }
+    }
+
+    public void run(Resource resource, Runnable action) {
+        call(resource, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * 获取许可（可中断）；与 {@link #release} 配对使用，适用于在回调线程归还的异步场景
+     */
+    public void acquire(Resource resource) {
+        Semaphore permits = permits(resource);
+        if (permits == null) {
+            return;
+        }
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + resource + " permit", e);
+        }
+    }
+
+    public void release(Resource resource) {
+        Semaphore permits = permits(resource);
+        if (permits != null) {
+            permits.release();
+        }
+    }
+
+    private Semaphore permits(Resource resource) {
+        return resource == Resource.UPSTREAM ? upstream : mq;
+    }
+}
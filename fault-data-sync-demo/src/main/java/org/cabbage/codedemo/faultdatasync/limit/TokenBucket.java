@@ -0,0 +1,60 @@
+package org.cabbage.codedemo.faultdatasync.limit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 令牌桶：按 permitsPerSecond 匀速补充，容量为 1 秒的令牌量（至少 1），允许最多 1 秒的突发
+ * <p>
+ * 采用预占方式：令牌不足时记为欠额并返回需等待的时长，调用方在锁外等待；
+ * 并发请求按预占顺序依次错开，不会在令牌补充时同时被唤醒。
+ */
+public class TokenBucket {
+
+    private final double permitsPerNano;
+    private final double capacity;
+
+    /** 以下字段由 this 锁保护；tokens 为负表示已被预占的欠额 */
+    private double tokens;
+    private long lastNanos;
+
+    public TokenBucket(double permitsPerSecond) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive: " + permitsPerSecond);
+        }
+        this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = Math.max(1, permitsPerSecond);
+        this.tokens = capacity;
+        this.lastNanos = System.nanoTime();
+    }
+
+    /**
+     * 预占一个令牌
+     *
+     * @return 令牌可用前需等待的纳秒数，0 表示立即可用
+     */
+    public synchronized long reserve() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastNanos) * permitsPerNano);
+        lastNanos = now;
+        tokens -= 1;
+        return tokens >= 0 ? 0 : (long) Math.ceil(-tokens / permitsPerNano);
+    }
+
+    /**
+     * 预占一个令牌并等待其可用（可中断）
+     *
+     * @return 实际等待的纳秒数
+     */
+    public long acquire() {
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for rate limit token", e);
+            }
+        }
+        return waitNanos;
+    }
+}
@@ -0,0 +1,33 @@
+package org.cabbage.codedemo.faultdatasync.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.cabbage.codedemo.faultdatasync.entity.FaultRecordGenerationEntity;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Mapper
+public interface FaultRecordGenerationMapper extends BaseMapper<FaultRecordGenerationEntity> {
+
+    /**
+     * INSERT ... ON DUPLICATE KEY UPDATE：分配新的影子代次 = max(active, pending) + 1。
+     * 若覆盖了未完成的旧 pending 代次，同时置 purge_needed=1，由清理任务删除其残留数据。
+     */
+    void allocatePending(@Param("domain") String domain,
+                         @Param("dataDate") LocalDate dataDate);
+
+    /**
+     * pending 代次所属任务已 SUCCESS 的指针行
+     */
+    List<FaultRecordGenerationEntity> findSwappable();
+
+    /**
+     * 原子切换：active ← pending，pending ← NULL，purge_needed ← 1。
+     * 以 expectedPending 做 CAS，避免覆盖切换前新分配的代次。
+     */
+    int swap(@Param("domain") String domain,
+             @Param("dataDate") LocalDate dataDate,
+             @Param("expectedPending") int expectedPending);
+}
@@ -4,6 +4,8 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.cabbage.codedemo.faultdatasync.entity.FaultRecordEntity;
+import org.cabbage.codedemo.faultdatasync.model.PartitionInfo;
+import org.cabbage.codedemo.faultdatasync.model.RankBucketDigest;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -16,8 +18,62 @@ public interface FaultRecordMapper extends BaseMapper<FaultRecordEntity> {
      */
     int batchInsert(@Param("list") List<FaultRecordEntity> list);
 
+    /**
+     * 严格批量插入：数据错误抛出异常而不是降级为警告，重复行忽略（毒记录隔离使用）
+     */
+    int batchInsertStrict(@Param("list") List<FaultRecordEntity> list);
+
     /**
      * 按领域和日期全量删除，用于重同步前清空旧数据
      */
     int deleteByDomainAndDate(@Param("domain") String domain, @Param("dataDate") LocalDate dataDate);
+
+    /**
+     * 删除指定代次下 rank 属于 (fromRank, toRank] 的记录（增量同步重拉区间前清理）；toRank 为 null 表示不设上界
+     */
+    int deleteByRankRange(@Param("domain") String domain,
+                          @Param("dataDate") LocalDate dataDate,
+                          @Param("generation") int generation,
+                          @Param("fromRank") long fromRank,
+                          @Param("toRank") Long toRank);
+
+    /**
+     * 对账：指定代次下 (fromRank, toRank] 内按桶聚合的记录数与校验和，只返回非空桶（bucket / recordCount / checksum）。
+     * 分桶与校验和口径见 {@link org.cabbage.codedemo.faultdatasync.reconcile.RecordDigest}。
+     */
+    List<RankBucketDigest> digestBuckets(@Param("domain") String domain,
+                                         @Param("dataDate") LocalDate dataDate,
+                                         @Param("generation") int generation,
+                                         @Param("fromRank") long fromRank,
+                                         @Param("toRank") Long toRank,
+                                         @Param("bucketSpan") long bucketSpan,
+                                         @Param("bucketCount") int bucketCount);
+
+    /**
+     * 指定代次下的最大 rank（无数据时为 null），走唯一键 (domain, data_date, generation, rank) 的索引末端
+     */
+    Long selectMaxRank(@Param("domain") String domain,
+                       @Param("dataDate") LocalDate dataDate,
+                       @Param("generation") int generation);
+
+    /**
+     * 删除最多 limit 条非 active / pending 代次的记录（影子重同步切换后的旧代次清理）
+     */
+    int deleteStaleGenerationChunk(@Param("domain") String domain,
+                                   @Param("dataDate") LocalDate dataDate,
+                                   @Param("activeGeneration") int activeGeneration,
+                                   @Param("pendingGeneration") Integer pendingGeneration,
+                                   @Param("limit") int limit);
+
+    /**
+     * fault_record 当前分区列表（未分区时为空）
+     */
+    List<PartitionInfo> listPartitions();
+
+    /**
+     * 从 p_max 拆出一个新分区：name VALUES LESS THAN (lessThan)
+     */
+    void splitMaxPartition(@Param("name") String name, @Param("lessThan") String lessThan);
+
+    void dropPartition(@Param("name") String name);
 }
@@ -0,0 +1,17 @@
+package org.cabbage.codedemo.faultdatasync.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.cabbage.codedemo.faultdatasync.entity.FaultRecordRejectEntity;
+
+import java.util.List;
+
+@Mapper
+public interface FaultRecordRejectMapper extends BaseMapper<FaultRecordRejectEntity> {
+
+    /**
+     * 批量写入隔离记录；同一记录再次被隔离时只更新来源、原因与时间
+     */
+    int batchUpsert(@Param("list") List<FaultRecordRejectEntity> list);
+}
@@ -4,8 +4,11 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.cabbage.codedemo.faultdatasync.entity.SyncBatchRecordEntity;
+import org.cabbage.codedemo.faultdatasync.model.BatchProgressCount;
+import org.cabbage.codedemo.faultdatasync.model.StatusCount;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Mapper
@@ -19,11 +22,70 @@ public interface SyncBatchRecordMapper extends BaseMapper<SyncBatchRecordEntity>
                            @Param("batchIndex") int batchIndex,
                            @Param("startRank") long startRank,
                            @Param("endRank") long endRank,
-                           @Param("recordCount") int recordCount);
+                           @Param("recordCount") int recordCount,
+                           @Param("rangeEndRank") Long rangeEndRank,
+                           @Param("pageSize") int pageSize);
 
     /**
-     * 查询 domain+date 下所有失败批次（pull_status=FAILED 或 insert_status=FAILED），按 batch_index 升序
+     * INSERT ... ON DUPLICATE KEY UPDATE：异步发送前写入 pull_status=PENDING 的占位记录
+     */
+    void upsertPullPending(@Param("domain") String domain,
+                           @Param("dataDate") LocalDate dataDate,
+                           @Param("batchIndex") int batchIndex,
+                           @Param("startRank") long startRank,
+                           @Param("endRank") long endRank,
+                           @Param("recordCount") int recordCount,
+                           @Param("rangeEndRank") Long rangeEndRank,
+                           @Param("pageSize") int pageSize);
+
+    /**
+     * 多行 INSERT ... ON DUPLICATE KEY UPDATE：记录拉取 / 发送失败的批次（需 domain、dataDate、batchIndex、
+     * startRank、rangeEndRank、pageSize、errorMessage）
+     */
+    void batchUpsertPullFailed(@Param("rows") List<SyncBatchRecordEntity> rows);
+
+    /**
+     * 多行 INSERT ... ON DUPLICATE KEY UPDATE：pull SUCCESS / PENDING，状态取自每行 pullStatus
+     */
+    void batchUpsertPull(@Param("rows") List<SyncBatchRecordEntity> rows);
+
+    /**
+     * 按 (domain, dataDate, batchIndex) 将 PENDING 批次置为 SUCCESS
+     */
+    int batchMarkPullConfirmed(@Param("keys") List<SyncBatchRecordEntity> keys);
+
+    /**
+     * SELECT ... FOR UPDATE：返回 keys 中 insert_status 尚非 SUCCESS 的批次（仅 domain、dataDate、batchIndex）
+     */
+    List<SyncBatchRecordEntity> lockInsertUnfinished(@Param("keys") List<SyncBatchRecordEntity> keys);
+
+    int batchMarkInsertSuccess(@Param("keys") List<SyncBatchRecordEntity> keys);
+
+    /**
+     * 查询 domain+date 下所有待重跑批次（pull_status=FAILED/PENDING 或 insert_status=FAILED），按 batch_index 升序
      */
     List<SyncBatchRecordEntity> findFailed(@Param("domain") String domain,
                                            @Param("dataDate") LocalDate dataDate);
+
+    /**
+     * 状态指标：data_date &gt;= fromDate 的记录按 domain + 状态计数
+     */
+    List<StatusCount> countByStatus(@Param("fromDate") LocalDate fromDate);
+
+    /**
+     * 背压：data_date &gt;= fromDate 中 pull_status=SUCCESS 且 insert_status=PENDING 的批次数，按 domain 分组
+     */
+    List<StatusCount> countUnconsumed(@Param("fromDate") LocalDate fromDate);
+
+    /**
+     * 进度快照（读库模式）：data_date &gt;= fromDate 的批次按 domain + data_date 聚合，
+     * since 之后入库成功的批次计入速率窗口
+     */
+    List<BatchProgressCount> aggregateProgress(@Param("fromDate") LocalDate fromDate,
+                                               @Param("since") LocalDateTime since);
+
+    /**
+     * 进度快照（读库模式）：data_date &gt;= fromDate 中 pull_status=FAILED 或 insert_status=FAILED 的批次
+     */
+    List<SyncBatchRecordEntity> findFailedForProgress(@Param("fromDate") LocalDate fromDate);
 }
@@ -0,0 +1,17 @@
+package org.cabbage.codedemo.faultdatasync.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.cabbage.codedemo.faultdatasync.entity.SyncRangeFingerprintEntity;
+
+import java.util.List;
+
+@Mapper
+public interface SyncRangeFingerprintMapper extends BaseMapper<SyncRangeFingerprintEntity> {
+
+    /**
+     * 批量写入一个 domain+date 的全部区间指纹（调用方先删除旧指纹）
+     */
+    int batchInsert(@Param("list") List<SyncRangeFingerprintEntity> list);
+}
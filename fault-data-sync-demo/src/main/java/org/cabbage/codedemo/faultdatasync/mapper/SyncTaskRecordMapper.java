@@ -4,8 +4,10 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.cabbage.codedemo.faultdatasync.entity.SyncTaskRecordEntity;
+import org.cabbage.codedemo.faultdatasync.model.StatusCount;
 
 import java.time.LocalDate;
+import java.util.List;
 
 @Mapper
 public interface SyncTaskRecordMapper extends BaseMapper<SyncTaskRecordEntity> {
@@ -17,10 +19,29 @@ public interface SyncTaskRecordMapper extends BaseMapper<SyncTaskRecordEntity> {
     int incrementCompletedBatch(@Param("domain") String domain,
                                 @Param("dataDate") LocalDate dataDate);
 
+    /**
+     * 与 incrementCompletedBatch 相同，一次推进 delta 个批次（消费端合并提交）
+     */
+    int incrementCompletedBatchBy(@Param("domain") String domain,
+                                  @Param("dataDate") LocalDate dataDate,
+                                  @Param("delta") int delta);
+
     /**
      * Producer 补偿检查：updateMessagesSent 之后调用。
      * 若所有批次均已在 updateMessagesSent 之前消费完成，由此触发 SUCCESS。
      */
     int checkAndMarkSuccessIfAllDone(@Param("domain") String domain,
                                      @Param("dataDate") LocalDate dataDate);
+
+    /**
+     * derived 进度模式：sync_batch_record 中该 domain+date 全部批次 insert_status=SUCCESS 时置为 SUCCESS，
+     * completed_batch_count 回填为 batch_count
+     */
+    int markSuccessIfAllBatchesInserted(@Param("domain") String domain,
+                                        @Param("dataDate") LocalDate dataDate);
+
+    /**
+     * 状态指标：data_date &gt;= fromDate 的记录按 domain + 状态计数
+     */
+    List<StatusCount> countByStatus(@Param("fromDate") LocalDate fromDate);
 }
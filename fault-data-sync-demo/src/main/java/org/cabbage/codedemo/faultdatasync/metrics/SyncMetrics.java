@@ -0,0 +1,167 @@
+package org.cabbage.codedemo.faultdatasync.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 同步链路 Micrometer 指标，统一以 domain 打标签，经 /actuator/prometheus 暴露
+ * <ul>
+ *   <li>{@code fault.sync.run}：单个 domain+date 一次同步运行耗时（path=first/retry/incremental/repair，outcome）</li>
+ *   <li>{@code fault.sync.pull} / {@code fault.sync.records.pulled}：上游单页拉取耗时与拉取条数</li>
+ *   <li>{@code fault.sync.mq.send} / {@code fault.sync.mq.message.bytes}：MQ 发送耗时（mode=sync/async）与消息体大小</li>
+ *   <li>{@code fault.sync.consume.lag}：消息产生到开始消费的延迟（bornTimestamp 起算）</li>
+ *   <li>{@code fault.sync.consume.write} / {@code fault.sync.records.written} / {@code fault.sync.consume.duplicate}：
+ *       消费端写库耗时、新增条数与重复消费批次数</li>
+ *   <li>{@code fault.sync.dlq}：进入死信队列的批次数</li>
+ *   <li>{@code fault.sync.dlq.replay}：DLQ 回放每次尝试的结果（outcome=success/retry/gave_up）</li>
+ *   <li>{@code fault.sync.records.rejected}：隔离到 fault_record_reject 的记录数（source）</li>
+ *   <li>{@code fault.sync.backpressure.wait}：pull 前因下游背压等待的时间（level=throttled/paused）</li>
+ *   <li>{@code fault.sync.upstream.ratelimit.wait} / {@code fault.sync.upstream.rejected} / {@code fault.sync.upstream.retry}：
+ *       上游令牌桶等待时间（scope=domain/global）、熔断或舱壁拒绝次数（reason=circuit_open/bulkhead）与重试次数；
+ *       {@code fault.sync.upstream.circuit.transition}：熔断状态变更次数（全局，不带 domain）</li>
+ * </ul>
+ * 批次 / 任务状态分布由 {@link SyncStatusGauges} 定期查询后以 gauge 暴露。
+ * 分位数与直方图通过 management.metrics.distribution.* 按前缀 fault.sync 统一开启，不在代码中固定。
+ */
+@Component
+@RequiredArgsConstructor
+public class SyncMetrics {
+
+    private static final String SUCCESS = "success";
+    private static final String FAILURE = "failure";
+
+    private final MeterRegistry registry;
+
+    public void recordRun(String domain, String path, long startNanos, boolean success) {
+        Timer.builder("fault.sync.run")
+                .tag("domain", domain)
+                .tag("path", path)
+                .tag("outcome", outcome(success))
+                .register(registry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordPull(String domain, int records, long startNanos, boolean success) {
+        Timer.builder("fault.sync.pull")
+                .tag("domain", domain)
+                .tag("outcome", outcome(success))
+                .register(registry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        if (records > 0) {
+            Counter.builder("fault.sync.records.pulled")
+                    .tag("domain", domain)
+                    .baseUnit("records")
+                    .register(registry)
+                    .increment(records);
+        }
+    }
+
+    public void recordSend(String domain, String mode, long startNanos, boolean success) {
+        Timer.builder("fault.sync.mq.send")
+                .tag("domain", domain)
+                .tag("mode", mode)
+                .tag("outcome", outcome(success))
+                .register(registry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordMessageBytes(String domain, int bytes) {
+        DistributionSummary.builder("fault.sync.mq.message.bytes")
+                .tag("domain", domain)
+                .baseUnit("bytes")
+                .register(registry)
+                .record(bytes);
+    }
+
+    public void recordConsumeLag(String domain, long bornTimestampMs) {
+        if (bornTimestampMs <= 0) {
+            return;
+        }
+        Timer.builder("fault.sync.consume.lag")
+                .tag("domain", domain)
+                .register(registry)
+                .record(Math.max(0, System.currentTimeMillis() - bornTimestampMs), TimeUnit.MILLISECONDS);
+    }
+
+    public void recordWrite(String domain, int inserted, long startNanos, boolean success) {
+        Timer.builder("fault.sync.consume.write")
+                .tag("domain", domain)
+                .tag("outcome", outcome(success))
+                .register(registry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        if (inserted > 0) {
+            Counter.builder("fault.sync.records.written")
+                    .tag("domain", domain)
+                    .baseUnit("records")
+                    .register(registry)
+                    .increment(inserted);
+        }
+    }
+
+    public void recordDuplicate(String domain) {
+        Counter.builder("fault.sync.consume.duplicate").tag("domain", domain).register(registry).increment();
+    }
+
+    public void recordDlq(String domain) {
+        Counter.builder("fault.sync.dlq").tag("domain", domain).register(registry).increment();
+    }
+
+    public void recordDlqReplay(String domain, String outcome) {
+        Counter.builder("fault.sync.dlq.replay")
+                .tag("domain", domain)
+                .tag("outcome", outcome)
+                .register(registry)
+                .increment();
+    }
+
+    public void recordRejected(String domain, String source, int records) {
+        Counter.builder("fault.sync.records.rejected")
+                .tag("domain", domain)
+                .tag("source", source)
+                .baseUnit("records")
+                .register(registry)
+                .increment(records);
+    }
+
+    public void recordBackpressureWait(String domain, String level, long startNanos) {
+        Timer.builder("fault.sync.backpressure.wait")
+                .tag("domain", domain)
+                .tag("level", level)
+                .register(registry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordUpstreamRateLimitWait(String domain, String scope, long waitNanos) {
+        Timer.builder("fault.sync.upstream.ratelimit.wait")
+                .tag("domain", domain)
+                .tag("scope", scope)
+                .register(registry)
+                .record(waitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordUpstreamRejected(String domain, String reason) {
+        Counter.builder("fault.sync.upstream.rejected")
+                .tag("domain", domain)
+                .tag("reason", reason)
+                .register(registry)
+                .increment();
+    }
+
+    public void recordUpstreamRetry(String domain) {
+        Counter.builder("fault.sync.upstream.retry").tag("domain", domain).register(registry).increment();
+    }
+
+    public void recordUpstreamCircuitTransition(String state) {
+        Counter.builder("fault.sync.upstream.circuit.transition").tag("to", state).register(registry).increment();
+    }
+
+    private static String outcome(boolean success) {
+        return success ? SUCCESS : FAILURE;
+    }
+}
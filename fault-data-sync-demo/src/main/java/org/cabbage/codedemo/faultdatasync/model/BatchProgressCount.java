@@ -0,0 +1,34 @@
+package org.cabbage.codedemo.faultdatasync.model;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 按 domain + data_date 聚合的 sync_batch_record 批次进度（进度查询接口读库模式用）
+ */
+@Data
+public class BatchProgressCount {
+
+    private String domain;
+
+    private LocalDate dataDate;
+
+    /** pull_status=SUCCESS（broker 已确认）的批次数与记录数 */
+    private int batchesSent;
+
+    private long recordsSent;
+
+    /** insert_status=SUCCESS 的批次数与记录数 */
+    private int batchesCompleted;
+
+    private long recordsCompleted;
+
+    /** 速率窗口内（update_time &gt;= since）入库成功的批次数与记录数 */
+    private long windowBatches;
+
+    private long windowRecords;
+
+    private LocalDateTime lastUpdateTime;
+}
@@ -0,0 +1,25 @@
+package org.cabbage.codedemo.faultdatasync.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 进度视图中的失败批次
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FailedBatchView {
+
+    private int batchIndex;
+
+    /** 失败阶段：pull（拉取 / 发送）/ insert（消费进入 DLQ） */
+    private String stage;
+
+    private String errorMessage;
+
+    private LocalDateTime failedTime;
+}
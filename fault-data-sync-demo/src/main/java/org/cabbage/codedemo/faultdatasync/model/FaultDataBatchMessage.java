@@ -1,5 +1,6 @@
 package org.cabbage.codedemo.faultdatasync.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -22,6 +23,9 @@ public class FaultDataBatchMessage implements Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
 
+    /** 消息头：写入代次（影子重同步），缺省为 0 */
+    public static final String GENERATION_HEADER = "FAULT_GEN";
+
     /** 数据领域 */
     private String domain;
 
@@ -34,6 +38,12 @@ public class FaultDataBatchMessage implements Serializable {
     /** 本批 pull 的起始 rank，便于 consumer 更新 SyncBatchRecord */
     private long startRank;
 
+    /**
+     * 写入代次：由消息头 {@link #GENERATION_HEADER} 传递（与编解码器无关），不进入消息体
+     */
+    @JsonIgnore
+    private int generation;
+
     /** 本批次故障记录列表（最多 5000 条） */
     private List<FaultRecordDTO> records;
 }
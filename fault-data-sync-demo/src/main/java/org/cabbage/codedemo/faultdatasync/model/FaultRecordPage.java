@@ -0,0 +1,26 @@
+package org.cabbage.codedemo.faultdatasync.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 一页已物化的故障记录及其摘要（由 FaultRecordCursor 单次遍历产出）
+ */
+@Getter
+@AllArgsConstructor
+public class FaultRecordPage {
+
+    private final List<FaultRecordDTO> records;
+
+    private final PageSummary summary;
+
+    public boolean isEmpty() {
+        return records.isEmpty();
+    }
+
+    public int size() {
+        return records.size();
+    }
+}
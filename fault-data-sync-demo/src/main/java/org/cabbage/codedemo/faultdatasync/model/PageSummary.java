@@ -0,0 +1,40 @@
+package org.cabbage.codedemo.faultdatasync.model;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 单页拉取摘要：记录数与 rank 范围，随游标逐条累计，无需对页面二次遍历
+ */
+@Getter
+@ToString
+public class PageSummary {
+
+    /** 已产出记录数 */
+    private int count;
+
+    /** 最小 rank（count=0 时无意义） */
+    private long minRank = Long.MAX_VALUE;
+
+    /** 最大 rank（count=0 时无意义） */
+    private long maxRank = Long.MIN_VALUE;
+
+    public void accept(long rank) {
+        count++;
+        if (rank < minRank) {
+            minRank = rank;
+        }
+        if (rank > maxRank) {
+            maxRank = rank;
+        }
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /** 本页最大 rank；空页返回 fallback（通常为请求的 lastRank） */
+    public long maxRankOr(long fallback) {
+        return count == 0 ? fallback : maxRank;
+    }
+}
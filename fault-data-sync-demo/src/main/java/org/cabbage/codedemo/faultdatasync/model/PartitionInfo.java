@@ -0,0 +1,16 @@
+package org.cabbage.codedemo.faultdatasync.model;
+
+import lombok.Data;
+
+/**
+ * information_schema.PARTITIONS 中单个分区的名称与边界
+ */
+@Data
+public class PartitionInfo {
+
+    /** 分区名 */
+    private String name;
+
+    /** RANGE COLUMNS 上界（如 'yyyy-MM-dd' 或 MAXVALUE） */
+    private String description;
+}
@@ -0,0 +1,35 @@
+package org.cabbage.codedemo.faultdatasync.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * rank 区间 (fromRank, toRank] 的内容指纹：记录数 + 数据源计算的校验和
+ * <p>
+ * 两次采集的 recordCount 与 checksum 均相同即视为区间内容未变化。
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RangeFingerprint {
+
+    /** 区间起点（不含） */
+    private long fromRank;
+
+    /** 区间终点（含） */
+    private long toRank;
+
+    private long recordCount;
+
+    private long checksum;
+
+    public boolean sameContent(RangeFingerprint other) {
+        return other != null
+                && toRank == other.toRank
+                && recordCount == other.recordCount
+                && checksum == other.checksum;
+    }
+}
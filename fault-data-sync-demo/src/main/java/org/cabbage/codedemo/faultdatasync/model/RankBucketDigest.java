@@ -0,0 +1,36 @@
+package org.cabbage.codedemo.faultdatasync.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 对账用的 rank 桶摘要：桶 bucket 覆盖 (fromRank, toRank]，toRank 为 null 表示不设上界
+ * <p>
+ * checksum 为桶内每条记录 {@code CRC32(CONCAT_WS('|', rank, fault_type, device_id, fault_detail))} 之和，
+ * fault_record 侧由 SQL 聚合得到，数据源侧按 {@link org.cabbage.codedemo.faultdatasync.reconcile.RecordDigest} 计算，两侧口径一致。
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RankBucketDigest {
+
+    /** 父区间内的桶序号（0 起） */
+    private int bucket;
+
+    /** 桶起点（不含） */
+    private long fromRank;
+
+    /** 桶终点（含），null 表示不设上界 */
+    private Long toRank;
+
+    private long recordCount;
+
+    private long checksum;
+
+    public boolean sameContent(RankBucketDigest other) {
+        return other != null && recordCount == other.recordCount && checksum == other.checksum;
+    }
+}
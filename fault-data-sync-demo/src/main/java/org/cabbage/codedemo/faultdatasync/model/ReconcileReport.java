@@ -0,0 +1,37 @@
+package org.cabbage.codedemo.faultdatasync.model;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 单个 domain+date 的一次对账结果
+ */
+@Data
+public class ReconcileReport {
+
+    private String domain;
+
+    private LocalDate dataDate;
+
+    /** 任务未 SUCCESS 等原因未对账时的说明；正常对账为 null */
+    private String skippedReason;
+
+    /** 两侧分别聚合的桶数（含根区间） */
+    private int comparedBuckets;
+
+    /** 下钻层数 */
+    private int depth;
+
+    /** 提交修复的区间（相邻叶子桶已合并） */
+    private List<RankBucketDigest> repairRanges = new ArrayList<>();
+
+    /** 修复重拉失败时的错误信息 */
+    private String repairError;
+
+    public boolean isConsistent() {
+        return skippedReason == null && repairRanges.isEmpty();
+    }
+}
@@ -0,0 +1,19 @@
+package org.cabbage.codedemo.faultdatasync.model;
+
+import lombok.Data;
+
+/**
+ * 按 domain + 阶段 + 状态聚合的记录数（状态指标用）
+ */
+@Data
+public class StatusCount {
+
+    private String domain;
+
+    /** task / pull / insert */
+    private String stage;
+
+    private String status;
+
+    private long count;
+}
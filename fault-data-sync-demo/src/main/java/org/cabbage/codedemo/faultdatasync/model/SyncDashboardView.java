@@ -0,0 +1,33 @@
+package org.cabbage.codedemo.faultdatasync.model;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 同步进度看板汇总
+ */
+@Data
+public class SyncDashboardView {
+
+    private LocalDateTime generatedTime;
+
+    /** 各状态的 domain+date 数 */
+    private Map<String, Long> tasksByStatus = new LinkedHashMap<>();
+
+    /** 所有 domain+date 的入库速率之和（条/秒） */
+    private double recordsPerSecond;
+
+    /** 所有 domain+date 当前未恢复的失败批次数 */
+    private int failedBatchCount;
+
+    /** 进行中的 domain+date，按 ETA 降序（未知 ETA 在前） */
+    private List<SyncProgressView> active = new ArrayList<>();
+
+    /** 失败的 domain+date */
+    private List<SyncProgressView> failed = new ArrayList<>();
+}
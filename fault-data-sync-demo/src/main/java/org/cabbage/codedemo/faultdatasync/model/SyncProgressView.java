@@ -0,0 +1,61 @@
+package org.cabbage.codedemo.faultdatasync.model;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 单个 domain+date 的实时同步进度
+ */
+@Data
+public class SyncProgressView {
+
+    private String domain;
+
+    private LocalDate dataDate;
+
+    /** 与 SyncStatus 同名：RUNNING / MESSAGES_SENT / SUCCESS / FAILED */
+    private String status;
+
+    /** 本次运行已发送到 broker 的批次数 */
+    private int batchesSent;
+
+    /** 本次运行的总批次数，MESSAGES_SENT 前为 null */
+    private Integer batchCount;
+
+    /** 总批次数未知时用于估算 ETA 的批次数（上次运行的 batch_count，无则为已发送数） */
+    private Integer expectedBatches;
+
+    /** 本次运行首次入库成功的批次数 */
+    private int batchesCompleted;
+
+    private long recordsSent;
+
+    private long recordsCompleted;
+
+    /** 速率窗口内的入库速率（条/秒） */
+    private double recordsPerSecond;
+
+    /** 按速率窗口内的批次完成速率估算的剩余秒数；无完成样本或已结束时为 null */
+    private Long etaSeconds;
+
+    private List<FailedBatchView> failedBatches = new ArrayList<>();
+
+    private String errorMessage;
+
+    /** 该 domain 当前的下游背压状态：NORMAL / THROTTLED / PAUSED */
+    private String backpressure;
+
+    private LocalDateTime startTime;
+
+    private LocalDateTime lastEventTime;
+
+    /**
+     * 进度来源：events（本实例生产 / 消费事件）/ snapshot（启动时由 sync_task_record 恢复，尚无事件）/
+     * database（读库模式，由 sync_task_record + sync_batch_record 聚合）
+     */
+    private String source;
+}
@@ -0,0 +1,370 @@
+package org.cabbage.codedemo.faultdatasync.mq.codec;
+
+import org.cabbage.codedemo.faultdatasync.model.FaultDataBatchMessage;
+import org.cabbage.codedemo.faultdatasync.model.FaultRecordDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 紧凑二进制编解码器
+ * <p>
+ * 格式：
+ * <pre>
+ * magic(2B 'F''B') | version(1B) | flags(1B, bit0=deflate) | [deflate 时: 原始长度 varint] | body
+ * body:
+ *   domain(str) | dataDate(epochDay varlong) | batchIndex(varint) | startRank(varlong)
+ *   | recordCount(varint) | dictSize(varint) | dict faultType(str)...
+ *   | record...: rankDelta(zigzag varlong, 相对上一条 rank，首条相对 startRank)
+ *                | faultType 字典下标+1(varint, 0=null) | deviceId(str) | faultDetail(str)
+ * str: 长度+1(varint, 0=null) | UTF-8 字节
+ * </pre>
+ * domain、dataDate 只在批次头出现一次，解码时回填到每条记录；rank 增量编码；faultType 字典编码。
+ * 压缩由 fault-sync.mq.codec.compression 控制（none/deflate），解码按 flags 自适应，与配置无关。
+ * <p>
+ * 解码不信任载荷中的长度字段：原始长度、字典大小、记录数与字符串长度在分配前均按剩余字节数（及上限）校验，
+ * 截断或损坏的载荷抛出 IllegalArgumentException，不会按伪造的长度分配大数组。
+ */
+@Component
+public class BinaryFaultBatchCodec implements FaultBatchCodec {
+
+    public static final String NAME = "binary";
+
+    private static final byte MAGIC_0 = 'F';
+    private static final byte MAGIC_1 = 'B';
+    private static final byte VERSION = 1;
+    private static final int FLAG_DEFLATE = 1;
+
+    /** 小于该字节数的 body 不压缩，避免压缩头开销大于收益 */
+    private static final int COMPRESS_THRESHOLD = 1024;
+
+    /** 解压后 body 的上限，远大于单批 pageSize 条记录的正常体积 */
+    private static final int MAX_RAW_LENGTH = 64 * 1024 * 1024;
+
+    /** deflate 理论最大压缩比约 1032:1，原始长度超过 压缩长度 * 该值 必为伪造 */
+    private static final int MAX_DEFLATE_RATIO = 1032;
+
+    /** 单条记录编码后的最小字节数：rankDelta、faultType 下标、deviceId、faultDetail 各至少 1 字节 */
+    private static final int MIN_RECORD_BYTES = 4;
+
+    private final boolean deflate;
+
+    public BinaryFaultBatchCodec(@Value("${fault-sync.mq.codec.compression:none}") String compression) {
+        this.deflate = "deflate".equalsIgnoreCase(compression);
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public byte[] encode(FaultDataBatchMessage message) {
+        List<FaultRecordDTO> records = message.getRecords() != null ? message.getRecords() : List.of();
+        Output body = new Output(64 + records.size() * 48);
+
+        body.writeString(message.getDomain());
+        body.writeVarLong(message.getDataDate() != null ? message.getDataDate().toEpochDay() + 1 : 0);
+        body.writeVarLong(message.getBatchIndex());
+        body.writeVarLong(message.getStartRank());
+        body.writeVarLong(records.size());
+
+        Map<String, Integer> dict = new HashMap<>();
+        List<String> dictEntries = new ArrayList<>();
+        for (FaultRecordDTO record : records) {
+            checkHeaderFields(message, record);
+            String faultType = record.getFaultType();
+            if (faultType != null && !dict.containsKey(faultType)) {
+                dict.put(faultType, dictEntries.size());
+                dictEntries.add(faultType);
+            }
+        }
+        body.writeVarLong(dictEntries.size());
+        for (String entry : dictEntries) {
+            body.writeString(entry);
+        }
+
+        long prevRank = message.getStartRank();
+        for (FaultRecordDTO record : records) {
+            body.writeVarLong(zigzag(record.getRank() - prevRank));
+            prevRank = record.getRank();
+            body.writeVarLong(record.getFaultType() == null ? 0 : dict.get(record.getFaultType()) + 1);
+            body.writeString(record.getDeviceId());
+            body.writeString(record.getFaultDetail());
+        }
+
+        boolean compress = deflate && body.size() >= COMPRESS_THRESHOLD;
+        Output out = new Output(compress ? body.size() / 2 + 16 : body.size() + 4);
+        out.write(MAGIC_0);
+        out.write(MAGIC_1);
+        out.write(VERSION);
+        out.write(compress ? FLAG_DEFLATE : 0);
+        if (compress) {
+            out.writeVarLong(body.size());
+            out.writeBytes(deflate(body.toByteArray()));
+        } else {
+            out.writeBytes(body.buf, 0, body.size());
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public FaultDataBatchMessage decode(byte[] bytes) {
+        if (bytes.length < 4 || bytes[0] != MAGIC_0 || bytes[1] != MAGIC_1) {
+            throw new IllegalArgumentException("Not a binary fault batch payload");
+        }
+        if (bytes[2] != VERSION) {
+            throw new IllegalArgumentException("Unsupported binary fault batch version: " + bytes[2]);
+        }
+        Input in = new Input(bytes, 4);
+        if ((bytes[3] & FLAG_DEFLATE) != 0) {
+            long compressedLength = bytes.length - (long) in.pos;
+            int rawLength = in.readLength(Math.min(MAX_RAW_LENGTH, compressedLength * MAX_DEFLATE_RATIO));
+            in = new Input(inflate(bytes, in.pos, rawLength), 0);
+        }
+
+        String domain = in.readString();
+        long epochDayPlusOne = in.readVarLong();
+        LocalDate dataDate = epochDayPlusOne == 0 ? null : readDate(epochDayPlusOne - 1);
+        int batchIndex = (int) in.readVarLong();
+        long startRank = in.readVarLong();
+        int recordCount = in.readLength(in.remaining() / MIN_RECORD_BYTES);
+
+        // 每个字典项至少 1 字节，且只来自本批记录
+        int dictSize = in.readLength(Math.min(recordCount, in.remaining()));
+        String[] dict = new String[dictSize];
+        for (int i = 0; i < dictSize; i++) {
+            dict[i] = in.readString();
+        }
+
+        List<FaultRecordDTO> records = new ArrayList<>(recordCount);
+        long rank = startRank;
+        for (int i = 0; i < recordCount; i++) {
+            rank += unzigzag(in.readVarLong());
+            int faultTypeRef = in.readLength(dictSize);
+            records.add(FaultRecordDTO.builder()
+                    .domain(domain)
+                    .dataDate(dataDate)
+                    .rank(rank)
+                    .faultType(faultTypeRef == 0 ? null : dict[faultTypeRef - 1])
+                    .deviceId(in.readString())
+                    .faultDetail(in.readString())
+                    .build());
+        }
+
+        return FaultDataBatchMessage.builder()
+                .domain(domain)
+                .dataDate(dataDate)
+                .batchIndex(batchIndex)
+                .startRank(startRank)
+                .records(records)
+                .build();
+    }
+
+    /**
+     * 二进制格式只在批次头保存 domain/dataDate，记录级字段必须与批次头一致
+     */
+    private static void checkHeaderFields(FaultDataBatchMessage message, FaultRecordDTO record) {
+        if ((record.getDomain() != null && !record.getDomain().equals(message.getDomain()))
+                || (record.getDataDate() != null && !record.getDataDate().equals(message.getDataDate()))) {
+            throw new IllegalArgumentException(String.format(
+                    "Record rank=%d domain/dataDate differs from batch header %s/%s",
+                    record.getRank(), message.getDomain(), message.getDataDate()));
+        }
+    }
+
+    private static LocalDate readDate(long epochDay) {
+        try {
+            return LocalDate.ofEpochDay(epochDay);
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Corrupted binary fault batch payload: epochDay " + epochDay, e);
+        }
+    }
+
+    private static long zigzag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static long unzigzag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            Output out = new Output(raw.length / 2 + 64);
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(chunk);
+                out.writeBytes(chunk, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] src, int offset, int rawLength) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(src, offset, src.length - offset);
+            byte[] raw = new byte[rawLength];
+            byte[] overflow = new byte[1];
+            int n = 0;
+            // 读满 rawLength 后继续驱动到流结束，校验尾部 adler32，并发现比声明更长的数据
+            while (!inflater.finished()) {
+                int read = n < rawLength ? inflater.inflate(raw, n, rawLength - n) : inflater.inflate(overflow);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                if (n == rawLength && read > 0) {
+                    throw new IllegalArgumentException("Corrupted binary fault batch payload: longer than " + rawLength);
+                }
+                n += read;
+            }
+            if (n != rawLength || !inflater.finished()) {
+                throw new IllegalArgumentException("Truncated binary fault batch payload");
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupted binary fault batch payload", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * 无同步开销的字节输出缓冲（ByteArrayOutputStream 的方法均为 synchronized）
+     */
+    private static final class Output {
+        private byte[] buf;
+        private int count;
+
+        private Output(int initialCapacity) {
+            this.buf = new byte[Math.max(16, initialCapacity)];
+        }
+
+        private void write(int b) {
+            ensure(1);
+            buf[count++] = (byte) b;
+        }
+
+        private void writeBytes(byte[] b) {
+            writeBytes(b, 0, b.length);
+        }
+
+        private void writeBytes(byte[] b, int off, int len) {
+            ensure(len);
+            System.arraycopy(b, off, buf, count, len);
+            count += len;
+        }
+
+        private void writeVarLong(long v) {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                buf[count++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[count++] = (byte) v;
+        }
+
+        private void writeString(String s) {
+            if (s == null) {
+                writeVarLong(0);
+                return;
+            }
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length + 1L);
+            writeBytes(bytes);
+        }
+
+        private int size() {
+            return count;
+        }
+
+        private byte[] toByteArray() {
+            byte[] copy = new byte[count];
+            System.arraycopy(buf, 0, copy, 0, count);
+            return copy;
+        }
+
+        private void ensure(int extra) {
+            if (count + extra > buf.length) {
+                byte[] grown = new byte[Math.max(buf.length << 1, count + extra)];
+                System.arraycopy(buf, 0, grown, 0, count);
+                buf = grown;
+            }
+        }
+    }
+
+    private static final class Input {
+        private final byte[] buf;
+        private int pos;
+
+        private Input(byte[] buf, int pos) {
+            this.buf = buf;
+            this.pos = pos;
+        }
+
+        private long readVarLong() {
+            long result = 0;
+            int shift = 0;
+            while (true) {
+                if (pos >= buf.length) {
+                    throw new IllegalArgumentException("Truncated binary fault batch payload");
+                }
+                byte b = buf[pos++];
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+                shift += 7;
+                if (shift > 63) {
+                    throw new IllegalArgumentException("Malformed varint in binary fault batch payload");
+                }
+            }
+        }
+
+        /**
+         * 读取一个长度 / 计数 / 下标字段，超出 [0, max] 视为截断或损坏
+         */
+        private int readLength(long max) {
+            long value = readVarLong();
+            if (value < 0 || value > max) {
+                throw new IllegalArgumentException(String.format(
+                        "Corrupted binary fault batch payload: length %d exceeds %d", value, max));
+            }
+            return (int) value;
+        }
+
+        private int remaining() {
+            return buf.length - pos;
+        }
+
+        private String readString() {
+            long lengthPlusOne = readVarLong();
+            if (lengthPlusOne == 0) {
+                return null;
+            }
+            if (lengthPlusOne < 0 || lengthPlusOne - 1 > remaining()) {
+                throw new IllegalArgumentException("Truncated binary fault batch payload");
+            }
+            int length = (int) (lengthPlusOne - 1);
+            String s = new String(buf, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return s;
+        }
+    }
+}
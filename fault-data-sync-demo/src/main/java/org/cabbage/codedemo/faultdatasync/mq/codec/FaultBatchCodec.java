@@ -0,0 +1,22 @@
+package org.cabbage.codedemo.faultdatasync.mq.codec;
+
+import org.cabbage.codedemo.faultdatasync.model.FaultDataBatchMessage;
+
+/**
+ * MQ 消息体编解码器
+ * <p>
+ * Producer 使用配置的默认编解码器编码，并把 {@link #name()} 写入消息头 {@link #HEADER}；
+ * Consumer 按消息头选择对应实现解码，未携带该消息头的旧消息按 JSON 处理。
+ */
+public interface FaultBatchCodec {
+
+    /** 消息头（RocketMQ user property）：编解码器名称 */
+    String HEADER = "FAULT_CODEC";
+
+    /** 编解码器名称，写入消息头用于协商 */
+    String name();
+
+    byte[] encode(FaultDataBatchMessage message);
+
+    FaultDataBatchMessage decode(byte[] body);
+}
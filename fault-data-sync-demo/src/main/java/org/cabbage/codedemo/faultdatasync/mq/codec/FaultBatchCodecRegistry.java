@@ -0,0 +1,57 @@
+package org.cabbage.codedemo.faultdatasync.mq.codec;
+
+import org.apache.rocketmq.common.message.MessageExt;
+import org.cabbage.codedemo.faultdatasync.model.FaultDataBatchMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 编解码器注册表：Producer 取默认编解码器编码，Consumer 按消息头协商解码
+ */
+@Component
+public class FaultBatchCodecRegistry {
+
+    private final Map<String, FaultBatchCodec> codecs;
+    private final FaultBatchCodec defaultCodec;
+
+    public FaultBatchCodecRegistry(List<FaultBatchCodec> codecList,
+                                   @Value("${fault-sync.mq.codec.name:json}") String defaultCodecName) {
+        this.codecs = codecList.stream()
+                .collect(Collectors.toMap(FaultBatchCodec::name, Function.identity()));
+        this.defaultCodec = get(defaultCodecName);
+    }
+
+    /** Producer 使用的编解码器 */
+    public FaultBatchCodec defaultCodec() {
+        return defaultCodec;
+    }
+
+    /**
+     * 按消息头 {@link FaultBatchCodec#HEADER} 解码；无消息头视为 JSON（兼容旧消息）。
+     * 写入代次取自消息头 {@link FaultDataBatchMessage#GENERATION_HEADER}，无消息头为 0。
+     */
+    public FaultDataBatchMessage decode(MessageExt messageExt) {
+        String codecName = messageExt.getUserProperty(FaultBatchCodec.HEADER);
+        FaultBatchCodec codec = codecName == null ? get(JsonFaultBatchCodec.NAME) : get(codecName);
+        FaultDataBatchMessage message = codec.decode(messageExt.getBody());
+
+        String generation = messageExt.getUserProperty(FaultDataBatchMessage.GENERATION_HEADER);
+        if (generation != null) {
+            message.setGeneration(Integer.parseInt(generation));
+        }
+        return message;
+    }
+
+    public FaultBatchCodec get(String name) {
+        FaultBatchCodec codec = codecs.get(name);
+        if (codec == null) {
+            throw new IllegalArgumentException("Unknown fault batch codec: " + name + ", available=" + codecs.keySet());
+        }
+        return codec;
+    }
+}
@@ -0,0 +1,49 @@
+package org.cabbage.codedemo.faultdatasync.mq.codec;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.cabbage.codedemo.faultdatasync.model.FaultDataBatchMessage;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * JSON 编解码器（基线）
+ * <p>
+ * 与 RocketMQ 默认 Jackson 转换的消息体兼容，用于解码未携带 {@link FaultBatchCodec#HEADER} 的旧消息。
+ */
+@Component
+public class JsonFaultBatchCodec implements FaultBatchCodec {
+
+    public static final String NAME = "json";
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public byte[] encode(FaultDataBatchMessage message) {
+        try {
+            return objectMapper.writeValueAsBytes(message);
+        } catch (IOException e) {
+            throw new IllegalStateException("JSON encode failed: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public FaultDataBatchMessage decode(byte[] body) {
+        try {
+            return objectMapper.readValue(body, FaultDataBatchMessage.class);
+        } catch (IOException e) {
+            throw new IllegalStateException("JSON decode failed: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package org.cabbage.codedemo.faultdatasync.mq.consumer;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.cabbage.codedemo.faultdatasync.entity.FaultRecordEntity;
+import org.cabbage.codedemo.faultdatasync.limit.SyncBackpressureController;
+import org.cabbage.codedemo.faultdatasync.model.FaultDataBatchMessage;
+import org.cabbage.codedemo.faultdatasync.progress.SyncProgressProjection;
+import org.cabbage.codedemo.faultdatasync.service.SyncBatchRecordService;
+import org.cabbage.codedemo.faultdatasync.service.SyncTaskRecordService;
+import org.cabbage.codedemo.faultdatasync.writer.PoisonRecordIsolator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 消费端微批合并（fault-sync.consumer.coalesce.enabled=true 时生效）
+ * <p>
+ * 同一 domain+date 在 {@code windowMs} 窗口内到达的多条消息合并为一组，在一个事务内完成：
+ * <ol>
+ *   <li>逐条消息经 {@link PoisonRecordIsolator#writeOnce} 写入 fault_record（INSERT IGNORE / LOAD DATA，沿用 FaultRecordWriter；
+ *       开启毒记录隔离时改用严格写入，数据错误使整组失败，由消费端逐条隔离）</li>
+ *   <li>一条 UPDATE 将组内批次 insert_status 置为 SUCCESS（{@code insert_status != 'SUCCESS'} 条件不变）</li>
+ *   <li>一条 UPDATE 将 completed_batch_count 推进 N，N = 上一步受影响行数</li>
+ * </ol>
+ * 每组最多 3 条语句访问状态表，sync_task_record 单行锁竞争从每消息一次降为每组一次。
+ * <p>
+ * 首个到达的消费线程为 leader：等待窗口结束或组满后执行写入；其余线程为 follower，阻塞等待组结果。
+ * 组失败时组内每条消息的 onMessage 均抛出异常，由 RocketMQ 各自重投；
+ * 事务回滚保证不会出现"数据已写入但状态未推进"或相反的中间态，重投后幂等语义与单条模式一致。
+ * <p>
+ * follower 会占用消费线程，{@code maxMessages} 应小于 RocketMQ 消费线程数。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FaultBatchCoalescer {
+
+    private final SyncBatchRecordService syncBatchRecordService;
+    private final SyncTaskRecordService syncTaskRecordService;
+    private final TransactionTemplate transactionTemplate;
+    private final SyncProgressProjection syncProgressProjection;
+    private final SyncBackpressureController backpressureController;
+    private final PoisonRecordIsolator poisonRecordIsolator;
+
+    /** 同组未提交的分组，key = domain|date */
+    private final Map<String, Group> openGroups = new HashMap<>();
+
+    @Value("${fault-sync.consumer.coalesce.enabled:false}")
+    private boolean enabled;
+
+    @Value("${fault-sync.consumer.coalesce.window-ms:20}")
+    private long windowMs;
+
+    @Value("${fault-sync.consumer.coalesce.max-messages:8}")
+    private int maxMessages;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 提交一条消息并阻塞至所在分组提交完成
+     *
+     * @throws RuntimeException 分组写入失败，调用方直接抛出以触发 MQ 重投
+     */
+    public void submit(FaultDataBatchMessage msg, List<FaultRecordEntity> entities) {
+        String key = msg.getDomain() + "|" + msg.getDataDate();
+        Group group;
+        boolean leader = false;
+        synchronized (openGroups) {
+            group = openGroups.get(key);
+            if (group == null) {
+                group = new Group(msg.getDomain(), msg.getDataDate());
+                openGroups.put(key, group);
+                leader = true;
+            }
+            group.add(msg, entities);
+            if (group.size() >= maxMessages) {
+                // 组满：立即关闭，后续消息开启新组
+                openGroups.remove(key);
+                group.full.countDown();
+            }
+        }
+
+        if (leader) {
+            lead(key, group);
+        }
+        await(group);
+    }
+
+    private void lead(String key, Group group) {
+        try {
+            group.full.await(windowMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (openGroups) {
+            if (openGroups.get(key) == group) {
+                openGroups.remove(key);
+            }
+        }
+
+        // 关闭后 group 不再被修改，可在锁外读取
+        try {
+            long start = System.currentTimeMillis();
+            int[] result = transactionTemplate.execute(status -> commit(group));
+            backpressureController.onWrite(group.domain, System.currentTimeMillis() - start);
+            log.info("[Consumer] 合并提交 domain={} date={} messages={} batches={} records={} inserted={} completed+{} 耗时 {}ms",
+                    group.domain, group.dataDate, group.size(), group.batchIndexes, group.recordCount(),
+                    result[0], result[1], System.currentTimeMillis() - start);
+            // 组内只能得知首次成功的批次数，记录数按比例折算
+            long records = result[1] == group.size() ? group.recordCount()
+                    : (long) group.recordCount() * result[1] / group.size();
+            syncProgressProjection.onBatchesInserted(group.domain, group.dataDate, group.batchIndexes,
+                    result[1], records);
+            group.result.complete(null);
+        } catch (RuntimeException e) {
+            log.error("[Consumer] 合并提交失败 domain={} date={} batches={}，组内消息将各自重投",
+                    group.domain, group.dataDate, group.batchIndexes, e);
+            group.result.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * 组内写入 + 状态推进，运行在同一事务内
+     *
+     * @return [新增记录数, 首次成功的批次数]
+     */
+    private int[] commit(Group group) {
+        int inserted = 0;
+        for (List<FaultRecordEntity> entities : group.entities) {
+            inserted += poisonRecordIsolator.writeOnce(entities);
+        }
+
+        // 同组重复投递的 batchIndex 只会被更新一次，affected 即为首次成功批次数
+        int affected = syncBatchRecordService.markInsertSuccess(group.domain, group.dataDate, group.batchIndexes);
+        if (affected > 0) {
+            syncTaskRecordService.incrementCompletedBatchBy(group.domain, group.dataDate, affected);
+        }
+        if (affected < group.size()) {
+            log.warn("[Consumer] 合并组内 {} 条为重复消费，跳过计数更新 domain={} date={} batches={}",
+                    group.size() - affected, group.domain, group.dataDate, group.batchIndexes);
+        }
+        return new int[]{inserted, affected};
+    }
+
+    private static void await(Group group) {
+        try {
+            group.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("合并提交等待被中断", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * 同一 domain+date 的待提交消息组
+     */
+    private static final class Group {
+
+        private final String domain;
+        private final LocalDate dataDate;
+        private final List<Integer> batchIndexes = new ArrayList<>();
+        private final List<List<FaultRecordEntity>> entities = new ArrayList<>();
+        private final CountDownLatch full = new CountDownLatch(1);
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        private Group(String domain, LocalDate dataDate) {
+            this.domain = domain;
+            this.dataDate = dataDate;
+        }
+
+        private void add(FaultDataBatchMessage msg, List<FaultRecordEntity> records) {
+            batchIndexes.add(msg.getBatchIndex());
+            entities.add(records);
+        }
+
+        private int size() {
+            return batchIndexes.size();
+        }
+
+        private int recordCount() {
+            int count = 0;
+            for (List<FaultRecordEntity> list : entities) {
+                count += list.size();
+            }
+            return count;
+        }
+    }
+}
@@ -1,28 +1,55 @@
 package org.cabbage.codedemo.faultdatasync.mq.consumer;
 
-import cn.hutool.core.collection.CollUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.consumer.DefaultMQPushConsumer;
+import org.apache.rocketmq.client.consumer.listener.ConsumeOrderlyStatus;
+import org.apache.rocketmq.client.consumer.listener.MessageListenerOrderly;
+import org.apache.rocketmq.common.message.MessageExt;
 import org.apache.rocketmq.spring.annotation.RocketMQMessageListener;
 import org.apache.rocketmq.spring.core.RocketMQListener;
+import org.apache.rocketmq.spring.core.RocketMQPushConsumerLifecycleListener;
 import org.cabbage.codedemo.faultdatasync.entity.FaultRecordEntity;
-import org.cabbage.codedemo.faultdatasync.mapper.FaultRecordMapper;
+import org.cabbage.codedemo.faultdatasync.limit.SyncBackpressureController;
+import org.cabbage.codedemo.faultdatasync.metrics.SyncMetrics;
 import org.cabbage.codedemo.faultdatasync.model.FaultDataBatchMessage;
+import org.cabbage.codedemo.faultdatasync.mq.codec.FaultBatchCodecRegistry;
+import org.cabbage.codedemo.faultdatasync.progress.SyncProgressProjection;
 import org.cabbage.codedemo.faultdatasync.service.SyncBatchRecordService;
 import org.cabbage.codedemo.faultdatasync.service.SyncTaskRecordService;
+import org.cabbage.codedemo.faultdatasync.tracing.SyncTracing;
+import org.cabbage.codedemo.faultdatasync.writer.FaultRecordWriter;
+import org.cabbage.codedemo.faultdatasync.writer.PoisonRecordIsolator;
+import org.cabbage.codedemo.faultdatasync.writer.WriteFailureClassifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 故障数据 MQ 消费者
  * <p>
- * 消费每批 5000 条故障数据，按 {@code dbBatchSize} 分批执行 INSERT IGNORE 写入 DB。
+ * 消费每批 5000 条故障数据，经 {@link FaultRecordWriter} 写入 DB（默认按 batch-size 分批 INSERT IGNORE）。
  * 写入成功后，通知 SyncTaskRecordService 更新已完成批次计数。
+ * 消息体按消息头 FAULT_CODEC 协商解码（无消息头按 JSON 处理）。
+ * 开启 fault-sync.consumer.coalesce.enabled 后改由 {@link FaultBatchCoalescer} 合并多条消息提交。
+ * 消费延迟（消息产生至开始消费）与写库耗时记录到 {@link SyncMetrics}；
+ * 从消息头续接生产端 trace，记录 broker 排队、写库与状态更新 span（{@link SyncTracing}）。
+ * 首次入库成功的批次推送到 {@link SyncProgressProjection}；写库耗时上报 {@link SyncBackpressureController}。
+ * <p>
+ * 分片消费（fault-sync.mq.sharding.enabled=true）：生产端按 domain+date 哈希选择队列顺序发送，
+ * 本类在 {@link #prepareStart} 中改为注册顺序监听器，每个队列同一时刻只由一个线程消费，即一条独立通道。
+ * 同一 domain+date 的批次串行写入，不再在 uk_domain_date_rank 索引页与 sync_task_record 行锁上互相等待；
+ * 不同 domain+date 分布在不同队列上并行消费，并行度为 min(topic 队列数, {@code lanes})。
+ * 分片模式下同组消息不会并发到达，微批合并无法凑组，因此跳过 {@link FaultBatchCoalescer}。
+ * <p>
+ * 毒记录隔离（fault-sync.consumer.isolation.enabled=true）：写入因数据错误失败时由 {@link PoisonRecordIsolator}
+ * 二分定位坏记录，其余记录正常入库，坏记录写入 fault_record_reject，批次记录 reject_count 后照常置为 SUCCESS，
+ * 一条坏数据不再让整条消息重投 3 次后带着全部记录进入 DLQ。合并模式下整组失败时，组内每条消息改为单独隔离写入。
  * <p>
  * 重试策略：maxReconsumeTimes = 3，超出后消息进入 DLQ（由 FaultDataDlqConsumer 处理）。
+ * 分片模式下失败消息在原队列暂停 {@code suspend-ms} 后本地重试，同样在超过次数后进入 DLQ。
  */
 @Slf4j
 @Component
@@ -32,55 +59,151 @@ import java.util.stream.Collectors;
         consumerGroup = "${fault-sync.mq.consumer-group:fault-data-sync-consumer}",
         maxReconsumeTimes = 3
 )
-public class FaultDataConsumer implements RocketMQListener<FaultDataBatchMessage> {
+public class FaultDataConsumer implements RocketMQListener<MessageExt>, RocketMQPushConsumerLifecycleListener {
+
+    /** fault_record_reject.source */
+    private static final String REJECT_SOURCE = "consumer";
 
-    private final FaultRecordMapper faultRecordMapper;
+    private final FaultRecordWriter faultRecordWriter;
     private final SyncTaskRecordService syncTaskRecordService;
     private final SyncBatchRecordService syncBatchRecordService;
+    private final FaultBatchCodecRegistry codecRegistry;
+    private final FaultBatchCoalescer coalescer;
+    private final SyncMetrics syncMetrics;
+    private final SyncTracing syncTracing;
+    private final SyncProgressProjection syncProgressProjection;
+    private final SyncBackpressureController backpressureController;
+    private final PoisonRecordIsolator poisonRecordIsolator;
+
+    @Value("${fault-sync.mq.sharding.enabled:false}")
+    private boolean sharded;
+
+    /** 分片模式下的消费线程数（通道数），应不小于分配到本实例的队列数 */
+    @Value("${fault-sync.mq.sharding.lanes:16}")
+    private int lanes;
 
-    @Value("${fault-sync.batch-size:1000}")
-    private int dbBatchSize;
+    /** 分片模式下消费失败后暂停当前队列的时长 */
+    @Value("${fault-sync.mq.sharding.suspend-ms:1000}")
+    private long suspendMs;
 
+    /**
+     * 容器已注册并发监听器之后、consumer 启动之前回调；分片模式下替换为顺序监听器
+     */
     @Override
-    public void onMessage(FaultDataBatchMessage msg) {
+    public void prepareStart(DefaultMQPushConsumer consumer) {
+        if (!sharded) {
+            return;
+        }
+        int threads = Math.max(1, lanes);
+        consumer.setConsumeThreadMax(threads);
+        consumer.setConsumeThreadMin(threads);
+        consumer.registerMessageListener((MessageListenerOrderly) (messages, context) -> {
+            for (MessageExt messageExt : messages) {
+                try {
+                    onMessage(messageExt);
+                } catch (Exception e) {
+                    log.warn("[Consumer] 分片消费失败，队列 {} 暂停 {}ms 后重试 msgId={} reconsumeTimes={}: {}",
+                            context.getMessageQueue().getQueueId(), suspendMs, messageExt.getMsgId(),
+                            messageExt.getReconsumeTimes(), e.getMessage());
+                    context.setSuspendCurrentQueueTimeMillis(suspendMs);
+                    return ConsumeOrderlyStatus.SUSPEND_CURRENT_QUEUE_A_MOMENT;
+                }
+            }
+            return ConsumeOrderlyStatus.SUCCESS;
+        });
+        if (coalescer.isEnabled()) {
+            log.warn("[Consumer] 分片消费下同一 domain+date 串行到达，微批合并不生效，已跳过");
+        }
+        log.info("[Consumer] 分片消费已开启 lanes={} suspendMs={}", threads, suspendMs);
+    }
+
+    @Override
+    public void onMessage(MessageExt messageExt) {
+        FaultDataBatchMessage msg = codecRegistry.decode(messageExt);
+        syncMetrics.recordConsumeLag(msg.getDomain(), messageExt.getBornTimestamp());
         log.info("[Consumer] 收到消息 domain={} date={} batchIndex={} records={}",
                 msg.getDomain(), msg.getDataDate(), msg.getBatchIndex(), msg.getRecords().size());
 
-        List<FaultRecordEntity> entities = convertToEntities(msg);
+        try (SyncTracing.Scope trace = syncTracing.startConsume(messageExt, msg)) {
+            try {
+                consume(msg);
+            } catch (RuntimeException e) {
+                trace.error(e);
+                throw e;
+            }
+        }
+    }
+
+    private void consume(FaultDataBatchMessage msg) {
+        List<FaultRecordEntity> entities = FaultRecordConverter.toEntities(msg);
 
-        // 按 dbBatchSize 分批 INSERT IGNORE，避免单条 SQL 过长
-        List<List<FaultRecordEntity>> partitions = CollUtil.split(entities, dbBatchSize);
-        for (List<FaultRecordEntity> batch : partitions) {
-            faultRecordMapper.batchInsert(batch);
+        // 合并模式：同 domain+date 短窗口内的消息一个事务提交，completed_batch_count 一次推进 N
+        if (coalescer.isEnabled() && !sharded) {
+            long start = System.nanoTime();
+            boolean success = false;
+            try (SyncTracing.Scope ignored = syncTracing.start("fault.sync.coalesce", msg.getDomain(), msg.getDataDate())) {
+                coalescer.submit(msg, entities);
+                success = true;
+                return;
+            } catch (RuntimeException e) {
+                // 合并事务整组回滚；隔离模式下组内每条消息各自改为单独写入，由下方二分隔离定位毒记录
+                if (!poisonRecordIsolator.isEnabled() || !WriteFailureClassifier.isPoison(e)) {
+                    throw e;
+                }
+                log.warn("[Consumer] 合并写入失败（数据错误），改为单独写入 domain={} date={} batchIndex={}",
+                        msg.getDomain(), msg.getDataDate(), msg.getBatchIndex());
+            } finally {
+                // 合并模式按本条消息的记录数计入（组内实际新增数由合并事务决定，此处不可得）
+                syncMetrics.recordWrite(msg.getDomain(), success ? entities.size() : 0, start, success);
+            }
         }
 
-        log.info("[Consumer] domain={} date={} batchIndex={} 写入完成，共 {} 条",
-                msg.getDomain(), msg.getDataDate(), msg.getBatchIndex(), entities.size());
+        // 写入方式由 fault-sync.consumer.writer 决定（INSERT IGNORE 分批 / LOAD DATA 流式），均忽略重复行
+        long start = System.nanoTime();
+        int inserted;
+        int rejected = 0;
+        try (SyncTracing.Scope trace = syncTracing.start("fault.sync.insert", msg.getDomain(), msg.getDataDate())) {
+            if (poisonRecordIsolator.isEnabled()) {
+                PoisonRecordIsolator.Outcome outcome = poisonRecordIsolator.write(entities, msg.getBatchIndex(), REJECT_SOURCE);
+                inserted = outcome.inserted();
+                rejected = outcome.rejected();
+                trace.tag("rejected", rejected);
+            } else {
+                inserted = faultRecordWriter.write(entities);
+            }
+            trace.tag("inserted", inserted);
+        } catch (RuntimeException e) {
+            syncMetrics.recordWrite(msg.getDomain(), 0, start, false);
+            throw e;
+        }
+        syncMetrics.recordWrite(msg.getDomain(), inserted, start, true);
+        backpressureController.onWrite(msg.getDomain(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
 
-        // 幂等状态更新：markInsertSuccess 内部加 ne(insert_status, SUCCESS) 条件
-        // affected=1 表示首次成功；affected=0 表示重复消费，跳过计数推进，防止 completed_batch_count 虚高
-        int affected = syncBatchRecordService.markInsertSuccess(
-                msg.getDomain(), msg.getDataDate(), msg.getBatchIndex());
+        log.info("[Consumer] domain={} date={} batchIndex={} 写入完成，共 {} 条，新增 {} 条，隔离 {} 条，耗时 {}ms",
+                msg.getDomain(), msg.getDataDate(), msg.getBatchIndex(), entities.size(), inserted, rejected,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
 
-        if (affected > 0) {
-            // 通知进度跟踪：已完成批次 +1，若全部完成则自动置为 SUCCESS
-            syncTaskRecordService.incrementCompletedBatch(msg.getDomain(), msg.getDataDate());
-        } else {
-            log.warn("[Consumer] 重复消费，跳过计数更新 domain={} date={} batchIndex={}",
+        try (SyncTracing.Scope trace = syncTracing.start("fault.sync.status", msg.getDomain(), msg.getDataDate())) {
+            if (rejected > 0) {
+                syncBatchRecordService.updateRejectCount(
+                        msg.getDomain(), msg.getDataDate(), msg.getBatchIndex(), rejected);
+            }
+            // 幂等状态更新：markInsertSuccess 内部加 ne(insert_status, SUCCESS) 条件
+            // affected=1 表示首次成功；affected=0 表示重复消费，跳过计数推进，防止 completed_batch_count 虚高
+            int affected = syncBatchRecordService.markInsertSuccess(
                     msg.getDomain(), msg.getDataDate(), msg.getBatchIndex());
-        }
-    }
+            trace.tag("duplicate", String.valueOf(affected == 0));
+            syncProgressProjection.onBatchesInserted(msg.getDomain(), msg.getDataDate(),
+                    List.of(msg.getBatchIndex()), affected, affected > 0 ? entities.size() - rejected : 0);
 
-    private List<FaultRecordEntity> convertToEntities(FaultDataBatchMessage msg) {
-        return msg.getRecords().stream()
-                .map(dto -> FaultRecordEntity.builder()
-                        .domain(dto.getDomain())
-                        .dataDate(dto.getDataDate())
-                        .rank((int) dto.getRank())
-                        .faultType(dto.getFaultType())
-                        .deviceId(dto.getDeviceId())
-                        .faultDetail(dto.getFaultDetail())
-                        .build())
-                .collect(Collectors.toList());
+            if (affected > 0) {
+                // 通知进度跟踪：已完成批次 +1，若全部完成则自动置为 SUCCESS
+                syncTaskRecordService.incrementCompletedBatch(msg.getDomain(), msg.getDataDate());
+            } else {
+                syncMetrics.recordDuplicate(msg.getDomain());
+                log.warn("[Consumer] 重复消费，跳过计数更新 domain={} date={} batchIndex={}",
+                        msg.getDomain(), msg.getDataDate(), msg.getBatchIndex());
+            }
+        }
     }
 }
@@ -2,9 +2,13 @@ package org.cabbage.codedemo.faultdatasync.mq.consumer;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.common.message.MessageExt;
 import org.apache.rocketmq.spring.annotation.RocketMQMessageListener;
 import org.apache.rocketmq.spring.core.RocketMQListener;
+import org.cabbage.codedemo.faultdatasync.metrics.SyncMetrics;
 import org.cabbage.codedemo.faultdatasync.model.FaultDataBatchMessage;
+import org.cabbage.codedemo.faultdatasync.mq.codec.FaultBatchCodecRegistry;
+import org.cabbage.codedemo.faultdatasync.replay.DlqReplayService;
 import org.cabbage.codedemo.faultdatasync.service.SyncBatchRecordService;
 import org.cabbage.codedemo.faultdatasync.service.SyncTaskRecordService;
 import org.springframework.stereotype.Component;
@@ -15,8 +19,11 @@ import org.springframework.stereotype.Component;
  * 当 FaultDataConsumer 超过最大重试次数后，消息进入 RocketMQ DLQ。
  * 此消费者负责：
  * <ol>
- *   <li>将 sync_task_record 状态更新为 FAILED，记录错误信息</li>
- *   <li>（可扩展）触发告警通知（邮件、钉钉、Prometheus Alert 等）</li>
+ *   <li>将该批次 insert_status 标记为 FAILED</li>
+ *   <li>开启 {@code fault-sync.dlq-replay.enabled} 时交给 {@link DlqReplayService} 单独重拉回放，
+ *       回放多轮仍失败才将任务置为 FAILED；否则直接将 sync_task_record 状态更新为 FAILED，记录错误信息</li>
+ *   <li>累加 {@code fault.sync.dlq} 计数，可基于该指标配置 Prometheus 告警</li>
+ *   <li>（可扩展）触发告警通知（邮件、钉钉等）</li>
  * </ol>
  * <p>
  * RocketMQ DLQ topic 命名规则：%DLQ% + consumerGroup
@@ -28,24 +35,36 @@ import org.springframework.stereotype.Component;
         topic = "%DLQ%fault-data-sync-consumer",
         consumerGroup = "fault-data-sync-dlq-consumer"
 )
-public class FaultDataDlqConsumer implements RocketMQListener<FaultDataBatchMessage> {
+public class FaultDataDlqConsumer implements RocketMQListener<MessageExt> {
 
     private final SyncTaskRecordService syncTaskRecordService;
     private final SyncBatchRecordService syncBatchRecordService;
+    private final FaultBatchCodecRegistry codecRegistry;
+    private final SyncMetrics syncMetrics;
+    private final DlqReplayService dlqReplayService;
 
     @Override
-    public void onMessage(FaultDataBatchMessage msg) {
+    public void onMessage(MessageExt messageExt) {
+        // DLQ 消息保留原消息体与 user property，按原编解码器解码
+        FaultDataBatchMessage msg = codecRegistry.decode(messageExt);
         String errorMsg = String.format(
                 "MQ 消息超过最大重试次数进入 DLQ: domain=%s date=%s batchIndex=%d records=%d",
                 msg.getDomain(), msg.getDataDate(), msg.getBatchIndex(),
                 msg.getRecords() != null ? msg.getRecords().size() : 0);
 
         log.error("[DLQ] {}", errorMsg);
+        syncMetrics.recordDlq(msg.getDomain());
 
         // 批次级标记：仅该批次 insert_status=FAILED，保留其他批次数据
         syncBatchRecordService.markInsertFailed(
                 msg.getDomain(), msg.getDataDate(), msg.getBatchIndex(), errorMsg);
 
+        if (dlqReplayService.isEnabled()) {
+            // 任务保持 MESSAGES_SENT，回放成功后照常 incrementCompletedBatch
+            dlqReplayService.submit(msg);
+            return;
+        }
+
         // 任务级标记 FAILED，触发 PowerJob 重试；重试时 hasSuccessBatch()=true，走重试路径
         syncTaskRecordService.updateFailed(msg.getDomain(), msg.getDataDate(), errorMsg);
 
@@ -0,0 +1,135 @@
+package org.cabbage.codedemo.faultdatasync.mq.producer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.producer.SendCallback;
+import org.apache.rocketmq.client.producer.SendResult;
+import org.cabbage.codedemo.faultdatasync.model.FaultRecordDTO;
+import org.cabbage.codedemo.faultdatasync.service.SyncBatchRecordService;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 单个 domain+date 的窗口化异步发送器（非线程安全，由一个同步线程独占使用）
+ * <p>
+ * 批次状态流转：
+ * <ol>
+ *   <li>发送前 markPullPending：先落一行 pull_status=PENDING，保证 consumer 的 markInsertSuccess 有行可更新</li>
+ *   <li>broker 确认（onSuccess）→ markPullConfirmed：pull_status=SUCCESS，不覆盖 insert_status</li>
+ *   <li>发送失败（onException）→ markPullFailed：重试运行从该批 startRank 续拉到末尾（或所属区间上界）</li>
+ * </ol>
+ * 首个失败被记录后，后续 {@link #send} 立即抛出，停止继续拉取；
+ * {@link #awaitAll} 等待全部在途批次确认，调用方据此决定 updateMessagesSent 或 updateFailed。
+ */
+@Slf4j
+public class AsyncBatchSender {
+
+    private final FaultDataProducer producer;
+    private final SyncBatchRecordService syncBatchRecordService;
+    private final String domain;
+    private final LocalDate dataDate;
+    private final int generation;
+    private final int maxInFlight;
+    private final long awaitTimeoutMs;
+
+    private final Semaphore inFlight;
+    private final AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+
+    AsyncBatchSender(FaultDataProducer producer, SyncBatchRecordService syncBatchRecordService,
+                     String domain, LocalDate dataDate, int generation, int maxInFlight, long awaitTimeoutMs) {
+        this.producer = producer;
+        this.syncBatchRecordService = syncBatchRecordService;
+        this.domain = domain;
+        this.dataDate = dataDate;
+        this.generation = generation;
+        this.maxInFlight = maxInFlight;
+        this.awaitTimeoutMs = awaitTimeoutMs;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * 异步发送一批；在途批次达到 maxInFlight 时阻塞，直到有批次被确认。
+     * {@code rangeEndRank} 为区间并行拉取时所属区间的上界，顺序拉取传 null；{@code pageSize} 为本批 pull 使用的页大小。
+     */
+    public void send(int batchIndex, long startRank, long endRank, Long rangeEndRank, int pageSize,
+                     List<FaultRecordDTO> records) {
+        throwIfFailed();
+        inFlight.acquireUninterruptibly();
+        if (firstFailure.get() != null) {
+            inFlight.release();
+            throwIfFailed();
+        }
+
+        syncBatchRecordService.markPullPending(domain, dataDate, batchIndex, startRank, endRank, records.size(),
+                rangeEndRank, pageSize);
+        try {
+            producer.asyncSendBatch(domain, dataDate, generation, batchIndex, startRank, records, new SendCallback() {
+                @Override
+                public void onSuccess(SendResult sendResult) {
+                    try {
+                        syncBatchRecordService.markPullConfirmed(domain, dataDate, batchIndex);
+                    } catch (Exception e) {
+                        // 确认写库失败：该批仍为 PENDING，重试运行会单批重发
+                        log.error("[AsyncSender] 确认状态写入失败 domain={} date={} batch={}",
+                                domain, dataDate, batchIndex, e);
+                        firstFailure.compareAndSet(null, e);
+                    } finally {
+                        inFlight.release();
+                    }
+                }
+
+                @Override
+                public void onException(Throwable e) {
+                    try {
+                        log.error("[AsyncSender] 发送失败 domain={} date={} batch={} startRank={}",
+                                domain, dataDate, batchIndex, startRank, e);
+                        syncBatchRecordService.markPullFailed(domain, dataDate, batchIndex, startRank, rangeEndRank,
+                                pageSize, e.getMessage());
+                    } catch (Exception ex) {
+                        log.error("[AsyncSender] markPullFailed 写入失败 domain={} date={} batch={}",
+                                domain, dataDate, batchIndex, ex);
+                    } finally {
+                        firstFailure.compareAndSet(null, e);
+                        inFlight.release();
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            // asyncSend 同步阶段即失败（如消息校验不通过），回调不会触发
+            inFlight.release();
+            syncBatchRecordService.markPullFailed(domain, dataDate, batchIndex, startRank, rangeEndRank, pageSize,
+                    e.getMessage());
+            firstFailure.compareAndSet(null, e);
+            throw e;
+        }
+    }
+
+    /**
+     * 阻塞等待所有在途批次被 broker 确认；任一批次失败或等待超时时抛出异常
+     */
+    public void awaitAll() {
+        try {
+            if (!inFlight.tryAcquire(maxInFlight, awaitTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException(String.format(
+                        "Timed out after %dms waiting for %d in-flight batches, domain=%s date=%s",
+                        awaitTimeoutMs, maxInFlight - inFlight.availablePermits(), domain, dataDate));
+            }
+            inFlight.release(maxInFlight);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for in-flight batches", e);
+        }
+        throwIfFailed();
+    }
+
+    private void throwIfFailed() {
+        Throwable failure = firstFailure.get();
+        if (failure != null) {
+            throw new IllegalStateException(String.format(
+                    "Async send failed for domain=%s date=%s: %s", domain, dataDate, failure.getMessage()), failure);
+        }
+    }
+}
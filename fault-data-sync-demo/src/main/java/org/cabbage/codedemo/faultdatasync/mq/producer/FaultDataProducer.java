@@ -1,12 +1,24 @@
 package org.cabbage.codedemo.faultdatasync.mq.producer;
 
+import io.micrometer.tracing.Span;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.producer.SendCallback;
+import org.apache.rocketmq.client.producer.SendResult;
 import org.apache.rocketmq.spring.core.RocketMQTemplate;
 import org.apache.rocketmq.spring.support.RocketMQHeaders;
+import org.cabbage.codedemo.faultdatasync.client.AdaptivePageSizeController;
+import org.cabbage.codedemo.faultdatasync.limit.SyncResourceLimiter;
+import org.cabbage.codedemo.faultdatasync.metrics.SyncMetrics;
 import org.cabbage.codedemo.faultdatasync.model.FaultDataBatchMessage;
 import org.cabbage.codedemo.faultdatasync.model.FaultRecordDTO;
+import org.cabbage.codedemo.faultdatasync.mq.codec.FaultBatchCodec;
+import org.cabbage.codedemo.faultdatasync.mq.codec.FaultBatchCodecRegistry;
+import org.cabbage.codedemo.faultdatasync.progress.SyncProgressProjection;
+import org.cabbage.codedemo.faultdatasync.service.SyncBatchRecordService;
+import org.cabbage.codedemo.faultdatasync.tracing.SyncTracing;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
 import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Component;
 
@@ -17,6 +29,23 @@ import java.util.List;
  * 故障数据 MQ 生产者
  * <p>
  * 每次 5k 拉取结果封装为一条 MQ 消息发送到 fault-data-sync-topic。
+ * 消息体由默认编解码器（fault-sync.mq.codec.name）编码为 byte[]，编解码器名称写入消息头
+ * {@link FaultBatchCodec#HEADER}，Consumer 据此选择解码实现。
+ * <p>
+ * 发送模式（fault-sync.mq.send-mode）：
+ * <ul>
+ *   <li>sync：{@link #sendBatch} 阻塞等待 broker 返回，调用方在发送前自行 markPullSuccess</li>
+ *   <li>async：通过 {@link #openAsyncSender} 获取窗口化发送器，最多 {@code maxInFlight} 批未确认，
+ *       broker 确认后才将批次 pull_status 置为 SUCCESS</li>
+ * </ul>
+ * 分片消费（fault-sync.mq.sharding.enabled=true）下两种模式都改为顺序发送，以 domain+date 为哈希键选择队列，
+ * 同一 domain+date 的批次落在同一队列，由消费端同一条通道串行处理。
+ * 编码后的消息字节数与发送失败均反馈给 {@link AdaptivePageSizeController}，用于调整后续 pull 页大小。
+ * 每次发送持有一个 {@link SyncResourceLimiter.Resource#MQ} 许可，async 模式在 broker 回调时归还。
+ * 发送耗时（不含等待许可）与消息体大小记录到 {@link SyncMetrics}，async 模式在回调中计时结束。
+ * 每批发送一个 fault.sync.send span，其上下文经 {@link SyncTracing#inject} 写入消息头，消费端据此续接 trace。
+ * broker 确认后通知 {@link SyncProgressProjection} 推进已发送批次数。
+ * 写入代次由调用方每轮同步解析一次后传入，发送路径不查询代次指针。
  */
 @Slf4j
 @Component
@@ -24,21 +53,140 @@ import java.util.List;
 public class FaultDataProducer {
 
     private final RocketMQTemplate rocketMQTemplate;
+    private final SyncBatchRecordService syncBatchRecordService;
+    private final FaultBatchCodecRegistry codecRegistry;
+    private final AdaptivePageSizeController pageSizeController;
+    private final SyncResourceLimiter resourceLimiter;
+    private final SyncMetrics syncMetrics;
+    private final SyncTracing syncTracing;
+    private final SyncProgressProjection syncProgressProjection;
 
     @Value("${fault-sync.mq.topic:fault-data-sync-topic}")
     private String topic;
 
+    @Value("${fault-sync.mq.send-mode:sync}")
+    private String sendMode;
+
+    @Value("${fault-sync.mq.sharding.enabled:false}")
+    private boolean sharded;
+
+    /** async 模式下单个 domain+date 允许的最大未确认批次数 */
+    @Value("${fault-sync.mq.max-in-flight:4}")
+    private int maxInFlight;
+
+    /** async 模式下 asyncSend 的发送超时 */
+    @Value("${rocketmq.producer.send-message-timeout:3000}")
+    private long sendTimeoutMs;
+
+    /** async 模式下等待全部在途批次确认的最长时间 */
+    @Value("${fault-sync.mq.await-timeout-ms:60000}")
+    private long awaitTimeoutMs;
+
     /**
      * 发送一批故障数据到 MQ
      *
      * @param domain     数据领域
      * @param dataDate   数据所属日期
+     * @param generation 写入代次（每轮同步解析一次，写入消息头）
      * @param batchIndex 批次序号（从 0 开始）
      * @param startRank  本批 pull 的起始 rank
      * @param records    本批次记录列表
      */
-    public void sendBatch(String domain, LocalDate dataDate, int batchIndex,
+    public void sendBatch(String domain, LocalDate dataDate, int generation, int batchIndex,
                           long startRank, List<FaultRecordDTO> records) {
+        String messageKey = messageKey(domain, dataDate, batchIndex);
+        try (SyncTracing.Scope trace = syncTracing.start("fault.sync.send", domain, dataDate)
+                .tag("batchIndex", batchIndex)
+                .tag("records", records.size())) {
+            Message<byte[]> message = buildMessage(domain, dataDate, generation, batchIndex, startRank, records,
+                    trace.span());
+            resourceLimiter.acquire(SyncResourceLimiter.Resource.MQ);
+            long start = System.nanoTime();
+            try {
+                if (sharded) {
+                    rocketMQTemplate.syncSendOrderly(topic, message, shardKey(domain, dataDate));
+                } else {
+                    rocketMQTemplate.syncSend(topic, message);
+                }
+                syncMetrics.recordSend(domain, "sync", start, true);
+                syncProgressProjection.onBatchSent(domain, dataDate, batchIndex, records.size());
+            } catch (RuntimeException e) {
+                trace.error(e);
+                syncMetrics.recordSend(domain, "sync", start, false);
+                pageSizeController.onSendRejected(domain, records.size());
+                throw e;
+            } finally {
+                resourceLimiter.release(SyncResourceLimiter.Resource.MQ);
+            }
+        }
+
+        log.info("[Producer] 发送消息 topic={} key={} batchIndex={} startRank={} records={}",
+                topic, messageKey, batchIndex, startRank, records.size());
+    }
+
+    /**
+     * 异步发送一批故障数据，结果通过 callback 回调（在 RocketMQ 回调线程执行）
+     */
+    public void asyncSendBatch(String domain, LocalDate dataDate, int generation, int batchIndex,
+                               long startRank, List<FaultRecordDTO> records, SendCallback callback) {
+        Span span = syncTracing.startDetached("fault.sync.send", domain, dataDate)
+                .tag("batchIndex", batchIndex)
+                .tag("records", records.size());
+        Message<byte[]> message = buildMessage(domain, dataDate, generation, batchIndex, startRank, records, span);
+        long[] start = new long[1];
+        SendCallback feedback = new SendCallback() {
+            @Override
+            public void onSuccess(SendResult sendResult) {
+                resourceLimiter.release(SyncResourceLimiter.Resource.MQ);
+                syncMetrics.recordSend(domain, "async", start[0], true);
+                syncProgressProjection.onBatchSent(domain, dataDate, batchIndex, records.size());
+                span.end();
+                callback.onSuccess(sendResult);
+            }
+
+            @Override
+            public void onException(Throwable e) {
+                resourceLimiter.release(SyncResourceLimiter.Resource.MQ);
+                syncMetrics.recordSend(domain, "async", start[0], false);
+                span.error(e).end();
+                pageSizeController.onSendRejected(domain, records.size());
+                callback.onException(e);
+            }
+        };
+        resourceLimiter.acquire(SyncResourceLimiter.Resource.MQ);
+        start[0] = System.nanoTime();
+        try {
+            if (sharded) {
+                rocketMQTemplate.asyncSendOrderly(topic, message, shardKey(domain, dataDate), feedback, sendTimeoutMs);
+            } else {
+                rocketMQTemplate.asyncSend(topic, message, feedback, sendTimeoutMs);
+            }
+        } catch (RuntimeException e) {
+            resourceLimiter.release(SyncResourceLimiter.Resource.MQ);
+            syncMetrics.recordSend(domain, "async", start[0], false);
+            span.error(e).end();
+            pageSizeController.onSendRejected(domain, records.size());
+            throw e;
+        }
+
+        log.debug("[Producer] 异步发送消息 topic={} key={} batchIndex={} startRank={} records={}",
+                topic, messageKey(domain, dataDate, batchIndex), batchIndex, startRank, records.size());
+    }
+
+    public boolean isAsyncMode() {
+        return "async".equalsIgnoreCase(sendMode);
+    }
+
+    /**
+     * 为单个 domain+date 打开一个窗口化异步发送器，生命周期为一次同步运行，写入代次在本轮内固定
+     */
+    public AsyncBatchSender openAsyncSender(String domain, LocalDate dataDate, int generation) {
+        return new AsyncBatchSender(this, syncBatchRecordService, domain, dataDate, generation,
+                Math.max(1, maxInFlight), awaitTimeoutMs);
+    }
+
+    private Message<byte[]> buildMessage(String domain, LocalDate dataDate, int generation, int batchIndex,
+                                         long startRank, List<FaultRecordDTO> records, Span span) {
         FaultDataBatchMessage message = FaultDataBatchMessage.builder()
                 .domain(domain)
                 .dataDate(dataDate)
@@ -47,12 +195,25 @@ public class FaultDataProducer {
                 .records(records)
                 .build();
 
-        String messageKey = domain + "_" + dataDate + "_" + batchIndex;
-        rocketMQTemplate.syncSend(topic, MessageBuilder.withPayload(message)
-                .setHeader(RocketMQHeaders.KEYS, messageKey)
-                .build());
+        FaultBatchCodec codec = codecRegistry.defaultCodec();
+        byte[] body = codec.encode(message);
+        pageSizeController.onEncoded(domain, records.size(), body.length);
+        syncMetrics.recordMessageBytes(domain, body.length);
+        MessageBuilder<byte[]> builder = MessageBuilder.withPayload(body)
+                .setHeader(RocketMQHeaders.KEYS, messageKey(domain, dataDate, batchIndex))
+                .setHeader(FaultBatchCodec.HEADER, codec.name())
+                .setHeader(FaultDataBatchMessage.GENERATION_HEADER, String.valueOf(generation));
+        return syncTracing.inject(span, builder).build();
+    }
 
-        log.info("[Producer] 发送消息 topic={} key={} batchIndex={} startRank={} records={}",
-                topic, messageKey, batchIndex, startRank, records.size());
+    private String messageKey(String domain, LocalDate dataDate, int batchIndex) {
+        return domain + "_" + dataDate + "_" + batchIndex;
+    }
+
+    /**
+     * 分片哈希键：同一 domain+date 的批次进入同一队列
+     */
+    private String shardKey(String domain, LocalDate dataDate) {
+        return domain + "_" + dataDate;
     }
 }
@@ -0,0 +1,470 @@
+package org.cabbage.codedemo.faultdatasync.progress;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.cabbage.codedemo.faultdatasync.entity.SyncBatchRecordEntity;
+import org.cabbage.codedemo.faultdatasync.entity.SyncTaskRecordEntity;
+import org.cabbage.codedemo.faultdatasync.enums.SyncStatus;
+import org.cabbage.codedemo.faultdatasync.limit.SyncBackpressureController;
+import org.cabbage.codedemo.faultdatasync.mapper.SyncBatchRecordMapper;
+import org.cabbage.codedemo.faultdatasync.mapper.SyncTaskRecordMapper;
+import org.cabbage.codedemo.faultdatasync.model.BatchProgressCount;
+import org.cabbage.codedemo.faultdatasync.model.FailedBatchView;
+import org.cabbage.codedemo.faultdatasync.model.SyncDashboardView;
+import org.cabbage.codedemo.faultdatasync.model.SyncProgressView;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 同步进度的内存投影，供进度查询接口读取
+ * <p>
+ * 由生产 / 消费路径在状态变化时直接推送事件，查询不访问 sync_task_record / sync_batch_record：
+ * <ul>
+ *   <li>任务级：RUNNING（计数清零）、MESSAGES_SENT（总批次数）、FAILED、无批次 SUCCESS，来自 SyncTaskRecordService</li>
+ *   <li>批次级：broker 确认发送（FaultDataProducer）、首次入库成功（FaultDataConsumer / FaultBatchCoalescer）、
+ *       pull 失败与 DLQ（SyncBatchRecordService）</li>
+ * </ul>
+ * 入库速率取最近 {@code rate-window-ms} 内的完成样本；ETA = 剩余批次数 / 窗口内批次完成速率，
+ * 总批次数未知（RUNNING）时以上次运行的 batch_count 估算。
+ * 启动时按同步窗口读取一次 sync_task_record 作为初始快照，之后只由事件推进；超出同步窗口的日期定期清除。
+ * <p>
+ * 投影只反映本实例经手的事件：生产与消费分布在多个实例时，各实例只看到自己发送 / 消费的批次；
+ * derived 进度模式下 sync_task_record.completed_batch_count 在完成前不更新，快照同样不准。
+ * 因此 fault-sync.progress.mode=derived 或 fault-sync.progress.multi-instance=true 时改为读库快照：
+ * 忽略事件，每隔 {@code refresh-interval-ms} 按同步窗口聚合一次 sync_task_record + sync_batch_record（source=database），
+ * 所有查询读内存中的同一份快照，数据库负载与查询频率无关；入库速率取 update_time 落在速率窗口内的成功批次。
+ */
+@Slf4j
+@Component
+public class SyncProgressProjection {
+
+    private final SyncTaskRecordMapper syncTaskRecordMapper;
+    private final SyncBatchRecordMapper syncBatchRecordMapper;
+    private final SyncBackpressureController backpressureController;
+    private final Map<String, DateProgress> progress = new ConcurrentHashMap<>();
+
+    /** 读库模式：derived 进度模式或多实例部署时为 true，见类注释 */
+    private final boolean databaseBacked;
+
+    /** 读库模式下最近一次刷新的快照，整体替换 */
+    private volatile Map<String, DateProgress> databaseSnapshot = Map.of();
+
+    @Value("${fault-sync.sync-days:5}")
+    private int syncDays;
+
+    @Value("${fault-sync.progress.rate-window-ms:60000}")
+    private long rateWindowMs;
+
+    /** 单个 domain+date 保留的失败批次上限，超出后丢弃最早的记录 */
+    @Value("${fault-sync.progress.max-failed-batches:100}")
+    private int maxFailedBatches;
+
+    public SyncProgressProjection(SyncTaskRecordMapper syncTaskRecordMapper,
+                                  SyncBatchRecordMapper syncBatchRecordMapper,
+                                  SyncBackpressureController backpressureController,
+                                  @Value("${fault-sync.progress.mode:counter}") String progressMode,
+                                  @Value("${fault-sync.progress.multi-instance:false}") boolean multiInstance) {
+        this.syncTaskRecordMapper = syncTaskRecordMapper;
+        this.syncBatchRecordMapper = syncBatchRecordMapper;
+        this.backpressureController = backpressureController;
+        this.databaseBacked = multiInstance || "derived".equalsIgnoreCase(progressMode);
+    }
+
+    public boolean isDatabaseBacked() {
+        return databaseBacked;
+    }
+
+    /**
+     * 启动快照：只填充尚未收到事件的 domain+date
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void bootstrap() {
+        if (databaseBacked) {
+            log.info("[Progress] 进度查询读库快照（derived 进度模式或多实例部署），不使用事件投影");
+            refresh();
+            return;
+        }
+        try {
+            List<SyncTaskRecordEntity> tasks = syncTaskRecordMapper.selectList(
+                    new LambdaQueryWrapper<SyncTaskRecordEntity>()
+                            .ge(SyncTaskRecordEntity::getDataDate, LocalDate.now().minusDays(syncDays)));
+            for (SyncTaskRecordEntity task : tasks) {
+                progress.computeIfAbsent(key(task.getDomain(), task.getDataDate()),
+                        k -> DateProgress.snapshot(task));
+            }
+            log.info("[Progress] 启动快照加载 {} 个 domain+date", tasks.size());
+        } catch (Exception e) {
+            log.warn("[Progress] 启动快照加载失败，进度仅由后续事件构建: {}", e.getMessage());
+        }
+    }
+
+    public void onRunStarted(String domain, LocalDate dataDate) {
+        if (databaseBacked) {
+            return;
+        }
+        state(domain, dataDate).start();
+    }
+
+    public void onBatchSent(String domain, LocalDate dataDate, int batchIndex, int records) {
+        if (databaseBacked) {
+            return;
+        }
+        state(domain, dataDate).sent(records);
+    }
+
+    public void onMessagesSent(String domain, LocalDate dataDate, int batchCount) {
+        if (databaseBacked) {
+            return;
+        }
+        state(domain, dataDate).messagesSent(batchCount);
+    }
+
+    /**
+     * 入库完成；{@code completedBatches} 只计首次成功的批次，重复消费传 0，但仍会清除这些批次的失败记录
+     */
+    public void onBatchesInserted(String domain, LocalDate dataDate, List<Integer> batchIndexes,
+                                  int completedBatches, long records) {
+        if (databaseBacked) {
+            return;
+        }
+        state(domain, dataDate).inserted(batchIndexes, completedBatches, records, rateWindowMs);
+    }
+
+    public void onBatchFailed(String domain, LocalDate dataDate, int batchIndex, String stage, String errorMessage) {
+        if (databaseBacked) {
+            return;
+        }
+        state(domain, dataDate).batchFailed(batchIndex, stage, errorMessage, maxFailedBatches);
+    }
+
+    public void onRunFailed(String domain, LocalDate dataDate, String errorMessage) {
+        if (databaseBacked) {
+            return;
+        }
+        state(domain, dataDate).failed(errorMessage);
+    }
+
+    /**
+     * 查询进度，domain 为空时返回全部，按 domain、日期倒序排列
+     */
+    public List<SyncProgressView> list(String domain) {
+        long now = System.currentTimeMillis();
+        return current().values().stream()
+                .filter(p -> domain == null || domain.isEmpty() || domain.equals(p.domain))
+                .map(p -> withBackpressure(p.view(now, rateWindowMs)))
+                .sorted(Comparator.comparing(SyncProgressView::getDomain)
+                        .thenComparing(SyncProgressView::getDataDate, Comparator.reverseOrder()))
+                .toList();
+    }
+
+    public SyncProgressView get(String domain, LocalDate dataDate) {
+        DateProgress p = current().get(key(domain, dataDate));
+        return p == null ? null : withBackpressure(p.view(System.currentTimeMillis(), rateWindowMs));
+    }
+
+    public SyncDashboardView dashboard() {
+        List<SyncProgressView> views = list(null);
+        SyncDashboardView dashboard = new SyncDashboardView();
+        dashboard.setGeneratedTime(LocalDateTime.now());
+        Map<String, Long> byStatus = new LinkedHashMap<>();
+        for (SyncStatus status : SyncStatus.values()) {
+            byStatus.put(status.name(), 0L);
+        }
+        for (SyncProgressView view : views) {
+            byStatus.merge(view.getStatus(), 1L, Long::sum);
+            dashboard.setRecordsPerSecond(dashboard.getRecordsPerSecond() + view.getRecordsPerSecond());
+            dashboard.setFailedBatchCount(dashboard.getFailedBatchCount() + view.getFailedBatches().size());
+            if (SyncStatus.FAILED.name().equals(view.getStatus())) {
+                dashboard.getFailed().add(view);
+            } else if (!SyncStatus.SUCCESS.name().equals(view.getStatus())) {
+                dashboard.getActive().add(view);
+            }
+        }
+        dashboard.getActive().sort(Comparator.comparing(SyncProgressView::getEtaSeconds,
+                Comparator.nullsFirst(Comparator.<Long>reverseOrder())));
+        dashboard.setTasksByStatus(byStatus);
+        return dashboard;
+    }
+
+    /**
+     * 清除同步窗口之外的日期，避免投影随天数无限增长
+     */
+    @Scheduled(fixedDelayString = "${fault-sync.progress.evict-interval-ms:3600000}")
+    public void evict() {
+        LocalDate cutoff = LocalDate.now().minusDays(syncDays);
+        int before = progress.size();
+        progress.values().removeIf(p -> p.dataDate.isBefore(cutoff));
+        if (progress.size() < before) {
+            log.debug("[Progress] 清除 {} 个超出同步窗口的 domain+date", before - progress.size());
+        }
+    }
+
+    /**
+     * 读库模式：按固定间隔刷新快照，每次刷新为同步窗口内的任务行 + 批次聚合 + 失败批次三次查询；
+     * 刷新失败时沿用上一份快照
+     */
+    @Scheduled(fixedDelayString = "${fault-sync.progress.refresh-interval-ms:5000}")
+    public void refresh() {
+        if (!databaseBacked) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        LocalDate fromDate = LocalDate.now().minusDays(syncDays);
+        try {
+            List<SyncTaskRecordEntity> tasks = syncTaskRecordMapper.selectList(
+                    new LambdaQueryWrapper<SyncTaskRecordEntity>()
+                            .ge(SyncTaskRecordEntity::getDataDate, fromDate));
+            Map<String, BatchProgressCount> counts = new HashMap<>();
+            for (BatchProgressCount count : syncBatchRecordMapper.aggregateProgress(
+                    fromDate, DateProgress.toLocal(now - rateWindowMs))) {
+                counts.put(key(count.getDomain(), count.getDataDate()), count);
+            }
+            Map<String, List<SyncBatchRecordEntity>> failed = syncBatchRecordMapper
+                    .findFailedForProgress(fromDate).stream()
+                    .collect(Collectors.groupingBy(b -> key(b.getDomain(), b.getDataDate())));
+
+            Map<String, DateProgress> snapshot = new HashMap<>(tasks.size() * 2);
+            for (SyncTaskRecordEntity task : tasks) {
+                String key = key(task.getDomain(), task.getDataDate());
+                snapshot.put(key, DateProgress.fromDatabase(task, counts.get(key),
+                        failed.getOrDefault(key, List.of()), now, maxFailedBatches));
+            }
+            databaseSnapshot = snapshot;
+        } catch (Exception e) {
+            log.warn("[Progress] 刷新进度快照失败，沿用上一份快照: {}", e.getMessage());
+        }
+    }
+
+    private Map<String, DateProgress> current() {
+        return databaseBacked ? databaseSnapshot : progress;
+    }
+
+    private SyncProgressView withBackpressure(SyncProgressView view) {
+        view.setBackpressure(backpressureController.level(view.getDomain()).name());
+        return view;
+    }
+
+    private DateProgress state(String domain, LocalDate dataDate) {
+        return progress.computeIfAbsent(key(domain, dataDate), k -> new DateProgress(domain, dataDate));
+    }
+
+    private static String key(String domain, LocalDate dataDate) {
+        return domain + "|" + dataDate;
+    }
+
+    /**
+     * 单个 domain+date 的进度；所有读写在对象锁内完成
+     */
+    private static final class DateProgress {
+
+        private final String domain;
+        private final LocalDate dataDate;
+        private final Deque<long[]> samples = new ArrayDeque<>();
+        private final Map<Integer, FailedBatchView> failedBatches = new LinkedHashMap<>();
+
+        private SyncStatus status = SyncStatus.RUNNING;
+        private int batchesSent;
+        private Integer batchCount;
+        private Integer lastBatchCount;
+        private int batchesCompleted;
+        private long recordsSent;
+        private long recordsCompleted;
+        private String errorMessage;
+        private long startMs = System.currentTimeMillis();
+        private long lastEventMs = startMs;
+        private String source = "events";
+
+        private DateProgress(String domain, LocalDate dataDate) {
+            this.domain = domain;
+            this.dataDate = dataDate;
+        }
+
+        private static DateProgress snapshot(SyncTaskRecordEntity task) {
+            DateProgress p = new DateProgress(task.getDomain(), task.getDataDate());
+            p.status = SyncStatus.valueOf(task.getStatus());
+            boolean sent = p.status == SyncStatus.MESSAGES_SENT || p.status == SyncStatus.SUCCESS;
+            p.batchCount = sent ? task.getBatchCount() : null;
+            p.lastBatchCount = task.getBatchCount() != null && task.getBatchCount() > 0 ? task.getBatchCount() : null;
+            p.batchesSent = sent && task.getBatchCount() != null ? task.getBatchCount() : 0;
+            p.batchesCompleted = task.getCompletedBatchCount() == null ? 0 : task.getCompletedBatchCount();
+            p.errorMessage = task.getErrorMessage();
+            if (task.getStartTime() != null) {
+                p.startMs = toMillis(task.getStartTime());
+            }
+            LocalDateTime updated = task.getEndTime() != null ? task.getEndTime() : task.getUpdateTime();
+            p.lastEventMs = updated != null ? toMillis(updated) : p.startMs;
+            p.source = "snapshot";
+            return p;
+        }
+
+        /**
+         * 读库模式：计数取自 sync_batch_record，不依赖 completed_batch_count（derived 模式下完成前不更新）
+         */
+        private static DateProgress fromDatabase(SyncTaskRecordEntity task, BatchProgressCount count,
+                                                 List<SyncBatchRecordEntity> failed, long now, int maxFailed) {
+            DateProgress p = snapshot(task);
+            p.source = "database";
+            if (count != null) {
+                p.batchesSent = count.getBatchesSent();
+                p.recordsSent = count.getRecordsSent();
+                p.batchesCompleted = count.getBatchesCompleted();
+                p.recordsCompleted = count.getRecordsCompleted();
+                if (count.getWindowBatches() > 0) {
+                    p.samples.addLast(new long[]{now, count.getWindowRecords(), count.getWindowBatches()});
+                }
+                if (count.getLastUpdateTime() != null) {
+                    p.lastEventMs = Math.max(p.lastEventMs, toMillis(count.getLastUpdateTime()));
+                }
+            }
+            // derived 模式下任务行由终结器置为 SUCCESS，之前按批次表判定
+            if (p.status == SyncStatus.MESSAGES_SENT && p.batchCount != null && p.batchesCompleted >= p.batchCount) {
+                p.status = SyncStatus.SUCCESS;
+            }
+            for (SyncBatchRecordEntity batch : failed.subList(Math.max(0, failed.size() - maxFailed), failed.size())) {
+                p.failedBatches.put(batch.getBatchIndex(), new FailedBatchView(batch.getBatchIndex(),
+                        "FAILED".equals(batch.getPullStatus()) ? "pull" : "insert", batch.getErrorMessage(),
+                        batch.getUpdateTime() != null ? batch.getUpdateTime() : batch.getCreateTime()));
+            }
+            return p;
+        }
+
+        /** 与 createOrUpdateRunning 一致：计数清零，保留上次总批次数用于估算 */
+        private synchronized void start() {
+            if (batchCount != null && batchCount > 0) {
+                lastBatchCount = batchCount;
+            }
+            status = SyncStatus.RUNNING;
+            batchesSent = 0;
+            batchCount = null;
+            batchesCompleted = 0;
+            recordsSent = 0;
+            recordsCompleted = 0;
+            errorMessage = null;
+            samples.clear();
+            failedBatches.clear();
+            startMs = System.currentTimeMillis();
+            touch();
+        }
+
+        private synchronized void sent(int records) {
+            batchesSent++;
+            recordsSent += records;
+            touch();
+        }
+
+        private synchronized void messagesSent(int count) {
+            batchCount = count;
+            if (status != SyncStatus.FAILED) {
+                status = batchesCompleted >= count ? SyncStatus.SUCCESS : SyncStatus.MESSAGES_SENT;
+            }
+            touch();
+        }
+
+        private synchronized void inserted(List<Integer> batchIndexes, int completed, long records, long windowMs) {
+            for (Integer batchIndex : batchIndexes) {
+                failedBatches.remove(batchIndex);
+            }
+            if (completed <= 0) {
+                return;
+            }
+            batchesCompleted += completed;
+            recordsCompleted += records;
+            long now = System.currentTimeMillis();
+            samples.addLast(new long[]{now, records, completed});
+            trim(now, windowMs);
+            if (status == SyncStatus.MESSAGES_SENT && batchCount != null && batchesCompleted >= batchCount) {
+                status = SyncStatus.SUCCESS;
+            }
+            touch();
+        }
+
+        private synchronized void batchFailed(int batchIndex, String stage, String error, int maxFailed) {
+            failedBatches.remove(batchIndex);
+            failedBatches.put(batchIndex, new FailedBatchView(batchIndex, stage, error, LocalDateTime.now()));
+            while (failedBatches.size() > maxFailed) {
+                failedBatches.remove(failedBatches.keySet().iterator().next());
+            }
+            touch();
+        }
+
+        private synchronized void failed(String error) {
+            status = SyncStatus.FAILED;
+            errorMessage = error;
+            touch();
+        }
+
+        private synchronized SyncProgressView view(long now, long windowMs) {
+            trim(now, windowMs);
+            long windowRecords = 0;
+            long windowBatches = 0;
+            for (long[] sample : samples) {
+                windowRecords += sample[1];
+                windowBatches += sample[2];
+            }
+            // 运行时间不足一个窗口时按实际运行时间计算速率，最少 1 秒
+            double windowSeconds = Math.max(1000L, Math.min(windowMs, now - startMs)) / 1000.0;
+
+            SyncProgressView view = new SyncProgressView();
+            view.setDomain(domain);
+            view.setDataDate(dataDate);
+            view.setStatus(status.name());
+            view.setBatchesSent(batchesSent);
+            view.setBatchCount(batchCount);
+            view.setBatchesCompleted(batchesCompleted);
+            view.setRecordsSent(recordsSent);
+            view.setRecordsCompleted(recordsCompleted);
+            view.setRecordsPerSecond(windowRecords / windowSeconds);
+            view.setFailedBatches(new ArrayList<>(failedBatches.values()));
+            view.setErrorMessage(errorMessage);
+            view.setStartTime(toLocal(startMs));
+            view.setLastEventTime(toLocal(lastEventMs));
+            view.setSource(source);
+
+            Integer expected = batchCount != null ? batchCount
+                    : lastBatchCount != null ? Math.max(lastBatchCount, batchesSent) : batchesSent;
+            view.setExpectedBatches(expected);
+            if ((status == SyncStatus.RUNNING || status == SyncStatus.MESSAGES_SENT) && windowBatches > 0) {
+                int remaining = Math.max(0, expected - batchesCompleted);
+                view.setEtaSeconds((long) Math.ceil(remaining / (windowBatches / windowSeconds)));
+            }
+            return view;
+        }
+
+        private void trim(long now, long windowMs) {
+            while (!samples.isEmpty() && samples.peekFirst()[0] < now - windowMs) {
+                samples.removeFirst();
+            }
+        }
+
+        private void touch() {
+            lastEventMs = System.currentTimeMillis();
+            source = "events";
+        }
+
+        private static long toMillis(LocalDateTime time) {
+            return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+
+        private static LocalDateTime toLocal(long millis) {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package org.cabbage.codedemo.faultdatasync.reconcile;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.cabbage.codedemo.faultdatasync.client.FaultDataSourceClient;
+import org.cabbage.codedemo.faultdatasync.mapper.FaultRecordMapper;
+import org.cabbage.codedemo.faultdatasync.model.RankBucketDigest;
+import org.cabbage.codedemo.faultdatasync.model.ReconcileReport;
+import org.cabbage.codedemo.faultdatasync.service.FaultRecordGenerationService;
+import org.cabbage.codedemo.faultdatasync.service.FaultSyncService;
+import org.cabbage.codedemo.faultdatasync.service.SyncTaskRecordService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * fault_record 与数据源的 rank 区间校验和对账（Merkle 式逐层下钻）
+ * <p>
+ * 流程：
+ * <ol>
+ *   <li>先比较整天 (0, ∞) 的记录数与校验和，一致即结束（每侧一次聚合）</li>
+ *   <li>不一致时将区间按 {@code fanout} 等分，两侧各做一次分桶聚合，只对不一致的子桶继续下钻</li>
+ *   <li>子桶跨度不超过 {@code leaf-size} 时停止下钻，相邻叶子合并后交给 {@link FaultSyncService#repairRanges}
+ *       登记为区间失败批次，复用 sync_batch_record 的重试路径定向重拉</li>
+ * </ol>
+ * 对账代价与不一致的桶数 × 层数成正比，而非与表大小成正比（数据源侧需实现服务端聚合的
+ * {@link FaultDataSourceClient#digestBuckets}，默认实现逐页拉取本地计算）。
+ * <p>
+ * 只对任务已 SUCCESS 的 domain+date 对账，读取当前代次（此时无 pending 代次，即 active 代次）；
+ * 运行中或失败的任务由同步 / 重试流程负责，不在此处理。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FaultRecordReconciler {
+
+    private final FaultDataSourceClient sourceClient;
+    private final FaultRecordMapper faultRecordMapper;
+    private final FaultRecordGenerationService generationService;
+    private final SyncTaskRecordService syncTaskRecordService;
+    private final FaultSyncService faultSyncService;
+
+    /** 每层将不一致区间切分的子桶数 */
+    @Value("${fault-sync.reconcile.fanout:16}")
+    private int fanout;
+
+    /** 区间跨度不超过该值时停止下钻，直接作为修复区间 */
+    @Value("${fault-sync.reconcile.leaf-size:5000}")
+    private long leafSize;
+
+    /** 合并后修复区间数超过该值时收敛为一个覆盖区间，避免大量零散重拉 */
+    @Value("${fault-sync.reconcile.max-repair-ranges:64}")
+    private int maxRepairRanges;
+
+    /** 修复开关：关闭时只对账并报告不一致区间 */
+    @Value("${fault-sync.reconcile.repair:true}")
+    private boolean repair;
+
+    @Value("${fault-sync.page-size:5000}")
+    private int pageSize;
+
+    public ReconcileReport reconcile(String domain, LocalDate date) {
+        ReconcileReport report = new ReconcileReport();
+        report.setDomain(domain);
+        report.setDataDate(date);
+        if (!syncTaskRecordService.isSuccess(domain, date)) {
+            report.setSkippedReason("任务未 SUCCESS");
+            log.info("[Reconcile] domain={} date={} 任务未 SUCCESS，跳过对账", domain, date);
+            return report;
+        }
+
+        int generation = generationService.writeGeneration(domain, date);
+        long maxRank = Math.max(
+                sourceClient.estimateMaxRank(domain, date).orElse(0L),
+                nullToZero(faultRecordMapper.selectMaxRank(domain, date, generation)));
+
+        List<RankBucketDigest> leaves = new ArrayList<>();
+        Deque<RankBucketDigest> level = new ArrayDeque<>();
+        // 根区间不设上界，兜底数据源估计偏小及本地多出的记录
+        RankBucketDigest root = RankBucketDigest.builder().fromRank(0).toRank(null).build();
+        level.addAll(compare(domain, date, generation, root, Long.MAX_VALUE, 1, report));
+        while (!level.isEmpty()) {
+            report.setDepth(report.getDepth() + 1);
+            Deque<RankBucketDigest> next = new ArrayDeque<>();
+            for (RankBucketDigest node : level) {
+                long extent = (node.getToRank() != null ? node.getToRank() : Math.max(maxRank, node.getFromRank()))
+                        - node.getFromRank();
+                if (extent <= leafSize) {
+                    leaves.add(node);
+                    continue;
+                }
+                long span = (extent + fanout - 1) / fanout;
+                int count = (int) ((extent + span - 1) / span);
+                next.addAll(compare(domain, date, generation, node, span, count, report));
+            }
+            level = next;
+        }
+
+        report.setRepairRanges(mergeAdjacent(leaves));
+        if (report.getRepairRanges().isEmpty()) {
+            log.info("[Reconcile] domain={} date={} 一致（比较 {} 个桶）", domain, date, report.getComparedBuckets());
+            return report;
+        }
+        log.warn("[Reconcile] domain={} date={} 发现 {} 个不一致区间（比较 {} 个桶，下钻 {} 层）",
+                domain, date, report.getRepairRanges().size(), report.getComparedBuckets(), report.getDepth());
+        if (repair) {
+            try {
+                faultSyncService.repairRanges(domain, date, report.getRepairRanges());
+            } catch (Exception e) {
+                report.setRepairError(e.getMessage());
+                log.error("[Reconcile] domain={} date={} 修复重拉失败，待下次重试运行", domain, date, e);
+            }
+        }
+        return report;
+    }
+
+    /**
+     * 将 parent 切成 count 个跨度为 span 的子桶，两侧各聚合一次，返回不一致的子桶（带区间边界）。
+     * 最后一个子桶继承 parent 的上界（可能为 null）。
+     */
+    private List<RankBucketDigest> compare(String domain, LocalDate date, int generation, RankBucketDigest parent,
+                                           long span, int count, ReconcileReport report) {
+        long from = parent.getFromRank();
+        Long to = parent.getToRank();
+        Map<Integer, RankBucketDigest> local = index(
+                faultRecordMapper.digestBuckets(domain, date, generation, from, to, span, count));
+        Map<Integer, RankBucketDigest> source = index(
+                sourceClient.digestBuckets(domain, date, from, to, span, count, pageSize));
+        report.setComparedBuckets(report.getComparedBuckets() + count);
+
+        List<RankBucketDigest> mismatched = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            RankBucketDigest expected = source.get(i);
+            RankBucketDigest actual = local.get(i);
+            if (expected == null && actual == null) {
+                continue;
+            }
+            if (expected != null && expected.sameContent(actual)) {
+                continue;
+            }
+            mismatched.add(RankBucketDigest.builder()
+                    .bucket(i)
+                    .fromRank(from + i * span)
+                    .toRank(i == count - 1 ? to : Long.valueOf(from + (i + 1) * span))
+                    .recordCount(expected == null ? 0 : expected.getRecordCount())
+                    .checksum(expected == null ? 0 : expected.getChecksum())
+                    .build());
+        }
+        return mismatched;
+    }
+
+    /**
+     * 合并首尾相接的叶子区间；超过 max-repair-ranges 时收敛为一个覆盖全部不一致区间的区间
+     */
+    private List<RankBucketDigest> mergeAdjacent(List<RankBucketDigest> leaves) {
+        leaves.sort(Comparator.comparingLong(RankBucketDigest::getFromRank));
+        List<RankBucketDigest> merged = new ArrayList<>();
+        for (RankBucketDigest leaf : leaves) {
+            RankBucketDigest last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && last.getToRank() != null && last.getToRank() == leaf.getFromRank()) {
+                last.setToRank(leaf.getToRank());
+                last.setRecordCount(last.getRecordCount() + leaf.getRecordCount());
+                last.setChecksum(last.getChecksum() + leaf.getChecksum());
+            } else {
+                merged.add(RankBucketDigest.builder()
+                        .fromRank(leaf.getFromRank())
+                        .toRank(leaf.getToRank())
+                        .recordCount(leaf.getRecordCount())
+                        .checksum(leaf.getChecksum())
+                        .build());
+            }
+        }
+        if (merged.size() > maxRepairRanges) {
+            RankBucketDigest first = merged.get(0);
+            RankBucketDigest last = merged.get(merged.size() - 1);
+            log.info("[Reconcile] 不一致区间 {} 个超过上限 {}，收敛为 ({}, {}]",
+                    merged.size(), maxRepairRanges, first.getFromRank(), last.getToRank());
+            return new ArrayList<>(List.of(RankBucketDigest.builder()
+                    .fromRank(first.getFromRank())
+                    .toRank(last.getToRank())
+                    .build()));
+        }
+        for (int i = 0; i < merged.size(); i++) {
+            merged.get(i).setBucket(i);
+        }
+        return merged;
+    }
+
+    private static Map<Integer, RankBucketDigest> index(List<RankBucketDigest> digests) {
+        Map<Integer, RankBucketDigest> byBucket = new HashMap<>();
+        for (RankBucketDigest digest : digests) {
+            byBucket.put(digest.getBucket(), digest);
+        }
+        return byBucket;
+    }
+
+    private static long nullToZero(Long value) {
+        return value == null ? 0 : value;
+    }
+}
@@ -0,0 +1,96 @@
+package org.cabbage.codedemo.faultdatasync.reconcile;
+
+import org.cabbage.codedemo.faultdatasync.model.FaultRecordDTO;
+import org.cabbage.codedemo.faultdatasync.model.RankBucketDigest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.zip.CRC32;
+
+/**
+ * 对账摘要的 Java 侧实现，与 FaultRecordMapper.digestBuckets 的 SQL 口径保持一致：
+ * <ul>
+ *   <li>单条记录：{@code CRC32(CONCAT_WS('|', rank, fault_type, device_id, fault_detail))}，CONCAT_WS 跳过 NULL 字段</li>
+ *   <li>桶摘要：记录数 + 单条 CRC32 之和（与顺序无关，可按 rank 任意切分后相加）</li>
+ *   <li>分桶：{@code LEAST(FLOOR((rank - fromRank - 1) / bucketSpan), bucketCount - 1)}，最后一个桶吸收超出上界估计的记录</li>
+ * </ul>
+ */
+public final class RecordDigest {
+
+    private RecordDigest() {
+    }
+
+    public static long checksum(FaultRecordDTO record) {
+        StringJoiner joiner = new StringJoiner("|");
+        joiner.add(Long.toString(record.getRank()));
+        addIfPresent(joiner, record.getFaultType());
+        addIfPresent(joiner, record.getDeviceId());
+        addIfPresent(joiner, record.getFaultDetail());
+        CRC32 crc = new CRC32();
+        crc.update(joiner.toString().getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+
+    public static int bucketOf(long rank, long fromRank, long bucketSpan, int bucketCount) {
+        return (int) Math.min((rank - fromRank - 1) / bucketSpan, bucketCount - 1);
+    }
+
+    /**
+     * 按桶累计 (fromRank, toRank] 内按 rank 升序到达的记录
+     */
+    public static Accumulator accumulator(long fromRank, Long toRank, long bucketSpan, int bucketCount) {
+        return new Accumulator(fromRank, toRank, bucketSpan, bucketCount);
+    }
+
+    public static final class Accumulator {
+        private final long fromRank;
+        private final Long toRank;
+        private final long bucketSpan;
+        private final long[] counts;
+        private final long[] sums;
+
+        private Accumulator(long fromRank, Long toRank, long bucketSpan, int bucketCount) {
+            this.fromRank = fromRank;
+            this.toRank = toRank;
+            this.bucketSpan = bucketSpan;
+            this.counts = new long[bucketCount];
+            this.sums = new long[bucketCount];
+        }
+
+        /**
+         * @return false 表示记录已越过 toRank，后续记录无需再传入
+         */
+        public boolean accept(FaultRecordDTO record) {
+            if (toRank != null && record.getRank() > toRank) {
+                return false;
+            }
+            if (record.getRank() > fromRank) {
+                int bucket = bucketOf(record.getRank(), fromRank, bucketSpan, counts.length);
+                counts[bucket]++;
+                sums[bucket] += checksum(record);
+            }
+            return true;
+        }
+
+        /**
+         * 非空桶的摘要（只含 bucket / recordCount / checksum，区间边界由调用方补齐）
+         */
+        public List<RankBucketDigest> digests() {
+            List<RankBucketDigest> digests = new ArrayList<>();
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    digests.add(RankBucketDigest.builder().bucket(i).recordCount(counts[i]).checksum(sums[i]).build());
+                }
+            }
+            return digests;
+        }
+    }
+
+    private static void addIfPresent(StringJoiner joiner, String value) {
+        if (value != null) {
+            joiner.add(value);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package org.cabbage.codedemo.faultdatasync.replay;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.cabbage.codedemo.faultdatasync.client.FaultDataSourceClient;
+import org.cabbage.codedemo.faultdatasync.client.FaultRecordCursor;
+import org.cabbage.codedemo.faultdatasync.entity.SyncBatchRecordEntity;
+import org.cabbage.codedemo.faultdatasync.metrics.SyncMetrics;
+import org.cabbage.codedemo.faultdatasync.model.FaultDataBatchMessage;
+import org.cabbage.codedemo.faultdatasync.model.FaultRecordDTO;
+import org.cabbage.codedemo.faultdatasync.mq.consumer.FaultRecordConverter;
+import org.cabbage.codedemo.faultdatasync.progress.SyncProgressProjection;
+import org.cabbage.codedemo.faultdatasync.service.SyncBatchRecordService;
+import org.cabbage.codedemo.faultdatasync.service.SyncTaskRecordService;
+import org.cabbage.codedemo.faultdatasync.writer.PoisonRecordIsolator;
+import org.cabbage.codedemo.faultdatasync.writer.WriteFailureClassifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DLQ 自动回放（fault-sync.dlq-replay.enabled=true）
+ * <p>
+ * 进入 DLQ 的批次不再等下一次 PowerJob 运行走完整的重试路径，而是单独回放：
+ * <ol>
+ *   <li>按 sync_batch_record 记录的 startRank / page_size / range_end_rank 只重拉该批次一页，
+ *       代次沿用原消息，直接写库（不再经过 MQ）</li>
+ *   <li>写库失败按 {@link WriteFailureClassifier} 分类：
+ *       瞬时故障（锁等待、超时、连接中断、上游报错）按指数退避重试本轮回放；
+ *       毒数据由 {@link PoisonRecordIsolator} 以严格写入二分定位，坏记录隔离到 fault_record_reject，其余记录正常入库，批次照常完成
+ *       （load-data 写入器只有 IGNORE 写入，数据错误不会报错，不做隔离）；
+ *       隔离后仍以毒数据失败（整批都是坏记录，或隔离未开启）时重试结果不变，立即放弃，不消耗剩余轮次</li>
+ *   <li>成功后 markInsertSuccess + incrementCompletedBatch，与消费端完成一批的处理相同</li>
+ * </ol>
+ * 第 n 轮在 min(max-backoff-ms, initial-backoff-ms * 2^(n-1)) 后执行，同时执行的回放不超过 max-concurrent；
+ * 瞬时故障超过 max-attempts 仍失败、或遇到毒数据时，批次置为 insert_status=FAILED、任务置为 FAILED，
+ * 由下一次 PowerJob 运行走重试路径（即未开启回放时的行为）。
+ * <p>
+ * 回放队列只在内存中：实例重启丢失的回放由批次的 insert_status=FAILED 兜底，下一次运行的重试路径同样会重拉。
+ * 同一批次重复进入（DLQ 重投）时忽略；与重试路径并发执行时由 INSERT IGNORE 与 markInsertSuccess 的条件更新保证幂等。
+ */
+@Slf4j
+@Component
+public class DlqReplayService {
+
+    static final String SOURCE = "replay";
+
+    private final FaultDataSourceClient sourceClient;
+    private final SyncBatchRecordService syncBatchRecordService;
+    private final SyncTaskRecordService syncTaskRecordService;
+    private final PoisonRecordIsolator poisonRecordIsolator;
+    private final SyncProgressProjection syncProgressProjection;
+    private final SyncMetrics syncMetrics;
+    private final boolean enabled;
+    private final int maxConcurrent;
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+
+    /** 等待或正在回放的批次，key = domain|date|batchIndex */
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    private ScheduledThreadPoolExecutor executor;
+
+    public DlqReplayService(FaultDataSourceClient sourceClient,
+                            SyncBatchRecordService syncBatchRecordService,
+                            SyncTaskRecordService syncTaskRecordService,
+                            PoisonRecordIsolator poisonRecordIsolator,
+                            SyncProgressProjection syncProgressProjection,
+                            SyncMetrics syncMetrics,
+                            @Value("${fault-sync.dlq-replay.enabled:false}") boolean enabled,
+                            @Value("${fault-sync.dlq-replay.max-concurrent:2}") int maxConcurrent,
+                            @Value("${fault-sync.dlq-replay.max-attempts:5}") int maxAttempts,
+                            @Value("${fault-sync.dlq-replay.initial-backoff-ms:5000}") long initialBackoffMs,
+                            @Value("${fault-sync.dlq-replay.max-backoff-ms:300000}") long maxBackoffMs) {
+        this.sourceClient = sourceClient;
+        this.syncBatchRecordService = syncBatchRecordService;
+        this.syncTaskRecordService = syncTaskRecordService;
+        this.poisonRecordIsolator = poisonRecordIsolator;
+        this.syncProgressProjection = syncProgressProjection;
+        this.syncMetrics = syncMetrics;
+        this.enabled = enabled;
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffMs = Math.max(0, initialBackoffMs);
+        this.maxBackoffMs = Math.max(this.initialBackoffMs, maxBackoffMs);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        executor = new ScheduledThreadPoolExecutor(maxConcurrent,
+                Thread.ofPlatform().name("fault-sync-dlq-replay-", 0).daemon(true).factory());
+        log.info("[DlqReplay] DLQ 自动回放已开启 maxConcurrent={} maxAttempts={} backoff={}~{}ms",
+                maxConcurrent, maxAttempts, initialBackoffMs, maxBackoffMs);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 登记一个进入 DLQ 的批次，首轮在 initial-backoff-ms 后执行；同一批次已在回放中时忽略
+     */
+    public void submit(FaultDataBatchMessage msg) {
+        Replay replay = new Replay(msg.getDomain(), msg.getDataDate(), msg.getBatchIndex(), msg.getStartRank(),
+                msg.getGeneration(), msg.getRecords() == null ? 0 : msg.getRecords().size());
+        if (!pending.add(replay.key())) {
+            log.info("[DlqReplay] 批次已在回放中，忽略 {}", replay.key());
+            return;
+        }
+        schedule(replay, 1);
+    }
+
+    private void schedule(Replay replay, int attempt) {
+        long delay = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt - 1, 20));
+        executor.schedule(() -> run(replay, attempt), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void run(Replay replay, int attempt) {
+        try {
+            int rejected = replay(replay);
+            pending.remove(replay.key());
+            syncMetrics.recordDlqReplay(replay.domain, "success");
+            log.info("[DlqReplay] {} 第 {} 轮回放成功，隔离 {} 条", replay.key(), attempt, rejected);
+        } catch (RuntimeException e) {
+            if (WriteFailureClassifier.isPoison(e)) {
+                log.error("[DlqReplay] {} 第 {} 轮回放遇到毒数据，重试无效，直接放弃", replay.key(), attempt, e);
+                giveUp(replay, String.format("DLQ 回放遇到毒数据 batchIndex=%d: %s", replay.batchIndex, e.getMessage()));
+                return;
+            }
+            if (attempt >= maxAttempts) {
+                log.error("[DlqReplay] {} 回放 {} 轮仍失败，任务置为 FAILED 等待下次运行", replay.key(), attempt, e);
+                giveUp(replay, String.format(
+                        "DLQ 回放 %d 轮失败 batchIndex=%d: %s", attempt, replay.batchIndex, e.getMessage()));
+                return;
+            }
+            syncMetrics.recordDlqReplay(replay.domain, "retry");
+            log.warn("[DlqReplay] {} 第 {} 轮回放失败，退避后重试: {}", replay.key(), attempt, e.getMessage());
+            schedule(replay, attempt + 1);
+        }
+    }
+
+    private void giveUp(Replay replay, String errorMessage) {
+        pending.remove(replay.key());
+        syncMetrics.recordDlqReplay(replay.domain, "gave_up");
+        syncBatchRecordService.markInsertFailed(replay.domain, replay.dataDate, replay.batchIndex, errorMessage);
+        syncTaskRecordService.updateFailed(replay.domain, replay.dataDate, errorMessage);
+    }
+
+    /**
+     * 重拉并写入一个批次
+     *
+     * @return 隔离的记录数
+     */
+    private int replay(Replay replay) {
+        SyncBatchRecordEntity batch = syncBatchRecordService.find(replay.domain, replay.dataDate, replay.batchIndex);
+        if (batch != null && "SUCCESS".equals(batch.getInsertStatus())) {
+            // 重试路径或 MQ 重投已完成该批次
+            return 0;
+        }
+        long startRank = batch != null ? batch.getStartRank() : replay.startRank;
+        int pageSize = batch != null && batch.getPageSize() != null && batch.getPageSize() > 0
+                ? batch.getPageSize() : Math.max(1, replay.recordCount);
+        Long rangeEndRank = batch == null ? null : batch.getRangeEndRank();
+
+        List<FaultRecordDTO> records;
+        try (FaultRecordCursor cursor = sourceClient.openCursor(replay.domain, replay.dataDate, startRank, pageSize)) {
+            records = cursor.toPage(pageSize).getRecords();
+        }
+        if (rangeEndRank != null) {
+            records = records.stream().filter(r -> r.getRank() <= rangeEndRank).toList();
+        }
+
+        int rejected = poisonRecordIsolator.write(
+                FaultRecordConverter.toEntities(replay.message(records)), replay.batchIndex, SOURCE).rejected();
+        if (rejected > 0) {
+            syncBatchRecordService.updateRejectCount(replay.domain, replay.dataDate, replay.batchIndex, rejected);
+        }
+        int affected = syncBatchRecordService.markInsertSuccess(replay.domain, replay.dataDate, replay.batchIndex);
+        syncProgressProjection.onBatchesInserted(replay.domain, replay.dataDate, List.of(replay.batchIndex),
+                affected, affected > 0 ? records.size() - rejected : 0);
+        if (affected > 0) {
+            syncTaskRecordService.incrementCompletedBatch(replay.domain, replay.dataDate);
+        }
+        return rejected;
+    }
+
+    /**
+     * 一个待回放的批次，startRank / recordCount 仅在批次记录缺失时使用
+     */
+    private record Replay(String domain, LocalDate dataDate, int batchIndex, long startRank, int generation,
+                          int recordCount) {
+
+        private String key() {
+            return domain + "|" + dataDate + "|" + batchIndex;
+        }
+
+        private FaultDataBatchMessage message(List<FaultRecordDTO> records) {
+            return FaultDataBatchMessage.builder()
+                    .domain(domain)
+                    .dataDate(dataDate)
+                    .batchIndex(batchIndex)
+                    .startRank(startRank)
+                    .generation(generation)
+                    .records(records)
+                    .build();
+        }
+    }
+}
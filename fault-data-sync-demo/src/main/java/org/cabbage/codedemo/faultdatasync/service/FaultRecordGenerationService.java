@@ -0,0 +1,43 @@
+package org.cabbage.codedemo.faultdatasync.service;
+
+import java.time.LocalDate;
+
+/**
+ * fault_record 代次管理（影子重同步）
+ * <p>
+ * fault-sync.resync.mode=shadow 时，首次同步不再 DELETE 旧数据，而是分配新的 pending 代次写入；
+ * 任务 SUCCESS 后由 {@link #swapCompleted} 原子切换 active 指针，旧代次由 {@link #purgeStaleGenerations} 分块删除。
+ * 分块只限制单个事务大小，undo / binlog 总量与一次性 DELETE 相同；代次未分区，不支持 DROP PARTITION 或换表。
+ * 写入代次由同步服务每轮解析一次（{@link #writeGeneration}）后传给 producer，发送路径不逐批查询。
+ * 读取方通过视图 fault_record_active 只看 active 代次，重同步期间旧数据持续可见。
+ */
+public interface FaultRecordGenerationService {
+
+    boolean isShadowMode();
+
+    /**
+     * 首次同步开始：分配新的 pending 代次
+     *
+     * @return 本轮写入代次
+     */
+    int beginShadowGeneration(String domain, LocalDate dataDate);
+
+    /**
+     * 当前写入代次：存在 pending 时为 pending，否则为 active（无指针行为 0）
+     */
+    int writeGeneration(String domain, LocalDate dataDate);
+
+    /**
+     * 将所有任务已 SUCCESS 的 pending 代次切换为 active
+     *
+     * @return 切换的 domain+date 数
+     */
+    int swapCompleted();
+
+    /**
+     * 分块删除所有 purge_needed=1 的 domain+date 的旧代次数据
+     *
+     * @return 删除的记录数
+     */
+    long purgeStaleGenerations();
+}
@@ -1,6 +1,9 @@
 package org.cabbage.codedemo.faultdatasync.service;
 
+import org.cabbage.codedemo.faultdatasync.model.RankBucketDigest;
+
 import java.time.LocalDate;
+import java.util.List;
 
 /**
  * 单个 domain+date 的故障数据同步接口
@@ -17,4 +20,13 @@ public interface FaultSyncService {
      * </ol>
      */
     void syncDomainDate(String domain, LocalDate date);
+
+    /**
+     * 定向修复对账不一致的 rank 区间：删除区间内当前写入代次的数据，将每个区间登记为
+     * pull_status=FAILED 的区间批次（sync_batch_record），随即走重试路径重拉。
+     * 修复失败时任务保持 FAILED，登记的批次由下次调度的重试运行继续处理。
+     *
+     * @param ranges 待修复区间，toRank 为 null 表示不设上界
+     */
+    void repairRanges(String domain, LocalDate date, List<RankBucketDigest> ranges);
 }
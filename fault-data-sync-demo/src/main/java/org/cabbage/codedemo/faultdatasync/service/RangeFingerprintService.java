@@ -0,0 +1,40 @@
+package org.cabbage.codedemo.faultdatasync.service;
+
+import org.cabbage.codedemo.faultdatasync.model.RangeFingerprint;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * rank 区间内容指纹管理（增量同步）
+ * <p>
+ * fault-sync.incremental.enabled=true 时，每次全量 / 增量同步开始前采集数据源分桶指纹并覆盖保存；
+ * 下一次运行若上次任务已 SUCCESS，只重拉指纹发生变化的区间，其余区间不再拉取。
+ */
+public interface RangeFingerprintService {
+
+    boolean isIncrementalMode();
+
+    /**
+     * 从数据源采集当前分桶指纹
+     *
+     * @return 按 fromRank 升序；数据源不支持时为空列表
+     */
+    List<RangeFingerprint> fetchSourceFingerprints(String domain, LocalDate dataDate);
+
+    /**
+     * 上次同步保存的指纹，按 fromRank 升序
+     */
+    List<RangeFingerprint> findStored(String domain, LocalDate dataDate);
+
+    /**
+     * 覆盖保存 domain+date 的全部指纹
+     */
+    void replace(String domain, LocalDate dataDate, List<RangeFingerprint> fingerprints);
+
+    /**
+     * 比较两次指纹，返回需要重拉的区间（按 fromRank 升序）：
+     * 新增或内容变化的桶取 source 值；source 中已不存在的桶（上游删除数据）原样返回，用于清理
+     */
+    List<RangeFingerprint> changedRanges(List<RangeFingerprint> stored, List<RangeFingerprint> source);
+}
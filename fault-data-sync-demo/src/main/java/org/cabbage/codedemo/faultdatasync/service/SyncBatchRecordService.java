@@ -13,13 +13,30 @@ import java.util.List;
  */
 public interface SyncBatchRecordService {
 
-    /** pull 成功：upsert 批次记录，回填 end_rank 和 record_count */
+    /**
+     * pull 成功：upsert 批次记录，回填 end_rank 和 record_count。
+     * {@code rangeEndRank} 为区间并行拉取时所属区间的上界（含），顺序拉取传 null；
+     * {@code pageSize} 为本批 pull 使用的页大小，重试时按此值重放。
+     */
     void markPullSuccess(String domain, LocalDate dataDate, int batchIndex,
-                         long startRank, long endRank, int recordCount);
+                         long startRank, long endRank, int recordCount, Long rangeEndRank, int pageSize);
+
+    /**
+     * 异步发送前占位：upsert 批次记录为 pull_status=PENDING、insert_status=PENDING。
+     * 先于消息发出落行，保证 consumer 的 markInsertSuccess 总能命中该行。
+     */
+    void markPullPending(String domain, LocalDate dataDate, int batchIndex,
+                         long startRank, long endRank, int recordCount, Long rangeEndRank, int pageSize);
+
+    /**
+     * 异步发送 broker 确认：pull_status PENDING → SUCCESS。
+     * 不修改 insert_status，避免覆盖已先行完成的消费结果。
+     */
+    void markPullConfirmed(String domain, LocalDate dataDate, int batchIndex);
 
     /** pull 失败：写入或更新批次记录，pull_status=FAILED */
     void markPullFailed(String domain, LocalDate dataDate, int batchIndex,
-                        long startRank, String errorMessage);
+                        long startRank, Long rangeEndRank, int pageSize, String errorMessage);
 
     /**
      * 消费入库成功：幂等地将 insert_status 置为 SUCCESS。
@@ -32,15 +49,48 @@ public interface SyncBatchRecordService {
      */
     int markInsertSuccess(String domain, LocalDate dataDate, int batchIndex);
 
+    /**
+     * 消费端合并提交：一条 UPDATE 将多个批次的 insert_status 置为 SUCCESS，条件与单批版本相同。
+     *
+     * @return 首次成功的批次数（重复消费的批次不计入）
+     */
+    int markInsertSuccess(String domain, LocalDate dataDate, List<Integer> batchIndexes);
+
     /** 消费入库失败（进 DLQ）：insert_status=FAILED */
     void markInsertFailed(String domain, LocalDate dataDate, int batchIndex, String errorMessage);
 
+    /**
+     * 毒记录隔离：记录该批次隔离到 fault_record_reject 的记录数，应在 markInsertSuccess 之前调用。
+     * 重复消费时以相同值覆盖，幂等；批次重新拉取时由 upsert 归零。
+     */
+    void updateRejectCount(String domain, LocalDate dataDate, int batchIndex, int rejectCount);
+
     /**
      * 判断当前 domain+date 是否存在 pull_status=SUCCESS 的批次。
      * 用于区分首次运行（false）与重试运行（true）。
      */
     boolean hasSuccessBatch(String domain, LocalDate dataDate);
 
-    /** 查询所有失败批次（pull 或 insert 失败），按 batchIndex 升序 */
+    /**
+     * 统计 insert_status != SUCCESS 的批次数（derived 进度模式的完成判定前置检查，一致性读不加锁）
+     */
+    long countUnfinished(String domain, LocalDate dataDate);
+
+    /**
+     * 查询单个批次记录，不存在时返回 null（DLQ 回放按记录的 startRank / page_size 重拉该批次）
+     */
+    SyncBatchRecordEntity find(String domain, LocalDate dataDate, int batchIndex);
+
+    /** 查询所有待重跑批次（pull/insert 失败，或异步发送未确认的 PENDING），按 batchIndex 升序 */
     List<SyncBatchRecordEntity> findFailed(String domain, LocalDate dataDate);
+
+    /**
+     * 当前最大 batch_index，无批次记录时为 -1（对账修复为新登记的批次分配不冲突的序号）
+     */
+    int maxBatchIndex(String domain, LocalDate dataDate);
+
+    /**
+     * 删除 domain+date 的全部批次记录（增量同步 / 全量重同步开始前，为本轮批次腾出 batch_index）
+     */
+    int deleteByDomainAndDate(String domain, LocalDate dataDate);
 }
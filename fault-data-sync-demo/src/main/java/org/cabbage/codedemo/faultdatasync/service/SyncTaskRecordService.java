@@ -1,6 +1,9 @@
 package org.cabbage.codedemo.faultdatasync.service;
 
+import org.cabbage.codedemo.faultdatasync.entity.SyncTaskRecordEntity;
+
 import java.time.LocalDate;
+import java.util.List;
 
 /**
  * 同步任务状态管理接口
@@ -29,9 +32,44 @@ public interface SyncTaskRecordService {
      */
     void incrementCompletedBatch(String domain, LocalDate dataDate);
 
+    /**
+     * MQ 消费端合并提交时调用：已完成批次数 +delta（单条 UPDATE），若达到 batchCount 则自动置为 SUCCESS
+     */
+    void incrementCompletedBatchBy(String domain, LocalDate dataDate, int delta);
+
     /**
      * Producer 补偿检查：updateMessagesSent 之后调用，
      * 应对所有批次均早于 updateMessagesSent 消费完成的极端场景。
      */
     void checkAndMarkSuccessIfAllDone(String domain, LocalDate dataDate);
+
+    /**
+     * derived 进度模式的完成判定：全部批次 insert_status=SUCCESS 时置为 SUCCESS（由定时巡检与最后一批消费者调用）
+     *
+     * @return true 表示本次调用将任务置为 SUCCESS
+     */
+    boolean finalizeIfAllBatchesInserted(String domain, LocalDate dataDate);
+
+    /**
+     * 查询所有 MESSAGES_SENT 状态的任务（derived 模式定时巡检用）
+     */
+    List<SyncTaskRecordEntity> findMessagesSent();
+
+    /**
+     * 估计 domain+date 的批次数（调度排序用）：优先取该日期上次运行的 batch_count，
+     * 无记录时取该领域最近一次有效运行的 batch_count
+     *
+     * @return 估计批次数；领域从未运行过时返回 -1
+     */
+    int estimateBatchCount(String domain, LocalDate dataDate);
+
+    /**
+     * 上次同步是否已 SUCCESS（增量同步的前提）
+     */
+    boolean isSuccess(String domain, LocalDate dataDate);
+
+    /**
+     * 本轮无批次需要发送时（增量同步仅清理了数据）直接置为 SUCCESS
+     */
+    void markSuccessWithoutBatches(String domain, LocalDate dataDate);
 }
@@ -0,0 +1,113 @@
+package org.cabbage.codedemo.faultdatasync.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.cabbage.codedemo.faultdatasync.entity.FaultRecordGenerationEntity;
+import org.cabbage.codedemo.faultdatasync.mapper.FaultRecordGenerationMapper;
+import org.cabbage.codedemo.faultdatasync.mapper.FaultRecordMapper;
+import org.cabbage.codedemo.faultdatasync.service.FaultRecordGenerationService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FaultRecordGenerationServiceImpl implements FaultRecordGenerationService {
+
+    private final FaultRecordGenerationMapper generationMapper;
+    private final FaultRecordMapper faultRecordMapper;
+
+    /** 重同步模式：delete（默认，DELETE 全量后重拉）/ shadow（写入新代次，完成后切换） */
+    @Value("${fault-sync.resync.mode:delete}")
+    private String resyncMode;
+
+    /** 旧代次清理每次 DELETE 的行数上限 */
+    @Value("${fault-sync.resync.purge-chunk-size:5000}")
+    private int purgeChunkSize;
+
+    @Override
+    public boolean isShadowMode() {
+        return "shadow".equalsIgnoreCase(resyncMode);
+    }
+
+    @Override
+    public int beginShadowGeneration(String domain, LocalDate dataDate) {
+        generationMapper.allocatePending(domain, dataDate);
+        int generation = writeGeneration(domain, dataDate);
+        log.info("[Generation] domain={} date={} 分配影子代次 {}", domain, dataDate, generation);
+        return generation;
+    }
+
+    @Override
+    public int writeGeneration(String domain, LocalDate dataDate) {
+        FaultRecordGenerationEntity pointer = findPointer(domain, dataDate);
+        if (pointer == null) {
+            return 0;
+        }
+        return pointer.getPendingGeneration() != null ? pointer.getPendingGeneration() : pointer.getActiveGeneration();
+    }
+
+    @Override
+    public int swapCompleted() {
+        int swapped = 0;
+        for (FaultRecordGenerationEntity pointer : generationMapper.findSwappable()) {
+            int affected = generationMapper.swap(pointer.getDomain(), pointer.getDataDate(), pointer.getPendingGeneration());
+            if (affected > 0) {
+                swapped++;
+                log.info("[Generation] domain={} date={} 切换 active 代次 {} → {}",
+                        pointer.getDomain(), pointer.getDataDate(),
+                        pointer.getActiveGeneration(), pointer.getPendingGeneration());
+            }
+        }
+        return swapped;
+    }
+
+    @Override
+    public long purgeStaleGenerations() {
+        List<FaultRecordGenerationEntity> pointers = generationMapper.selectList(
+                new LambdaQueryWrapper<FaultRecordGenerationEntity>()
+                        .eq(FaultRecordGenerationEntity::getPurgeNeeded, 1));
+        long total = 0;
+        for (FaultRecordGenerationEntity pointer : pointers) {
+            long deleted = 0;
+            int affected;
+            do {
+                // 每块独立提交，避免单条大 DELETE 撑大 undo 与复制延迟
+                affected = faultRecordMapper.deleteStaleGenerationChunk(pointer.getDomain(), pointer.getDataDate(),
+                        pointer.getActiveGeneration(), pointer.getPendingGeneration(), purgeChunkSize);
+                deleted += affected;
+            } while (affected >= purgeChunkSize);
+
+            // 仅当指针未在清理期间变化时清除标记；变化则下轮按新指针重新清理
+            LambdaUpdateWrapper<FaultRecordGenerationEntity> clear = new LambdaUpdateWrapper<FaultRecordGenerationEntity>()
+                    .eq(FaultRecordGenerationEntity::getId, pointer.getId())
+                    .eq(FaultRecordGenerationEntity::getActiveGeneration, pointer.getActiveGeneration())
+                    .set(FaultRecordGenerationEntity::getPurgeNeeded, 0)
+                    .set(FaultRecordGenerationEntity::getUpdateTime, LocalDateTime.now());
+            if (pointer.getPendingGeneration() == null) {
+                clear.isNull(FaultRecordGenerationEntity::getPendingGeneration);
+            } else {
+                clear.eq(FaultRecordGenerationEntity::getPendingGeneration, pointer.getPendingGeneration());
+            }
+            generationMapper.update(null, clear);
+
+            log.info("[Generation] domain={} date={} 清理旧代次 {} 条（保留 active={} pending={}）",
+                    pointer.getDomain(), pointer.getDataDate(), deleted,
+                    pointer.getActiveGeneration(), pointer.getPendingGeneration());
+            total += deleted;
+        }
+        return total;
+    }
+
+    private FaultRecordGenerationEntity findPointer(String domain, LocalDate dataDate) {
+        return generationMapper.selectOne(new LambdaQueryWrapper<FaultRecordGenerationEntity>()
+                .eq(FaultRecordGenerationEntity::getDomain, domain)
+                .eq(FaultRecordGenerationEntity::getDataDate, dataDate));
+    }
+}
@@ -2,113 +2,302 @@ package org.cabbage.codedemo.faultdatasync.service.impl;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.cabbage.codedemo.faultdatasync.client.AdaptivePageSizeController;
 import org.cabbage.codedemo.faultdatasync.client.FaultDataSourceClient;
+import org.cabbage.codedemo.faultdatasync.client.FaultRecordCursor;
 import org.cabbage.codedemo.faultdatasync.entity.SyncBatchRecordEntity;
+import org.cabbage.codedemo.faultdatasync.limit.SyncBackpressureController;
+import org.cabbage.codedemo.faultdatasync.limit.SyncResourceLimiter;
 import org.cabbage.codedemo.faultdatasync.mapper.FaultRecordMapper;
+import org.cabbage.codedemo.faultdatasync.metrics.SyncMetrics;
 import org.cabbage.codedemo.faultdatasync.model.FaultRecordDTO;
+import org.cabbage.codedemo.faultdatasync.model.FaultRecordPage;
+import org.cabbage.codedemo.faultdatasync.model.RangeFingerprint;
+import org.cabbage.codedemo.faultdatasync.model.RankBucketDigest;
+import org.cabbage.codedemo.faultdatasync.mq.producer.AsyncBatchSender;
 import org.cabbage.codedemo.faultdatasync.mq.producer.FaultDataProducer;
+import org.cabbage.codedemo.faultdatasync.service.FaultRecordGenerationService;
 import org.cabbage.codedemo.faultdatasync.service.FaultSyncService;
+import org.cabbage.codedemo.faultdatasync.service.RangeFingerprintService;
 import org.cabbage.codedemo.faultdatasync.service.SyncBatchRecordService;
 import org.cabbage.codedemo.faultdatasync.service.SyncTaskRecordService;
+import org.cabbage.codedemo.faultdatasync.tracing.SyncTracing;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * 单个 domain+date 故障数据同步核心实现
  * <p>
  * 首次运行：DELETE 全量 + 循环 pull 全部批次，每批记录到 sync_batch_record。
  * 重试运行：不 DELETE，查询失败批次 → 仅从其 startRank 重新拉取，INSERT IGNORE 保证幂等。
+ * <p>
+ * 流水线模式（fault-sync.pipeline.enabled=true）：预拉取线程沿 rank 游标提前拉取后续批次，
+ * 放入容量为 {@code pipelineWindow} 的有界窗口；当前线程按 batchIndex 顺序取出执行
+ * markPullSuccess + sendBatch。sync_batch_record 的写入仍全部在当前线程按序完成，
+ * 与串行模式的记录顺序、失败标记完全一致。
+ * <p>
+ * 异步发送模式（fault-sync.mq.send-mode=async）：批次交给 {@link AsyncBatchSender} 窗口化发送，
+ * broker 确认后才置 pull_status=SUCCESS；所有在途批次确认后才写 MESSAGES_SENT。
+ * <p>
+ * 区间并行模式（fault-sync.range.enabled=true）：数据源能估计 rank 跨度时，首次运行将 rank 空间切成
+ * K 个不相交区间 (from, to] 并行拉取，区间 i 的 batch_index 从 {@code i * RANGE_BATCH_STRIDE} 起编号，
+ * 批次行记录所属区间上界 range_end_rank；重试时 pull 失败批次只续拉到该上界，不影响其他区间。
+ * <p>
+ * 页大小由 {@link AdaptivePageSizeController} 按 domain 逐批决定，实际值记录到 sync_batch_record.page_size，
+ * 重试时单批重拉与续拉的首批均按记录值重放。
+ * <p>
+ * 增量模式（fault-sync.incremental.enabled=true）：上次任务已 SUCCESS 时比较数据源分桶指纹与上次保存的指纹，
+ * 只删除并重拉变化的 rank 区间（复用区间并行拉取）；无变化直接跳过，无可比较指纹时回退全量重同步。
+ * <p>
+ * 背压（fault-sync.backpressure.enabled=true）：每次 pull 前按该 domain 的消费积压与写库延迟限速或暂停。
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class FaultSyncServiceImpl implements FaultSyncService {
 
+    /** 区间并行拉取时每个区间独占的 batch_index 跨度 */
+    static final int RANGE_BATCH_STRIDE = 100_000;
+
+    /** 流水线发送侧等待预拉取结果的轮询间隔，超时后检查预拉取任务是否已异常结束 */
+    private static final long PREFETCH_POLL_MS = 1000;
+
     private final FaultDataSourceClient sourceClient;
     private final FaultDataProducer faultDataProducer;
     private final FaultRecordMapper faultRecordMapper;
+    private final FaultRecordGenerationService generationService;
     private final SyncTaskRecordService syncTaskRecordService;
     private final SyncBatchRecordService syncBatchRecordService;
+    private final AdaptivePageSizeController pageSizeController;
+    private final SyncResourceLimiter resourceLimiter;
+    private final SyncBackpressureController backpressureController;
+    private final RangeFingerprintService fingerprintService;
+    private final SyncMetrics syncMetrics;
+    private final SyncTracing syncTracing;
 
-    @Value("${fault-sync.page-size:5000}")
-    private int pageSize;
+    @Qualifier("syncPullExecutor")
+    private final ExecutorService syncPullExecutor;
+
+    @Value("${fault-sync.pipeline.enabled:false}")
+    private boolean pipelineEnabled;
+
+    /** 已拉取、待发送的最大批次数（不含正在发送的一批） */
+    @Value("${fault-sync.pipeline.window:1}")
+    private int pipelineWindow;
+
+    @Value("${fault-sync.range.enabled:false}")
+    private boolean rangeEnabled;
+
+    /** 单个 domain+date 最多切分的区间数 */
+    @Value("${fault-sync.range.partitions:4}")
+    private int rangePartitions;
+
+    /** 每个区间至少覆盖的记录数，数据量不足时减少区间数（不足两个区间则顺序拉取） */
+    @Value("${fault-sync.range.min-records-per-range:100000}")
+    private long minRecordsPerRange;
 
     @Override
     public void syncDomainDate(String domain, LocalDate date) {
         log.info("[Sync] 开始同步 domain={} date={}", domain, date);
-        syncTaskRecordService.createOrUpdateRunning(domain, date);
+        long start = System.nanoTime();
+        String path = "first";
+        boolean success = false;
+        try (SyncTracing.Scope trace = syncTracing.start("fault.sync.run", domain, date)) {
+            try {
+                if (fingerprintService.isIncrementalMode() && syncTaskRecordService.isSuccess(domain, date)) {
+                    path = "incremental";
+                    runIncrementalSync(domain, date);
+                } else {
+                    syncTaskRecordService.createOrUpdateRunning(domain, date);
 
-        boolean isRetry = syncBatchRecordService.hasSuccessBatch(domain, date);
-        if (isRetry) {
-            log.info("[Sync] domain={} date={} 检测到历史成功批次，走重试路径", domain, date);
+                    boolean isRetry = syncBatchRecordService.hasSuccessBatch(domain, date);
+                    if (isRetry) {
+                        path = "retry";
+                        log.info("[Sync] domain={} date={} 检测到历史成功批次，走重试路径", domain, date);
+                        runRetrySync(domain, date);
+                    } else {
+                        runFirstSync(domain, date);
+                    }
+                }
+                success = true;
+            } catch (RuntimeException e) {
+                trace.error(e);
+                throw e;
+            } finally {
+                trace.tag("path", path);
+                syncMetrics.recordRun(domain, path, start, success);
+            }
+        }
+    }
+
+    @Override
+    public void repairRanges(String domain, LocalDate date, List<RankBucketDigest> ranges) {
+        if (ranges.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        boolean success = false;
+        try (SyncTracing.Scope trace = syncTracing.start("fault.sync.run", domain, date).tag("path", "repair")) {
+            syncTaskRecordService.createOrUpdateRunning(domain, date);
+            registerRepairBatches(domain, date, ranges);
             runRetrySync(domain, date);
-        } else {
-            runFirstSync(domain, date);
+            success = true;
+        } finally {
+            syncMetrics.recordRun(domain, "repair", start, success);
         }
     }
 
     /**
-     * 首次运行：DELETE 全量 + 拉取全部批次
+     * 删除修复区间内的旧数据，并将每个区间登记为 pull_status=FAILED 的区间批次
      */
-    private void runFirstSync(String domain, LocalDate date) {
-        int deleted = faultRecordMapper.deleteByDomainAndDate(domain, date);
-        log.info("[Sync] domain={} date={} 删除旧记录 {} 条", domain, date, deleted);
+    private void registerRepairBatches(String domain, LocalDate date, List<RankBucketDigest> ranges) {
+        try {
+            int generation = generationService.writeGeneration(domain, date);
+            // 修复区间占用现有批次之后的区间槽位，续拉的批次序号不会与已有记录冲突
+            int firstIndex = (syncBatchRecordService.maxBatchIndex(domain, date) / RANGE_BATCH_STRIDE + 1)
+                    * RANGE_BATCH_STRIDE;
+            for (int i = 0; i < ranges.size(); i++) {
+                RankBucketDigest range = ranges.get(i);
+                int deleted = faultRecordMapper.deleteByRankRange(domain, date, generation,
+                        range.getFromRank(), range.getToRank());
+                syncBatchRecordService.markPullFailed(domain, date, firstIndex + i * RANGE_BATCH_STRIDE,
+                        range.getFromRank(), range.getToRank(), 0, "对账不一致，待重拉");
+                log.info("[Sync] domain={} date={} 登记修复区间 ({}, {}]，删除旧记录 {} 条", domain, date,
+                        range.getFromRank(), range.getToRank() == null ? "∞" : range.getToRank(), deleted);
+            }
+        } catch (Exception e) {
+            syncTaskRecordService.updateFailed(domain, date, e.getMessage());
+            throw new RuntimeException(
+                    String.format("Repair registration failed for domain=%s date=%s", domain, date), e);
+        }
+    }
 
-        long lastRank = 0;
-        int batchIndex = 0;
+    /**
+     * 首次运行：DELETE 全量（shadow 模式下改为分配新代次，旧数据保持可见）+ 拉取全部批次
+     */
+    private void runFirstSync(String domain, LocalDate date) {
+        if (fingerprintService.isIncrementalMode()) {
+            // 拉取前采集指纹：拉取期间上游的变化会在下一次增量比较中被识别并重拉
+            fingerprintService.replace(domain, date, fingerprintService.fetchSourceFingerprints(domain, date));
+        }
+        // 写入代次每轮只解析一次，随批次传给 producer，发送路径不再逐批查询代次指针
+        int generation;
+        if (generationService.isShadowMode()) {
+            generation = generationService.beginShadowGeneration(domain, date);
+            log.info("[Sync] domain={} date={} 影子重同步，写入代次 {}", domain, date, generation);
+        } else {
+            int deleted = faultRecordMapper.deleteByDomainAndDate(domain, date);
+            generation = generationService.writeGeneration(domain, date);
+            log.info("[Sync] domain={} date={} 删除旧记录 {} 条", domain, date, deleted);
+        }
 
         try {
-            while (true) {
-                long startRank = lastRank;
-                List<FaultRecordDTO> records;
-                try {
-                    records = sourceClient.pull(domain, date, lastRank, pageSize);
-                } catch (Exception e) {
-                    syncBatchRecordService.markPullFailed(domain, date, batchIndex, startRank, e.getMessage());
-                    throw e;
-                }
+            int batchCount;
+            List<RankRange> ranges = planRanges(domain, date);
+            if (ranges.size() > 1) {
+                batchCount = pullAndSendRanges(domain, date, generation, ranges);
+            } else {
+                AsyncBatchSender asyncSender = openAsyncSender(domain, date, generation);
+                batchCount = pullAndSendFrom(asyncSender, domain, date, generation, 0, 0, null, 0);
+                awaitAsyncSender(asyncSender);
+            }
 
-                if (records.isEmpty()) {
-                    log.info("[Sync] domain={} date={} 数据源返回空，拉取结束", domain, date);
-                    break;
-                }
+            syncTaskRecordService.updateMessagesSent(domain, date, batchCount);
+            log.info("[Sync] domain={} date={} 首次同步完成，共 {} 批", domain, date, batchCount);
+            syncTaskRecordService.checkAndMarkSuccessIfAllDone(domain, date);
 
-                long endRank = records.stream().mapToLong(FaultRecordDTO::getRank).max().orElse(lastRank);
-                syncBatchRecordService.markPullSuccess(domain, date, batchIndex, startRank, endRank, records.size());
-                faultDataProducer.sendBatch(domain, date, batchIndex, startRank, records);
-                lastRank = endRank;
-                batchIndex++;
+        } catch (Exception e) {
+            syncTaskRecordService.updateFailed(domain, date, e.getMessage());
+            throw new RuntimeException(
+                    String.format("Sync failed for domain=%s date=%s", domain, date), e);
+        }
+    }
 
-                log.debug("[Sync] domain={} date={} 已发送第 {} 批，本批 {} 条",
-                        domain, date, batchIndex, records.size());
+    /**
+     * 增量运行（上次任务已 SUCCESS）：只重拉指纹变化的区间。
+     * <ul>
+     *   <li>变化区间先按 rank 范围删除当前写入代次的旧数据，再作为区间并行拉取，区间 i 的批次从 i * RANGE_BATCH_STRIDE 编号</li>
+     *   <li>高水位所在的最后一个桶不设上界，一并拉取其后新增的数据；上游已不存在的桶只删除</li>
+     *   <li>失败后任务为 FAILED，下次运行走普通重试路径，按 range_end_rank 续拉</li>
+     * </ul>
+     */
+    private void runIncrementalSync(String domain, LocalDate date) {
+        List<RangeFingerprint> source = fingerprintService.fetchSourceFingerprints(domain, date);
+        List<RangeFingerprint> stored = fingerprintService.findStored(domain, date);
+        if (source.isEmpty() || stored.isEmpty()) {
+            log.info("[Sync] domain={} date={} 无可比较的区间指纹，回退全量重同步", domain, date);
+            syncTaskRecordService.createOrUpdateRunning(domain, date);
+            syncBatchRecordService.deleteByDomainAndDate(domain, date);
+            runFirstSync(domain, date);
+            return;
+        }
 
-                if (records.size() < pageSize) {
-                    log.info("[Sync] domain={} date={} 最后一批（size={} < pageSize={}），拉取结束",
-                            domain, date, records.size(), pageSize);
-                    break;
-                }
+        List<RangeFingerprint> changed = fingerprintService.changedRanges(stored, source);
+        if (changed.isEmpty()) {
+            log.info("[Sync] domain={} date={} {} 个区间指纹均无变化，跳过", domain, date, source.size());
+            return;
+        }
+        log.info("[Sync] domain={} date={} {}/{} 个区间有变化，增量重拉", domain, date, changed.size(), source.size());
+
+        syncTaskRecordService.createOrUpdateRunning(domain, date);
+        try {
+            fingerprintService.replace(domain, date, source);
+            syncBatchRecordService.deleteByDomainAndDate(domain, date);
+
+            int generation = generationService.writeGeneration(domain, date);
+            long highWaterRank = source.get(source.size() - 1).getToRank();
+            List<RankRange> ranges = new ArrayList<>(changed.size());
+            for (RangeFingerprint range : changed) {
+                Long toRank = range.getToRank() >= highWaterRank ? null : range.getToRank();
+                int deleted = faultRecordMapper.deleteByRankRange(domain, date, generation, range.getFromRank(), toRank);
+                log.debug("[Sync] domain={} date={} 区间 ({}, {}] 删除旧记录 {} 条",
+                        domain, date, range.getFromRank(), toRank == null ? "∞" : toRank, deleted);
+                ranges.add(new RankRange(ranges.size(), range.getFromRank(), toRank));
             }
 
-            syncTaskRecordService.updateMessagesSent(domain, date, batchIndex);
-            log.info("[Sync] domain={} date={} 首次同步完成，共 {} 批", domain, date, batchIndex);
+            int batchCount = pullAndSendRanges(domain, date, generation, ranges);
+            if (batchCount == 0) {
+                syncTaskRecordService.markSuccessWithoutBatches(domain, date);
+                return;
+            }
+            syncTaskRecordService.updateMessagesSent(domain, date, batchCount);
+            log.info("[Sync] domain={} date={} 增量同步完成，{} 个区间共 {} 批", domain, date, ranges.size(), batchCount);
             syncTaskRecordService.checkAndMarkSuccessIfAllDone(domain, date);
 
         } catch (Exception e) {
             syncTaskRecordService.updateFailed(domain, date, e.getMessage());
             throw new RuntimeException(
-                    String.format("Sync failed for domain=%s date=%s", domain, date), e);
+                    String.format("Incremental sync failed for domain=%s date=%s", domain, date), e);
         }
     }
 
     /**
      * 重试运行：不 DELETE，仅重跑失败批次。
      * <ul>
-     *   <li>pull_status=FAILED：从 startRank 继续拉到末尾（后续批次均未运行）</li>
-     *   <li>insert_status=FAILED：从 startRank 重拉该批次（单次 pull）</li>
+     *   <li>pull_status=FAILED：从 startRank 继续拉到末尾（后续批次均未运行）；
+     *       区间批次只续拉到 range_end_rank，同区间其余失败记录随之跳过，其他区间继续处理</li>
+     *   <li>insert_status=FAILED / pull_status=PENDING：从 startRank 重拉该批次（单次 pull）</li>
      * </ul>
+     * 单批重拉按批次记录的 page_size 重放，保证与原批次覆盖相同的 rank 范围；
+     * 续拉时其后批次均未运行，不需要沿用原边界，首个 pull 取记录值与当前页大小的较小值，
+     * 避免因消息过大被 broker 拒绝的批次每次都以同样的页大小重拉、再次被拒。
      * INSERT IGNORE 保证已写入数据不被重复插入。
      */
     private void runRetrySync(String domain, LocalDate date) {
@@ -122,52 +311,50 @@ public class FaultSyncServiceImpl implements FaultSyncService {
         int sentBatchCount = 0;
 
         try {
+            int generation = generationService.writeGeneration(domain, date);
+            AsyncBatchSender asyncSender = openAsyncSender(domain, date, generation);
+            Set<Integer> resumedRanges = new HashSet<>();
             for (SyncBatchRecordEntity batch : failedBatches) {
+                Long rangeEndRank = batch.getRangeEndRank();
+                if (rangeEndRank != null && resumedRanges.contains(batch.getBatchIndex() / RANGE_BATCH_STRIDE)) {
+                    // 所在区间已从更早的断点续拉到上界
+                    continue;
+                }
                 if ("FAILED".equals(batch.getPullStatus())) {
-                    // pull 失败：rank 游标断开，从 startRank 拉到末尾（含后续所有批次）
-                    long lastRank = batch.getStartRank();
-                    int batchIndex = batch.getBatchIndex();
-
-                    while (true) {
-                        long startRank = lastRank;
-                        List<FaultRecordDTO> records;
-                        try {
-                            records = sourceClient.pull(domain, date, lastRank, pageSize);
-                        } catch (Exception e) {
-                            syncBatchRecordService.markPullFailed(domain, date, batchIndex, startRank, e.getMessage());
-                            throw e;
-                        }
-
-                        if (records.isEmpty()) break;
-
-                        long endRank = records.stream().mapToLong(FaultRecordDTO::getRank).max().orElse(lastRank);
-                        syncBatchRecordService.markPullSuccess(domain, date, batchIndex, startRank, endRank, records.size());
-                        faultDataProducer.sendBatch(domain, date, batchIndex, startRank, records);
-                        lastRank = endRank;
-                        batchIndex++;
-                        sentBatchCount++;
-
-                        if (records.size() < pageSize) break;
-                    }
-                } else {
-                    // insert 失败：重拉该批次（单次 pull，INSERT IGNORE 幂等写入）
-                    long startRank = batch.getStartRank();
-                    List<FaultRecordDTO> records;
-                    try {
-                        records = sourceClient.pull(domain, date, startRank, pageSize);
-                    } catch (Exception e) {
-                        syncBatchRecordService.markPullFailed(domain, date, batch.getBatchIndex(), startRank, e.getMessage());
-                        throw e;
+                    // pull 失败：rank 游标断开，从 startRank 拉到末尾（区间批次拉到区间上界）
+                    sentBatchCount += pullAndSendFrom(asyncSender, domain, date, generation,
+                            batch.getStartRank(), batch.getBatchIndex(), rangeEndRank, resumePageSize(domain, batch));
+                    if (rangeEndRank == null) {
+                        // 续拉已覆盖其后的所有批次，剩余失败记录无需再单独重拉
+                        break;
                     }
+                    resumedRanges.add(batch.getBatchIndex() / RANGE_BATCH_STRIDE);
+                    continue;
+                }
+                // insert 失败或异步发送未确认：重拉该批次（单次 pull，INSERT IGNORE 幂等写入）
+                long startRank = batch.getStartRank();
+                int size = recordedPageSize(batch);
+                if (size <= 0) {
+                    size = pageSizeController.pageSize(domain);
+                }
+                FaultRecordPage page;
+                try {
+                    page = pullPage(domain, date, startRank, size);
+                } catch (Exception e) {
+                    syncBatchRecordService.markPullFailed(domain, date, batch.getBatchIndex(), startRank,
+                            rangeEndRank, size, e.getMessage());
+                    throw e;
+                }
 
-                    if (!records.isEmpty()) {
-                        long endRank = records.stream().mapToLong(FaultRecordDTO::getRank).max().orElse(startRank);
-                        syncBatchRecordService.markPullSuccess(domain, date, batch.getBatchIndex(), startRank, endRank, records.size());
-                        faultDataProducer.sendBatch(domain, date, batch.getBatchIndex(), startRank, records);
-                        sentBatchCount++;
-                    }
+                List<FaultRecordDTO> records = clipToRange(page.getRecords(), rangeEndRank);
+                if (!records.isEmpty()) {
+                    long endRank = endRankOf(page, records, startRank);
+                    dispatchBatch(asyncSender, domain, date, generation, batch.getBatchIndex(), startRank,
+                            endRank, rangeEndRank, size, records);
+                    sentBatchCount++;
                 }
             }
+            awaitAsyncSender(asyncSender);
 
             syncTaskRecordService.updateMessagesSent(domain, date, sentBatchCount);
             log.info("[Sync] domain={} date={} 重试同步完成，重发 {} 批", domain, date, sentBatchCount);
@@ -179,4 +366,448 @@ public class FaultSyncServiceImpl implements FaultSyncService {
                     String.format("Retry sync failed for domain=%s date=%s", domain, date), e);
         }
     }
+
+    /**
+     * 从 fromRank 开始按 rank 游标拉取到末尾（rangeEndRank 非空时拉到该上界为止），批次序号从 firstBatchIndex 递增。
+     * firstPageSize &gt; 0 时首批按该值拉取（重试重放），其余批次由 {@link AdaptivePageSizeController} 决定。
+     *
+     * @return 本次发送的批次数
+     */
+    private int pullAndSendFrom(AsyncBatchSender asyncSender, String domain, LocalDate date, int generation,
+                                long fromRank, int firstBatchIndex, Long rangeEndRank, int firstPageSize) {
+        if (pipelineEnabled && rangeEndRank == null) {
+            return pullAndSendPipelined(asyncSender, domain, date, generation,
+                    fromRank, firstBatchIndex, firstPageSize);
+        }
+        return pullAndSendSerial(asyncSender, domain, date, generation,
+                fromRank, firstBatchIndex, rangeEndRank, firstPageSize);
+    }
+
+    private int pullAndSendSerial(AsyncBatchSender asyncSender, String domain, LocalDate date, int generation,
+                                  long fromRank, int firstBatchIndex, Long rangeEndRank, int firstPageSize) {
+        long lastRank = fromRank;
+        int batchIndex = firstBatchIndex;
+
+        while (true) {
+            long startRank = lastRank;
+            int size = batchIndex == firstBatchIndex && firstPageSize > 0
+                    ? firstPageSize : pageSizeController.pageSize(domain);
+            FaultRecordPage page;
+            try {
+                page = pullPage(domain, date, lastRank, size);
+            } catch (Exception e) {
+                syncBatchRecordService.markPullFailed(domain, date, batchIndex, startRank, rangeEndRank, size,
+                        e.getMessage());
+                throw e;
+            }
+
+            List<FaultRecordDTO> records = clipToRange(page.getRecords(), rangeEndRank);
+            if (records.isEmpty()) {
+                log.info("[Sync] domain={} date={} 数据源返回空，拉取结束", domain, date);
+                break;
+            }
+
+            long endRank = endRankOf(page, records, lastRank);
+            dispatchBatch(asyncSender, domain, date, generation,
+                    batchIndex, startRank, endRank, rangeEndRank, size, records);
+            lastRank = endRank;
+            batchIndex++;
+
+            log.debug("[Sync] domain={} date={} 已发送第 {} 批，本批 {} 条",
+                    domain, date, batchIndex, records.size());
+
+            if (page.size() < size) {
+                log.info("[Sync] domain={} date={} 最后一批（size={} < pageSize={}），拉取结束",
+                        domain, date, page.size(), size);
+                break;
+            }
+            if (rangeEndRank != null && (records.size() < page.size() || endRank >= rangeEndRank)) {
+                log.debug("[Sync] domain={} date={} 已到区间上界 {}，拉取结束", domain, date, rangeEndRank);
+                break;
+            }
+        }
+        return batchIndex - firstBatchIndex;
+    }
+
+    /**
+     * 按数据源估计的最大 rank 切分区间；未开启、无法估计或不足两个区间时返回空列表（走顺序拉取）
+     */
+    private List<RankRange> planRanges(String domain, LocalDate date) {
+        if (!rangeEnabled || rangePartitions <= 1) {
+            return List.of();
+        }
+        OptionalLong estimate = sourceClient.estimateMaxRank(domain, date);
+        if (estimate.isEmpty() || estimate.getAsLong() <= 0) {
+            log.debug("[Sync] domain={} date={} 数据源未提供 rank 估计，顺序拉取", domain, date);
+            return List.of();
+        }
+
+        long maxRank = estimate.getAsLong();
+        int count = (int) Math.min(rangePartitions, Math.max(1L, maxRank / Math.max(1L, minRecordsPerRange)));
+        if (count <= 1) {
+            return List.of();
+        }
+        long step = maxRank / count;
+        List<RankRange> ranges = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            // 最后一个区间不设上界，兜底估计偏小的情况
+            ranges.add(new RankRange(i, i * step, i == count - 1 ? null : (i + 1) * step));
+        }
+        log.info("[Sync] domain={} date={} 估计最大 rank={}，切分为 {} 个区间并行拉取", domain, date, maxRank, count);
+        return ranges;
+    }
+
+    /**
+     * 区间并行拉取：区间 0 在当前线程执行，其余提交到 syncPullExecutor（线程池已满时回退当前线程）。
+     * 各区间相互独立，任一区间失败不中断其他区间，全部结束后再抛出首个异常。
+     *
+     * @return 所有区间发送的批次总数
+     */
+    private int pullAndSendRanges(String domain, LocalDate date, int generation, List<RankRange> ranges) {
+        List<Future<Integer>> futures = new ArrayList<>(ranges.size());
+        List<RankRange> inline = new ArrayList<>();
+        inline.add(ranges.get(0));
+        for (RankRange range : ranges.subList(1, ranges.size())) {
+            try {
+                futures.add(syncPullExecutor.submit(
+                        syncTracing.wrap(() -> pullAndSendRange(domain, date, generation, range))));
+            } catch (RejectedExecutionException e) {
+                inline.add(range);
+            }
+        }
+        if (inline.size() > 1) {
+            log.warn("[Sync] domain={} date={} 拉取线程池已满，{} 个区间在当前线程顺序拉取",
+                    domain, date, inline.size());
+        }
+
+        int sent = 0;
+        RuntimeException failure = null;
+        for (RankRange range : inline) {
+            try {
+                sent += pullAndSendRange(domain, date, generation, range);
+            } catch (RuntimeException e) {
+                failure = collectFailure(failure, e);
+            }
+        }
+        for (Future<Integer> future : futures) {
+            try {
+                sent += future.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                failure = collectFailure(failure, cause instanceof RuntimeException re
+                        ? re : new IllegalStateException(cause));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                throw new IllegalStateException("Range sync interrupted", e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return sent;
+    }
+
+    /**
+     * 拉取单个区间：每个区间独占一个异步发送窗口，区间内部按 rank 游标顺序拉取
+     */
+    private int pullAndSendRange(String domain, LocalDate date, int generation, RankRange range) {
+        AsyncBatchSender asyncSender = openAsyncSender(domain, date, generation);
+        int sent = pullAndSendSerial(asyncSender, domain, date, generation,
+                range.fromRank, range.index * RANGE_BATCH_STRIDE, range.toRank, 0);
+        awaitAsyncSender(asyncSender);
+        log.info("[Sync] domain={} date={} 区间 {} rank ({}, {}] 拉取完成，共 {} 批",
+                domain, date, range.index, range.fromRank, range.toRank == null ? "∞" : range.toRank, sent);
+        return sent;
+    }
+
+    private static RuntimeException collectFailure(RuntimeException first, RuntimeException next) {
+        if (first == null) {
+            return next;
+        }
+        first.addSuppressed(next);
+        return first;
+    }
+
+    /**
+     * 截掉超过区间上界的记录（页面按 rank 升序）；rangeEndRank 为 null 时原样返回
+     */
+    private static List<FaultRecordDTO> clipToRange(List<FaultRecordDTO> records, Long rangeEndRank) {
+        if (rangeEndRank == null || records.isEmpty() || records.get(records.size() - 1).getRank() <= rangeEndRank) {
+            return records;
+        }
+        int end = 0;
+        while (end < records.size() && records.get(end).getRank() <= rangeEndRank) {
+            end++;
+        }
+        return records.subList(0, end);
+    }
+
+    /**
+     * 本批最大 rank：未截断时直接取页摘要，截断后取保留部分的最后一条
+     */
+    private static long endRankOf(FaultRecordPage page, List<FaultRecordDTO> records, long fallback) {
+        if (records.size() == page.size()) {
+            return page.getSummary().maxRankOr(fallback);
+        }
+        return records.get(records.size() - 1).getRank();
+    }
+
+    /**
+     * 流水线模式：预拉取线程负责 pull，当前线程负责记录 + 发送，二者通过有界窗口衔接。
+     * <p>
+     * 预拉取线程只产出 {@link PrefetchedPage}（含拉取异常），不写任何状态；
+     * markPullFailed / markPullSuccess 仍在当前线程按 batchIndex 顺序执行，
+     * 因此 pull 失败前的批次一定先被记录并发送，失败批次的 startRank 与串行模式相同。
+     * 预拉取任务未留下终止页就结束时（如被中断），发送侧在下一次轮询超时后按 pull 失败处理，不会无限等待。
+     */
+    private int pullAndSendPipelined(AsyncBatchSender asyncSender, String domain, LocalDate date, int generation,
+                                     long fromRank, int firstBatchIndex, int firstPageSize) {
+        BlockingQueue<PrefetchedPage> window = new ArrayBlockingQueue<>(Math.max(1, pipelineWindow));
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+
+        Future<?> prefetcher;
+        try {
+            prefetcher = syncPullExecutor.submit(syncTracing.wrap(
+                    () -> prefetch(domain, date, fromRank, firstBatchIndex, firstPageSize, window, cancelled)));
+        } catch (RejectedExecutionException e) {
+            log.warn("[Sync] domain={} date={} 预拉取线程池已满，回退串行拉取", domain, date);
+            return pullAndSendSerial(asyncSender, domain, date, generation,
+                    fromRank, firstBatchIndex, null, firstPageSize);
+        }
+
+        int sent = 0;
+        int nextBatchIndex = firstBatchIndex;
+        long nextStartRank = fromRank;
+        try {
+            while (true) {
+                PrefetchedPage page = window.poll(PREFETCH_POLL_MS, TimeUnit.MILLISECONDS);
+                if (page == null) {
+                    if (!prefetcher.isDone()) {
+                        continue;
+                    }
+                    // 预拉取任务结束前放入的页一定已可见；仍为空说明它没有留下终止页
+                    page = window.poll();
+                    if (page == null) {
+                        int size = nextBatchIndex == firstBatchIndex && firstPageSize > 0
+                                ? firstPageSize : pageSizeController.pageSize(domain);
+                        page = PrefetchedPage.failed(nextBatchIndex, nextStartRank, size, prefetchFailure(prefetcher));
+                    }
+                }
+                if (page.error != null) {
+                    syncBatchRecordService.markPullFailed(
+                            domain, date, page.batchIndex, page.startRank, null, page.pageSize, page.error.getMessage());
+                    throw page.error;
+                }
+                if (page.records.isEmpty()) {
+                    log.info("[Sync] domain={} date={} 数据源返回空，拉取结束", domain, date);
+                    break;
+                }
+
+                dispatchBatch(asyncSender, domain, date, generation,
+                        page.batchIndex, page.startRank, page.endRank, null, page.pageSize, page.records);
+                sent++;
+                nextBatchIndex = page.batchIndex + 1;
+                nextStartRank = page.endRank;
+
+                log.debug("[Sync] domain={} date={} 已发送第 {} 批（流水线），本批 {} 条",
+                        domain, date, page.batchIndex + 1, page.records.size());
+
+                if (page.last) {
+                    log.info("[Sync] domain={} date={} 最后一批（size={} < pageSize={}），拉取结束",
+                            domain, date, page.records.size(), page.pageSize);
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Pipelined sync interrupted", e);
+        } finally {
+            // 发送侧结束（正常或异常）后通知预拉取线程退出，并清空窗口解除其 put 阻塞
+            cancelled.set(true);
+            window.clear();
+            prefetcher.cancel(true);
+        }
+        return sent;
+    }
+
+    /**
+     * 通过游标拉取一页：记录逐条产出并同步累计 count / min / max rank，endRank 无需对页面二次遍历。
+     * 拉取耗时（不含等待上游许可的时间）反馈给 {@link AdaptivePageSizeController}。
+     * 拉取前先经 {@link SyncBackpressureController} 按下游积压 / 写库延迟限速或暂停，暂停超时按 pull 失败处理。
+     */
+    private FaultRecordPage pullPage(String domain, LocalDate date, long lastRank, int size) {
+        backpressureController.awaitPermit(domain);
+        resourceLimiter.acquire(SyncResourceLimiter.Resource.UPSTREAM);
+        long start = System.nanoTime();
+        FaultRecordPage page = null;
+        try (SyncTracing.Scope trace = syncTracing.start("fault.sync.pull", domain, date)
+                .tag("lastRank", lastRank)
+                .tag("pageSize", size)) {
+            try (FaultRecordCursor cursor = sourceClient.openCursor(domain, date, lastRank, size)) {
+                page = cursor.toPage(size);
+                trace.tag("records", page.size());
+            } catch (RuntimeException e) {
+                trace.error(e);
+                throw e;
+            }
+        } finally {
+            resourceLimiter.release(SyncResourceLimiter.Resource.UPSTREAM);
+            syncMetrics.recordPull(domain, page == null ? 0 : page.size(), start, page != null);
+        }
+        pageSizeController.onPull(domain, size, page.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return page;
+    }
+
+    /**
+     * 批次记录的页大小；历史数据（未记录）返回 0，由调用方按当前配置决定
+     */
+    private static int recordedPageSize(SyncBatchRecordEntity batch) {
+        return batch.getPageSize() == null ? 0 : batch.getPageSize();
+    }
+
+    /**
+     * pull 失败后续拉的首页大小：不超过当前页大小（已计入 onEncoded / onSendRejected 的字节上限）；
+     * 历史数据返回 0，按当前配置
+     */
+    private int resumePageSize(String domain, SyncBatchRecordEntity batch) {
+        int recorded = recordedPageSize(batch);
+        return recorded <= 0 ? 0 : Math.min(recorded, pageSizeController.pageSize(domain));
+    }
+
+    /**
+     * 记录并发送一批。
+     * <ul>
+     *   <li>sync 模式：markPullSuccess → syncSend；发送失败补记 markPullFailed，重试时从该批续拉</li>
+     *   <li>async 模式：交给 AsyncBatchSender，broker 确认后才置 SUCCESS</li>
+     * </ul>
+     */
+    private void dispatchBatch(AsyncBatchSender asyncSender, String domain, LocalDate date, int generation,
+                               int batchIndex, long startRank, long endRank, Long rangeEndRank, int pageSize,
+                               List<FaultRecordDTO> records) {
+        if (asyncSender != null) {
+            asyncSender.send(batchIndex, startRank, endRank, rangeEndRank, pageSize, records);
+            return;
+        }
+        syncBatchRecordService.markPullSuccess(domain, date, batchIndex, startRank, endRank, records.size(),
+                rangeEndRank, pageSize);
+        try {
+            faultDataProducer.sendBatch(domain, date, generation, batchIndex, startRank, records);
+        } catch (RuntimeException e) {
+            syncBatchRecordService.markPullFailed(domain, date, batchIndex, startRank, rangeEndRank, pageSize,
+                    e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * 预拉取任务结束却没有放入终止页时的失败原因
+     */
+    private static RuntimeException prefetchFailure(Future<?> prefetcher) {
+        try {
+            prefetcher.get();
+            return new IllegalStateException("Prefetch ended without a terminal page");
+        } catch (ExecutionException e) {
+            return new IllegalStateException("Prefetch failed: " + e.getCause(), e.getCause());
+        } catch (CancellationException | InterruptedException e) {
+            return new IllegalStateException("Prefetch cancelled", e);
+        }
+    }
+
+    private AsyncBatchSender openAsyncSender(String domain, LocalDate date, int generation) {
+        return faultDataProducer.isAsyncMode() ? faultDataProducer.openAsyncSender(domain, date, generation) : null;
+    }
+
+    private void awaitAsyncSender(AsyncBatchSender asyncSender) {
+        if (asyncSender != null) {
+            asyncSender.awaitAll();
+        }
+    }
+
+    private void prefetch(String domain, LocalDate date, long fromRank, int firstBatchIndex, int firstPageSize,
+                          BlockingQueue<PrefetchedPage> window, AtomicBoolean cancelled) {
+        long lastRank = fromRank;
+        int batchIndex = firstBatchIndex;
+        int size = firstPageSize;
+        try {
+            while (!cancelled.get()) {
+                size = batchIndex == firstBatchIndex && firstPageSize > 0
+                        ? firstPageSize : pageSizeController.pageSize(domain);
+                FaultRecordPage page;
+                try {
+                    page = pullPage(domain, date, lastRank, size);
+                } catch (RuntimeException e) {
+                    window.put(PrefetchedPage.failed(batchIndex, lastRank, size, e));
+                    return;
+                }
+
+                long endRank = page.getSummary().maxRankOr(lastRank);
+                boolean last = page.size() < size;
+                window.put(new PrefetchedPage(batchIndex, lastRank, endRank, size, page.getRecords(), last, null));
+                if (last) {
+                    return;
+                }
+                lastRank = endRank;
+                batchIndex++;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // 发送侧已结束时无需终止页；否则尽力放入，放不下由发送侧轮询时发现任务已结束
+            if (!cancelled.get()) {
+                window.offer(PrefetchedPage.failed(batchIndex, lastRank, size,
+                        new IllegalStateException("Prefetch interrupted", e)));
+            }
+        } catch (Throwable e) {
+            // Error（如大页 OOM）同样必须留下终止页，否则发送侧无从得知
+            log.error("[Sync] domain={} date={} 预拉取异常终止 batchIndex={}", domain, date, batchIndex, e);
+            if (!cancelled.get()) {
+                window.offer(PrefetchedPage.failed(batchIndex, lastRank, size,
+                        new IllegalStateException("Prefetch failed: " + e, e)));
+            }
+        }
+    }
+
+    /**
+     * 预拉取结果：成功时携带 records，失败时携带 error
+     */
+    private static final class PrefetchedPage {
+        private final int batchIndex;
+        private final long startRank;
+        private final long endRank;
+        private final int pageSize;
+        private final List<FaultRecordDTO> records;
+        private final boolean last;
+        private final RuntimeException error;
+
+        private PrefetchedPage(int batchIndex, long startRank, long endRank, int pageSize,
+                               List<FaultRecordDTO> records, boolean last, RuntimeException error) {
+            this.batchIndex = batchIndex;
+            this.startRank = startRank;
+            this.endRank = endRank;
+            this.pageSize = pageSize;
+            this.records = records;
+            this.last = last;
+            this.error = error;
+        }
+
+        private static PrefetchedPage failed(int batchIndex, long startRank, int pageSize, RuntimeException error) {
+            return new PrefetchedPage(batchIndex, startRank, startRank, pageSize, List.of(), true, error);
+        }
+    }
+
+    /**
+     * rank 区间 (fromRank, toRank]；toRank 为 null 表示不设上界
+     */
+    private static final class RankRange {
+        private final int index;
+        private final long fromRank;
+        private final Long toRank;
+
+        private RankRange(int index, long fromRank, Long toRank) {
+            this.index = index;
+            this.fromRank = fromRank;
+            this.toRank = toRank;
+        }
+    }
 }
@@ -4,8 +4,10 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.cabbage.codedemo.faultdatasync.bookkeeping.SyncBatchBookkeeper;
 import org.cabbage.codedemo.faultdatasync.entity.SyncBatchRecordEntity;
 import org.cabbage.codedemo.faultdatasync.mapper.SyncBatchRecordMapper;
+import org.cabbage.codedemo.faultdatasync.progress.SyncProgressProjection;
 import org.cabbage.codedemo.faultdatasync.service.SyncBatchRecordService;
 import org.springframework.stereotype.Service;
 
@@ -13,67 +15,120 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
+/**
+ * sync_batch_record 批次状态读写
+ * <p>
+ * fault-sync.bookkeeping.mode=buffered 时 pull / 确认 / insert SUCCESS 的写入交给 {@link SyncBatchBookkeeper}
+ * 合并为多行语句；读取重跑批次前先等待缓冲中的变更落库。
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class SyncBatchRecordServiceImpl implements SyncBatchRecordService {
 
     private final SyncBatchRecordMapper syncBatchRecordMapper;
+    private final SyncProgressProjection syncProgressProjection;
+    private final SyncBatchBookkeeper bookkeeper;
 
     @Override
     public void markPullSuccess(String domain, LocalDate dataDate, int batchIndex,
-                                long startRank, long endRank, int recordCount) {
-        syncBatchRecordMapper.upsertPullSuccess(domain, dataDate, batchIndex, startRank, endRank, recordCount);
+                                long startRank, long endRank, int recordCount, Long rangeEndRank,
+                                int pageSize) {
+        if (bookkeeper.isEnabled()) {
+            bookkeeper.upsertPull(pullRow(domain, dataDate, batchIndex, startRank, endRank, recordCount,
+                    rangeEndRank, pageSize, "SUCCESS"));
+        } else {
+            syncBatchRecordMapper.upsertPullSuccess(domain, dataDate, batchIndex, startRank, endRank, recordCount,
+                    rangeEndRank, pageSize);
+        }
         log.debug("[BatchRecord] pull SUCCESS domain={} date={} batch={} startRank={} endRank={} count={}",
                 domain, dataDate, batchIndex, startRank, endRank, recordCount);
     }
 
+    @Override
+    public void markPullPending(String domain, LocalDate dataDate, int batchIndex,
+                                long startRank, long endRank, int recordCount, Long rangeEndRank,
+                                int pageSize) {
+        if (bookkeeper.isEnabled()) {
+            bookkeeper.upsertPull(pullRow(domain, dataDate, batchIndex, startRank, endRank, recordCount,
+                    rangeEndRank, pageSize, "PENDING"));
+        } else {
+            syncBatchRecordMapper.upsertPullPending(domain, dataDate, batchIndex, startRank, endRank, recordCount,
+                    rangeEndRank, pageSize);
+        }
+        log.debug("[BatchRecord] pull PENDING domain={} date={} batch={} startRank={} endRank={} count={}",
+                domain, dataDate, batchIndex, startRank, endRank, recordCount);
+    }
+
+    @Override
+    public void markPullConfirmed(String domain, LocalDate dataDate, int batchIndex) {
+        if (bookkeeper.isEnabled()) {
+            bookkeeper.confirmPull(key(domain, dataDate, batchIndex));
+            return;
+        }
+        syncBatchRecordMapper.update(null, new LambdaUpdateWrapper<SyncBatchRecordEntity>()
+                .eq(SyncBatchRecordEntity::getDomain, domain)
+                .eq(SyncBatchRecordEntity::getDataDate, dataDate)
+                .eq(SyncBatchRecordEntity::getBatchIndex, batchIndex)
+                .eq(SyncBatchRecordEntity::getPullStatus, "PENDING")
+                .set(SyncBatchRecordEntity::getPullStatus, "SUCCESS")
+                .set(SyncBatchRecordEntity::getUpdateTime, LocalDateTime.now()));
+        log.debug("[BatchRecord] pull CONFIRMED domain={} date={} batch={}", domain, dataDate, batchIndex);
+    }
+
     @Override
     public void markPullFailed(String domain, LocalDate dataDate, int batchIndex,
-                               long startRank, String errorMessage) {
+                               long startRank, Long rangeEndRank, int pageSize, String errorMessage) {
         String truncated = truncate(errorMessage);
-        SyncBatchRecordEntity existing = findByKey(domain, dataDate, batchIndex);
-        if (existing == null) {
-            syncBatchRecordMapper.insert(SyncBatchRecordEntity.builder()
-                    .domain(domain)
-                    .dataDate(dataDate)
-                    .batchIndex(batchIndex)
-                    .startRank(startRank)
-                    .endRank(0L)
-                    .recordCount(0)
-                    .pullStatus("FAILED")
-                    .insertStatus("PENDING")
-                    .errorMessage(truncated)
-                    .createTime(LocalDateTime.now())
-                    .updateTime(LocalDateTime.now())
-                    .build());
+        SyncBatchRecordEntity row = key(domain, dataDate, batchIndex);
+        row.setStartRank(startRank);
+        row.setRangeEndRank(rangeEndRank);
+        row.setPageSize(pageSize);
+        row.setErrorMessage(truncated);
+        // 不存在则插入 FAILED 占位，存在则只更新状态；单条 upsert 替代先 SELECT 再 INSERT / UPDATE
+        if (bookkeeper.isEnabled()) {
+            bookkeeper.upsertPullFailed(row);
+        } else {
+            syncBatchRecordMapper.batchUpsertPullFailed(List.of(row));
+        }
+        syncProgressProjection.onBatchFailed(domain, dataDate, batchIndex, "pull", truncated);
+        log.warn("[BatchRecord] pull FAILED domain={} date={} batch={} startRank={}",
+                domain, dataDate, batchIndex, startRank);
+    }
+
+    @Override
+    public int markInsertSuccess(String domain, LocalDate dataDate, int batchIndex) {
+        int affected;
+        if (bookkeeper.isEnabled()) {
+            affected = bookkeeper.markInsertSuccess(key(domain, dataDate, batchIndex)) ? 1 : 0;
         } else {
-            syncBatchRecordMapper.update(null, new LambdaUpdateWrapper<SyncBatchRecordEntity>()
+            affected = syncBatchRecordMapper.update(null, new LambdaUpdateWrapper<SyncBatchRecordEntity>()
                     .eq(SyncBatchRecordEntity::getDomain, domain)
                     .eq(SyncBatchRecordEntity::getDataDate, dataDate)
                     .eq(SyncBatchRecordEntity::getBatchIndex, batchIndex)
-                    .set(SyncBatchRecordEntity::getPullStatus, "FAILED")
-                    .set(SyncBatchRecordEntity::getErrorMessage, truncated)
+                    .ne(SyncBatchRecordEntity::getInsertStatus, "SUCCESS")   // 幂等：已成功则跳过
+                    .set(SyncBatchRecordEntity::getInsertStatus, "SUCCESS")
                     .set(SyncBatchRecordEntity::getUpdateTime, LocalDateTime.now()));
         }
-        log.warn("[BatchRecord] pull FAILED domain={} date={} batch={} startRank={}",
-                domain, dataDate, batchIndex, startRank);
+        if (affected > 0) {
+            log.debug("[BatchRecord] insert SUCCESS domain={} date={} batch={}", domain, dataDate, batchIndex);
+        } else {
+            log.warn("[BatchRecord] insert 重复消费跳过 domain={} date={} batch={}", domain, dataDate, batchIndex);
+        }
+        return affected;
     }
 
     @Override
-    public int markInsertSuccess(String domain, LocalDate dataDate, int batchIndex) {
+    public int markInsertSuccess(String domain, LocalDate dataDate, List<Integer> batchIndexes) {
         int affected = syncBatchRecordMapper.update(null, new LambdaUpdateWrapper<SyncBatchRecordEntity>()
                 .eq(SyncBatchRecordEntity::getDomain, domain)
                 .eq(SyncBatchRecordEntity::getDataDate, dataDate)
-                .eq(SyncBatchRecordEntity::getBatchIndex, batchIndex)
+                .in(SyncBatchRecordEntity::getBatchIndex, batchIndexes)
                 .ne(SyncBatchRecordEntity::getInsertStatus, "SUCCESS")   // 幂等：已成功则跳过
                 .set(SyncBatchRecordEntity::getInsertStatus, "SUCCESS")
                 .set(SyncBatchRecordEntity::getUpdateTime, LocalDateTime.now()));
-        if (affected > 0) {
-            log.debug("[BatchRecord] insert SUCCESS domain={} date={} batch={}", domain, dataDate, batchIndex);
-        } else {
-            log.warn("[BatchRecord] insert 重复消费跳过 domain={} date={} batch={}", domain, dataDate, batchIndex);
-        }
+        log.debug("[BatchRecord] insert SUCCESS domain={} date={} batches={} affected={}",
+                domain, dataDate, batchIndexes, affected);
         return affected;
     }
 
@@ -86,11 +141,32 @@ public class SyncBatchRecordServiceImpl implements SyncBatchRecordService {
                 .set(SyncBatchRecordEntity::getInsertStatus, "FAILED")
                 .set(SyncBatchRecordEntity::getErrorMessage, truncate(errorMessage))
                 .set(SyncBatchRecordEntity::getUpdateTime, LocalDateTime.now()));
+        syncProgressProjection.onBatchFailed(domain, dataDate, batchIndex, "insert", truncate(errorMessage));
         log.warn("[BatchRecord] insert FAILED domain={} date={} batch={}", domain, dataDate, batchIndex);
     }
 
+    @Override
+    public int maxBatchIndex(String domain, LocalDate dataDate) {
+        SyncBatchRecordEntity last = syncBatchRecordMapper.selectOne(new LambdaQueryWrapper<SyncBatchRecordEntity>()
+                .eq(SyncBatchRecordEntity::getDomain, domain)
+                .eq(SyncBatchRecordEntity::getDataDate, dataDate)
+                .orderByDesc(SyncBatchRecordEntity::getBatchIndex)
+                .last("LIMIT 1"));
+        return last == null ? -1 : last.getBatchIndex();
+    }
+
+    @Override
+    public int deleteByDomainAndDate(String domain, LocalDate dataDate) {
+        int deleted = syncBatchRecordMapper.delete(new LambdaQueryWrapper<SyncBatchRecordEntity>()
+                .eq(SyncBatchRecordEntity::getDomain, domain)
+                .eq(SyncBatchRecordEntity::getDataDate, dataDate));
+        log.debug("[BatchRecord] 清理批次记录 domain={} date={} deleted={}", domain, dataDate, deleted);
+        return deleted;
+    }
+
     @Override
     public boolean hasSuccessBatch(String domain, LocalDate dataDate) {
+        bookkeeper.awaitFlushed();
         return syncBatchRecordMapper.selectCount(new LambdaQueryWrapper<SyncBatchRecordEntity>()
                 .eq(SyncBatchRecordEntity::getDomain, domain)
                 .eq(SyncBatchRecordEntity::getDataDate, dataDate)
@@ -98,17 +174,65 @@ public class SyncBatchRecordServiceImpl implements SyncBatchRecordService {
     }
 
     @Override
-    public List<SyncBatchRecordEntity> findFailed(String domain, LocalDate dataDate) {
-        return syncBatchRecordMapper.findFailed(domain, dataDate);
+    public long countUnfinished(String domain, LocalDate dataDate) {
+        return syncBatchRecordMapper.selectCount(new LambdaQueryWrapper<SyncBatchRecordEntity>()
+                .eq(SyncBatchRecordEntity::getDomain, domain)
+                .eq(SyncBatchRecordEntity::getDataDate, dataDate)
+                .ne(SyncBatchRecordEntity::getInsertStatus, "SUCCESS"));
     }
 
-    private SyncBatchRecordEntity findByKey(String domain, LocalDate dataDate, int batchIndex) {
+    @Override
+    public void updateRejectCount(String domain, LocalDate dataDate, int batchIndex, int rejectCount) {
+        // buffered 模式下该行可能仍在记账队列中，先等待落库
+        bookkeeper.awaitFlushed();
+        syncBatchRecordMapper.update(null, new LambdaUpdateWrapper<SyncBatchRecordEntity>()
+                .eq(SyncBatchRecordEntity::getDomain, domain)
+                .eq(SyncBatchRecordEntity::getDataDate, dataDate)
+                .eq(SyncBatchRecordEntity::getBatchIndex, batchIndex)
+                .set(SyncBatchRecordEntity::getRejectCount, rejectCount)
+                .set(SyncBatchRecordEntity::getUpdateTime, LocalDateTime.now()));
+        log.warn("[BatchRecord] 隔离 {} 条记录 domain={} date={} batch={}", rejectCount, domain, dataDate, batchIndex);
+    }
+
+    @Override
+    public SyncBatchRecordEntity find(String domain, LocalDate dataDate, int batchIndex) {
+        bookkeeper.awaitFlushed();
         return syncBatchRecordMapper.selectOne(new LambdaQueryWrapper<SyncBatchRecordEntity>()
                 .eq(SyncBatchRecordEntity::getDomain, domain)
                 .eq(SyncBatchRecordEntity::getDataDate, dataDate)
                 .eq(SyncBatchRecordEntity::getBatchIndex, batchIndex));
     }
 
+    @Override
+    public List<SyncBatchRecordEntity> findFailed(String domain, LocalDate dataDate) {
+        bookkeeper.awaitFlushed();
+        return syncBatchRecordMapper.findFailed(domain, dataDate);
+    }
+
+    private static SyncBatchRecordEntity key(String domain, LocalDate dataDate, int batchIndex) {
+        return SyncBatchRecordEntity.builder()
+                .domain(domain)
+                .dataDate(dataDate)
+                .batchIndex(batchIndex)
+                .build();
+    }
+
+    private static SyncBatchRecordEntity pullRow(String domain, LocalDate dataDate, int batchIndex,
+                                                 long startRank, long endRank, int recordCount, Long rangeEndRank,
+                                                 int pageSize, String pullStatus) {
+        return SyncBatchRecordEntity.builder()
+                .domain(domain)
+                .dataDate(dataDate)
+                .batchIndex(batchIndex)
+                .startRank(startRank)
+                .endRank(endRank)
+                .recordCount(recordCount)
+                .rangeEndRank(rangeEndRank)
+                .pageSize(pageSize)
+                .pullStatus(pullStatus)
+                .build();
+    }
+
     private String truncate(String s) {
         return s != null && s.length() > 500 ? s.substring(0, 500) : s;
     }
@@ -7,11 +7,15 @@ import lombok.extern.slf4j.Slf4j;
 import org.cabbage.codedemo.faultdatasync.entity.SyncTaskRecordEntity;
 import org.cabbage.codedemo.faultdatasync.enums.SyncStatus;
 import org.cabbage.codedemo.faultdatasync.mapper.SyncTaskRecordMapper;
+import org.cabbage.codedemo.faultdatasync.progress.SyncProgressProjection;
+import org.cabbage.codedemo.faultdatasync.service.SyncBatchRecordService;
 import org.cabbage.codedemo.faultdatasync.service.SyncTaskRecordService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Slf4j
 @Service
@@ -19,6 +23,19 @@ import java.time.LocalDateTime;
 public class SyncTaskRecordServiceImpl implements SyncTaskRecordService {
 
     private final SyncTaskRecordMapper syncTaskRecordMapper;
+    private final SyncBatchRecordService syncBatchRecordService;
+    private final SyncProgressProjection syncProgressProjection;
+
+    /**
+     * 进度跟踪模式：
+     * <ul>
+     *   <li>counter（默认）：每个消费批次 UPDATE sync_task_record.completed_batch_count</li>
+     *   <li>derived：消费者不写任务行，完成状态由 sync_batch_record 推导，
+     *   最后一批消费者先做一致性读预检，仅在无未完成批次时执行一次 UPDATE；并发漏判由定时巡检兜底</li>
+     * </ul>
+     */
+    @Value("${fault-sync.progress.mode:counter}")
+    private String progressMode;
 
     @Override
     public void createOrUpdateRunning(String domain, LocalDate dataDate) {
@@ -47,6 +64,7 @@ public class SyncTaskRecordServiceImpl implements SyncTaskRecordService {
                     .set(SyncTaskRecordEntity::getEndTime, null)
                     .setSql("retry_count = retry_count + 1"));
         }
+        syncProgressProjection.onRunStarted(domain, dataDate);
         log.info("[SyncTask] domain={} date={} → RUNNING", domain, dataDate);
     }
 
@@ -57,6 +75,7 @@ public class SyncTaskRecordServiceImpl implements SyncTaskRecordService {
                 .eq(SyncTaskRecordEntity::getDataDate, dataDate)
                 .set(SyncTaskRecordEntity::getStatus, SyncStatus.MESSAGES_SENT.name())
                 .set(SyncTaskRecordEntity::getBatchCount, batchCount));
+        syncProgressProjection.onMessagesSent(domain, dataDate, batchCount);
         log.info("[SyncTask] domain={} date={} → MESSAGES_SENT, batches={}", domain, dataDate, batchCount);
     }
 
@@ -70,11 +89,16 @@ public class SyncTaskRecordServiceImpl implements SyncTaskRecordService {
                 .set(SyncTaskRecordEntity::getStatus, SyncStatus.FAILED.name())
                 .set(SyncTaskRecordEntity::getErrorMessage, truncated)
                 .set(SyncTaskRecordEntity::getEndTime, LocalDateTime.now()));
+        syncProgressProjection.onRunFailed(domain, dataDate, truncated);
         log.error("[SyncTask] domain={} date={} → FAILED: {}", domain, dataDate, errorMessage);
     }
 
     @Override
     public void incrementCompletedBatch(String domain, LocalDate dataDate) {
+        if (isDerivedMode()) {
+            finalizeIfLastBatch(domain, dataDate);
+            return;
+        }
         // SQL 直接引用 DB 列 batch_count，无需额外 SELECT
         int affected = syncTaskRecordMapper.incrementCompletedBatch(domain, dataDate);
         if (affected == 0) {
@@ -83,8 +107,25 @@ public class SyncTaskRecordServiceImpl implements SyncTaskRecordService {
         }
     }
 
+    @Override
+    public void incrementCompletedBatchBy(String domain, LocalDate dataDate, int delta) {
+        if (isDerivedMode()) {
+            finalizeIfLastBatch(domain, dataDate);
+            return;
+        }
+        int affected = syncTaskRecordMapper.incrementCompletedBatchBy(domain, dataDate, delta);
+        if (affected == 0) {
+            log.warn("[SyncTask] incrementCompletedBatchBy: UPDATE 无影响 (记录不存在或已非活跃状态) domain={} date={} delta={}",
+                    domain, dataDate, delta);
+        }
+    }
+
     @Override
     public void checkAndMarkSuccessIfAllDone(String domain, LocalDate dataDate) {
+        if (isDerivedMode()) {
+            finalizeIfAllBatchesInserted(domain, dataDate);
+            return;
+        }
         int affected = syncTaskRecordMapper.checkAndMarkSuccessIfAllDone(domain, dataDate);
         if (affected > 0) {
             log.info("[SyncTask] checkAndMarkSuccessIfAllDone: 所有批次已提前消费完成，补触发 SUCCESS domain={} date={}",
@@ -92,6 +133,67 @@ public class SyncTaskRecordServiceImpl implements SyncTaskRecordService {
         }
     }
 
+    @Override
+    public boolean finalizeIfAllBatchesInserted(String domain, LocalDate dataDate) {
+        int affected = syncTaskRecordMapper.markSuccessIfAllBatchesInserted(domain, dataDate);
+        if (affected > 0) {
+            log.info("[SyncTask] domain={} date={} 全部批次已入库 → SUCCESS", domain, dataDate);
+        }
+        return affected > 0;
+    }
+
+    @Override
+    public List<SyncTaskRecordEntity> findMessagesSent() {
+        return syncTaskRecordMapper.selectList(new LambdaQueryWrapper<SyncTaskRecordEntity>()
+                .eq(SyncTaskRecordEntity::getStatus, SyncStatus.MESSAGES_SENT.name()));
+    }
+
+    @Override
+    public int estimateBatchCount(String domain, LocalDate dataDate) {
+        SyncTaskRecordEntity existing = findByDomainAndDate(domain, dataDate);
+        if (existing != null && existing.getBatchCount() != null && existing.getBatchCount() > 0) {
+            return existing.getBatchCount();
+        }
+        SyncTaskRecordEntity latest = syncTaskRecordMapper.selectOne(new LambdaQueryWrapper<SyncTaskRecordEntity>()
+                .eq(SyncTaskRecordEntity::getDomain, domain)
+                .gt(SyncTaskRecordEntity::getBatchCount, 0)
+                .orderByDesc(SyncTaskRecordEntity::getDataDate)
+                .last("LIMIT 1"));
+        return latest == null ? -1 : latest.getBatchCount();
+    }
+
+    @Override
+    public boolean isSuccess(String domain, LocalDate dataDate) {
+        SyncTaskRecordEntity existing = findByDomainAndDate(domain, dataDate);
+        return existing != null && SyncStatus.SUCCESS.name().equals(existing.getStatus());
+    }
+
+    @Override
+    public void markSuccessWithoutBatches(String domain, LocalDate dataDate) {
+        syncTaskRecordMapper.update(null, new LambdaUpdateWrapper<SyncTaskRecordEntity>()
+                .eq(SyncTaskRecordEntity::getDomain, domain)
+                .eq(SyncTaskRecordEntity::getDataDate, dataDate)
+                .set(SyncTaskRecordEntity::getStatus, SyncStatus.SUCCESS.name())
+                .set(SyncTaskRecordEntity::getBatchCount, 0)
+                .set(SyncTaskRecordEntity::getEndTime, LocalDateTime.now()));
+        syncProgressProjection.onMessagesSent(domain, dataDate, 0);
+        log.info("[SyncTask] domain={} date={} 无批次需要发送 → SUCCESS", domain, dataDate);
+    }
+
+    /**
+     * derived 模式消费端：仅当一致性读看不到未完成批次时才触达任务行，
+     * 绝大多数消费者只读 sync_batch_record，不与其他消费者争抢同一行锁
+     */
+    private void finalizeIfLastBatch(String domain, LocalDate dataDate) {
+        if (syncBatchRecordService.countUnfinished(domain, dataDate) == 0) {
+            finalizeIfAllBatchesInserted(domain, dataDate);
+        }
+    }
+
+    private boolean isDerivedMode() {
+        return "derived".equalsIgnoreCase(progressMode);
+    }
+
     private SyncTaskRecordEntity findByDomainAndDate(String domain, LocalDate dataDate) {
         return syncTaskRecordMapper.selectOne(new LambdaQueryWrapper<SyncTaskRecordEntity>()
                 .eq(SyncTaskRecordEntity::getDomain, domain)
@@ -0,0 +1,86 @@
+package org.cabbage.codedemo.faultdatasync.tracing;
+
+import cn.hutool.json.JSONObject;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+
+/**
+ * 本地文件 span 导出器（fault-sync.tracing.file.enabled=true）：每个 span 一行 JSON，追加写入
+ * <p>
+ * 作为 OTLP collector 的本地替身，便于离线按 traceId 还原一次同步运行的关键路径。
+ * Spring Boot 将容器中的 SpanExporter 挂到 BatchSpanProcessor，与 OTLP 导出器可同时启用。
+ * 字段：traceId、spanId、parentSpanId、name、kind、startNanos、endNanos、status、attributes。
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "fault-sync.tracing.file.enabled", havingValue = "true")
+public class JsonLinesSpanExporter implements SpanExporter {
+
+    private final BufferedWriter writer;
+
+    public JsonLinesSpanExporter(@Value("${fault-sync.tracing.file.path:logs/fault-sync-spans.jsonl}") String path)
+            throws IOException {
+        Path file = Path.of(path);
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        log.info("[Tracing] span 导出到文件 {}", file.toAbsolutePath());
+    }
+
+    @Override
+    public synchronized CompletableResultCode export(Collection<SpanData> spans) {
+        try {
+            for (SpanData span : spans) {
+                JSONObject attributes = new JSONObject();
+                span.getAttributes().forEach((key, value) -> attributes.set(key.getKey(), value));
+                JSONObject line = new JSONObject()
+                        .set("traceId", span.getTraceId())
+                        .set("spanId", span.getSpanId())
+                        .set("parentSpanId", span.getParentSpanId())
+                        .set("name", span.getName())
+                        .set("kind", span.getKind().name())
+                        .set("startNanos", span.getStartEpochNanos())
+                        .set("endNanos", span.getEndEpochNanos())
+                        .set("status", span.getStatus().getStatusCode().name())
+                        .set("attributes", attributes);
+                writer.write(line.toString());
+                writer.newLine();
+            }
+            writer.flush();
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException e) {
+            log.warn("[Tracing] 写入 span 文件失败: {}", e.getMessage());
+            return CompletableResultCode.ofFailure();
+        }
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public synchronized CompletableResultCode shutdown() {
+        try {
+            writer.close();
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException e) {
+            return CompletableResultCode.ofFailure();
+        }
+    }
+}
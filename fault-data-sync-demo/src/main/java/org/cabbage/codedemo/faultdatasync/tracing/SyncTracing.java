@@ -0,0 +1,162 @@
+package org.cabbage.codedemo.faultdatasync.tracing;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.propagation.Propagator;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.cabbage.codedemo.faultdatasync.model.FaultDataBatchMessage;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批次级链路追踪（Micrometer Tracing，OTel bridge）
+ * <p>
+ * 一次 domain+date 同步为一条 trace：
+ * <pre>
+ * fault.sync.run
+ * ├── fault.sync.pull                  每页上游拉取
+ * └── fault.sync.send                  每批 MQ 发送（async 模式到 broker 回调结束）
+ *     ├── fault.sync.mq.queue          消息产生 → 开始消费（bornTimestamp 起算，即 broker 排队）
+ *     └── fault.sync.consume           消费处理
+ *         ├── fault.sync.insert        写 fault_record
+ *         └── fault.sync.status        markInsertSuccess + incrementCompletedBatch
+ * </pre>
+ * trace 上下文以 W3C traceparent 写入消息头，与 KEYS 一样随 RocketMQ user property 传递；
+ * 线程池中的区间拉取 / 预拉取任务通过 {@link #wrap} 继承提交线程的当前 span。
+ * 未引入 Tracer / Propagator 时退化为 NOOP。
+ */
+@Component
+public class SyncTracing {
+
+    private final Tracer tracer;
+    private final Propagator propagator;
+
+    public SyncTracing(ObjectProvider<Tracer> tracer, ObjectProvider<Propagator> propagator) {
+        this.tracer = tracer.getIfAvailable(() -> Tracer.NOOP);
+        this.propagator = propagator.getIfAvailable(() -> Propagator.NOOP);
+    }
+
+    /**
+     * 以当前 span 为父开启子 span 并置为当前 span，调用方以 try-with-resources 结束
+     */
+    public Scope start(String name, String domain, LocalDate date) {
+        Span span = startDetached(name, domain, date);
+        return new Scope(span, tracer.withSpan(span));
+    }
+
+    /**
+     * 以当前 span 为父开启子 span，不置为当前 span（异步发送在回调线程结束）
+     */
+    public Span startDetached(String name, String domain, LocalDate date) {
+        return tracer.nextSpan()
+                .name(name)
+                .tag("domain", domain)
+                .tag("date", String.valueOf(date))
+                .start();
+    }
+
+    /**
+     * 将 span 上下文写入待发送消息头
+     */
+    public <T> MessageBuilder<T> inject(Span span, MessageBuilder<T> builder) {
+        propagator.inject(span.context(), builder, MessageBuilder::setHeader);
+        return builder;
+    }
+
+    /**
+     * 消费端：从消息 user property 恢复上游上下文，补记 broker 排队 span，并开启 fault.sync.consume
+     */
+    public Scope startConsume(MessageExt messageExt, FaultDataBatchMessage msg) {
+        long now = System.currentTimeMillis();
+        if (messageExt.getBornTimestamp() > 0) {
+            Span queue = propagator.extract(messageExt, MessageExt::getUserProperty)
+                    .name("fault.sync.mq.queue")
+                    .kind(Span.Kind.CONSUMER)
+                    .startTimestamp(messageExt.getBornTimestamp(), TimeUnit.MILLISECONDS)
+                    .start();
+            tag(queue, msg).tag("reconsumeTimes", messageExt.getReconsumeTimes());
+            queue.end(now, TimeUnit.MILLISECONDS);
+        }
+        Span span = propagator.extract(messageExt, MessageExt::getUserProperty)
+                .name("fault.sync.consume")
+                .kind(Span.Kind.CONSUMER)
+                .start();
+        tag(span, msg).tag("records", msg.getRecords() == null ? 0 : msg.getRecords().size());
+        return new Scope(span, tracer.withSpan(span));
+    }
+
+    /**
+     * 线程池任务继承提交线程的当前 span
+     */
+    public <T> Callable<T> wrap(Callable<T> task) {
+        Span parent = tracer.currentSpan();
+        if (parent == null) {
+            return task;
+        }
+        return () -> {
+            try (Tracer.SpanInScope ignored = tracer.withSpan(parent)) {
+                return task.call();
+            }
+        };
+    }
+
+    public Runnable wrap(Runnable task) {
+        Span parent = tracer.currentSpan();
+        if (parent == null) {
+            return task;
+        }
+        return () -> {
+            try (Tracer.SpanInScope ignored = tracer.withSpan(parent)) {
+                task.run();
+            }
+        };
+    }
+
+    private static Span tag(Span span, FaultDataBatchMessage msg) {
+        return span.tag("domain", msg.getDomain())
+                .tag("date", String.valueOf(msg.getDataDate()))
+                .tag("batchIndex", msg.getBatchIndex());
+    }
+
+    /**
+     * 当前 span 作用域：close 时退出作用域并结束 span
+     */
+    public static final class Scope implements AutoCloseable {
+        private final Span span;
+        private final Tracer.SpanInScope inScope;
+
+        private Scope(Span span, Tracer.SpanInScope inScope) {
+            this.span = span;
+            this.inScope = inScope;
+        }
+
+        public Span span() {
+            return span;
+        }
+
+        public Scope tag(String key, String value) {
+            span.tag(key, value);
+            return this;
+        }
+
+        public Scope tag(String key, long value) {
+            span.tag(key, value);
+            return this;
+        }
+
+        public void error(Throwable e) {
+            span.error(e);
+        }
+
+        @Override
+        public void close() {
+            inScope.close();
+            span.end();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.cabbage.codedemo.faultdatasync.writer;
+
+import cn.hutool.core.collection.CollUtil;
+import lombok.RequiredArgsConstructor;
+import org.cabbage.codedemo.faultdatasync.entity.FaultRecordEntity;
+import org.cabbage.codedemo.faultdatasync.mapper.FaultRecordMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 默认写入器：按 {@code dbBatchSize} 分批执行 FaultRecordMapper.batchInsert（INSERT IGNORE），避免单条 SQL 过长。
+ * 严格写入改用 batchInsertStrict（INSERT ... ON DUPLICATE KEY UPDATE id = id）。
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "fault-sync.consumer.writer", havingValue = "insert", matchIfMissing = true)
+public class BatchInsertFaultRecordWriter implements StrictFaultRecordWriter {
+
+    private final FaultRecordMapper faultRecordMapper;
+
+    @Value("${fault-sync.batch-size:1000}")
+    private int dbBatchSize;
+
+    @Override
+    public int write(List<FaultRecordEntity> entities) {
+        int inserted = 0;
+        for (List<FaultRecordEntity> batch : CollUtil.split(entities, dbBatchSize)) {
+            inserted += faultRecordMapper.batchInsert(batch);
+        }
+        return inserted;
+    }
+
+    @Override
+    public int writeStrict(List<FaultRecordEntity> entities) {
+        int affected = 0;
+        for (List<FaultRecordEntity> batch : CollUtil.split(entities, dbBatchSize)) {
+            affected += faultRecordMapper.batchInsertStrict(batch);
+        }
+        return affected;
+    }
+}
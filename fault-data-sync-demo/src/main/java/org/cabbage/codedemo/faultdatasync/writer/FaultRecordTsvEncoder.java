@@ -0,0 +1,68 @@
+package org.cabbage.codedemo.faultdatasync.writer;
+
+import org.cabbage.codedemo.faultdatasync.entity.FaultRecordEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * LOAD DATA 用 TSV 编码：列顺序与 {@link LoadDataFaultRecordWriter#LOAD_SQL} 一致
+ * <p>
+ * 转义规则对应 {@code FIELDS TERMINATED BY '\t' ESCAPED BY '\\' LINES TERMINATED BY '\n'}：
+ * 反斜杠、制表符、换行、回车、NUL 转义；null 写为 {@code \N}。
+ */
+public final class FaultRecordTsvEncoder {
+
+    /** 单行除 faultDetail 外的预估字节数，用于预分配 */
+    private static final int ROW_ESTIMATE = 64;
+
+    private FaultRecordTsvEncoder() {
+    }
+
+    public static byte[] encode(List<FaultRecordEntity> entities) {
+        StringBuilder sb = new StringBuilder(entities.size() * ROW_ESTIMATE * 2);
+        for (FaultRecordEntity e : entities) {
+            appendField(sb, e.getDomain());
+            sb.append('\t');
+            if (e.getDataDate() == null) {
+                sb.append("\\N");
+            } else {
+                sb.append(e.getDataDate());
+            }
+            sb.append('\t');
+            if (e.getRank() == null) {
+                sb.append("\\N");
+            } else {
+                sb.append(e.getRank().intValue());
+            }
+            sb.append('\t');
+            sb.append(e.getGeneration() == null ? 0 : e.getGeneration().intValue());
+            sb.append('\t');
+            appendField(sb, e.getFaultType());
+            sb.append('\t');
+            appendField(sb, e.getDeviceId());
+            sb.append('\t');
+            appendField(sb, e.getFaultDetail());
+            sb.append('\n');
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void appendField(StringBuilder sb, String value) {
+        if (value == null) {
+            sb.append("\\N");
+            return;
+        }
+        for (int i = 0, n = value.length(); i < n; i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> sb.append("\\\\");
+                case '\t' -> sb.append("\\t");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\0' -> sb.append("\\0");
+                default -> sb.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package org.cabbage.codedemo.faultdatasync.writer;
+
+import org.cabbage.codedemo.faultdatasync.entity.FaultRecordEntity;
+
+import java.util.List;
+
+/**
+ * fault_record 批量写入器
+ * <p>
+ * 由 {@code fault-sync.consumer.writer} 选择实现：
+ * <ul>
+ *   <li>insert（默认）：{@link BatchInsertFaultRecordWriter}，MyBatis foreach 拼接 INSERT IGNORE</li>
+ *   <li>load-data：{@link LoadDataFaultRecordWriter}，内存流 LOAD DATA LOCAL INFILE ... IGNORE</li>
+ * </ul>
+ * 两种实现均依赖唯一索引 uk_domain_date_rank 忽略重复行，MQ 重投幂等语义不变。
+ * IGNORE 会把数据错误降级为警告（截断或丢弃该行），需要发现坏记录时使用 {@link StrictFaultRecordWriter}；
+ * LOAD DATA LOCAL 隐含 IGNORE，load-data 写入器不支持严格写入。
+ * 写入使用当前线程绑定的事务连接（如有）。
+ */
+public interface FaultRecordWriter {
+
+    /**
+     * 写入一批记录，重复记录被忽略
+     *
+     * @return 实际新增行数
+     */
+    int write(List<FaultRecordEntity> entities);
+}
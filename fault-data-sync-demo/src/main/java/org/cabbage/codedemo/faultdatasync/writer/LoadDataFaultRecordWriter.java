@@ -0,0 +1,67 @@
+package org.cabbage.codedemo.faultdatasync.writer;
+
+import com.mysql.cj.jdbc.JdbcStatement;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.cabbage.codedemo.faultdatasync.entity.FaultRecordEntity;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.support.SQLErrorCodeSQLExceptionTranslator;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * LOAD DATA LOCAL INFILE 写入器（fault-sync.consumer.writer=load-data）
+ * <p>
+ * 整批记录编码为 TSV 字节流，通过 Connector/J 的 {@link JdbcStatement#setLocalInfileInputStream} 直接喂给服务端，
+ * 一条语句写完一条 MQ 消息：无 SQL 拼接与解析、无逐行参数绑定。
+ * IGNORE 使 uk_domain_date_rank 冲突行被跳过，与 INSERT IGNORE 语义一致。
+ * LOCAL 本身即隐含 IGNORE，数据错误只产生警告，因此不支持严格写入，毒记录隔离在该写入器下不生效。
+ * <p>
+ * 前置条件：服务端 {@code local_infile=ON}；客户端的 {@code allowLoadLocalInfile=true} 由
+ * {@link org.cabbage.codedemo.faultdatasync.config.LoadDataWriterConfig} 仅在选择本写入器时追加到连接池。
+ * 连接通过 DataSourceUtils 获取，存在 Spring 事务时与 MyBatis 共用同一连接。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "fault-sync.consumer.writer", havingValue = "load-data")
+public class LoadDataFaultRecordWriter implements FaultRecordWriter {
+
+    /**
+     * 文件名仅作占位，数据来自 setLocalInfileInputStream 设置的流
+     */
+    static final String LOAD_SQL = "LOAD DATA LOCAL INFILE 'fault_record.tsv' IGNORE INTO TABLE fault_record"
+            + " CHARACTER SET utf8mb4"
+            + " FIELDS TERMINATED BY '\\t' ESCAPED BY '\\\\'"
+            + " LINES TERMINATED BY '\\n'"
+            + " (domain, data_date, `rank`, generation, fault_type, device_id, fault_detail)";
+
+    private final DataSource dataSource;
+
+    @Override
+    public int write(List<FaultRecordEntity> entities) {
+        if (entities.isEmpty()) {
+            return 0;
+        }
+        byte[] payload = FaultRecordTsvEncoder.encode(entities);
+
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try (Statement statement = connection.createStatement()) {
+            statement.unwrap(JdbcStatement.class).setLocalInfileInputStream(new ByteArrayInputStream(payload));
+            int inserted = statement.executeUpdate(LOAD_SQL);
+            log.debug("[Writer] LOAD DATA rows={} inserted={} bytes={}", entities.size(), inserted, payload.length);
+            return inserted;
+        } catch (SQLException e) {
+            throw new SQLErrorCodeSQLExceptionTranslator(dataSource).translate("LOAD DATA fault_record", LOAD_SQL, e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package org.cabbage.codedemo.faultdatasync.writer;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.cabbage.codedemo.faultdatasync.entity.FaultRecordEntity;
+import org.cabbage.codedemo.faultdatasync.entity.FaultRecordRejectEntity;
+import org.cabbage.codedemo.faultdatasync.mapper.FaultRecordRejectMapper;
+import org.cabbage.codedemo.faultdatasync.metrics.SyncMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 毒记录隔离写入
+ * <p>
+ * 先整批经 {@link StrictFaultRecordWriter#writeStrict} 写入；失败且 {@link WriteFailureClassifier} 判定为毒数据时二分重试：
+ * 失败的分区对半拆开分别写入，成功的一半即已入库，失败的一半继续拆分，直到定位到单条记录，
+ * 单条仍失败的记录连同错误信息写入 fault_record_reject。k 条坏记录约需 2k·log2(n) 次写入，而非逐条 n 次。
+ * <p>
+ * 以下情况放弃隔离，按原异常抛出交给 MQ 重投 / 退避重试：
+ * <ul>
+ *   <li>拆分过程中出现瞬时故障</li>
+ *   <li>隔离数超过 {@code max-rejects}：坏记录过多更可能是表结构或环境问题，不应逐条吞掉</li>
+ *   <li>全部记录都失败：同上</li>
+ * </ul>
+ * 拆分前已提交的分块会被再次写入，由唯一索引忽略；严格写入的受影响行数也包含重复行，因此返回的写入行数只是近似值。
+ * <p>
+ * 隔离只在严格写入下成立：INSERT IGNORE / LOAD DATA ... IGNORE 会把超长、非空、类型错误降级为警告并截断或丢弃该行，
+ * 写入不会失败，二分也就无从触发。因此写入器不是 {@link StrictFaultRecordWriter}（load-data）时隔离不生效，{@link #write} 退化为普通写入。
+ * 消费端由 {@code fault-sync.consumer.isolation.enabled} 控制是否使用；DLQ 回放在写入器支持时始终使用。
+ */
+@Slf4j
+@Component
+public class PoisonRecordIsolator {
+
+    private final FaultRecordWriter faultRecordWriter;
+    /** 写入器支持严格写入时为同一实例，否则为 null */
+    private final StrictFaultRecordWriter strictWriter;
+    private final FaultRecordRejectMapper rejectMapper;
+    private final SyncMetrics syncMetrics;
+
+    @Value("${fault-sync.consumer.isolation.enabled:false}")
+    private boolean enabled;
+
+    /** 单批最多隔离的记录数，超过则整批失败 */
+    @Value("${fault-sync.consumer.isolation.max-rejects:100}")
+    private int maxRejects;
+
+    public PoisonRecordIsolator(FaultRecordWriter faultRecordWriter, FaultRecordRejectMapper rejectMapper,
+                                SyncMetrics syncMetrics) {
+        this.faultRecordWriter = faultRecordWriter;
+        this.strictWriter = faultRecordWriter instanceof StrictFaultRecordWriter strict ? strict : null;
+        this.rejectMapper = rejectMapper;
+        this.syncMetrics = syncMetrics;
+    }
+
+    @PostConstruct
+    public void checkWriter() {
+        if (enabled && strictWriter == null) {
+            log.warn("[Isolator] 当前写入器 {} 只支持 IGNORE 写入，数据错误不会报错，毒记录隔离不生效",
+                    faultRecordWriter.getClass().getSimpleName());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled && strictWriter != null;
+    }
+
+    /**
+     * 不做二分的单次写入（合并提交用）：隔离开启时严格写入，让数据错误以异常抛出，
+     * 由调用方回退到按消息 {@link #write} 隔离；否则为普通写入
+     */
+    public int writeOnce(List<FaultRecordEntity> entities) {
+        return isEnabled() ? strictWriter.writeStrict(entities) : faultRecordWriter.write(entities);
+    }
+
+    /**
+     * 写入一个批次的记录，毒记录隔离到 fault_record_reject
+     *
+     * @param source 隔离来源（consumer / replay），写入 fault_record_reject.source 与指标标签
+     */
+    public Outcome write(List<FaultRecordEntity> entities, int batchIndex, String source) {
+        if (strictWriter == null) {
+            return new Outcome(faultRecordWriter.write(entities), 0);
+        }
+        try {
+            return new Outcome(strictWriter.writeStrict(entities), 0);
+        } catch (RuntimeException e) {
+            if (!WriteFailureClassifier.isPoison(e)) {
+                throw e;
+            }
+            log.warn("[Isolator] batchIndex={} 整批 {} 条写入失败（数据错误），二分定位毒记录: {}",
+                    batchIndex, entities.size(), mostSpecificMessage(e));
+            return bisect(entities, batchIndex, source, e);
+        }
+    }
+
+    private Outcome bisect(List<FaultRecordEntity> entities, int batchIndex, String source, RuntimeException failure) {
+        Bisection bisection = new Bisection(batchIndex, source, failure);
+        int inserted = bisection.split(entities, failure);
+        List<FaultRecordRejectEntity> rejects = bisection.rejects;
+        if (rejects.size() == entities.size() && entities.size() > 1) {
+            log.warn("[Isolator] batchIndex={} 全部 {} 条记录均写入失败，不隔离", batchIndex, entities.size());
+            throw failure;
+        }
+        FaultRecordEntity first = entities.get(0);
+        rejectMapper.batchUpsert(rejects);
+        syncMetrics.recordRejected(first.getDomain(), source, rejects.size());
+        log.warn("[Isolator] domain={} date={} batchIndex={} 隔离 {} 条，写入 {} 次",
+                first.getDomain(), first.getDataDate(), batchIndex, rejects.size(), bisection.writes);
+        return new Outcome(inserted, rejects.size());
+    }
+
+    private static String mostSpecificMessage(Throwable e) {
+        return String.valueOf(NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+    }
+
+    /**
+     * 一次写入的结果
+     *
+     * @param inserted 写入行数（严格写入时包含被忽略的重复行）
+     * @param rejected 隔离记录数
+     */
+    public record Outcome(int inserted, int rejected) {
+    }
+
+    /**
+     * 一次二分隔离的状态
+     */
+    private class Bisection {
+
+        private final int batchIndex;
+        private final String source;
+        private final RuntimeException original;
+        private final List<FaultRecordRejectEntity> rejects = new ArrayList<>();
+        private int writes;
+
+        private Bisection(int batchIndex, String source, RuntimeException original) {
+            this.batchIndex = batchIndex;
+            this.source = source;
+            this.original = original;
+        }
+
+        /**
+         * 拆分一个已知写入失败的分区
+         *
+         * @return 新增行数
+         */
+        private int split(List<FaultRecordEntity> failed, RuntimeException cause) {
+            if (failed.size() == 1) {
+                reject(failed.get(0), cause);
+                return 0;
+            }
+            int mid = failed.size() / 2;
+            return attempt(failed.subList(0, mid)) + attempt(failed.subList(mid, failed.size()));
+        }
+
+        private int attempt(List<FaultRecordEntity> part) {
+            writes++;
+            try {
+                return strictWriter.writeStrict(part);
+            } catch (RuntimeException e) {
+                if (!WriteFailureClassifier.isPoison(e)) {
+                    throw e;
+                }
+                return split(part, e);
+            }
+        }
+
+        private void reject(FaultRecordEntity entity, RuntimeException cause) {
+            if (rejects.size() >= maxRejects) {
+                log.warn("[Isolator] batchIndex={} 隔离数超过上限 {}，放弃隔离", batchIndex, maxRejects);
+                throw original;
+            }
+            String error = mostSpecificMessage(cause);
+            rejects.add(FaultRecordRejectEntity.builder()
+                    .domain(entity.getDomain())
+                    .dataDate(entity.getDataDate())
+                    .generation(entity.getGeneration())
+                    .rank(entity.getRank().longValue())
+                    .batchIndex(batchIndex)
+                    .faultType(entity.getFaultType())
+                    .deviceId(entity.getDeviceId())
+                    .faultDetail(entity.getFaultDetail())
+                    .source(source)
+                    .errorMessage(error.length() > 1000 ? error.substring(0, 1000) : error)
+                    .build());
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package org.cabbage.codedemo.faultdatasync.writer;
+
+import org.cabbage.codedemo.faultdatasync.entity.FaultRecordEntity;
+
+import java.util.List;
+
+/**
+ * 支持严格写入的 fault_record 写入器，{@link PoisonRecordIsolator} 据此定位毒记录
+ * <p>
+ * 只有能让数据错误以异常出现的实现才实现本接口；LOAD DATA LOCAL 隐含 IGNORE，load-data 写入器不实现。
+ */
+public interface StrictFaultRecordWriter extends FaultRecordWriter {
+
+    /**
+     * 严格写入：重复记录仍被忽略，但数据错误（超长、非空、类型不符）抛出异常，而不是像 IGNORE 那样截断或丢弃后只留警告。
+     * 依赖 strict sql_mode（MySQL 8 默认含 STRICT_TRANS_TABLES）。
+     *
+     * @return 受影响行数（驱动默认返回匹配行数，重复行也计入）
+     */
+    int writeStrict(List<FaultRecordEntity> entities);
+}
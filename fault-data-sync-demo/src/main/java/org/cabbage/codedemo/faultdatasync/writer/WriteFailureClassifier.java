@@ -0,0 +1,40 @@
+package org.cabbage.codedemo.faultdatasync.writer;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+
+import java.sql.SQLDataException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+
+/**
+ * 写库失败分类：毒数据（重试结果不变，只能隔离）与瞬时故障（锁等待、超时、连接中断等，退避后重试）
+ * <p>
+ * 沿异常链逐层判断，先命中的一层决定结果；无法识别的异常按瞬时故障处理，宁可多重试也不误隔离正常记录。
+ * 只有数据库报告的数据 / 约束错误才算毒数据；NPE、类型转换等程序异常是代码缺陷，不能把正常记录隔离掉来掩盖。
+ * 数据错误只有在严格写入（{@link StrictFaultRecordWriter#writeStrict}）下才会以异常出现，IGNORE 写入只留警告。
+ */
+public final class WriteFailureClassifier {
+
+    private WriteFailureClassifier() {
+    }
+
+    /**
+     * @return true 表示失败由记录内容决定（约束冲突、超长、非空、类型不符等 SQL 数据 / 约束错误）
+     */
+    public static boolean isPoison(Throwable error) {
+        for (Throwable e = error; e != null; e = e.getCause() == e ? null : e.getCause()) {
+            if (e instanceof TransientDataAccessException || e instanceof RecoverableDataAccessException
+                    || e instanceof SQLTransientException || e instanceof SQLRecoverableException) {
+                return false;
+            }
+            if (e instanceof DataIntegrityViolationException
+                    || e instanceof SQLDataException || e instanceof SQLIntegrityConstraintViolationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,28 @@
+-- 影子重同步升级脚本：为已有 fault_record 增加代次列、代次指针表与读取视图
+-- 新库直接执行 sql/init.sql 即可，无需本脚本
+USE code_demo;
+
+ALTER TABLE fault_record
+    ADD COLUMN generation INT NOT NULL DEFAULT 0 COMMENT '数据代次（影子重同步写入新代次，切换后旧代次清理）' AFTER rank,
+    DROP INDEX uk_domain_date_rank,
+    ADD UNIQUE KEY uk_domain_date_rank (domain, data_date, generation, rank);
+
+CREATE TABLE IF NOT EXISTS fault_record_generation (
+    id                 BIGINT AUTO_INCREMENT PRIMARY KEY,
+    domain             VARCHAR(100) NOT NULL  COMMENT '领域',
+    data_date          DATE NOT NULL          COMMENT '数据日期',
+    active_generation  INT NOT NULL DEFAULT 0 COMMENT '当前对外可见代次',
+    pending_generation INT                    COMMENT '正在写入的影子代次，任务 SUCCESS 后切换为 active',
+    purge_needed       TINYINT NOT NULL DEFAULT 0 COMMENT '1=存在待清理的旧代次',
+    swap_time          DATETIME               COMMENT '最近一次切换时间',
+    create_time        DATETIME DEFAULT CURRENT_TIMESTAMP,
+    update_time        DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    UNIQUE KEY uk_domain_date (domain, data_date)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='故障记录代次指针';
+
+CREATE OR REPLACE VIEW fault_record_active AS
+SELECT f.*
+FROM fault_record f
+LEFT JOIN fault_record_generation g
+       ON g.domain = f.domain AND g.data_date = f.data_date
+WHERE f.generation = COALESCE(g.active_generation, 0);
@@ -0,0 +1,16 @@
+-- fault_record 按 data_date 分区（RANGE COLUMNS，每天一个分区 + p_max 兜底）
+-- 分区表要求所有唯一键包含分区列：主键调整为 (id, data_date)，uk_domain_date_rank 已包含 data_date
+-- 执行后开启 fault-sync.partition.enabled，由 FaultRecordPartitionMaintainer 每日预建未来分区；
+-- 配置 fault-sync.partition.retention-days > 0 时删除过期分区（DROP PARTITION 为 O(1)），默认不删除
+-- 注意：对已有大表执行会整表重建，请在低峰期操作；示例初始分区按实际数据起始日期调整
+USE code_demo;
+
+ALTER TABLE fault_record
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (id, data_date);
+
+ALTER TABLE fault_record
+    PARTITION BY RANGE COLUMNS (data_date) (
+        PARTITION p_history VALUES LESS THAN ('2026-01-01'),
+        PARTITION p_max     VALUES LESS THAN (MAXVALUE)
+    );
@@ -0,0 +1,20 @@
+-- 隔离记录表：无法写入 fault_record 的毒记录，原样保留供排查与人工补录，不阻塞所在批次
+-- 文本列不设长度上限，避免因超长而被隔离的记录再次写入失败
+USE code_demo;
+
+CREATE TABLE IF NOT EXISTS fault_record_reject (
+    id            BIGINT AUTO_INCREMENT PRIMARY KEY,
+    domain        VARCHAR(100) NOT NULL              COMMENT '数据领域',
+    data_date     DATE         NOT NULL              COMMENT '数据所属日期',
+    generation    INT          NOT NULL DEFAULT 0    COMMENT '写入代次',
+    rank          BIGINT       NOT NULL              COMMENT '当天唯一排序值（原数据源赋予）',
+    batch_index   INT          NOT NULL              COMMENT '所属批次',
+    fault_type    TEXT                               COMMENT '故障类型（原样）',
+    device_id     TEXT                               COMMENT '设备ID（原样）',
+    fault_detail  LONGTEXT                           COMMENT '故障详情（原样）',
+    source        VARCHAR(16)  NOT NULL              COMMENT '隔离来源：consumer / replay',
+    error_message VARCHAR(1000)                      COMMENT '写入失败原因',
+    create_time   DATETIME                           COMMENT '首次隔离时间',
+    update_time   DATETIME                           COMMENT '最近隔离时间',
+    UNIQUE KEY uk_domain_date_gen_rank (domain, data_date, generation, rank)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='故障记录隔离表';
@@ -9,10 +9,22 @@ CREATE TABLE IF NOT EXISTS sync_batch_record (
     start_rank     BIGINT       NOT NULL               COMMENT '本批 pull 的起始 rank（游标值）',
     end_rank       BIGINT       NOT NULL DEFAULT 0     COMMENT '本批最大 rank，成功后回填',
     record_count   INT          NOT NULL DEFAULT 0     COMMENT '本批记录数',
+    range_end_rank BIGINT                              COMMENT '区间并行拉取：所属区间的最大 rank（含），NULL 表示不设上界',
+    page_size      INT          NOT NULL DEFAULT 0     COMMENT '本批 pull 使用的页大小，重试按此值重放；0 表示按当前配置',
     pull_status    VARCHAR(16)  NOT NULL DEFAULT 'PENDING' COMMENT 'PENDING/SUCCESS/FAILED',
     insert_status  VARCHAR(16)  NOT NULL DEFAULT 'PENDING' COMMENT 'PENDING/SUCCESS/FAILED',
+    reject_count   INT          NOT NULL DEFAULT 0     COMMENT '隔离到 fault_record_reject 的记录数，批次其余记录已入库',
     error_message  VARCHAR(500)                        COMMENT '失败原因',
     create_time    DATETIME                            COMMENT '创建时间',
     update_time    DATETIME                            COMMENT '更新时间',
     UNIQUE KEY uk_domain_date_batch (domain, data_date, batch_index)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='同步批次状态记录';
+
+-- 已有表升级（区间并行拉取）
+-- ALTER TABLE sync_batch_record ADD COLUMN range_end_rank BIGINT COMMENT '区间并行拉取：所属区间的最大 rank（含），NULL 表示不设上界' AFTER record_count;
+
+-- 已有表升级（自适应页大小）
+-- ALTER TABLE sync_batch_record ADD COLUMN page_size INT NOT NULL DEFAULT 0 COMMENT '本批 pull 使用的页大小，重试按此值重放；0 表示按当前配置' AFTER range_end_rank;
+
+-- 已有表升级（毒记录隔离）
+-- ALTER TABLE sync_batch_record ADD COLUMN reject_count INT NOT NULL DEFAULT 0 COMMENT '隔离到 fault_record_reject 的记录数，批次其余记录已入库' AFTER insert_status;
@@ -0,0 +1,14 @@
+-- rank 区间内容指纹表，用于增量同步：仅重拉指纹变化的区间
+USE code_demo;
+
+CREATE TABLE IF NOT EXISTS sync_range_fingerprint (
+    id            BIGINT AUTO_INCREMENT PRIMARY KEY,
+    domain        VARCHAR(64)  NOT NULL               COMMENT '数据领域',
+    data_date     DATE         NOT NULL               COMMENT '数据日期',
+    from_rank     BIGINT       NOT NULL               COMMENT '区间起点（不含）',
+    to_rank       BIGINT       NOT NULL               COMMENT '区间终点（含）；最大 to_rank 即该 domain+date 的高水位',
+    record_count  BIGINT       NOT NULL DEFAULT 0     COMMENT '区间内记录数',
+    checksum      BIGINT       NOT NULL DEFAULT 0     COMMENT '数据源给出的区间内容指纹',
+    create_time   DATETIME                            COMMENT '创建时间（即指纹采集时间）',
+    UNIQUE KEY uk_domain_date_from (domain, data_date, from_rank)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='同步区间内容指纹';
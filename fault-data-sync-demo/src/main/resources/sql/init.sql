@@ -9,11 +9,12 @@ CREATE TABLE IF NOT EXISTS fault_record (
     domain      VARCHAR(100) NOT NULL       COMMENT '数据领域',
     data_date   DATE NOT NULL               COMMENT '数据所属日期',
     rank        INT NOT NULL                COMMENT '当天唯一排序值（原数据源赋予）',
+    generation  INT NOT NULL DEFAULT 0      COMMENT '数据代次（影子重同步写入新代次，切换后旧代次清理）',
     fault_type  VARCHAR(200)                COMMENT '故障类型',
     device_id   VARCHAR(100)               COMMENT '设备ID',
     fault_detail TEXT                       COMMENT '故障详情',
     create_time DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '入库时间',
-    UNIQUE KEY uk_domain_date_rank (domain, data_date, rank)
+    UNIQUE KEY uk_domain_date_rank (domain, data_date, generation, rank)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='故障记录';
 
 -- 同步任务状态表
@@ -32,3 +33,25 @@ CREATE TABLE IF NOT EXISTS sync_task_record (
     update_time           DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     UNIQUE KEY uk_domain_date (domain, data_date)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='同步任务状态记录';
+
+-- 故障记录代次指针（影子重同步：读取方只看 active_generation）
+CREATE TABLE IF NOT EXISTS fault_record_generation (
+    id                 BIGINT AUTO_INCREMENT PRIMARY KEY,
+    domain             VARCHAR(100) NOT NULL  COMMENT '领域',
+    data_date          DATE NOT NULL          COMMENT '数据日期',
+    active_generation  INT NOT NULL DEFAULT 0 COMMENT '当前对外可见代次',
+    pending_generation INT                    COMMENT '正在写入的影子代次，任务 SUCCESS 后切换为 active',
+    purge_needed       TINYINT NOT NULL DEFAULT 0 COMMENT '1=存在待清理的旧代次',
+    swap_time          DATETIME               COMMENT '最近一次切换时间',
+    create_time        DATETIME DEFAULT CURRENT_TIMESTAMP,
+    update_time        DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    UNIQUE KEY uk_domain_date (domain, data_date)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='故障记录代次指针';
+
+-- 对外读取视图：仅返回当前 active 代次（无指针行视为代次 0）
+CREATE OR REPLACE VIEW fault_record_active AS
+SELECT f.*
+FROM fault_record f
+LEFT JOIN fault_record_generation g
+       ON g.domain = f.domain AND g.data_date = f.data_date
+WHERE f.generation = COALESCE(g.active_generation, 0);
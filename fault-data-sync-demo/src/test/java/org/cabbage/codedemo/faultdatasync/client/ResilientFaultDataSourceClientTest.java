@@ -0,0 +1,240 @@
+package org.cabbage.codedemo.faultdatasync.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.cabbage.codedemo.faultdatasync.config.UpstreamResilienceProperties;
+import org.cabbage.codedemo.faultdatasync.metrics.SyncMetrics;
+import org.cabbage.codedemo.faultdatasync.model.FaultRecordDTO;
+import org.cabbage.codedemo.faultdatasync.model.FaultRecordPage;
+import org.cabbage.codedemo.faultdatasync.model.PageSummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 可续拉游标：底层游标中途失败后从最后产出的 rank 续拉剩余条数，记录不重复、不丢失
+ */
+class ResilientFaultDataSourceClientTest {
+
+    private static final String DOMAIN = "domain_a";
+    private static final LocalDate DATE = LocalDate.of(2024, 1, 1);
+
+    private FlakySource source;
+    private UpstreamResilienceProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        source = new FlakySource(100);
+        properties = new UpstreamResilienceProperties();
+        properties.setEnabled(true);
+        properties.setMaxAttempts(3);
+        properties.setRetryBaseMs(0);
+        properties.setRetryMaxMs(0);
+        properties.setWindowSize(100);
+        properties.setMinCalls(100);
+    }
+
+    @Test
+    void resumesFromLastYieldedRankAfterMidPageFailure() {
+        source.failAfter(4);
+
+        FaultRecordPage page = readPage(newClient(), 0, 10);
+
+        assertThat(ranks(page.getRecords())).containsExactlyElementsOf(range(1, 10));
+        assertThat(page.getSummary().getCount()).isEqualTo(10);
+        assertThat(page.getSummary().getMinRank()).isEqualTo(1);
+        assertThat(page.getSummary().getMaxRank()).isEqualTo(10);
+        assertThat(source.opens).containsExactly("0/10", "4/6");
+    }
+
+    @Test
+    void resumesAcrossRepeatedFailuresWithinMaxAttempts() {
+        source.failAfter(3);
+        source.failAfter(0);
+
+        FaultRecordPage page = readPage(newClient(), 20, 10);
+
+        assertThat(ranks(page.getRecords())).containsExactlyElementsOf(range(21, 30));
+        assertThat(source.opens).containsExactly("20/10", "23/7", "23/7");
+    }
+
+    @Test
+    void retriesFailedOpen() {
+        source.failOnOpen();
+
+        FaultRecordPage page = readPage(newClient(), 0, 5);
+
+        assertThat(ranks(page.getRecords())).containsExactlyElementsOf(range(1, 5));
+        assertThat(source.opens).containsExactly("0/5", "0/5");
+    }
+
+    /**
+     * 失败次数按整个游标累计：第 3 次失败即抛出，已产出的记录保持不变
+     */
+    @Test
+    void throwsWhenFailuresExhaustMaxAttempts() {
+        source.failAfter(2);
+        source.failOnOpen();
+        source.failOnOpen();
+        List<FaultRecordDTO> yielded = new ArrayList<>();
+
+        try (FaultRecordCursor cursor = newClient().openCursor(DOMAIN, DATE, 0, 10)) {
+            assertThatThrownBy(() -> {
+                while (cursor.hasNext()) {
+                    yielded.add(cursor.next());
+                }
+            }).isInstanceOf(IllegalStateException.class).hasMessageContaining("upstream open failed");
+        }
+
+        assertThat(ranks(yielded)).containsExactly(1L, 2L);
+        assertThat(source.opens).containsExactly("0/10", "2/8", "2/8");
+    }
+
+    @Test
+    void shortLastPageEndsCursor() {
+        FaultRecordCursor cursor = newClient().openCursor(DOMAIN, DATE, 95, 10);
+
+        FaultRecordPage page = cursor.toPage(10);
+        cursor.close();
+
+        assertThat(ranks(page.getRecords())).containsExactlyElementsOf(range(96, 100));
+        assertThatThrownBy(cursor::next).isInstanceOf(NoSuchElementException.class);
+    }
+
+    @Test
+    void cursorHoldsBulkheadPermitUntilClosed() {
+        properties.setMaxConcurrent(1);
+        properties.setBulkheadMaxWaitMs(10);
+        ResilientFaultDataSourceClient client = newClient();
+
+        FaultRecordCursor first = client.openCursor(DOMAIN, DATE, 0, 10);
+        assertThatThrownBy(() -> client.openCursor(DOMAIN, DATE, 0, 10))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("上游并发已满");
+
+        first.close();
+        first.close();
+        try (FaultRecordCursor second = client.openCursor(DOMAIN, DATE, 0, 10)) {
+            assertThat(second.hasNext()).isTrue();
+        }
+    }
+
+    /**
+     * 熔断拒绝不重试：窗口内失败率达到阈值后，后续尝试直接被拒绝而不再打到上游
+     */
+    @Test
+    void circuitRejectionIsNotRetried() {
+        properties.setMaxAttempts(5);
+        properties.setWindowSize(2);
+        properties.setMinCalls(2);
+        source.failOnOpen();
+        source.failOnOpen();
+        ResilientFaultDataSourceClient client = newClient();
+
+        assertThatThrownBy(() -> client.openCursor(DOMAIN, DATE, 0, 10))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("上游熔断中");
+        assertThat(source.opens).hasSize(2);
+        assertThat(client.circuitState()).isEqualTo("open");
+    }
+
+    private ResilientFaultDataSourceClient newClient() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        return new ResilientFaultDataSourceClient(source, properties, new SyncMetrics(registry), registry);
+    }
+
+    private static FaultRecordPage readPage(ResilientFaultDataSourceClient client, long lastRank, int pageSize) {
+        try (FaultRecordCursor cursor = client.openCursor(DOMAIN, DATE, lastRank, pageSize)) {
+            return cursor.toPage(pageSize);
+        }
+    }
+
+    private static List<Long> ranks(List<FaultRecordDTO> records) {
+        return records.stream().map(FaultRecordDTO::getRank).toList();
+    }
+
+    private static List<Long> range(long from, long to) {
+        return LongStream.rangeClosed(from, to).boxed().toList();
+    }
+
+    /**
+     * rank 1..maxRank 的数据源；按登记顺序让后续的 openCursor 打开失败或读到第 n 条后失败
+     */
+    private static final class FlakySource implements FaultDataSourceClient {
+
+        private static final int FAIL_ON_OPEN = -1;
+
+        private final long maxRank;
+        private final Deque<Integer> faults = new ArrayDeque<>();
+        private final List<String> opens = new ArrayList<>();
+
+        private FlakySource(long maxRank) {
+            this.maxRank = maxRank;
+        }
+
+        private void failAfter(int records) {
+            faults.add(records);
+        }
+
+        private void failOnOpen() {
+            faults.add(FAIL_ON_OPEN);
+        }
+
+        @Override
+        public List<FaultRecordDTO> pull(String domain, LocalDate date, long lastRank, int pageSize) {
+            return LongStream.rangeClosed(lastRank + 1, Math.min(maxRank, lastRank + pageSize))
+                    .mapToObj(rank -> FaultRecordDTO.builder()
+                            .domain(domain)
+                            .dataDate(date)
+                            .rank(rank)
+                            .faultType("type")
+                            .deviceId("device-" + rank)
+                            .build())
+                    .toList();
+        }
+
+        @Override
+        public FaultRecordCursor openCursor(String domain, LocalDate date, long lastRank, int pageSize) {
+            opens.add(lastRank + "/" + pageSize);
+            Integer fault = faults.poll();
+            if (fault != null && fault == FAIL_ON_OPEN) {
+                throw new IllegalStateException("upstream open failed lastRank=" + lastRank);
+            }
+            FaultRecordCursor delegate = FaultRecordCursor.of(pull(domain, date, lastRank, pageSize));
+            if (fault == null) {
+                return delegate;
+            }
+            return new FaultRecordCursor() {
+                private int yielded;
+
+                @Override
+                public boolean hasNext() {
+                    return delegate.hasNext();
+                }
+
+                @Override
+                public FaultRecordDTO next() {
+                    if (yielded == fault) {
+                        throw new IllegalStateException("upstream stream broken after " + yielded);
+                    }
+                    yielded++;
+                    return delegate.next();
+                }
+
+                @Override
+                public PageSummary summary() {
+                    return delegate.summary();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package org.cabbage.codedemo.faultdatasync.client;
+
+import org.cabbage.codedemo.faultdatasync.client.UpstreamCircuitBreaker.State;
+import org.cabbage.codedemo.faultdatasync.config.UpstreamResilienceProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UpstreamCircuitBreakerTest {
+
+    private final List<State> transitions = new CopyOnWriteArrayList<>();
+    private UpstreamResilienceProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new UpstreamResilienceProperties();
+        properties.setWindowSize(10);
+        properties.setMinCalls(4);
+        properties.setFailureRateThreshold(0.5);
+        properties.setSlowCallRateThreshold(0.5);
+        properties.setSlowCallMs(1000);
+        properties.setOpenMs(60_000);
+        properties.setHalfOpenCalls(2);
+    }
+
+    @Test
+    void staysClosedUntilMinCallsRecorded() {
+        UpstreamCircuitBreaker breaker = newBreaker();
+
+        for (int i = 0; i < 3; i++) {
+            breaker.onResult(breaker.tryAcquire(), 10, false);
+        }
+        assertThat(breaker.state()).isEqualTo(State.CLOSED);
+
+        breaker.onResult(breaker.tryAcquire(), 10, true);
+        assertThat(breaker.state()).isEqualTo(State.OPEN);
+        assertThat(breaker.tryAcquire()).isEqualTo(UpstreamCircuitBreaker.REJECTED);
+        assertThat(transitions).containsExactly(State.OPEN);
+    }
+
+    @Test
+    void slowSuccessfulCallsOpenCircuit() {
+        UpstreamCircuitBreaker breaker = newBreaker();
+
+        for (int i = 0; i < 4; i++) {
+            breaker.onResult(breaker.tryAcquire(), 1500, true);
+        }
+        assertThat(breaker.state()).isEqualTo(State.OPEN);
+    }
+
+    @Test
+    void halfOpenAdmitsOnlyConfiguredProbesThenCloses() {
+        properties.setOpenMs(0);
+        UpstreamCircuitBreaker breaker = newBreaker();
+        tripOpen(breaker);
+
+        long first = breaker.tryAcquire();
+        long second = breaker.tryAcquire();
+        assertThat(breaker.state()).isEqualTo(State.HALF_OPEN);
+        assertThat(first).isNotEqualTo(UpstreamCircuitBreaker.REJECTED).isEqualTo(second);
+        assertThat(breaker.tryAcquire()).isEqualTo(UpstreamCircuitBreaker.REJECTED);
+
+        breaker.onResult(first, 10, true);
+        assertThat(breaker.state()).isEqualTo(State.HALF_OPEN);
+        breaker.onResult(second, 10, true);
+        assertThat(breaker.state()).isEqualTo(State.CLOSED);
+        assertThat(transitions).containsExactly(State.OPEN, State.HALF_OPEN, State.CLOSED);
+    }
+
+    @Test
+    void failedProbesReopenCircuit() {
+        properties.setOpenMs(0);
+        UpstreamCircuitBreaker breaker = newBreaker();
+        tripOpen(breaker);
+
+        long first = breaker.tryAcquire();
+        long second = breaker.tryAcquire();
+        breaker.onResult(first, 10, false);
+        breaker.onResult(second, 10, true);
+
+        assertThat(breaker.state()).isEqualTo(State.OPEN);
+        assertThat(transitions).containsExactly(State.OPEN, State.HALF_OPEN, State.OPEN);
+    }
+
+    /**
+     * CLOSED 时放行、OPEN 之后才返回的调用携带旧 generation，不得计入 HALF_OPEN 的试探窗口
+     */
+    @Test
+    void resultsFromPreviousGenerationAreIgnored() {
+        properties.setOpenMs(0);
+        UpstreamCircuitBreaker breaker = newBreaker();
+        long stale1 = breaker.tryAcquire();
+        long stale2 = breaker.tryAcquire();
+        tripOpen(breaker);
+
+        breaker.onResult(stale1, 10, false);
+        assertThat(breaker.state()).isEqualTo(State.OPEN);
+
+        long probe1 = breaker.tryAcquire();
+        long probe2 = breaker.tryAcquire();
+        assertThat(probe1).isNotEqualTo(stale1);
+        breaker.onResult(stale2, 10, false);
+        breaker.onResult(probe1, 10, true);
+        assertThat(breaker.state()).isEqualTo(State.HALF_OPEN);
+
+        breaker.onResult(probe2, 10, true);
+        assertThat(breaker.state()).isEqualTo(State.CLOSED);
+    }
+
+    @Test
+    void openCircuitRejectsUntilOpenMsElapsed() throws InterruptedException {
+        properties.setOpenMs(100);
+        UpstreamCircuitBreaker breaker = newBreaker();
+        tripOpen(breaker);
+
+        assertThat(breaker.tryAcquire()).isEqualTo(UpstreamCircuitBreaker.REJECTED);
+        Thread.sleep(150);
+        assertThat(breaker.tryAcquire()).isNotEqualTo(UpstreamCircuitBreaker.REJECTED);
+        assertThat(breaker.state()).isEqualTo(State.HALF_OPEN);
+    }
+
+    private UpstreamCircuitBreaker newBreaker() {
+        return new UpstreamCircuitBreaker(properties, transitions::add);
+    }
+
+    private static void tripOpen(UpstreamCircuitBreaker breaker) {
+        while (breaker.state() == State.CLOSED) {
+            breaker.onResult(breaker.tryAcquire(), 10, false);
+        }
+        assertThat(breaker.state()).isEqualTo(State.OPEN);
+    }
+}
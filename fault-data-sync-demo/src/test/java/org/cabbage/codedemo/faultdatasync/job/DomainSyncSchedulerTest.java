@@ -0,0 +1,139 @@
+package org.cabbage.codedemo.faultdatasync.job;
+
+import org.cabbage.codedemo.faultdatasync.service.SyncTaskRecordService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DomainSyncSchedulerTest {
+
+    private static final LocalDate DATE = LocalDate.of(2024, 1, 1);
+
+    private final SyncTaskRecordService syncTaskRecordService = mock(SyncTaskRecordService.class);
+    private DomainSyncScheduler scheduler;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void poolModeCreatesNoScheduler() {
+        assertThat(new DomainSyncScheduler(syncTaskRecordService, "pool", 4, 3).isEnabled()).isFalse();
+        assertThat(new DomainSyncScheduler(syncTaskRecordService, "priority", 1, 3).isEnabled()).isTrue();
+    }
+
+    /**
+     * 唯一的 worker 被占用期间提交的任务，按预计批次数降序执行；从未运行过的领域（-1）最先
+     */
+    @Test
+    void queuedTasksRunLargestFirst() throws Exception {
+        estimate("blocker", 1);
+        estimate("small", 10);
+        estimate("large", 1000);
+        estimate("medium", 100);
+        estimate("new", -1);
+        scheduler = new DomainSyncScheduler(syncTaskRecordService, "priority", 1, 3);
+        List<String> order = new CopyOnWriteArrayList<>();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch blockerStarted = new CountDownLatch(1);
+
+        CompletableFuture<String> blocker = scheduler.submit("blocker", DATE, () -> {
+            blockerStarted.countDown();
+            await(release);
+            return "blocker";
+        });
+        assertThat(blockerStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (String domain : List.of("small", "large", "medium", "new")) {
+            futures.add(scheduler.submit(domain, DATE, () -> {
+                order.add(domain);
+                return domain;
+            }));
+        }
+        release.countDown();
+
+        assertThat(blocker.get(5, TimeUnit.SECONDS)).isEqualTo("blocker");
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        assertThat(order).containsExactly("new", "large", "medium", "small");
+    }
+
+    @Test
+    void perDomainConcurrencyIsCapped() throws Exception {
+        estimate("a", 100);
+        estimate("b", 1);
+        scheduler = new DomainSyncScheduler(syncTaskRecordService, "priority", 4, 2);
+        AtomicInteger runningA = new AtomicInteger();
+        AtomicInteger maxRunningA = new AtomicInteger();
+        CountDownLatch bDone = new CountDownLatch(1);
+
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            futures.add(scheduler.submit("a", DATE.plusDays(i), () -> {
+                maxRunningA.accumulateAndGet(runningA.incrementAndGet(), Math::max);
+                sleep(50);
+                runningA.decrementAndGet();
+                return "a";
+            }));
+        }
+        // a 占满 2 个名额后，其余 worker 仍能执行其他领域
+        futures.add(scheduler.submit("b", DATE, () -> {
+            bDone.countDown();
+            return "b";
+        }));
+
+        assertThat(bDone.await(1, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+        assertThat(maxRunningA.get()).isEqualTo(2);
+    }
+
+    @Test
+    void taskFailureCompletesFutureAndFreesSlot() throws Exception {
+        estimate("a", 1);
+        scheduler = new DomainSyncScheduler(syncTaskRecordService, "priority", 1, 1);
+
+        CompletableFuture<String> failed = scheduler.submit("a", DATE, () -> {
+            throw new IllegalStateException("boom");
+        });
+        CompletableFuture<String> next = scheduler.submit("a", DATE.plusDays(1), () -> "ok");
+
+        assertThat(next.get(5, TimeUnit.SECONDS)).isEqualTo("ok");
+        assertThat(failed).isCompletedExceptionally();
+    }
+
+    private void estimate(String domain, int batches) {
+        when(syncTaskRecordService.estimateBatchCount(eq(domain), any())).thenReturn(batches);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.cabbage.codedemo.faultdatasync.limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TokenBucketTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void rejectsNonPositiveRate() {
+        assertThatThrownBy(() -> new TokenBucket(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TokenBucket(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void burstUpToOneSecondOfPermitsIsImmediate() {
+        TokenBucket bucket = new TokenBucket(10);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(bucket.reserve()).as("permit %d", i).isZero();
+        }
+        assertThat(bucket.reserve()).isPositive().isLessThanOrEqualTo(100 * MS);
+    }
+
+    /**
+     * 令牌耗尽后每次预占都在前一次的欠额上排队，等待时长按 1 / rate 递增
+     */
+    @Test
+    void reservationsAreStaggeredByPermitInterval() {
+        TokenBucket bucket = new TokenBucket(10);
+        for (int i = 0; i < 10; i++) {
+            bucket.reserve();
+        }
+
+        long first = bucket.reserve();
+        long second = bucket.reserve();
+        long third = bucket.reserve();
+
+        assertThat(second - first).isBetween(80 * MS, 100 * MS);
+        assertThat(third - second).isBetween(80 * MS, 100 * MS);
+        assertThat(third).isBetween(250 * MS, 300 * MS);
+    }
+
+    @Test
+    void fractionalRateKeepsCapacityOfOne() {
+        TokenBucket bucket = new TokenBucket(0.5);
+
+        assertThat(bucket.reserve()).isZero();
+        assertThat(bucket.reserve()).isBetween(1900 * MS, 2000 * MS);
+    }
+
+    @Test
+    void acquireSleepsForReservedWait() {
+        TokenBucket bucket = new TokenBucket(20);
+        for (int i = 0; i < 20; i++) {
+            assertThat(bucket.acquire()).isZero();
+        }
+
+        long start = System.nanoTime();
+        long waited = bucket.acquire();
+
+        assertThat(waited).isPositive();
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(waited);
+    }
+
+    @Test
+    void interruptedAcquireThrowsAndKeepsInterruptFlag() {
+        TokenBucket bucket = new TokenBucket(1);
+        bucket.reserve();
+
+        Thread.currentThread().interrupt();
+        try {
+            assertThatThrownBy(bucket::acquire)
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasCauseInstanceOf(InterruptedException.class);
+            assertThat(Thread.currentThread().isInterrupted()).isTrue();
+        } finally {
+            Thread.interrupted();
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package org.cabbage.codedemo.faultdatasync.mq.codec;
+
+import org.cabbage.codedemo.faultdatasync.model.FaultDataBatchMessage;
+import org.cabbage.codedemo.faultdatasync.model.FaultRecordDTO;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+class BinaryFaultBatchCodecTest {
+
+    private static final String DOMAIN = "domain_a";
+    private static final LocalDate DATE = LocalDate.of(2024, 1, 1);
+
+    private final BinaryFaultBatchCodec plain = new BinaryFaultBatchCodec("none");
+    private final BinaryFaultBatchCodec deflate = new BinaryFaultBatchCodec("deflate");
+
+    @Test
+    void roundTripsWithoutCompression() {
+        FaultDataBatchMessage message = message(12, 1000, 40);
+
+        byte[] bytes = plain.encode(message);
+
+        assertThat(bytes[3]).isZero();
+        assertThat(plain.decode(bytes)).isEqualTo(message);
+        // 解码按 flags 自适应，与本端压缩配置无关
+        assertThat(deflate.decode(bytes)).isEqualTo(message);
+    }
+
+    @Test
+    void roundTripsThroughDeflate() {
+        FaultDataBatchMessage message = message(3, 5000, 500);
+
+        byte[] compressed = deflate.encode(message);
+        byte[] raw = plain.encode(message);
+
+        assertThat(compressed[3]).isEqualTo((byte) 1);
+        assertThat(compressed.length).isLessThan(raw.length);
+        assertThat(deflate.decode(compressed)).isEqualTo(message);
+        assertThat(plain.decode(compressed)).isEqualTo(message);
+    }
+
+    @Test
+    void smallBodyIsNotCompressed() {
+        FaultDataBatchMessage message = message(0, 0, 2);
+
+        assertThat(deflate.encode(message)[3]).isZero();
+        assertThat(deflate.decode(deflate.encode(message))).isEqualTo(message);
+    }
+
+    @Test
+    void roundTripsEmptyBatchAndNullFields() {
+        FaultDataBatchMessage empty = FaultDataBatchMessage.builder()
+                .domain(null)
+                .dataDate(null)
+                .batchIndex(0)
+                .startRank(0)
+                .records(List.of())
+                .build();
+
+        assertThat(plain.decode(plain.encode(empty))).isEqualTo(empty);
+    }
+
+    @Test
+    void rejectsRecordOutsideBatchHeader() {
+        FaultDataBatchMessage message = message(0, 0, 2);
+        message.getRecords().get(1).setDomain("domain_b");
+
+        assertThatThrownBy(() -> plain.encode(message)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsForeignOrUnsupportedPayload() {
+        assertThatThrownBy(() -> plain.decode(new byte[0])).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> plain.decode("{\"domain\":1}".getBytes(StandardCharsets.UTF_8)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> plain.decode(new byte[]{'F', 'B', 9, 0}))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("version");
+    }
+
+    /**
+     * 任意截断位置都必须以 IllegalArgumentException 失败，而不是越界、负数组或按残缺数据解出部分记录
+     */
+    @Test
+    void everyTruncatedPrefixIsRejected() {
+        FaultDataBatchMessage message = message(7, 300, 60);
+        for (byte[] full : List.of(plain.encode(message), deflate.encode(message))) {
+            for (int length = 0; length < full.length; length++) {
+                byte[] prefix = Arrays.copyOf(full, length);
+                assertThatThrownBy(() -> plain.decode(prefix))
+                        .as("prefix length %d of %d (flags=%d)", length, full.length, full[3])
+                        .isInstanceOf(IllegalArgumentException.class);
+            }
+        }
+    }
+
+    /**
+     * 逐字节翻转：解码要么成功，要么抛出 IllegalArgumentException
+     */
+    @Test
+    void corruptedBytesFailCleanly() {
+        FaultDataBatchMessage message = message(7, 300, 60);
+        for (byte[] full : List.of(plain.encode(message), deflate.encode(message))) {
+            for (int i = 0; i < full.length; i++) {
+                byte[] corrupted = full.clone();
+                corrupted[i] ^= (byte) 0xFF;
+                Throwable error = catchThrowable(() -> plain.decode(corrupted));
+                if (error != null) {
+                    assertThat(error).as("byte %d (flags=%d)", i, full[3])
+                            .isInstanceOf(IllegalArgumentException.class);
+                }
+            }
+        }
+    }
+
+    @Test
+    void hugeRecordCountIsRejectedBeforeAllocation() {
+        byte[] payload = header(0)
+                .string(DOMAIN).varLong(DATE.toEpochDay() + 1).varLong(0).varLong(0)
+                .varLong(Integer.MAX_VALUE)
+                .toByteArray();
+
+        assertThatThrownBy(() -> plain.decode(payload))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("exceeds");
+    }
+
+    @Test
+    void hugeDictionaryIsRejectedBeforeAllocation() {
+        byte[] payload = header(0)
+                .string(DOMAIN).varLong(DATE.toEpochDay() + 1).varLong(0).varLong(0)
+                .varLong(1).varLong(Integer.MAX_VALUE)
+                .string("x").string("x").string("x").string("x")
+                .toByteArray();
+
+        assertThatThrownBy(() -> plain.decode(payload))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("exceeds");
+    }
+
+    @Test
+    void hugeRawLengthIsRejectedBeforeAllocation() {
+        byte[] payload = header(1).varLong(Integer.MAX_VALUE).bytes(new byte[]{0x78, 0x01}).toByteArray();
+
+        assertThatThrownBy(() -> plain.decode(payload))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("exceeds");
+    }
+
+    @Test
+    void outOfRangeDictionaryReferenceIsRejected() {
+        byte[] payload = header(0)
+                .string(DOMAIN).varLong(DATE.toEpochDay() + 1).varLong(0).varLong(0)
+                .varLong(1).varLong(1).string("type")
+                .varLong(2).varLong(2).string("device").string("detail")
+                .toByteArray();
+
+        assertThatThrownBy(() -> plain.decode(payload)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void oversizedStringLengthIsRejected() {
+        byte[] payload = header(0).varLong(Long.MAX_VALUE).toByteArray();
+
+        assertThatThrownBy(() -> plain.decode(payload))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Truncated");
+    }
+
+    /**
+     * startRank 之后 count 条记录；rank 间隔不等且含回退，faultType 从 3 种中取并含 null，字符串含非 ASCII
+     */
+    private static FaultDataBatchMessage message(int batchIndex, long startRank, int count) {
+        List<FaultRecordDTO> records = new ArrayList<>(count);
+        long rank = startRank;
+        for (int i = 0; i < count; i++) {
+            rank += i % 7 == 6 ? -1 : 1 + i % 3;
+            records.add(FaultRecordDTO.builder()
+                    .domain(DOMAIN)
+                    .dataDate(DATE)
+                    .rank(rank)
+                    .faultType(i % 5 == 4 ? null : "TYPE_" + i % 3)
+                    .deviceId(i % 11 == 10 ? null : "device-" + i)
+                    .faultDetail(i % 13 == 12 ? "" : "温度过高 overheat #" + i + " " + "x".repeat(i % 40))
+                    .build());
+        }
+        return FaultDataBatchMessage.builder()
+                .domain(DOMAIN)
+                .dataDate(DATE)
+                .batchIndex(batchIndex)
+                .startRank(startRank)
+                .records(records)
+                .build();
+    }
+
+    private static Payload header(int flags) {
+        return new Payload().bytes(new byte[]{'F', 'B', 1, (byte) flags});
+    }
+
+    /**
+     * 手工拼装载荷，用于构造编码器不会产出的长度字段
+     */
+    private static final class Payload {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        private Payload varLong(long v) {
+            while ((v & ~0x7FL) != 0) {
+                out.write((int) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            out.write((int) v);
+            return this;
+        }
+
+        private Payload string(String s) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            return varLong(bytes.length + 1L).bytes(bytes);
+        }
+
+        private Payload bytes(byte[] bytes) {
+            out.writeBytes(bytes);
+            return this;
+        }
+
+        private byte[] toByteArray() {
+            return out.toByteArray();
+        }
+    }
+}
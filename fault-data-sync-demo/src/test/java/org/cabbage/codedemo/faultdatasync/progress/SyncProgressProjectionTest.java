@@ -0,0 +1,212 @@
+package org.cabbage.codedemo.faultdatasync.progress;
+
+import org.cabbage.codedemo.faultdatasync.entity.SyncBatchRecordEntity;
+import org.cabbage.codedemo.faultdatasync.entity.SyncTaskRecordEntity;
+import org.cabbage.codedemo.faultdatasync.limit.SyncBackpressureController;
+import org.cabbage.codedemo.faultdatasync.mapper.SyncBatchRecordMapper;
+import org.cabbage.codedemo.faultdatasync.mapper.SyncTaskRecordMapper;
+import org.cabbage.codedemo.faultdatasync.model.SyncProgressView;
+import org.cabbage.codedemo.faultdatasync.support.H2StatusDatabase;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.AdditionalAnswers;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 读库快照模式：进度按刷新间隔取自 sync_task_record + sync_batch_record，与本实例收到的事件无关，
+ * 两次刷新之间的查询只读内存快照
+ * <p>
+ * 数据库见 {@link H2StatusDatabase}。
+ */
+class SyncProgressProjectionTest {
+
+    private static final String DOMAIN = "domain_a";
+    private static final LocalDate DATE = LocalDate.now().minusDays(1);
+
+    private static H2StatusDatabase database;
+
+    private SyncTaskRecordMapper taskMapper;
+    private SyncBatchRecordMapper batchMapper;
+    private final SyncBackpressureController backpressureController = mock(SyncBackpressureController.class);
+
+    @BeforeAll
+    static void setUpDatabase() throws Exception {
+        database = H2StatusDatabase.start("sync_progress", 4);
+    }
+
+    @AfterAll
+    static void tearDownDatabase() {
+        database.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        database.reset();
+        taskMapper = database.mapper(SyncTaskRecordMapper.class);
+        // 委托给真实 mapper，用于断言刷新之间没有查询
+        batchMapper = mock(SyncBatchRecordMapper.class,
+                AdditionalAnswers.delegatesTo(database.mapper(SyncBatchRecordMapper.class)));
+        when(backpressureController.level(any())).thenReturn(SyncBackpressureController.Level.NORMAL);
+    }
+
+    /**
+     * derived 模式下 completed_batch_count 保持 0，进度按批次表统计；失败批次与窗口内速率同样取自批次表
+     */
+    @Test
+    void derivedModeCountsBatchesFromDatabase() {
+        task(DOMAIN, DATE, "MESSAGES_SENT", 4);
+        LocalDateTime now = LocalDateTime.now();
+        batch(DOMAIN, DATE, 0, "SUCCESS", now.minusHours(1), null);
+        batch(DOMAIN, DATE, 1, "SUCCESS", now, null);
+        batch(DOMAIN, DATE, 2, "SUCCESS", now, null);
+        batch(DOMAIN, DATE, 3, "FAILED", now, "duplicate key");
+        SyncProgressProjection projection = projection("derived", false);
+
+        SyncProgressView view = projection.get(DOMAIN, DATE);
+
+        assertThat(projection.isDatabaseBacked()).isTrue();
+        assertThat(view.getSource()).isEqualTo("database");
+        assertThat(view.getStatus()).isEqualTo("MESSAGES_SENT");
+        assertThat(view.getBatchCount()).isEqualTo(4);
+        assertThat(view.getBatchesSent()).isEqualTo(4);
+        assertThat(view.getBatchesCompleted()).isEqualTo(3);
+        assertThat(view.getRecordsSent()).isEqualTo(40);
+        assertThat(view.getRecordsCompleted()).isEqualTo(30);
+        assertThat(view.getRecordsPerSecond()).isPositive();
+        assertThat(view.getEtaSeconds()).isNotNull();
+        assertThat(view.getFailedBatches()).singleElement().satisfies(failed -> {
+            assertThat(failed.getBatchIndex()).isEqualTo(3);
+            assertThat(failed.getStage()).isEqualTo("insert");
+            assertThat(failed.getErrorMessage()).isEqualTo("duplicate key");
+        });
+    }
+
+    @Test
+    void allBatchesInsertedShowsSuccessBeforeFinalizerRuns() {
+        task(DOMAIN, DATE, "MESSAGES_SENT", 2);
+        batch(DOMAIN, DATE, 0, "SUCCESS", LocalDateTime.now(), null);
+        batch(DOMAIN, DATE, 1, "SUCCESS", LocalDateTime.now(), null);
+
+        SyncProgressView view = projection("derived", false).get(DOMAIN, DATE);
+
+        assertThat(view.getStatus()).isEqualTo("SUCCESS");
+        assertThat(view.getEtaSeconds()).isNull();
+    }
+
+    /**
+     * 多实例：其他实例消费的批次同样可见，本实例的事件不影响结果
+     */
+    @Test
+    void multiInstanceIgnoresLocalEvents() {
+        task(DOMAIN, DATE, "RUNNING", 0);
+        batch(DOMAIN, DATE, 0, "SUCCESS", LocalDateTime.now(), null);
+        SyncProgressProjection projection = projection("counter", true);
+
+        projection.onRunStarted(DOMAIN, DATE);
+        projection.onBatchesInserted(DOMAIN, DATE, List.of(5, 6), 2, 20);
+
+        SyncProgressView view = projection.get(DOMAIN, DATE);
+        assertThat(view.getStatus()).isEqualTo("RUNNING");
+        assertThat(view.getBatchesCompleted()).isEqualTo(1);
+        assertThat(view.getRecordsCompleted()).isEqualTo(10);
+    }
+
+    @Test
+    void listFiltersByDomainAndSyncWindow() {
+        task(DOMAIN, DATE, "SUCCESS", 0);
+        task(DOMAIN, DATE.minusDays(1), "FAILED", 0);
+        task(DOMAIN, LocalDate.now().minusDays(30), "SUCCESS", 0);
+        task("domain_b", DATE, "RUNNING", 0);
+        SyncProgressProjection projection = projection("derived", false);
+
+        assertThat(projection.list(DOMAIN)).extracting(SyncProgressView::getDataDate)
+                .containsExactly(DATE, DATE.minusDays(1));
+        assertThat(projection.list(null)).hasSize(3);
+        assertThat(projection.get("domain_c", DATE)).isNull();
+    }
+
+    @Test
+    void requestsBetweenRefreshesAreServedFromSnapshot() {
+        task(DOMAIN, DATE, "MESSAGES_SENT", 2);
+        batch(DOMAIN, DATE, 0, "SUCCESS", LocalDateTime.now(), null);
+        SyncProgressProjection projection = projection("derived", false);
+        batch(DOMAIN, DATE, 1, "SUCCESS", LocalDateTime.now(), null);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(projection.get(DOMAIN, DATE).getBatchesCompleted()).isEqualTo(1);
+            assertThat(projection.list(null)).hasSize(1);
+            assertThat(projection.dashboard().getActive()).hasSize(1);
+        }
+        verify(batchMapper, times(1)).aggregateProgress(any(), any());
+
+        projection.refresh();
+        assertThat(projection.get(DOMAIN, DATE).getStatus()).isEqualTo("SUCCESS");
+        verify(batchMapper, times(2)).aggregateProgress(any(), any());
+    }
+
+    @Test
+    void counterModeOnSingleInstanceUsesEvents() {
+        task(DOMAIN, DATE, "RUNNING", 0);
+        SyncProgressProjection projection = projection("counter", false);
+
+        assertThat(projection.isDatabaseBacked()).isFalse();
+        assertThat(projection.get(DOMAIN, DATE)).isNull();
+
+        projection.onRunStarted(DOMAIN, DATE);
+        assertThat(projection.get(DOMAIN, DATE).getSource()).isEqualTo("events");
+    }
+
+    private SyncProgressProjection projection(String progressMode, boolean multiInstance) {
+        SyncProgressProjection projection = new SyncProgressProjection(taskMapper, batchMapper,
+                backpressureController, progressMode, multiInstance);
+        ReflectionTestUtils.setField(projection, "syncDays", 5);
+        ReflectionTestUtils.setField(projection, "rateWindowMs", 60000L);
+        ReflectionTestUtils.setField(projection, "maxFailedBatches", 100);
+        projection.refresh();
+        return projection;
+    }
+
+    private void task(String domain, LocalDate date, String status, int batchCount) {
+        taskMapper.insert(SyncTaskRecordEntity.builder()
+                .domain(domain)
+                .dataDate(date)
+                .status(status)
+                .batchCount(batchCount)
+                .completedBatchCount(0)
+                .retryCount(0)
+                .startTime(LocalDateTime.now().minusMinutes(5))
+                .build());
+    }
+
+    private void batch(String domain, LocalDate date, int batchIndex, String insertStatus,
+                       LocalDateTime updateTime, String errorMessage) {
+        batchMapper.insert(SyncBatchRecordEntity.builder()
+                .domain(domain)
+                .dataDate(date)
+                .batchIndex(batchIndex)
+                .startRank(batchIndex * 10L)
+                .endRank(batchIndex * 10L + 10)
+                .recordCount(10)
+                .pageSize(10)
+                .pullStatus("SUCCESS")
+                .insertStatus(insertStatus)
+                .rejectCount(0)
+                .errorMessage(errorMessage)
+                .createTime(updateTime)
+                .updateTime(updateTime)
+                .build());
+    }
+}
@@ -0,0 +1,245 @@
+package org.cabbage.codedemo.faultdatasync.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import org.cabbage.codedemo.faultdatasync.bookkeeping.SyncBatchBookkeeper;
+import org.cabbage.codedemo.faultdatasync.entity.SyncBatchRecordEntity;
+import org.cabbage.codedemo.faultdatasync.entity.SyncTaskRecordEntity;
+import org.cabbage.codedemo.faultdatasync.mapper.SyncBatchRecordMapper;
+import org.cabbage.codedemo.faultdatasync.mapper.SyncTaskRecordMapper;
+import org.cabbage.codedemo.faultdatasync.progress.SyncProgressProjection;
+import org.cabbage.codedemo.faultdatasync.support.H2StatusDatabase;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.AdditionalAnswers;
+import org.mockito.stubbing.Answer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * derived 进度模式的完成判定：多个消费者同时完成最后几个批次时，任务只被置为 SUCCESS 一次
+ * <p>
+ * 数据库见 {@link H2StatusDatabase}（每条语句自动提交，与消费端不开事务时的行为一致）。
+ */
+class SyncTaskRecordServiceImplTest {
+
+    private static final String DOMAIN = "test-domain";
+    private static final int BATCHES = 8;
+    private static final int ROUNDS = 20;
+
+    private static H2StatusDatabase database;
+
+    /** markSuccessIfAllBatchesInserted 实际命中（affected > 0）的次数 */
+    private final AtomicInteger successTransitions = new AtomicInteger();
+
+    private SyncBatchRecordMapper batchMapper;
+    private SyncTaskRecordMapper taskMapper;
+    private SyncBatchRecordServiceImpl batchService;
+    private SyncTaskRecordServiceImpl taskService;
+
+    @BeforeAll
+    static void setUpDatabase() throws Exception {
+        database = H2StatusDatabase.start("sync_status", BATCHES * 2);
+    }
+
+    @AfterAll
+    static void tearDownDatabase() {
+        database.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        database.reset();
+
+        batchMapper = database.mapper(SyncBatchRecordMapper.class);
+        SyncTaskRecordMapper realTaskMapper = database.mapper(SyncTaskRecordMapper.class);
+        Answer<Object> delegate = AdditionalAnswers.delegatesTo(realTaskMapper);
+        taskMapper = mock(SyncTaskRecordMapper.class, invocation -> {
+            Object result = delegate.answer(invocation);
+            if ("markSuccessIfAllBatchesInserted".equals(invocation.getMethod().getName()) && (int) result > 0) {
+                successTransitions.incrementAndGet();
+            }
+            return result;
+        });
+
+        SyncProgressProjection projection = mock(SyncProgressProjection.class);
+        // 默认 mock 的 isEnabled() 返回 false，即 direct 记账模式
+        batchService = new SyncBatchRecordServiceImpl(batchMapper, projection, mock(SyncBatchBookkeeper.class));
+        taskService = new SyncTaskRecordServiceImpl(taskMapper, batchService, projection);
+        ReflectionTestUtils.setField(taskService, "progressMode", "derived");
+    }
+
+    /**
+     * 所有消费者先写完各自批次，再同时做最后一批判定：每个人的一致性读都看不到未完成批次，
+     * 全部进入 markSuccessIfAllBatchesInserted，只能有一条 UPDATE 命中
+     */
+    @Test
+    void concurrentFinalizersMarkSuccessExactlyOnce() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            LocalDate date = LocalDate.of(2024, 1, 1).plusDays(round);
+            prepareMessagesSent(date);
+            successTransitions.set(0);
+
+            completeAllConcurrently(date, true);
+
+            assertThat(successTransitions.get()).as("round %d SUCCESS transitions", round).isEqualTo(1);
+            assertTask(date, "SUCCESS", BATCHES);
+        }
+    }
+
+    /**
+     * 消费者各自完成批次后立即判定，判定与其他批次的完成交错进行
+     */
+    @Test
+    void interleavedCompletionMarksSuccessExactlyOnce() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            LocalDate date = LocalDate.of(2024, 2, 1).plusDays(round);
+            prepareMessagesSent(date);
+            successTransitions.set(0);
+
+            completeAllConcurrently(date, false);
+
+            assertThat(successTransitions.get()).as("round %d SUCCESS transitions", round).isEqualTo(1);
+            assertTask(date, "SUCCESS", BATCHES);
+        }
+    }
+
+    /**
+     * 仍有批次未入库时不置 SUCCESS；最后一批完成后置为 SUCCESS，之后的重复判定（MQ 重投）不再命中
+     */
+    @Test
+    void pendingBatchBlocksSuccessAndRedeliveryIsNoop() {
+        LocalDate date = LocalDate.of(2024, 3, 1);
+        prepareMessagesSent(date);
+
+        for (int i = 0; i < BATCHES - 1; i++) {
+            completeBatch(date, i);
+        }
+        assertThat(successTransitions.get()).isZero();
+        assertTask(date, "MESSAGES_SENT", 0);
+
+        completeBatch(date, BATCHES - 1);
+        assertThat(successTransitions.get()).isEqualTo(1);
+        assertTask(date, "SUCCESS", BATCHES);
+
+        assertThat(batchService.markInsertSuccess(DOMAIN, date, BATCHES - 1)).isZero();
+        assertThat(taskService.finalizeIfAllBatchesInserted(DOMAIN, date)).isFalse();
+        assertThat(successTransitions.get()).isEqualTo(1);
+    }
+
+    /**
+     * 全部批次在 updateMessagesSent 之前完成：消费端判定不命中（仍为 RUNNING），由生产端补偿检查置为 SUCCESS
+     */
+    @Test
+    void batchesFinishedBeforeMessagesSentAreFinalizedByProducer() {
+        LocalDate date = LocalDate.of(2024, 4, 1);
+        insertTask(date, "RUNNING", 0);
+        insertBatches(date);
+
+        for (int i = 0; i < BATCHES; i++) {
+            completeBatch(date, i);
+        }
+        assertThat(successTransitions.get()).isZero();
+        assertTask(date, "RUNNING", 0);
+
+        taskService.updateMessagesSent(DOMAIN, date, BATCHES);
+        taskService.checkAndMarkSuccessIfAllDone(DOMAIN, date);
+        assertThat(successTransitions.get()).isEqualTo(1);
+        assertTask(date, "SUCCESS", BATCHES);
+    }
+
+    private void completeAllConcurrently(LocalDate date, boolean alignFinalize) throws Exception {
+        CyclicBarrier start = new CyclicBarrier(BATCHES);
+        CyclicBarrier finalize = new CyclicBarrier(BATCHES);
+        ExecutorService pool = Executors.newFixedThreadPool(BATCHES);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < BATCHES; i++) {
+                int batchIndex = i;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    int affected = batchService.markInsertSuccess(DOMAIN, date, batchIndex);
+                    if (alignFinalize) {
+                        finalize.await();
+                    }
+                    if (affected > 0) {
+                        taskService.incrementCompletedBatch(DOMAIN, date);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * 与 FaultDataConsumer 完成一批的顺序相同：先置批次 SUCCESS，首次成功才推进任务
+     */
+    private void completeBatch(LocalDate date, int batchIndex) {
+        if (batchService.markInsertSuccess(DOMAIN, date, batchIndex) > 0) {
+            taskService.incrementCompletedBatch(DOMAIN, date);
+        }
+    }
+
+    private void prepareMessagesSent(LocalDate date) {
+        insertTask(date, "MESSAGES_SENT", BATCHES);
+        insertBatches(date);
+    }
+
+    private void insertTask(LocalDate date, String status, int batchCount) {
+        taskMapper.insert(SyncTaskRecordEntity.builder()
+                .domain(DOMAIN)
+                .dataDate(date)
+                .status(status)
+                .batchCount(batchCount)
+                .completedBatchCount(0)
+                .retryCount(0)
+                .startTime(LocalDateTime.now())
+                .build());
+    }
+
+    private void insertBatches(LocalDate date) {
+        for (int i = 0; i < BATCHES; i++) {
+            batchMapper.insert(SyncBatchRecordEntity.builder()
+                    .domain(DOMAIN)
+                    .dataDate(date)
+                    .batchIndex(i)
+                    .startRank((long) i * 100)
+                    .endRank((long) i * 100 + 99)
+                    .recordCount(100)
+                    .pageSize(100)
+                    .pullStatus("SUCCESS")
+                    .insertStatus("PENDING")
+                    .rejectCount(0)
+                    .createTime(LocalDateTime.now())
+                    .updateTime(LocalDateTime.now())
+                    .build());
+        }
+    }
+
+    private void assertTask(LocalDate date, String status, int completedBatchCount) {
+        SyncTaskRecordEntity task = taskMapper.selectOne(new LambdaQueryWrapper<SyncTaskRecordEntity>()
+                .eq(SyncTaskRecordEntity::getDomain, DOMAIN)
+                .eq(SyncTaskRecordEntity::getDataDate, date));
+        assertThat(task.getStatus()).isEqualTo(status);
+        assertThat(task.getCompletedBatchCount()).isEqualTo(completedBatchCount);
+    }
+}
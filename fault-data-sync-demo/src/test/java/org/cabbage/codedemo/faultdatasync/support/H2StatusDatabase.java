@@ -0,0 +1,64 @@
+package org.cabbage.codedemo.faultdatasync.support;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.config.GlobalConfig;
+import com.baomidou.mybatisplus.extension.spring.MybatisSqlSessionFactoryBean;
+import com.zaxxer.hikari.HikariDataSource;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+/**
+ * 状态表测试库：H2（MySQL 兼容模式）+ 真实的 SyncTaskRecordMapper.xml / SyncBatchRecordMapper.xml，
+ * 每条语句自动提交，与消费端不开事务时的行为一致
+ */
+public final class H2StatusDatabase implements AutoCloseable {
+
+    private final HikariDataSource dataSource;
+    private final SqlSessionTemplate sqlSessionTemplate;
+
+    private H2StatusDatabase(HikariDataSource dataSource, SqlSessionTemplate sqlSessionTemplate) {
+        this.dataSource = dataSource;
+        this.sqlSessionTemplate = sqlSessionTemplate;
+    }
+
+    /**
+     * @param name        内存库名，各测试类使用不同名称互不干扰
+     * @param maxPoolSize 连接池大小，不小于并发执行语句的线程数
+     */
+    public static H2StatusDatabase start(String name, int maxPoolSize) throws Exception {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:" + name + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;"
+                + "DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000");
+        dataSource.setUsername("sa");
+        dataSource.setMaximumPoolSize(maxPoolSize);
+
+        GlobalConfig globalConfig = new GlobalConfig();
+        globalConfig.setBanner(false);
+        MybatisSqlSessionFactoryBean factoryBean = new MybatisSqlSessionFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setConfiguration(new MybatisConfiguration());
+        factoryBean.setGlobalConfig(globalConfig);
+        factoryBean.setMapperLocations(new Resource[]{
+                new ClassPathResource("mapper/SyncTaskRecordMapper.xml"),
+                new ClassPathResource("mapper/SyncBatchRecordMapper.xml")});
+        return new H2StatusDatabase(dataSource, new SqlSessionTemplate(factoryBean.getObject()));
+    }
+
+    /**
+     * 重建 sync_task_record / sync_batch_record
+     */
+    public void reset() {
+        new ResourceDatabasePopulator(new ClassPathResource("db/sync_status_h2.sql")).execute(dataSource);
+    }
+
+    public <T> T mapper(Class<T> type) {
+        return sqlSessionTemplate.getMapper(type);
+    }
+
+    @Override
+    public void close() {
+        dataSource.close();
+    }
+}
@@ -0,0 +1,186 @@
+package org.cabbage.codedemo.faultdatasync.writer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.cabbage.codedemo.faultdatasync.entity.FaultRecordEntity;
+import org.cabbage.codedemo.faultdatasync.entity.FaultRecordRejectEntity;
+import org.cabbage.codedemo.faultdatasync.mapper.FaultRecordRejectMapper;
+import org.cabbage.codedemo.faultdatasync.metrics.SyncMetrics;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 二分隔离：坏记录逐条定位到 fault_record_reject，其余记录全部写入；无法隔离时按原异常抛出
+ */
+class PoisonRecordIsolatorTest {
+
+    private static final String DOMAIN = "domain_a";
+    private static final LocalDate DATE = LocalDate.of(2024, 1, 1);
+
+    private final FaultRecordRejectMapper rejectMapper = mock(FaultRecordRejectMapper.class);
+
+    @Test
+    void oneBadRowIsIsolated() {
+        FakeStrictWriter writer = new FakeStrictWriter(Set.of(5));
+        PoisonRecordIsolator isolator = isolator(writer, 100);
+
+        PoisonRecordIsolator.Outcome outcome = isolator.write(records(16), 3, "consumer");
+
+        assertThat(outcome.rejected()).isEqualTo(1);
+        assertThat(outcome.inserted()).isEqualTo(15);
+        assertThat(writer.written).containsExactlyInAnyOrderElementsOf(ranksExcept(16, Set.of(5)));
+        assertThat(rejects()).singleElement().satisfies(reject -> {
+            assertThat(reject.getRank()).isEqualTo(5L);
+            assertThat(reject.getBatchIndex()).isEqualTo(3);
+            assertThat(reject.getSource()).isEqualTo("consumer");
+            assertThat(reject.getErrorMessage()).contains("rank=5");
+        });
+    }
+
+    /**
+     * 相邻与分散的坏记录都被定位，写入次数远少于逐条写入
+     */
+    @Test
+    void severalBadRowsAreIsolated() {
+        Set<Integer> bad = Set.of(3, 40, 41, 99);
+        FakeStrictWriter writer = new FakeStrictWriter(bad);
+        PoisonRecordIsolator isolator = isolator(writer, 100);
+
+        PoisonRecordIsolator.Outcome outcome = isolator.write(records(100), 0, "replay");
+
+        assertThat(outcome.rejected()).isEqualTo(4);
+        assertThat(outcome.inserted()).isEqualTo(96);
+        assertThat(writer.written).containsExactlyInAnyOrderElementsOf(ranksExcept(100, bad));
+        assertThat(rejects()).extracting(FaultRecordRejectEntity::getRank)
+                .containsExactlyInAnyOrder(3L, 40L, 41L, 99L);
+        assertThat(writer.writes).isLessThan(100);
+    }
+
+    @Test
+    void allBadRowsRethrowWithoutIsolating() {
+        FakeStrictWriter writer = new FakeStrictWriter(Set.of(0, 1, 2, 3, 4, 5, 6, 7));
+        PoisonRecordIsolator isolator = isolator(writer, 100);
+
+        assertThatThrownBy(() -> isolator.write(records(8), 0, "consumer"))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(writer.written).isEmpty();
+        verify(rejectMapper, never()).batchUpsert(any());
+    }
+
+    @Test
+    void tooManyBadRowsRethrowWithoutIsolating() {
+        FakeStrictWriter writer = new FakeStrictWriter(Set.of(1, 2, 3));
+        PoisonRecordIsolator isolator = isolator(writer, 2);
+
+        assertThatThrownBy(() -> isolator.write(records(10), 0, "consumer"))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        verify(rejectMapper, never()).batchUpsert(any());
+    }
+
+    @Test
+    void transientFailureIsNotBisected() {
+        FakeStrictWriter writer = new FakeStrictWriter(Set.of());
+        writer.transientFailure = true;
+        PoisonRecordIsolator isolator = isolator(writer, 100);
+
+        assertThatThrownBy(() -> isolator.write(records(10), 0, "consumer"))
+                .isInstanceOf(QueryTimeoutException.class);
+        assertThat(writer.writes).isEqualTo(1);
+    }
+
+    @Test
+    void nonStrictWriterDisablesIsolationAndWritesPlainly() {
+        FaultRecordWriter plain = List::size;
+        PoisonRecordIsolator isolator = new PoisonRecordIsolator(plain, rejectMapper,
+                new SyncMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(isolator, "enabled", true);
+
+        assertThat(isolator.isEnabled()).isFalse();
+        assertThat(isolator.write(records(4), 0, "replay")).isEqualTo(new PoisonRecordIsolator.Outcome(4, 0));
+        assertThat(isolator.writeOnce(records(3))).isEqualTo(3);
+    }
+
+    private PoisonRecordIsolator isolator(FaultRecordWriter writer, int maxRejects) {
+        PoisonRecordIsolator isolator = new PoisonRecordIsolator(writer, rejectMapper,
+                new SyncMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(isolator, "enabled", true);
+        ReflectionTestUtils.setField(isolator, "maxRejects", maxRejects);
+        return isolator;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<FaultRecordRejectEntity> rejects() {
+        ArgumentCaptor<List<FaultRecordRejectEntity>> captor = ArgumentCaptor.forClass(List.class);
+        verify(rejectMapper).batchUpsert(captor.capture());
+        return captor.getValue();
+    }
+
+    private static List<FaultRecordEntity> records(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(rank -> FaultRecordEntity.builder()
+                        .domain(DOMAIN)
+                        .dataDate(DATE)
+                        .rank(rank)
+                        .generation(1)
+                        .faultType("type")
+                        .deviceId("device-" + rank)
+                        .faultDetail("detail")
+                        .build())
+                .toList();
+    }
+
+    private static List<Integer> ranksExcept(int count, Set<Integer> excluded) {
+        return IntStream.range(0, count).filter(rank -> !excluded.contains(rank)).boxed().toList();
+    }
+
+    /**
+     * 严格写入时含坏 rank 的分区整体失败（与单条 INSERT 语句一致），否则全部写入
+     */
+    private static final class FakeStrictWriter implements StrictFaultRecordWriter {
+
+        private final Set<Integer> badRanks;
+        private final List<Integer> written = new ArrayList<>();
+        private boolean transientFailure;
+        private int writes;
+
+        private FakeStrictWriter(Set<Integer> badRanks) {
+            this.badRanks = badRanks;
+        }
+
+        @Override
+        public int write(List<FaultRecordEntity> entities) {
+            throw new AssertionError("isolation must use strict writes");
+        }
+
+        @Override
+        public int writeStrict(List<FaultRecordEntity> entities) {
+            writes++;
+            if (transientFailure) {
+                throw new QueryTimeoutException("Lock wait timeout exceeded");
+            }
+            for (FaultRecordEntity entity : entities) {
+                if (badRanks.contains(entity.getRank())) {
+                    throw new DataIntegrityViolationException("Data too long for column 'fault_detail' rank="
+                            + entity.getRank());
+                }
+            }
+            entities.forEach(entity -> written.add(entity.getRank()));
+            return entities.size();
+        }
+    }
+}
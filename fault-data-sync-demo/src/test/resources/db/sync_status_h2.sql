@@ -0,0 +1,38 @@
+-- 测试用状态表（H2 MySQL 兼容模式），列与 sql/init.sql、db/sync_batch_record.sql 保持一致，省略 MySQL 专有的表选项
+DROP TABLE IF EXISTS sync_task_record;
+DROP TABLE IF EXISTS sync_batch_record;
+
+CREATE TABLE sync_task_record (
+    id                    BIGINT AUTO_INCREMENT PRIMARY KEY,
+    domain                VARCHAR(100) NOT NULL,
+    data_date             DATE NOT NULL,
+    status                VARCHAR(20) NOT NULL,
+    batch_count           INT DEFAULT 0,
+    completed_batch_count INT DEFAULT 0,
+    retry_count           INT DEFAULT 0,
+    error_message         VARCHAR(500),
+    start_time            DATETIME,
+    end_time              DATETIME,
+    create_time           DATETIME DEFAULT CURRENT_TIMESTAMP,
+    update_time           DATETIME DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_domain_date UNIQUE (domain, data_date)
+);
+
+CREATE TABLE sync_batch_record (
+    id             BIGINT AUTO_INCREMENT PRIMARY KEY,
+    domain         VARCHAR(64)  NOT NULL,
+    data_date      DATE         NOT NULL,
+    batch_index    INT          NOT NULL,
+    start_rank     BIGINT       NOT NULL,
+    end_rank       BIGINT       NOT NULL DEFAULT 0,
+    record_count   INT          NOT NULL DEFAULT 0,
+    range_end_rank BIGINT,
+    page_size      INT          NOT NULL DEFAULT 0,
+    pull_status    VARCHAR(16)  NOT NULL DEFAULT 'PENDING',
+    insert_status  VARCHAR(16)  NOT NULL DEFAULT 'PENDING',
+    reject_count   INT          NOT NULL DEFAULT 0,
+    error_message  VARCHAR(500),
+    create_time    DATETIME,
+    update_time    DATETIME,
+    CONSTRAINT uk_domain_date_batch UNIQUE (domain, data_date, batch_index)
+);